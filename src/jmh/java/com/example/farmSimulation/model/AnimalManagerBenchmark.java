@@ -0,0 +1,65 @@
+package com.example.farmSimulation.model;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Đo một frame cập nhật đàn vật nuôi (công việc logic của AnimalManager chạy trọn, rồi updateAnimals)
+ * với nhiều quy mô đàn.
+ *
+ * Đàn sinh sản, đói và chết theo thời gian nên mỗi lần gọi dựng lại đàn mới rồi chạy FRAMES frame liên tiếp
+ * (10 giây game, đủ để các lượt logic ngắt quãng xen giữa các frame chỉ di chuyển);
+ * kết quả được chia cho số frame nên đơn vị là thời gian của một frame.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AnimalManagerBenchmark {
+    private static final int FRAMES = 600;
+    private static final int TILES = 10_000;
+
+    @Param({"10", "100", "1000"})
+    public int herdSize;
+
+    private WorldMap worldMap;
+    private AnimalManager animalManager;
+    private Player player;
+    private long now;
+
+    @Setup(Level.Trial)
+    public void setUpWorld() {
+        worldMap = new WorldMap();
+        BenchmarkWorlds.fillGrass(worldMap, TILES);
+        BenchmarkWorlds.scatterObstacles(worldMap, TILES, 0.02);
+        player = new Player();
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpHerd() {
+        animalManager = new AnimalManager(worldMap, new CollisionManager(worldMap));
+        AnimalType[] types = AnimalType.values();
+        double[] positions = BenchmarkWorlds.randomPositions(TILES, herdSize);
+        Random random = new Random(BenchmarkWorlds.SEED);
+        for (int i = 0; i < herdSize; i++) {
+            animalManager.addAnimal(new Animal(types[random.nextInt(types.length)], positions[i * 2], positions[i * 2 + 1]));
+        }
+        now = System.nanoTime();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FRAMES)
+    public boolean updateAnimals() {
+        boolean redraw = false;
+        for (int frame = 0; frame < FRAMES; frame++) {
+            now += BenchmarkWorlds.FRAME_NANOS;
+            redraw |= FrameScheduler.runToCompletion(animalManager.getLogicJob(), now);
+            redraw |= animalManager.updateAnimals(now, player);
+        }
+        return redraw;
+    }
+}
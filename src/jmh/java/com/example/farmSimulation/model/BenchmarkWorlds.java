@@ -0,0 +1,92 @@
+package com.example.farmSimulation.model;
+
+import com.example.farmSimulation.config.TreeConfig;
+import com.example.farmSimulation.config.WorldConfig;
+
+import java.util.Random;
+
+/**
+ * Dựng bản đồ giả lập cho các benchmark JMH: một vùng vuông quanh gốc tọa độ, các đối tượng được rải
+ * vào những ô khác nhau theo seed cố định (cùng tham số luôn cho cùng bản đồ).
+ * Chỉ dùng model, không cần JavaFX toolkit nên chạy được trên máy không có màn hình.
+ */
+final class BenchmarkWorlds {
+    static final long SEED = 42L;
+    static final long FRAME_NANOS = 16_666_667L; // 60 FPS
+
+    private BenchmarkWorlds() {}
+
+    /**
+     * Cạnh của vùng vuông chứa đủ số ô.
+     */
+    static int sideFor(int tiles) {
+        return (int) Math.ceil(Math.sqrt(tiles));
+    }
+
+    /**
+     * Điền đủ số ô cỏ đã khám phá vào bản đồ (vùng vuông cạnh sideFor(tiles), tâm ở gốc tọa độ).
+     */
+    static void fillGrass(WorldMap worldMap, int tiles) {
+        int side = sideFor(tiles);
+        for (int i = 0; i < tiles; i++) {
+            worldMap.setTileData(i % side - side / 2, i / side - side / 2, new TileData(Tile.GRASS));
+        }
+        worldMap.clearDirtyTiles();
+    }
+
+    /**
+     * Đặt cây trồng lên crops ô đầu tiên của vùng vuông. Đất được tưới với mốc "không bao giờ khô"
+     * để trạng thái không trôi (cây không chết) dù benchmark tua thời gian rất xa.
+     */
+    static void plantCrops(WorldMap worldMap, int tiles, int crops, long now) {
+        int side = sideFor(tiles);
+        CropType[] types = CropType.values();
+        Random random = new Random(SEED);
+        for (int i = 0; i < crops; i++) {
+            CropType type = types[random.nextInt(types.length)];
+            TileData data = new TileData(Tile.SOIL_WET);
+            data.setWatered(true);
+            data.setLastWateredTime(Long.MAX_VALUE / 2);
+            data.setCropData(new CropData(type, random.nextInt(type.getMaxStages()), now));
+            worldMap.setTileData(i % side - side / 2, i / side - side / 2, data);
+        }
+        worldMap.clearDirtyTiles();
+    }
+
+    /**
+     * Rải cây và hàng rào ngẫu nhiên trên vùng vuông (mỗi loại chiếm tỉ lệ density số ô).
+     */
+    static void scatterObstacles(WorldMap worldMap, int tiles, double density) {
+        int side = sideFor(tiles);
+        Random random = new Random(SEED);
+        for (int i = 0; i < tiles; i++) {
+            double roll = random.nextDouble();
+            if (roll >= 2 * density) continue;
+            int col = i % side - side / 2;
+            int row = i / side - side / 2;
+            TileData data;
+            if (roll < density) {
+                data = new TileData(Tile.TREE);
+                data.setTreeData(new TreeData(TreeConfig.TREE_MATURE_STAGE));
+            } else {
+                data = new TileData(Tile.FENCE);
+                data.setFenceData(new FenceData(false));
+            }
+            worldMap.setTileData(col, row, data);
+        }
+        worldMap.clearDirtyTiles();
+    }
+
+    /**
+     * Tọa độ pixel ngẫu nhiên bên trong vùng vuông.
+     */
+    static double[] randomPositions(int tiles, int count) {
+        double half = sideFor(tiles) / 2.0 * WorldConfig.TILE_SIZE;
+        Random random = new Random(SEED);
+        double[] positions = new double[count * 2];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = (random.nextDouble() * 2 - 1) * half;
+        }
+        return positions;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.farmSimulation.model;
+
+import com.example.farmSimulation.config.SaveConfig;
+import com.example.farmSimulation.model.GameSaveState.SavedTileData;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Đo thời gian ghi / đọc region file khi mã hóa và nén chunk song song (ChunkCodec) với 1, 2, 4 và 8 luồng,
+ * trên cùng một nông trại giả lập. File ghi ra phải giống nhau với mọi số luồng (kiểm tra khi chuẩn bị).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ChunkCodecBenchmark {
+
+    @Param({"500000"})
+    public int tiles;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private GameSaveState state;
+    private Path tempDirectory;
+    private Path saveFile;
+    private Path writeDirectory;
+    private ChunkCodec codec;
+    private RegionStore store;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        state = SaveFormatReport.createSyntheticFarm(tiles, BenchmarkWorlds.SEED);
+        tempDirectory = Files.createTempDirectory("farm_codec_benchmark");
+        saveFile = tempDirectory.resolve("farm_save.sav");
+        codec = new ChunkCodec(threads, SaveConfig.CHUNK_COMPRESSION_LEVEL);
+
+        // Thư mục để đọc: ghi một lần bằng 1 luồng. Ghi và đọc dùng thư mục riêng để thư mục đã ánh xạ không bị ghi đè
+        Path readDirectory = RegionStore.directoryFor(saveFile, 0);
+        ChunkCodec single = new ChunkCodec(1, SaveConfig.CHUNK_COMPRESSION_LEVEL);
+        try {
+            RegionStore.writeWorld(state, readDirectory, single);
+        } finally {
+            single.close();
+        }
+        store = RegionStore.open(readDirectory);
+
+        writeDirectory = RegionStore.directoryFor(saveFile, 1);
+        RegionStore.writeWorld(state, writeDirectory, codec);
+        long expected = RegionStore.directorySize(readDirectory);
+        long actual = RegionStore.directorySize(writeDirectory);
+        if (actual != expected) {
+            throw new IllegalStateException("Output size differs with " + threads + " threads: " + actual + " != " + expected);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        codec.close();
+        SaveManager.deleteSaveFiles(saveFile);
+        Files.deleteIfExists(tempDirectory);
+    }
+
+    @Benchmark
+    public int save() throws IOException {
+        return RegionStore.writeWorld(state, writeDirectory, codec);
+    }
+
+    @Benchmark
+    public List<SavedTileData> load() {
+        List<SavedTileData> out = new ArrayList<>();
+        store.readAllTiles(out, codec);
+        return out;
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.farmSimulation.model;
+
+import com.example.farmSimulation.config.PlayerSpriteConfig;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Đo kiểm tra va chạm của hộp chân nhân vật (CollisionManager.checkCollision) tại các vị trí ngẫu nhiên
+ * trên bản đồ có cây và hàng rào.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CollisionManagerBenchmark {
+    private static final int POSITIONS = 4096; // Lũy thừa của 2 để quay vòng bằng phép AND
+
+    @Param({"100000"})
+    public int tiles;
+
+    @Param({"0.02", "0.1"})
+    public double obstacleDensity;
+
+    private CollisionManager collisionManager;
+    private double[] positions;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        WorldMap worldMap = new WorldMap();
+        BenchmarkWorlds.fillGrass(worldMap, tiles);
+        BenchmarkWorlds.scatterObstacles(worldMap, tiles, obstacleDensity);
+        collisionManager = new CollisionManager(worldMap);
+        positions = BenchmarkWorlds.randomPositions(tiles, POSITIONS);
+    }
+
+    @Benchmark
+    public boolean checkCollision() {
+        int i = (cursor++ & (POSITIONS - 1)) * 2;
+        return collisionManager.checkCollision(positions[i], positions[i + 1],
+                PlayerSpriteConfig.COLLISION_BOX_WIDTH, PlayerSpriteConfig.COLLISION_BOX_HEIGHT);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.farmSimulation.model;
+
+import com.example.farmSimulation.config.SchedulerConfig;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Đo một lượt cập nhật cây trồng trọn vẹn (CropManager.updateCrops: mọi đơn vị của lượt, không chia ngân sách frame)
+ * trên bản đồ có nhiều ô đất canh tác.
+ * Mỗi lần gọi tua thời gian đúng CROP_PASS_MIN_INTERVAL_MS để lượt cập nhật luôn thực sự chạy.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CropManagerBenchmark {
+    private static final long UPDATE_STEP_NANOS = SchedulerConfig.CROP_PASS_MIN_INTERVAL_MS * 1_000_000L;
+
+    @Param({"100000"})
+    public int tiles;
+
+    @Param({"1000", "10000", "50000"})
+    public int crops;
+
+    private CropManager cropManager;
+    private long now;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        now = System.nanoTime();
+        WorldMap worldMap = new WorldMap();
+        BenchmarkWorlds.fillGrass(worldMap, tiles);
+        BenchmarkWorlds.plantCrops(worldMap, tiles, crops, now);
+        cropManager = new CropManager(worldMap);
+        cropManager.updateCrops(now); // Lượt đầu tiên chỉ khởi tạo mốc thời gian
+    }
+
+    @Benchmark
+    public boolean updateCrops() {
+        now += UPDATE_STEP_NANOS;
+        return cropManager.updateCrops(now);
+    }
+}
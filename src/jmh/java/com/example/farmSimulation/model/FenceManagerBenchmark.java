@@ -0,0 +1,38 @@
+package com.example.farmSimulation.model;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Đo việc tính lại hình dạng toàn bộ hàng rào (FenceManager.updateAllFencePatterns), chạy sau mỗi lần tải game.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FenceManagerBenchmark {
+
+    @Param({"10000", "100000"})
+    public int tiles;
+
+    @Param({"0.05"})
+    public double obstacleDensity;
+
+    private FenceManager fenceManager;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        WorldMap worldMap = new WorldMap();
+        BenchmarkWorlds.fillGrass(worldMap, tiles);
+        BenchmarkWorlds.scatterObstacles(worldMap, tiles, obstacleDensity);
+        fenceManager = new FenceManager(worldMap);
+    }
+
+    @Benchmark
+    public void updateAllFencePatterns() {
+        fenceManager.updateAllFencePatterns();
+    }
+}
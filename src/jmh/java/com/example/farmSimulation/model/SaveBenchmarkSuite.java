@@ -0,0 +1,256 @@
+package com.example.farmSimulation.model;
+
+import com.example.farmSimulation.model.GameSaveState.SavedTileData;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Bộ đo lưu / tải game trên các nông trại giả lập nhiều quy mô (xem SyntheticFarm), chạy không cần giao diện.
+ * Với mỗi quy mô đo: thời gian lưu (SaveManager.saveGame), thời gian tải (SaveManager.loadGame + giải mã toàn bộ bản đồ,
+ * tức phần việc nặng của GameManager.loadGameData), kích thước file save (kể cả region file) và heap đỉnh.
+ *
+ * Kết quả được ghi ra file CSV. Nếu có file baseline, mỗi chỉ số được so với baseline và chương trình
+ * thoát với mã 1 khi có chỉ số tệ hơn ngưỡng cho phép (tác vụ Gradle thất bại theo).
+ * Thời gian / heap phụ thuộc máy: sau khi cố ý thay đổi định dạng hoặc đổi máy chạy, cập nhật baseline bằng --update-baseline.
+ *
+ * Chạy: ./gradlew saveBenchmark  (cập nhật baseline: ./gradlew saveBenchmark -PupdateBaseline)
+ * Tham số: --sizes small,medium,large  --baseline file.csv  --out file.csv  --update-baseline
+ *          --time-threshold 0.5  --size-threshold 0.05  --heap-threshold 0.3
+ */
+public class SaveBenchmarkSuite {
+    private static final String DEFAULT_SIZES = "small,medium,large";
+    private static final int WARMUP_ROUNDS = 2;
+    private static final int MEASURED_ROUNDS = 5;
+    private static final long SEED = 42L;
+
+    // Chênh lệch tuyệt đối nhỏ hơn mức này không bị coi là tệ hơn (tránh báo sai với số đo rất nhỏ)
+    private static final double TIME_SLACK_MS = 5.0;
+    private static final double HEAP_SLACK_MB = 8.0;
+
+    private static final String[] COLUMNS = {"size", "explored_tiles", "crops", "fences", "trees", "animals", "ground_items",
+            "save_ms", "load_ms", "file_bytes", "peak_heap_mb"};
+
+    /**
+     * Kết quả đo của một quy mô.
+     */
+    private static final class Result {
+        final SyntheticFarm farm;
+        final double saveMs;
+        final double loadMs;
+        final long fileBytes;
+        final double peakHeapMb;
+
+        Result(SyntheticFarm farm, double saveMs, double loadMs, long fileBytes, double peakHeapMb) {
+            this.farm = farm;
+            this.saveMs = saveMs;
+            this.loadMs = loadMs;
+            this.fileBytes = fileBytes;
+            this.peakHeapMb = peakHeapMb;
+        }
+
+        String toCsv() {
+            return String.format(Locale.ROOT, "%s,%d,%d,%d,%d,%d,%d,%.2f,%.2f,%d,%.1f", farm.name, farm.exploredTiles,
+                    farm.crops, farm.fences, farm.trees, farm.animals, farm.groundItems, saveMs, loadMs, fileBytes, peakHeapMb);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        String sizes = options.getOrDefault("sizes", DEFAULT_SIZES);
+        Path outFile = Paths.get(options.getOrDefault("out", "build/reports/save-benchmark/results.csv"));
+        Path baselineFile = options.containsKey("baseline") ? Paths.get(options.get("baseline")) : null;
+        double timeThreshold = Double.parseDouble(options.getOrDefault("time-threshold", "0.5"));
+        double sizeThreshold = Double.parseDouble(options.getOrDefault("size-threshold", "0.05"));
+        double heapThreshold = Double.parseDouble(options.getOrDefault("heap-threshold", "0.3"));
+
+        List<Result> results = new ArrayList<>();
+        for (String spec : sizes.split(",")) {
+            SyntheticFarm farm = SyntheticFarm.parse(spec.trim());
+            System.out.println("=== Benchmarking '" + farm.name + "' farm (" + farm.exploredTiles + " tiles) ===");
+            results.add(run(farm));
+        }
+
+        // --- Ghi kết quả ---
+        List<String> lines = new ArrayList<>();
+        lines.add(String.join(",", COLUMNS));
+        for (Result result : results) lines.add(result.toCsv());
+        if (outFile.getParent() != null) Files.createDirectories(outFile.getParent());
+        Files.write(outFile, lines, StandardCharsets.UTF_8);
+
+        System.out.println();
+        System.out.printf("%-10s %12s %12s %14s %14s%n", "Size", "Save (ms)", "Load (ms)", "File (bytes)", "Peak heap (MB)");
+        for (Result result : results) {
+            System.out.printf("%-10s %12.2f %12.2f %14d %14.1f%n",
+                    result.farm.name, result.saveMs, result.loadMs, result.fileBytes, result.peakHeapMb);
+        }
+        System.out.println("Results written to " + outFile);
+
+        if (baselineFile == null) return;
+        if (options.containsKey("update-baseline")) {
+            // Ghi kèm thông tin máy đo: thời gian / heap chỉ so sánh được trên cùng loại máy
+            List<String> baselineLines = new ArrayList<>();
+            baselineLines.add(String.format("# SaveBenchmarkSuite baseline - %s %s, %d CPUs, Java %s",
+                    System.getProperty("os.name"), System.getProperty("os.arch"),
+                    Runtime.getRuntime().availableProcessors(), System.getProperty("java.version")));
+            baselineLines.addAll(lines);
+            if (baselineFile.getParent() != null) Files.createDirectories(baselineFile.getParent());
+            Files.write(baselineFile, baselineLines, StandardCharsets.UTF_8);
+            System.out.println("Baseline updated: " + baselineFile);
+            return;
+        }
+        if (!Files.exists(baselineFile)) {
+            System.out.println("No baseline at " + baselineFile + ", skipping regression check.");
+            return;
+        }
+
+        // --- So với baseline ---
+        Map<String, String[]> baseline = readCsv(baselineFile);
+        List<String> regressions = new ArrayList<>();
+        for (Result result : results) {
+            String[] row = baseline.get(result.farm.name);
+            if (row == null) {
+                System.out.println("No baseline row for '" + result.farm.name + "', skipping.");
+                continue;
+            }
+            if (!row[1].equals(Integer.toString(result.farm.exploredTiles)) || !row[2].equals(Integer.toString(result.farm.crops))) {
+                System.out.println("Baseline row for '" + result.farm.name + "' was measured on a different farm size, skipping.");
+                continue;
+            }
+            check(regressions, result.farm.name, "save_ms", Double.parseDouble(row[7]), result.saveMs, timeThreshold, TIME_SLACK_MS);
+            check(regressions, result.farm.name, "load_ms", Double.parseDouble(row[8]), result.loadMs, timeThreshold, TIME_SLACK_MS);
+            check(regressions, result.farm.name, "file_bytes", Double.parseDouble(row[9]), result.fileBytes, sizeThreshold, 0);
+            check(regressions, result.farm.name, "peak_heap_mb", Double.parseDouble(row[10]), result.peakHeapMb, heapThreshold, HEAP_SLACK_MB);
+        }
+
+        if (regressions.isEmpty()) {
+            System.out.println("PASS: no metric regressed beyond its threshold against " + baselineFile);
+        } else {
+            System.out.println("FAIL: " + regressions.size() + " metric(s) regressed against " + baselineFile + ":");
+            for (String regression : regressions) System.out.println("  " + regression);
+            System.exit(1);
+        }
+    }
+
+    // ==============================================================================================
+    // ĐO MỘT QUY MÔ
+    // ==============================================================================================
+
+    private static Result run(SyntheticFarm farm) throws Exception {
+        GameSaveState state = farm.generate(SEED);
+        Path tempDirectory = Files.createTempDirectory("farm_save_benchmark");
+        Path saveFile = tempDirectory.resolve("farm_save.sav");
+        try {
+            // Lưu đầy đủ mỗi lần (không có region cũ để chép), giống lần lưu đầu tiên của một nông trại
+            double saveMs = measure(() -> SaveManager.saveGame(state, saveFile));
+            long fileBytes = Files.size(saveFile)
+                    + RegionStore.directorySize(RegionStore.directoryFor(saveFile, state.saveGeneration));
+            double loadMs = measure(() -> loadFully(saveFile));
+
+            // Heap đỉnh: một lượt lưu + một lượt tải sau khi dọn rác (gồm cả trạng thái game đang giữ)
+            resetPeakHeap();
+            SaveManager.saveGame(state, saveFile);
+            loadFully(saveFile);
+            double peakHeapMb = peakHeap() / (1024.0 * 1024.0);
+
+            return new Result(farm, saveMs, loadMs, fileBytes, peakHeapMb);
+        } finally {
+            SaveManager.deleteSaveFiles(saveFile);
+            Files.deleteIfExists(tempDirectory);
+        }
+    }
+
+    /**
+     * Tải file save và giải mã mọi ô của bản đồ (trường hợp xấu nhất: toàn bộ bản đồ cần nằm trong bộ nhớ).
+     */
+    private static int loadFully(Path saveFile) {
+        GameSaveState loaded = SaveManager.loadGame(saveFile);
+        if (loaded == null) throw new IllegalStateException("Benchmark save could not be loaded");
+        List<SavedTileData> tiles = new ArrayList<>(loaded.worldTiles);
+        if (loaded.regionStore != null) loaded.regionStore.readAllTiles(tiles);
+        return tiles.size();
+    }
+
+    // ==============================================================================================
+    // HÀM HỖ TRỢ
+    // ==============================================================================================
+
+    private interface Task {
+        void run() throws Exception;
+    }
+
+    /**
+     * Chạy tác vụ nhiều lần, trả về trung vị theo mili giây.
+     */
+    private static double measure(Task task) throws Exception {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) task.run();
+        long[] samples = new long[MEASURED_ROUNDS];
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            long start = System.nanoTime();
+            task.run();
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        return samples[MEASURED_ROUNDS / 2] / 1e6;
+    }
+
+    private static void resetPeakHeap() {
+        System.gc();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) pool.resetPeakUsage();
+        }
+    }
+
+    /**
+     * Tổng mức dùng đỉnh của các vùng heap kể từ lần reset (xấp xỉ trên của heap đỉnh).
+     */
+    private static long peakHeap() {
+        long total = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null) total += pool.getPeakUsage().getUsed();
+        }
+        return total;
+    }
+
+    private static void check(List<String> regressions, String size, String metric,
+                              double baseline, double current, double threshold, double slack) {
+        double limit = Math.max(baseline * (1 + threshold), baseline + slack);
+        String line = String.format(Locale.ROOT, "%-8s %-13s baseline %12.2f  current %12.2f  (%+.1f%%)",
+                size, metric, baseline, current, baseline > 0 ? (current - baseline) / baseline * 100 : 0);
+        System.out.println((current > limit ? "REGRESSED " : "ok        ") + line);
+        if (current > limit) regressions.add(line);
+    }
+
+    private static Map<String, String[]> readCsv(Path file) throws IOException {
+        Map<String, String[]> rows = new LinkedHashMap<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            if (line.isBlank() || line.startsWith("#") || line.startsWith(COLUMNS[0] + ",")) continue;
+            String[] row = line.split(",");
+            if (row.length == COLUMNS.length) rows.put(row[0], row);
+        }
+        return rows;
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--")) throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+            String name = args[i].substring(2);
+            boolean hasValue = i + 1 < args.length && !args[i + 1].startsWith("--");
+            options.put(name, hasValue ? args[++i] : "true");
+        }
+        return options;
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.farmSimulation.model;
+
+import com.example.farmSimulation.model.GameSaveState.SavedAnimal;
+import com.example.farmSimulation.model.GameSaveState.SavedItemStack;
+import com.example.farmSimulation.model.GameSaveState.SavedTileData;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Công cụ chạy độc lập (không cần giao diện) so sánh định dạng save cũ (Java Serialization)
+ * với định dạng nhị phân mới trên một nông trại giả lập.
+ * In ra: kích thước file, thời gian ghi và thời gian tải (trung vị của nhiều lần chạy).
+ *
+ * Chạy: ./gradlew saveFormatReport  (hoặc truyền số ô: --args="250000")
+ */
+public class SaveFormatReport {
+    private static final int DEFAULT_TILE_COUNT = 100_000;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 7;
+    private static final long SEED = 42L;
+
+    public static void main(String[] args) throws Exception {
+        int tileCount = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_TILE_COUNT;
+        GameSaveState state = createSyntheticFarm(tileCount, SEED);
+
+        System.out.println("=== Save format report: " + state.worldTiles.size() + " tiles ===");
+
+        // --- Định dạng cũ: Java Serialization (trong bộ nhớ, không tính I/O đĩa) ---
+        byte[] legacyBytes = serializeLegacy(state);
+        long[] legacySave = measure(() -> serializeLegacy(state));
+        long[] legacyLoad = measure(() -> deserializeLegacy(legacyBytes));
+
+        // --- Định dạng mới (trong bộ nhớ) ---
+        byte[] binaryBytes = SaveCodec.encodeToBytes(state);
+        long[] binarySave = measure(() -> SaveCodec.encodeToBytes(state));
+        long[] binaryLoad = measure(() -> SaveCodec.decodeFromBytes(binaryBytes));
+
+        // --- Định dạng mới qua FileChannel + region file (bao gồm I/O đĩa) ---
+        // Tải lười: chỉ đọc file save và ánh xạ region file; giải mã toàn bộ được đo riêng
+        Path tempDirectory = Files.createTempDirectory("farm_save_report");
+        Path tempFile = tempDirectory.resolve("farm_save.sav");
+        long[] fileSave;
+        long[] fileLoad;
+        long[] fileDecodeAll;
+        long fileSize;
+        try {
+            fileSave = measure(() -> SaveManager.saveGame(state, tempFile));
+            fileSize = Files.size(tempFile) + RegionStore.directorySize(RegionStore.directoryFor(tempFile, state.saveGeneration));
+            fileLoad = measure(() -> SaveManager.loadGame(tempFile));
+            fileDecodeAll = measure(() -> SaveManager.loadGame(tempFile).regionStore.readAllTiles(new ArrayList<>()));
+        } finally {
+            SaveManager.deleteSaveFiles(tempFile);
+            Files.deleteIfExists(tempDirectory);
+        }
+
+        // Kiểm tra giải mã không mất ô nào có dữ liệu
+        GameSaveState decoded = SaveCodec.decodeFromBytes(binaryBytes);
+
+        System.out.printf("%-28s %12s %12s %12s%n", "Format", "Size (bytes)", "Save (ms)", "Load (ms)");
+        printRow("Java Serialization (memory)", legacyBytes.length, legacySave, legacyLoad);
+        printRow("Binary (memory)", binaryBytes.length, binarySave, binaryLoad);
+        printRow("Region files (lazy open)", fileSize, fileSave, fileLoad);
+        printRow("Region files (full decode)", fileSize, fileSave, fileDecodeAll);
+        System.out.printf("Size ratio: %.1fx smaller%n", (double) legacyBytes.length / binaryBytes.length);
+        System.out.println("Non-default tiles round-tripped: " + decoded.worldTiles.size());
+    }
+
+    // ==============================================================================================
+    // NÔNG TRẠI GIẢ LẬP
+    // ==============================================================================================
+
+    /**
+     * Tạo trạng thái game giả lập với tileCount ô (hình chữ nhật gần vuông quanh gốc tọa độ).
+     * Tỷ lệ ô tương tự một nông trại thật: phần lớn là cỏ trống (ô đã đi qua),
+     * một phần là đất canh tác có cây trồng, cây tự nhiên, hàng rào và vật phẩm rơi.
+     */
+    public static GameSaveState createSyntheticFarm(int tileCount, long seed) {
+        Random random = new Random(seed);
+        GameSaveState state = new GameSaveState();
+        state.playerName = "Benchmark";
+        state.playerMoney = 12_345;
+        state.playerLevel = 7;
+        state.playerStamina = 80;
+        state.currentDay = 12;
+        state.currentDaySeconds = 300;
+
+        ItemType[] items = ItemType.values();
+        for (int i = 0; i < 10; i++) {
+            state.inventory.add(i % 3 == 2 ? null : new SavedItemStack(items[random.nextInt(items.length)], 1 + random.nextInt(20), 0));
+        }
+        AnimalType[] animals = AnimalType.values();
+        for (int i = 0; i < 50; i++) {
+            state.animals.add(new SavedAnimal(animals[random.nextInt(animals.length)],
+                    random.nextDouble() * 2000, random.nextDouble() * 2000, random.nextInt(5000), random.nextDouble() * 100));
+        }
+
+        CropType[] crops = CropType.values();
+        int width = (int) Math.ceil(Math.sqrt(tileCount));
+        for (int i = 0; i < tileCount; i++) {
+            SavedTileData tile = new SavedTileData();
+            tile.col = i % width - width / 2;
+            tile.row = i / width - width / 2;
+            tile.baseType = Tile.GRASS;
+
+            double roll = random.nextDouble();
+            if (roll < 0.20) {
+                // Đất canh tác, phần lớn có cây trồng
+                tile.baseType = random.nextBoolean() ? Tile.SOIL : Tile.SOIL_WET;
+                tile.isWatered = tile.baseType == Tile.SOIL_WET;
+                if (tile.isWatered) tile.lastWateredTime = random.nextLong();
+                if (random.nextDouble() < 0.8) {
+                    CropType crop = crops[random.nextInt(crops.length)];
+                    tile.hasCrop = true;
+                    tile.cropType = crop;
+                    tile.cropStage = random.nextInt(crop.getMaxStages());
+                }
+                if (random.nextDouble() < 0.1) {
+                    tile.isFertilized = true;
+                    tile.fertilizerStartTime = random.nextLong();
+                }
+            } else if (roll < 0.25) {
+                tile.baseType = Tile.TREE;
+                tile.hasTree = true;
+                tile.treeStage = random.nextInt(4);
+            } else if (roll < 0.27) {
+                tile.hasFence = true;
+                tile.fenceIsOpen = random.nextDouble() < 0.1;
+            } else if (roll < 0.28) {
+                tile.hasGroundItem = true;
+                tile.groundItemType = items[random.nextInt(items.length)];
+                tile.groundItemAmount = 1 + random.nextInt(5);
+                tile.groundItemOffsetX = random.nextDouble() * 32;
+                tile.groundItemOffsetY = random.nextDouble() * 32;
+            } else if (roll < 0.29) {
+                tile.baseType = Tile.WATER;
+            }
+            state.worldTiles.add(tile);
+        }
+        return state;
+    }
+
+    // ==============================================================================================
+    // HÀM HỖ TRỢ ĐO ĐẠC
+    // ==============================================================================================
+
+    private interface Task {
+        void run() throws Exception;
+    }
+
+    /**
+     * Chạy tác vụ nhiều lần, trả về [trung vị, nhỏ nhất] theo nano giây.
+     */
+    private static long[] measure(Task task) throws Exception {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) task.run();
+        long[] samples = new long[MEASURED_ROUNDS];
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            long start = System.nanoTime();
+            task.run();
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        return new long[]{samples[MEASURED_ROUNDS / 2], samples[0]};
+    }
+
+    private static void printRow(String name, long size, long[] save, long[] load) {
+        System.out.printf("%-28s %12d %12.2f %12.2f%n", name, size, save[0] / 1e6, load[0] / 1e6);
+    }
+
+    private static byte[] serializeLegacy(GameSaveState state) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+            oos.writeObject(state);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static GameSaveState deserializeLegacy(byte[] data) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(data))) {
+            return (GameSaveState) ois.readObject();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.farmSimulation.model;
+
+import com.example.farmSimulation.config.WorldConfig;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Đo việc sinh cây quanh người chơi (TreeManager.generateTreesAroundPlayer).
+ *
+ * Ô đã xét sẽ không được xét lại và bản đồ lớn dần theo quãng đường đi, nên mỗi lần gọi dùng bản đồ mới
+ * và chạy một loạt bước; kết quả được chia cho số bước nên đơn vị là thời gian của một bước:
+ * - walkOneTile: người chơi tiến thêm một ô trên đường thẳng (mỗi bước chỉ có một hàng ô mới, giống lúc đi bộ thật).
+ * - enterNewArea: người chơi tới vùng hoàn toàn mới, phải xét toàn bộ bán kính sinh cây.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TreeManagerBenchmark {
+    private static final int WALK_STEPS = 256;
+    private static final int AREA_JUMPS = 16;
+    private static final double AREA_JUMP_PIXELS = WorldConfig.TILE_SIZE * 64; // Xa hơn đường kính vùng sinh cây
+
+    private TreeManager treeManager;
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        treeManager = new TreeManager(new WorldMap());
+        treeManager.generateTreesAroundPlayer(0, 0); // Vùng xuất phát
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(WALK_STEPS)
+    public boolean walkOneTile() {
+        boolean spawned = false;
+        for (int step = 1; step <= WALK_STEPS; step++) {
+            spawned |= treeManager.generateTreesAroundPlayer(step * WorldConfig.TILE_SIZE, 0);
+        }
+        return spawned;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(AREA_JUMPS)
+    public boolean enterNewArea() {
+        boolean spawned = false;
+        for (int jump = 1; jump <= AREA_JUMPS; jump++) {
+            spawned |= treeManager.generateTreesAroundPlayer(jump * AREA_JUMP_PIXELS, 0);
+        }
+        return spawned;
+    }
+}
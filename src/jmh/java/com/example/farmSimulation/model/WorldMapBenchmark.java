@@ -0,0 +1,59 @@
+package com.example.farmSimulation.model;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Đo truy cập ô trên bản đồ: WorldMap.getTileData (ô đã có trong bộ nhớ) và setTileData.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WorldMapBenchmark {
+    private static final int LOOKUPS = 4096; // Lũy thừa của 2 để quay vòng bằng phép AND
+
+    @Param({"10000", "100000", "1000000"})
+    public int tiles;
+
+    private WorldMap worldMap;
+    private int[] cols;
+    private int[] rows;
+    private TileData[] values;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        worldMap = new WorldMap();
+        BenchmarkWorlds.fillGrass(worldMap, tiles);
+
+        // Các ô truy cập được chọn ngẫu nhiên trước để benchmark không đo bộ sinh số ngẫu nhiên
+        int side = BenchmarkWorlds.sideFor(tiles);
+        Random random = new Random(BenchmarkWorlds.SEED);
+        cols = new int[LOOKUPS];
+        rows = new int[LOOKUPS];
+        values = new TileData[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            int index = random.nextInt(tiles);
+            cols[i] = index % side - side / 2;
+            rows[i] = index / side - side / 2;
+            values[i] = worldMap.getTileData(cols[i], rows[i]);
+        }
+    }
+
+    @Benchmark
+    public TileData getTileData() {
+        int i = cursor++ & (LOOKUPS - 1);
+        return worldMap.getTileData(cols[i], rows[i]);
+    }
+
+    @Benchmark
+    public void setTileData() {
+        int i = cursor++ & (LOOKUPS - 1);
+        worldMap.setTileData(cols[i], rows[i], values[i]);
+    }
+}
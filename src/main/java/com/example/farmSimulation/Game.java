@@ -1,18 +1,33 @@
 package com.example.farmSimulation;
 
 import com.example.farmSimulation.config.AssetPaths;
+import com.example.farmSimulation.config.ReplayConfig;
 import com.example.farmSimulation.controller.GameController;
+import com.example.farmSimulation.model.GameClock;
 import com.example.farmSimulation.model.GameManager;
+import com.example.farmSimulation.model.GameSaveState;
+import com.example.farmSimulation.model.InputRecording;
 import com.example.farmSimulation.model.Player;
+import com.example.farmSimulation.model.SaveManager;
+import com.example.farmSimulation.model.SimulationClock;
 import com.example.farmSimulation.model.WorldMap;
+import com.example.farmSimulation.model.WorldRandom;
 import com.example.farmSimulation.view.CharacterCreationView;
 import com.example.farmSimulation.view.HotbarView;
 import com.example.farmSimulation.view.MainGameView;
 import com.example.farmSimulation.view.PlayerView;
+import com.example.farmSimulation.view.assets.AssetLoader;
 import com.example.farmSimulation.view.assets.ImageManager;
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Lớp chịu trách nhiệm khởi tạo và liên kết tất cả các thành phần
  * theo mô hình Model, View, Controller (MVC).
@@ -23,21 +38,79 @@ public class Game {
     private Player player;
     private WorldMap worldMap;
 
+    // --- Trạng thái tải tài nguyên ---
+    private CharacterCreationView characterCreationView; // Màn hình menu đang hiển thị (nhận tiến trình tải)
+    private boolean assetsLoaded = false;
+    private boolean assetsLoadedSuccessfully = true;
+
+    // --- Ghi / phát lại đầu vào (xem ReplayConfig) ---
+    private String recordPath = System.getProperty(ReplayConfig.RECORD_PROPERTY); // Chỉ ghi phiên chơi đầu tiên
+    private final String replayPath = System.getProperty(ReplayConfig.REPLAY_PROPERTY);
+    private InputRecording pendingReplay;                // Bản ghi sẽ được phát lại ở phiên chơi sắp tạo
+    private Path recordingFile;                          // File ghi của phiên chơi đang ghi
+
+    private GameManager activeGameManager;               // Phiên chơi đang chạy (null khi đang ở menu)
+
     /**
      * Điểm bắt đầu của trò chơi, tải tài nguyên và hiển thị menu.
      */
     public void start(Stage primaryStage) {
         this.primaryStage = primaryStage;
+        long startupStartTime = System.nanoTime();
 
-        // Tải toàn bộ tài nguyên hình ảnh một lần duy nhất khi ứng dụng bắt đầu
         imageManager = new ImageManager();
-        imageManager.loadAssets();
 
-        // Thiết lập biểu tượng cho cửa sổ ứng dụng
+        // Thiết lập biểu tượng cho cửa sổ ứng dụng (ảnh nhỏ, tải ngay để cửa sổ có icon)
         primaryStage.getIcons().add(imageManager.getTexture(AssetPaths.LOGO));
 
-        // Hiển thị màn hình menu chính
+        // Hiển thị màn hình menu chính ngay lập tức, không chờ tài nguyên
         showMainMenu();
+        logTimeToFirstFrame(startupStartTime);
+
+        // Tải toàn bộ tài nguyên hình ảnh song song trên luồng nền trong khi người chơi nhập tên
+        AssetLoader assetLoader = new AssetLoader(imageManager);
+        characterCreationView.setLoadingProgress(0);
+        assetLoader.loadAsync(progress -> {
+            if (!assetsLoaded && characterCreationView != null) {
+                characterCreationView.setLoadingProgress(progress);
+            }
+        }).whenComplete((v, ex) -> Platform.runLater(() -> {
+            imageManager.finishLoading();
+            assetsLoaded = true;
+            assetsLoadedSuccessfully = ex == null && assetLoader.getFailedTaskCount() == 0;
+            if (characterCreationView != null) {
+                characterCreationView.setAssetsLoaded(assetsLoadedSuccessfully);
+            }
+            System.out.println("[Startup] Assets loaded in " + (System.nanoTime() - startupStartTime) / 1_000_000 + " ms");
+
+            // Chế độ phát lại: bỏ qua menu, vào thẳng phiên chơi đã ghi
+            if (replayPath != null) {
+                startReplay(Paths.get(replayPath));
+            }
+        }));
+    }
+
+    /**
+     * Gọi khi ứng dụng thoát (đóng cửa sổ, Platform.exit): ghi nốt các thay đổi của phiên chơi đang chạy.
+     */
+    public void stop() {
+        if (activeGameManager != null) {
+            activeGameManager.closeSession();
+            activeGameManager = null;
+        }
+    }
+
+    /**
+     * Ghi lại thời gian từ lúc khởi động đến khi khung hình đầu tiên được vẽ (time-to-first-frame).
+     */
+    private void logTimeToFirstFrame(long startupStartTime) {
+        new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                System.out.println("[Startup] Time to first frame: " + (System.nanoTime() - startupStartTime) / 1_000_000 + " ms");
+                stop();
+            }
+        }.start();
     }
 
     /**
@@ -51,7 +124,10 @@ public class Game {
         worldMap = new WorldMap();
 
         // Tạo và hiển thị giao diện tạo nhân vật
-        CharacterCreationView characterCreationView = new CharacterCreationView();
+        characterCreationView = new CharacterCreationView();
+        if (assetsLoaded) {
+            characterCreationView.setAssetsLoaded(assetsLoadedSuccessfully);
+        }
 
         // Thiết lập hành động khi người chơi nhấn nút Bắt đầu game mới
         characterCreationView.setOnStartGame((name, gender) -> {
@@ -59,15 +135,12 @@ public class Game {
             player.setName(name);
             player.setGender(gender);
 
-            // Khởi tạo và bắt đầu game ở chế độ chơi mới
-            initializeAndStartGame(false);
+            // Khởi tạo và bắt đầu game ở chế độ chơi mới, lưu vào khe đang chọn
+            initializeAndStartGame(characterCreationView.getSelectedSlot(), null);
         });
 
         // Thiết lập hành động khi người chơi nhấn nút Tải game
-        characterCreationView.setOnLoadGame(() -> {
-            // Khởi tạo và bắt đầu game ở chế độ tải dữ liệu đã lưu
-            initializeAndStartGame(true);
-        });
+        characterCreationView.setOnLoadGame(this::loadSlotInBackground);
 
         // Hiển thị cảnh tạo nhân vật lên màn hình
         Scene characterCreationScene = characterCreationView.createScene();
@@ -76,11 +149,95 @@ public class Game {
         primaryStage.show();
     }
 
+    /**
+     * Đọc file save của khe trên luồng nền (giải mã, mở region file, phát lại nhật ký) trong khi menu vẫn phản hồi,
+     * rồi vào game trên FX thread khi đọc xong.
+     */
+    private void loadSlotInBackground(int slot) {
+        CharacterCreationView menuView = characterCreationView;
+        menuView.showSaveLoading();
+        CompletableFuture.supplyAsync(() -> SaveManager.loadGame(slot))
+                .whenComplete((state, ex) -> Platform.runLater(() -> {
+                    if (characterCreationView != menuView) return; // Menu đã bị thay thế trong lúc đọc
+                    if (ex != null || state == null) {
+                        if (ex != null) ex.printStackTrace();
+                        menuView.showSaveLoadFailed();
+                        return;
+                    }
+                    initializeAndStartGame(slot, state);
+                }));
+    }
+
+    /**
+     * Đọc file ghi đầu vào (và file save xuất phát đi kèm nếu có) rồi bắt đầu phát lại.
+     */
+    private void startReplay(Path file) {
+        try {
+            InputRecording recording = InputRecording.read(file);
+            GameSaveState startState = null;
+            if (recording.startSave != null) {
+                startState = SaveManager.loadGame(file.resolveSibling(recording.startSave));
+                if (startState == null) throw new IOException("Missing start save " + recording.startSave);
+            }
+            player.setName(recording.playerName);
+            player.setGender(recording.playerGender);
+            pendingReplay = recording;
+            initializeAndStartGame(1, startState); // Không ghi file save khi phát lại, khe lưu không được dùng tới
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.err.println("Failed to read input recording " + file);
+        }
+    }
+
+    /**
+     * Chuẩn bị phiên chơi ở chế độ ghi / phát lại: chuyển đồng hồ game sang bước cố định (phải làm trước khi tạo
+     * các Manager vì chúng đọc đồng hồ ngay khi khởi tạo).
+     *
+     * @return Bản ghi của phiên này, hoặc null nếu chơi bình thường
+     */
+    private InputRecording prepareRecordingSession(GameSaveState savedState) {
+        InputRecording recording;
+        if (pendingReplay != null) {
+            recording = pendingReplay;
+            pendingReplay = null;
+        } else if (recordPath != null) {
+            Path file = Paths.get(recordPath);
+            recordPath = null;
+            recording = new InputRecording();
+            recording.seed = WorldRandom.newWorldSeed();
+            recording.stepNanos = ReplayConfig.FIXED_TIMESTEP_NANOS;
+            recording.startNanos = System.nanoTime();
+            recording.startMillis = System.currentTimeMillis();
+            recording.playerName = player.getName();
+            recording.playerGender = player.getGender();
+            if (savedState != null) {
+                // Chép trạng thái xuất phát cạnh file ghi để phát lại từ đúng điểm này
+                Path startSave = InputRecording.startSavePathFor(file);
+                if (!SaveManager.saveGame(savedState, startSave)) return null;
+                recording.startSave = startSave.getFileName().toString();
+            }
+            recordingFile = file;
+        } else {
+            return null;
+        }
+        GameClock.startFixedTimestep(recording.startNanos, recording.startMillis);
+        SimulationClock.reset(); // Game mới: thời gian mô phỏng không phụ thuộc phiên chơi trước trong cùng JVM
+        return recording;
+    }
+
     /**
      * Khởi tạo các thành phần cốt lõi và bắt đầu vòng lặp game.
-     * @param loadFromSave Nếu true, dữ liệu sẽ được tải từ file lưu trữ thay vì khởi tạo mặc định.
+     * @param saveSlot Khe lưu của phiên chơi.
+     * @param savedState Trạng thái đã đọc từ khe lưu, hoặc null nếu bắt đầu game mới.
      */
-    private void initializeAndStartGame(boolean loadFromSave) {
+    private void initializeAndStartGame(int saveSlot, GameSaveState savedState) {
+        // Màn hình menu không còn hiển thị, không cần nhận tiến trình tải nữa
+        characterCreationView = null;
+
+        // Chế độ ghi / phát lại đầu vào (null nếu chơi bình thường)
+        boolean replaying = pendingReplay != null;
+        InputRecording recording = prepareRecordingSession(savedState);
+
         // ----------------------------------------------------------------
         // 1. KHỞI TẠO CÁC THÀNH PHẦN VIEW (GIAO DIỆN)
         // ----------------------------------------------------------------
@@ -110,7 +267,8 @@ public class Game {
                 worldMap,
                 mainGameView,
                 playerView,
-                gameController
+                gameController,
+                saveSlot
         );
 
         // ----------------------------------------------------------------
@@ -132,6 +290,7 @@ public class Game {
         // Đăng ký bộ xử lý sự kiện để quay về Menu chính
         // Khi GameManager gọi hàm returnToMainMenu, phương thức showMainMenu sẽ được kích hoạt
         gameManager.setOnReturnToMainMenuHandler(() -> {
+            activeGameManager = null;
             showMainMenu();
         });
 
@@ -154,13 +313,24 @@ public class Game {
         // Gắn GameManager vào View để View có thể truy cập dữ liệu khi cần
         mainGameView.setGameManager(gameManager);
 
-        // Nếu là chế độ Tải game, thực hiện nạp dữ liệu từ file lưu trữ trước khi bắt đầu vòng lặp game
-        if (loadFromSave) {
-            gameManager.loadGameData();
+        // Ghi / phát lại: cùng hạt giống cho mọi bộ sinh ngẫu nhiên trước khi thế giới bắt đầu chạy
+        if (recording != null) {
+            gameManager.applyWorldSeed(recording.seed, 0);
+            if (replaying) {
+                gameManager.startReplay(recording);
+            } else {
+                gameManager.startInputRecording(recording, recordingFile);
+            }
+        }
+
+        // Nếu là chế độ Tải game, áp dụng dữ liệu đã đọc từ file lưu trữ trước khi bắt đầu vòng lặp game
+        if (savedState != null) {
+            gameManager.loadGameData(savedState);
         }
 
         // Bắt đầu vòng lặp chính của trò chơi
         gameManager.startGame();
+        activeGameManager = gameManager;
 
         // Bắt đầu phát nhạc nền
         gameManager.getAudioManager().playMusic(AssetPaths.BACKGROUND_MUSIC);
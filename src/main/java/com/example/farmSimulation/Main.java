@@ -4,6 +4,8 @@ import javafx.application.Application;
 import javafx.stage.Stage;
 
 public class Main extends Application {
+    private Game game;
+
     public static void main(String[] args) {
         launch(args);
     }
@@ -11,7 +13,13 @@ public class Main extends Application {
     @Override
     public void start(Stage primaryStage) {
         // Khởi tạo và bắt đầu game
-        Game game = new Game();
+        game = new Game();
         game.start(primaryStage);
     }
+
+    @Override
+    public void stop() {
+        // Lưu nốt phiên chơi đang chạy trước khi thoát
+        if (game != null) game.stop();
+    }
 }
@@ -307,8 +307,11 @@ public class AnimalConfig {
     /** Tầm tương tác khi đặt vật nuôi (tiles) */
     public static final double PLACEMENT_RANGE = 1.5;
 
-    /** Tần suất update động vật (ms) - để tối ưu performance */
-    public static final long ANIMAL_UPDATE_INTERVAL_MS = 100;
+    /** Lề ngoài màn hình (pixel) vẫn giữ node hiển thị động vật - tránh nhấp nháy ở mép khi camera di chuyển */
+    public static final double ANIMAL_CULL_MARGIN = 128.0;
+
+    /** Số node hiển thị động vật rảnh tối đa được giữ lại trong pool để tái sử dụng */
+    public static final int ANIMAL_VIEW_POOL_MAX_SIZE = 64;
 
     private AnimalConfig() {}
 }
\ No newline at end of file
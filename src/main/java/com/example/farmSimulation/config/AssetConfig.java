@@ -0,0 +1,61 @@
+package com.example.farmSimulation.config;
+
+/**
+ * Cấu hình cho quá trình tải tài nguyên (Assets) khi khởi động.
+ */
+public class AssetConfig {
+
+    // ==========================================
+    // 1. TẢI TÀI NGUYÊN SONG SONG
+    // ==========================================
+
+    /** Số luồng giải mã ảnh / cắt sprite chạy song song (chừa lại một nhân cho luồng giao diện) */
+    public static final int ASSET_LOADER_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors() - 1);
+
+    /** Tên tiền tố của các luồng tải tài nguyên (dễ nhận biết khi debug / profile) */
+    public static final String ASSET_LOADER_THREAD_NAME = "asset-loader-";
+
+    // ==========================================
+    // 2. BỘ NHỚ ĐỆM TÀI NGUYÊN TRÊN ĐĨA
+    // ==========================================
+
+    /** Bật/tắt cache điểm ảnh đã giải mã trên đĩa (giúp khởi động nguội nhanh hơn) */
+    public static final boolean ASSET_CACHE_ENABLED = true;
+
+    /** Thư mục chứa các file cache có thể tạo lại (tương đối với thư mục chạy game, không nằm lẫn với file save) */
+    public static final String ASSET_CACHE_DIRECTORY = "cache";
+
+    /** Tên file cache (trong ASSET_CACHE_DIRECTORY) */
+    public static final String ASSET_CACHE_FILE = "asset_cache.bin";
+
+    /** Phiên bản định dạng file cache - tăng lên khi thay đổi cấu trúc file để cache cũ tự bị loại bỏ */
+    public static final int ASSET_CACHE_VERSION = 2;
+
+    /**
+     * Mức nén Deflate của điểm ảnh trong file cache (0-9). Điểm ảnh giải mã chiếm 4 byte / điểm (~17 MB cho bộ sprite hiện tại);
+     * mức 6 nén còn ~270 KB (nhỏ hơn cả các file PNG gốc ~450 KB) mà giải nén vẫn chỉ mất vài chục ms
+     */
+    public static final int ASSET_CACHE_COMPRESSION_LEVEL = 6;
+
+    // ==========================================
+    // 3. BỘ ĐỆM TEXTURE TRONG BỘ NHỚ
+    // ==========================================
+
+    /** Ngân sách bộ nhớ của bộ đệm texture hợp nhất (byte). Vượt quá sẽ loại bỏ texture không ghim theo LRU */
+    public static final long TEXTURE_CACHE_BUDGET_BYTES = 64L * 1024 * 1024; // 64 MB
+
+    // ==========================================
+    // 4. MÀN HÌNH TIẾN TRÌNH
+    // ==========================================
+
+    /** Nội dung hiển thị khi đang tải tài nguyên */
+    public static final String LOADING_TEXT = "Loading assets... ";
+
+    /** Nội dung hiển thị khi tải tài nguyên thất bại một phần */
+    public static final String LOADING_FAILED_TEXT = "Some assets failed to load!";
+
+    /** Chiều rộng thanh tiến trình trên màn hình tạo nhân vật */
+    public static final double LOADING_BAR_WIDTH = 300.0;
+
+    private AssetConfig() {}
+}
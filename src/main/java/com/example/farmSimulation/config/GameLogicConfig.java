@@ -169,17 +169,11 @@ public class GameLogicConfig {
 
     // --- Tối ưu hóa hiệu năng (Performance) ---
 
-    // Tần suất cập nhật trạng thái cây trồng tính bằng mili giây
-    // Thay vì cập nhật mỗi khung hình (16ms), game chỉ cập nhật mỗi 100ms để giảm tải cho CPU
-    public static final long CROP_UPDATE_INTERVAL_MS = 100;
+    // Nhịp cập nhật cây trồng, cây tự nhiên và động vật: xem SchedulerConfig
 
     // Tần suất cập nhật bản đồ hiển thị, chỉ cập nhật khi thực sự cần thiết
     public static final long MAP_UPDATE_INTERVAL_MS = 50;
 
-    // Số lượng ô đất trồng tối đa được xử lý cập nhật trong một khung hình
-    // Giới hạn này giúp tránh hiện tượng giật lag khi có quá nhiều cây trồng cùng lúc
-    public static final int MAX_CROPS_UPDATE_PER_FRAME = 100;
-
     // --- Cơ chế rơi vật phẩm (Item Drop) ---
 
     // Bán kính tìm kiếm ô trống xung quanh vị trí rơi để đặt vật phẩm (1 nghĩa là tìm trong phạm vi 3x3 ô)
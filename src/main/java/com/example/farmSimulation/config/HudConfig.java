@@ -155,6 +155,27 @@ public class HudConfig {
     public static final double HARVEST_SCALE_FROM = 1.0;
     public static final double HARVEST_SCALE_TO = 0.5; // Thu nhỏ lại khi về túi
 
+    // --- Cấu hình Lớp phủ Profiler (F3) ---
+    public static final double PROFILER_OVERLAY_X = 10.0;
+    public static final double PROFILER_OVERLAY_Y = 170.0; // Bên dưới cụm tiền và tọa độ
+    public static final double PROFILER_OVERLAY_SPACING = 6.0;
+    public static final String PROFILER_OVERLAY_STYLE = "-fx-background-color: rgba(0, 0, 0, 0.65); -fx-background-radius: 6; -fx-padding: 8;";
+    public static final String PROFILER_TEXT_STYLE = "-fx-font-family: 'Monospaced'; -fx-font-size: 11px; -fx-text-fill: white;";
+    public static final long PROFILER_OVERLAY_REFRESH_MS = 250; // Tính lại thống kê 4 lần/giây thay vì mỗi frame
+    public static final double PROFILER_GRAPH_WIDTH = 300.0;  // Mỗi frame trong cửa sổ là một cột (thu hẹp theo chiều ngang)
+    public static final double PROFILER_GRAPH_HEIGHT = 70.0;
+    public static final double PROFILER_GRAPH_MAX_MS = 2 * ProfilerConfig.FRAME_BUDGET_MS; // Giá trị ở đỉnh biểu đồ
+    public static final Color PROFILER_GRAPH_BG_COLOR = Color.rgb(255, 255, 255, 0.08);
+    public static final Color PROFILER_GRAPH_BAR_COLOR = Color.rgb(120, 220, 120);
+    public static final Color PROFILER_GRAPH_OVER_BUDGET_COLOR = Color.rgb(240, 90, 70); // Frame vượt ngân sách
+    public static final Color PROFILER_GRAPH_BUDGET_LINE_COLOR = Color.rgb(255, 220, 80);
+
+    // --- Cấu hình Bảng chỉ số (F7) ---
+    public static final double METRICS_PANEL_WIDTH = 340.0;
+    public static final double METRICS_PANEL_X = WindowConfig.SCREEN_WIDTH - METRICS_PANEL_WIDTH - 10.0; // Sát mép phải
+    public static final double METRICS_PANEL_Y = 170.0;
+    public static final long METRICS_PANEL_REFRESH_MS = 500;
+
     private HudConfig() {
     }
 }
\ No newline at end of file
@@ -0,0 +1,66 @@
+package com.example.farmSimulation.config;
+
+/**
+ * Cấu hình cho bộ chỉ số (metrics) chạy liên tục trong phiên chơi: bộ đếm, giá trị tức thời và phân phối,
+ * xuất định kỳ ra file cục bộ (không cần dịch vụ bên ngoài).
+ */
+public class MetricsConfig {
+
+    // ==========================================
+    // 1. BỘ CHỈ SỐ
+    // ==========================================
+
+    /** Bật/tắt việc cập nhật chỉ số (tắt: các bộ đếm vẫn tồn tại nhưng không lấy mẫu và không xuất file) */
+    public static final boolean METRICS_ENABLED = true;
+
+    /** Chu kỳ lấy mẫu các giá trị tức thời phải duyệt bản đồ (cây trồng theo giai đoạn, vật nuôi theo loại...) */
+    public static final long GAUGE_SAMPLE_INTERVAL_MS = 2000;
+
+    /** Cận trên các ngăn của phân phối thời gian tick (ms) - ngăn cuối +Inf được thêm tự động */
+    public static final double[] TICK_TIME_BUCKETS_MS = {0.5, 1, 2, 4, 8, 16.7, 33, 50, 100};
+
+    /** Cận trên các ngăn của phân phối thời gian lưu game (ms) */
+    public static final double[] SAVE_TIME_BUCKETS_MS = {5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000};
+
+    // ==========================================
+    // 2. XUẤT FILE
+    // ==========================================
+
+    /** Ghi chỉ số ra file định kỳ trên luồng nền */
+    public static final boolean METRICS_EXPORT_ENABLED = true;
+
+    /** Chu kỳ xuất file (giây) */
+    public static final long METRICS_EXPORT_INTERVAL_SECONDS = 15;
+
+    /** Định dạng file: JSON_LINES (mỗi lần xuất một dòng JSON) hoặc PROMETHEUS (dạng văn bản của Prometheus, kèm mốc thời gian) */
+    public static final ExportFormat METRICS_EXPORT_FORMAT = ExportFormat.JSON_LINES;
+
+    /** Thư mục chứa file chỉ số (tạo cạnh file save nếu chưa có) */
+    public static final String METRICS_DIRECTORY = "metrics";
+
+    /** Tên file chỉ số (không có phần mở rộng) */
+    public static final String METRICS_FILE_NAME = "farm-metrics";
+
+    /** File hiện tại vượt quá kích thước này thì được xoay vòng thành .1, .2... */
+    public static final long METRICS_MAX_FILE_BYTES = 4L * 1024 * 1024;
+
+    /** Số file cũ được giữ lại khi xoay vòng */
+    public static final int METRICS_MAX_ROLLED_FILES = 4;
+
+    public enum ExportFormat {
+        JSON_LINES(".jsonl"),
+        PROMETHEUS(".prom");
+
+        private final String extension;
+
+        ExportFormat(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    private MetricsConfig() {}
+}
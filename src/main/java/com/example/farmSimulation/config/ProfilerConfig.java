@@ -0,0 +1,65 @@
+package com.example.farmSimulation.config;
+
+/**
+ * Cấu hình cho các công cụ đo hiệu năng trong game (thời gian frame theo từng hệ thống).
+ */
+public class ProfilerConfig {
+
+    // ==========================================
+    // 1. ĐO THỜI GIAN FRAME
+    // ==========================================
+
+    /** Bật/tắt việc đo thời gian từng giai đoạn của vòng lặp game (chi phí: vài lần gọi System.nanoTime() mỗi frame) */
+    public static final boolean FRAME_PROFILER_ENABLED = true;
+
+    /** Số frame gần nhất được giữ lại để tính p50 / p95 / p99 / max và vẽ biểu đồ (600 frame = 10 giây ở 60 FPS) */
+    public static final int FRAME_PROFILER_WINDOW = 600;
+
+    /** Độ sâu tối đa của các giai đoạn lồng nhau (vd: vẽ lại bản đồ bên trong xử lý hành động) */
+    public static final int FRAME_PROFILER_MAX_DEPTH = 8;
+
+    /** Ngân sách thời gian một frame (ms) - vạch tham chiếu trên biểu đồ */
+    public static final double FRAME_BUDGET_MS = 1000.0 / 60.0;
+
+    /** Đếm số byte cấp phát trên FX thread mỗi frame (ThreadMXBean.getCurrentThreadAllocatedBytes, ~vài chục ns mỗi lần đọc) */
+    public static final boolean FRAME_ALLOCATION_TRACKING_ENABLED = true;
+
+    // ==========================================
+    // 2. XUẤT FILE
+    // ==========================================
+
+    /** Thư mục chứa các file CSV thời gian frame (tạo cạnh file save nếu chưa có) */
+    public static final String FRAME_PROFILE_DIRECTORY = "profiles";
+
+    /** Tiền tố tên file CSV, theo sau là thời điểm xuất (yyyyMMdd-HHmmss) */
+    public static final String FRAME_PROFILE_FILE_PREFIX = "frame-profile-";
+
+    // ==========================================
+    // 3. THÔNG BÁO
+    // ==========================================
+
+    public static final String FRAME_PROFILE_SAVED_TEXT = "Frame profile saved";
+    public static final String FRAME_PROFILE_FAILED_TEXT = "Frame profile export failed";
+
+    // ==========================================
+    // 4. JAVA FLIGHT RECORDER (NGƯỠNG GHI SỰ KIỆN)
+    // ==========================================
+    // Sự kiện ngắn hơn ngưỡng không được ghi vào bản ghi JFR (có thể đổi khi ghi bằng -XX:StartFlightRecording:settings=...)
+
+    /** Chỉ ghi frame vượt ngân sách 60 FPS */
+    public static final String JFR_FRAME_THRESHOLD = "17 ms";
+
+    /** Giai đoạn của vòng lặp game (11 giai đoạn x 60 frame/giây: chỉ ghi giai đoạn chậm) */
+    public static final String JFR_STAGE_THRESHOLD = "2 ms";
+
+    /** Lượt cập nhật cây trồng, lượt sinh cây, lượt cập nhật động vật */
+    public static final String JFR_SIMULATION_THRESHOLD = "1 ms";
+
+    /** Vẽ lại toàn bộ lưới ô trên màn hình (chỉ khi camera sang ô mới hoặc bản đồ thay đổi) */
+    public static final String JFR_MAP_REDRAW_THRESHOLD = "0 ms";
+
+    /** Lưu / tải game và nạp tài nguyên hình ảnh: ít xảy ra, luôn ghi */
+    public static final String JFR_IO_THRESHOLD = "0 ms";
+
+    private ProfilerConfig() {}
+}
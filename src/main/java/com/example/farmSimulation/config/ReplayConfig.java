@@ -0,0 +1,51 @@
+package com.example.farmSimulation.config;
+
+/**
+ * Cấu hình ghi / phát lại đầu vào (tái hiện lỗi hiệu năng và làm benchmark đầu-cuối lặp lại được).
+ */
+public class ReplayConfig {
+
+    // ==========================================
+    // 1. BẬT CHẾ ĐỘ (THAM SỐ JVM)
+    // ==========================================
+
+    /** -Dfarm.record=<file>: ghi đầu vào của phiên chơi tiếp theo ra file (./gradlew run -Precord=<file>) */
+    public static final String RECORD_PROPERTY = "farm.record";
+
+    /** -Dfarm.replay=<file>: bỏ qua menu, phát lại file ghi và so sánh mã băm trạng thái cuối (./gradlew run -Preplay=<file>) */
+    public static final String REPLAY_PROPERTY = "farm.replay";
+
+    /** -Dfarm.replay.exit=true: thoát sau khi phát lại xong (mã thoát 0 nếu mã băm khớp, 1 nếu lệch) - dùng khi chạy benchmark tự động */
+    public static final String REPLAY_EXIT_PROPERTY = "farm.replay.exit";
+
+    // ==========================================
+    // 2. BƯỚC THỜI GIAN CỐ ĐỊNH
+    // ==========================================
+
+    /** Mỗi frame khi ghi / phát lại, đồng hồ game tiến đúng một bước (60 FPS) bất kể máy nhanh hay chậm */
+    public static final long FIXED_TIMESTEP_NANOS = 1_000_000_000L / 60;
+
+    /** Chu kỳ (frame) ghi mã băm từng thành phần trạng thái vào file ghi; khi phát lại, frame lệch đầu tiên được báo trong khoảng này */
+    public static final int CHECKPOINT_INTERVAL_FRAMES = 60;
+
+    // ==========================================
+    // 3. FILE GHI
+    // ==========================================
+
+    /** Đuôi file save xuất phát đặt cạnh file ghi (khi ghi từ một game đã lưu) */
+    public static final String START_SAVE_SUFFIX = ".start.sav";
+
+    /** Thư mục chứa kết quả benchmark của mỗi lần phát lại (CSV thời gian frame) */
+    public static final String REPLAY_PROFILE_DIRECTORY = "profiles";
+
+    // ==========================================
+    // 4. THÔNG BÁO
+    // ==========================================
+
+    public static final String RECORDING_SAVED_TEXT = "Input recording saved";
+    public static final String RECORDING_FAILED_TEXT = "Input recording failed";
+    public static final String REPLAY_MATCH_TEXT = "Replay finished: state hash matches";
+    public static final String REPLAY_MISMATCH_TEXT = "Replay finished: STATE HASH MISMATCH";
+
+    private ReplayConfig() {}
+}
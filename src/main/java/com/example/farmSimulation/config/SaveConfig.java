@@ -0,0 +1,180 @@
+package com.example.farmSimulation.config;
+
+/**
+ * Cấu hình cho hệ thống lưu / tải game (định dạng file nhị phân).
+ */
+public class SaveConfig {
+
+    // ==========================================
+    // 1. FILE SAVE
+    // ==========================================
+
+    /** Tên file save theo định dạng nhị phân mới */
+    public static final String SAVE_FILE_NAME = "farm_save.sav";
+
+    /** Tên file save cũ (Java Serialization) - được tự động chuyển đổi khi tải */
+    public static final String LEGACY_SAVE_FILE_NAME = "farm_save.dat";
+
+    /** Đuôi được thêm vào file save cũ sau khi chuyển đổi thành công (giữ lại để phòng hờ) */
+    public static final String LEGACY_BACKUP_SUFFIX = ".bak";
+
+    // ==========================================
+    // 2. ĐỊNH DẠNG NHỊ PHÂN
+    // ==========================================
+
+    /** Phiên bản lược đồ (schema) của file save - tăng lên khi thay đổi cấu trúc và bổ sung nhánh đọc tương ứng */
+    public static final int SAVE_FORMAT_VERSION = 3; // 2: thêm các mốc thời gian mô phỏng (đất khô, cây trồng, cây, động vật); 3: thêm hạt giống thế giới
+
+    /** Cạnh của một chunk (số ô). Bản đồ được lưu theo từng chunk CHUNK_SIZE x CHUNK_SIZE */
+    public static final int SAVE_CHUNK_SIZE = 16;
+
+    /** Kích thước bộ đệm ghi file (byte) */
+    public static final int SAVE_WRITE_BUFFER_SIZE = 64 * 1024;
+
+    // --- Region file (bản đồ lưu theo vùng, tải lười từng chunk) ---
+
+    /** Đuôi thư mục chứa các region file, đặt cạnh file save (vd: farm_save.sav.regions/) */
+    public static final String REGION_DIR_SUFFIX = ".regions";
+
+    /** Cạnh của một region (số chunk). Mỗi region file chứa tối đa REGION_SIZE x REGION_SIZE chunk */
+    public static final int REGION_SIZE = 32;
+
+    /** Bán kính (số chunk) quanh người chơi được giải mã ngay khi tải game; phần còn lại được tải khi cần */
+    public static final int REGION_PRELOAD_RADIUS_CHUNKS = 2;
+
+    // --- Nén và mã hóa chunk song song ---
+
+    /** Mức nén Deflater cho dữ liệu chunk trong region file (0 = không nén, 1 = nhanh nhất, 9 = nhỏ nhất) */
+    public static final int CHUNK_COMPRESSION_LEVEL = 1;
+
+    /** Chunk nhỏ hơn ngưỡng này (byte) không được nén (header nén lớn hơn phần tiết kiệm được) */
+    public static final int CHUNK_COMPRESSION_MIN_BYTES = 64;
+
+    /** Số luồng mã hóa / nén chunk khi lưu và giải nén khi tải (chừa một nhân cho FX thread) */
+    public static final int CHUNK_CODEC_THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+
+    /** Tên các luồng trong pool mã hóa chunk */
+    public static final String CHUNK_CODEC_THREAD_NAME = "chunk-codec";
+
+    // ==========================================
+    // 3. LƯU NỀN (ASYNC SAVE) VÀ TỰ ĐỘNG LƯU
+    // ==========================================
+
+    /** Tên luồng ghi file save chạy nền */
+    public static final String SAVE_THREAD_NAME = "save-writer";
+
+    /** Thời gian tối đa (ms) chờ lượt ghi đang dở khi thoát game */
+    public static final long SAVE_SHUTDOWN_TIMEOUT_MS = 5000;
+
+    /** Bật/tắt tự động lưu định kỳ */
+    public static final boolean AUTOSAVE_ENABLED = true;
+
+    /** Chu kỳ tự động lưu đầy đủ / gộp nhật ký vào file save (giây thực) */
+    public static final double AUTOSAVE_INTERVAL_SECONDS = 180.0;
+
+    // ==========================================
+    // 4. NHẬT KÝ THAY ĐỔI (JOURNAL / WAL)
+    // ==========================================
+
+    /** Đuôi file nhật ký, đặt cạnh file save (vd: farm_save.sav.journal) */
+    public static final String JOURNAL_FILE_SUFFIX = ".journal";
+
+    /** Chu kỳ ghi các thay đổi mới vào nhật ký (giây thực) */
+    public static final double JOURNAL_FLUSH_INTERVAL_SECONDS = 5.0;
+
+    /** Khi nhật ký vượt quá kích thước này (byte), gộp nó vào file save đầy đủ ngay ở lần ghi kế tiếp */
+    public static final long JOURNAL_COMPACT_THRESHOLD_BYTES = 1024 * 1024;
+
+    /** Gọi fsync sau mỗi bản ghi nhật ký (an toàn hơn khi mất điện nhưng chậm hơn nhiều) */
+    public static final boolean JOURNAL_FSYNC = false;
+
+    // ==========================================
+    // 5. GỠ CHUNK KHỎI BỘ NHỚ (CHUNK RESIDENCY)
+    // ==========================================
+
+    /** Bật/tắt việc gỡ các chunk ở xa người chơi ra vùng lưu tạm trên đĩa */
+    public static final boolean CHUNK_EVICTION_ENABLED = true;
+
+    /** Chunk cách người chơi xa hơn khoảng này (số chunk, theo trục lớn nhất) mới được xét gỡ khỏi bộ nhớ */
+    public static final int CHUNK_EVICT_DISTANCE_CHUNKS = 6;
+
+    /** Chu kỳ kiểm tra các chunk có thể gỡ (ms) */
+    public static final long CHUNK_RESIDENCY_CHECK_INTERVAL_MS = 2000;
+
+    /** Số chunk gỡ tối đa trong một lần kiểm tra (giới hạn thời gian xử lý trong một frame) */
+    public static final int MAX_CHUNK_EVICTIONS_PER_CHECK = 32;
+
+    /** Tiền tố thư mục tạm chứa các chunk đã gỡ (bị xóa khi thoát game) */
+    public static final String PAGE_STORE_DIR_PREFIX = "farm-chunk-pages";
+
+    /** Số file trang được giữ mở cùng lúc */
+    public static final int PAGE_STORE_OPEN_FILES = 16;
+
+    /** File trang được chép gọn lại khi phần bản ghi bị bỏ lại chiếm từ tỉ lệ này trở lên (0..1) */
+    public static final double PAGE_STORE_COMPACT_GARBAGE_RATIO = 0.5;
+
+    /** File trang nhỏ hơn mức này (byte, không tính bảng vị trí) không cần chép gọn */
+    public static final long PAGE_STORE_COMPACT_MIN_BYTES = 64 * 1024;
+
+    // ==========================================
+    // 6. THỜI GIAN MÔ PHỎNG VÀ BÙ THỜI GIAN OFFLINE
+    // ==========================================
+
+    /** Khi tải game, cho nông trại tiến triển thêm đúng khoảng thời gian thực đã trôi qua lúc tắt game */
+    public static final boolean OFFLINE_CATCH_UP_ENABLED = true;
+
+    /** Khoảng thời gian offline tối đa được bù (giây thực) - quá giới hạn này coi như chỉ vắng mặt chừng ấy */
+    public static final long OFFLINE_CATCH_UP_MAX_SECONDS = 24 * 60 * 60;
+
+    // ==========================================
+    // 7. KHE LƯU (SAVE SLOTS) VÀ CHỈ MỤC
+    // ==========================================
+
+    /** Số khe lưu hiển thị ở menu chính */
+    public static final int SAVE_SLOT_COUNT = 3;
+
+    /** Mẫu tên file save của khe 2 trở đi (khe 1 dùng SAVE_FILE_NAME để giữ tương thích với file save sẵn có) */
+    public static final String SAVE_SLOT_FILE_PATTERN = "farm_save_slot%d.sav";
+
+    /** Tên file chỉ mục chứa thông tin tóm tắt của các khe lưu, đặt cạnh các file save */
+    public static final String SAVE_INDEX_FILE_NAME = "farm_saves.index";
+
+    /**
+     * Khoảng cách tối thiểu (giây) giữa hai lần cập nhật chỉ mục sau khi ghi nhật ký (mỗi lần cập nhật ghi lại cả file chỉ mục).
+     * Lưu đầy đủ luôn cập nhật; bản ghi nhật ký cuối cùng được ghi vào chỉ mục khi dịch vụ lưu dừng
+     */
+    public static final double SAVE_INDEX_PROGRESS_INTERVAL_SECONDS = 60.0;
+
+    /** Cạnh ảnh thu nhỏ của khe lưu (số ô quanh người chơi, mỗi ô một điểm ảnh) */
+    public static final int SAVE_THUMBNAIL_SIZE = 32;
+
+    /** Kích thước hiển thị ảnh thu nhỏ trên menu (pixel) */
+    public static final double SAVE_THUMBNAIL_DISPLAY_SIZE = 64;
+
+    /** Màu (ARGB) của từng loại điểm ảnh trong ảnh thu nhỏ: cỏ, đất, đất ướt, nước, cây, hàng rào, cây trồng, người chơi */
+    public static final int[] SAVE_THUMBNAIL_COLORS = {
+            0xFF5B9B3A, 0xFF8B5A2B, 0xFF5C3A1E, 0xFF3A7BD5,
+            0xFF2E5E1E, 0xFFC8A165, 0xFFB4D639, 0xFFFFFFFF
+    };
+
+    /** Định dạng thời điểm chơi cuối hiển thị trên menu */
+    public static final String SAVE_SLOT_DATE_FORMAT = "dd/MM/yyyy HH:mm";
+
+    // ==========================================
+    // 8. THÔNG BÁO
+    // ==========================================
+
+    public static final String SAVE_SUCCESS_TEXT = "Game Saved!";
+    public static final String SAVE_FAILED_TEXT = "Save failed!";
+    public static final String AUTOSAVE_SUCCESS_TEXT = "Auto-saved";
+
+    // --- Menu chọn khe lưu ---
+    public static final String SAVE_SLOT_TITLE_TEXT = "Save Slots";
+    public static final String SAVE_SLOT_LABEL_PREFIX = "Slot ";
+    public static final String SAVE_SLOT_EMPTY_TEXT = "Empty - a new game will be saved here";
+    public static final String SAVE_SLOT_NO_DETAILS_TEXT = "Saved game (details available after next save)";
+    public static final String SAVE_SLOT_LOADING_TEXT = "Loading save...";
+    public static final String SAVE_SLOT_LOAD_FAILED_TEXT = "Could not load this save slot.";
+
+    private SaveConfig() {}
+}
@@ -0,0 +1,58 @@
+package com.example.farmSimulation.config;
+
+/**
+ * Cấu hình bộ lập lịch công việc theo frame (FrameScheduler): cây trồng, cây tự nhiên, logic động vật,
+ * hình hàng rào và sinh cây được chia thành các đơn vị nhỏ, chạy theo độ ưu tiên cho tới khi hết ngân sách của frame.
+ */
+public class SchedulerConfig {
+
+    // ==========================================
+    // 1. NGÂN SÁCH MỖI FRAME
+    // ==========================================
+
+    /** Thời gian tối đa (ms) dành cho các công việc nền trong một frame; phần còn lại được chạy tiếp ở frame sau */
+    public static final double FRAME_BUDGET_MS = 4.0;
+
+    /**
+     * Khi đồng hồ chạy bước cố định (ghi / phát lại, công cụ chạy không giao diện): mỗi công việc chạy tối đa
+     * bấy nhiêu đơn vị mỗi frame thay cho ngân sách thời gian, để kết quả không phụ thuộc tốc độ máy
+     */
+    public static final int FIXED_STEP_UNITS_PER_JOB = 8;
+
+    /** Công việc có việc nhưng không được chạy suốt bấy nhiêu frame liên tiếp bị coi là "đói" và được chạy trước một đơn vị */
+    public static final int STARVATION_FRAMES = 30;
+
+    // ==========================================
+    // 2. NHỊP CỦA CÁC LƯỢT
+    // ==========================================
+
+    /** Khoảng cách tối thiểu (ms) giữa hai lần bắt đầu lượt cập nhật cây trồng */
+    public static final long CROP_PASS_MIN_INTERVAL_MS = 100;
+
+    /** Khoảng cách tối thiểu (ms) giữa hai lần bắt đầu lượt cập nhật cây tự nhiên (mọc lại gốc, lớn lên) */
+    public static final long TREE_PASS_MIN_INTERVAL_MS = 100;
+
+    /** Khoảng cách tối thiểu (ms) giữa hai lần bắt đầu lượt logic động vật (đói, sinh trưởng, sinh sản, sản phẩm) */
+    public static final long ANIMAL_LOGIC_MIN_INTERVAL_MS = 100;
+
+    // ==========================================
+    // 3. KÍCH THƯỚC MỘT ĐƠN VỊ CÔNG VIỆC
+    // ==========================================
+
+    /** Số ô đất trồng được xử lý trong một đơn vị */
+    public static final int CROP_TILES_PER_UNIT = 64;
+
+    /** Số ô cây tự nhiên được xử lý trong một đơn vị */
+    public static final int TREE_TILES_PER_UNIT = 128;
+
+    /** Số con vật được chạy logic trong một đơn vị */
+    public static final int ANIMALS_PER_UNIT = 16;
+
+    /** Số hàng (của vùng sinh cây quanh người chơi) được xét trong một đơn vị */
+    public static final int TREE_GENERATION_ROWS_PER_UNIT = 4;
+
+    /** Số chunk vừa tải được tính lại hình hàng rào trong một đơn vị */
+    public static final int FENCE_CHUNKS_PER_UNIT = 2;
+
+    private SchedulerConfig() {}
+}
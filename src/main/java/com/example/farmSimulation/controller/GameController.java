@@ -2,9 +2,12 @@ package com.example.farmSimulation.controller;
 
 import com.example.farmSimulation.config.HotbarConfig;
 import com.example.farmSimulation.model.GameManager;
+import com.example.farmSimulation.model.InputRecording;
+import com.example.farmSimulation.model.InputRecording.EventType;
 import com.example.farmSimulation.view.MainGameView;
 import javafx.scene.Scene;
 import javafx.scene.input.KeyCode;
+import javafx.scene.input.MouseButton;
 import javafx.scene.input.MouseEvent;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -29,35 +32,28 @@ public class GameController {
     KeyCode đại diện cho mã của các phím trên bàn phím (ví dụ: KeyCode.W, KeyCode.SPACE).
     Mục đích của biến này là theo dõi toàn bộ các phím mà người chơi đang nhấn giữ tại một thời điểm.*/
 
+    // --- Ghi / phát lại đầu vào (xem InputRecording) ---
+    private InputRecording inputRecording; // Khác null khi đang ghi: mọi sự kiện đầu vào được chép vào đây
+    private int inputFrame;                // Số frame sắp chạy, được GameManager cập nhật đầu mỗi frame
+    private boolean replaying;             // Đang phát lại: bỏ qua đầu vào thật từ bàn phím / chuột
+
     // Thiết lập các trình lắng nghe sự kiện đầu vào cho Scene
     // MainGameView sẽ gọi phương thức này để chuyển giao quyền xử lý sự kiện của Scene cho Controller
     public void setupInputListeners(Scene scene) {
 
         // Lắng nghe sự kiện khi người chơi nhấn phím xuống
         scene.setOnKeyPressed(event -> { // Hàm này được kích hoạt ngay khi phím được nhấn
-            activeKeys.add(event.getCode()); // Thêm mã phím vừa nhấn vào danh sách đang hoạt động
-            /* Lấy mã phím từ sự kiện và đưa vào activeKeys.
-            Do đặc tính của HashSet, nếu phím đó đã có trong danh sách thì việc thêm lại sẽ không gây ra lỗi trùng lặp. */
-
-            // Xử lý các phím chức năng hệ thống (luôn hoạt động, ví dụ như phím ESC)
-            handleSystemInput(event.getCode());
-
-            // Chặn tất cả các đầu vào khác khi game đang tạm dừng (ví dụ: lúc đang mở Menu cài đặt)
-            if (gameManager != null && gameManager.isPaused()) return;
-
-            // Xử lý các phím điều khiển gameplay
-            handleGameInput(event.getCode());
+            if (!replaying) pressKey(event.getCode());
         });
 
         // Lắng nghe sự kiện khi người chơi nhả phím ra
         scene.setOnKeyReleased(event -> { // Hàm này được kích hoạt khi phím được thả ra
-            activeKeys.remove(event.getCode()); // Loại bỏ mã phím khỏi danh sách các phím đang hoạt động
+            if (!replaying) releaseKey(event.getCode());
         });
 
         // Cập nhật tọa độ chuột liên tục khi di chuyển
         scene.setOnMouseMoved(event -> {
-            this.mouseX = event.getSceneX();
-            this.mouseY = event.getSceneY();
+            if (!replaying) moveMouse(event.getSceneX(), event.getSceneY());
         });
 
         // Đăng ký xử lý sự kiện nhấp chuột
@@ -65,18 +61,84 @@ public class GameController {
 
         // Xử lý sự kiện lăn bánh xe chuột để thay đổi vật phẩm đang chọn
         scene.setOnScroll(event -> {
-            if (gameManager == null || gameManager.isPaused()) return; // Không thực hiện cuộn khi game đang tạm dừng
-
-            int currentSlot = gameManager.getMainPlayer().getSelectedHotbarSlot();
-            if (event.getDeltaY() < 0) { // Cuộn xuống thì chuyển sang ô vật phẩm kế tiếp
-                currentSlot = (currentSlot + 1) % HotbarConfig.HOTBAR_SLOT_COUNT;
-            } else if (event.getDeltaY() > 0) { // Cuộn lên thì quay lại ô vật phẩm trước đó
-                currentSlot = (currentSlot - 1 + HotbarConfig.HOTBAR_SLOT_COUNT) % HotbarConfig.HOTBAR_SLOT_COUNT;
-            }
-            gameManager.changeHotbarSlot(currentSlot);
+            if (!replaying) scroll(event.getDeltaY());
         });
     }
 
+    // ==============================================================================================
+    // XỬ LÝ ĐẦU VÀO (dùng chung cho sự kiện thật và sự kiện phát lại)
+    // ==============================================================================================
+
+    public void pressKey(KeyCode code) {
+        record(EventType.KEY_PRESSED, code.name(), 0, 0);
+        activeKeys.add(code); // Thêm mã phím vừa nhấn vào danh sách đang hoạt động
+        /* Lấy mã phím từ sự kiện và đưa vào activeKeys.
+        Do đặc tính của HashSet, nếu phím đó đã có trong danh sách thì việc thêm lại sẽ không gây ra lỗi trùng lặp. */
+
+        // Xử lý các phím chức năng hệ thống (luôn hoạt động, ví dụ như phím ESC)
+        handleSystemInput(code);
+
+        // Chặn tất cả các đầu vào khác khi game đang tạm dừng (ví dụ: lúc đang mở Menu cài đặt)
+        if (gameManager != null && gameManager.isPaused()) return;
+
+        // Xử lý các phím điều khiển gameplay
+        handleGameInput(code);
+    }
+
+    public void releaseKey(KeyCode code) {
+        record(EventType.KEY_RELEASED, code.name(), 0, 0);
+        activeKeys.remove(code); // Loại bỏ mã phím khỏi danh sách các phím đang hoạt động
+    }
+
+    public void moveMouse(double sceneX, double sceneY) {
+        record(EventType.MOUSE_MOVED, null, sceneX, sceneY);
+        this.mouseX = sceneX;
+        this.mouseY = sceneY;
+    }
+
+    public void scroll(double deltaY) {
+        record(EventType.SCROLL, null, 0, deltaY);
+        if (gameManager == null || gameManager.isPaused()) return; // Không thực hiện cuộn khi game đang tạm dừng
+
+        int currentSlot = gameManager.getMainPlayer().getSelectedHotbarSlot();
+        if (deltaY < 0) { // Cuộn xuống thì chuyển sang ô vật phẩm kế tiếp
+            currentSlot = (currentSlot + 1) % HotbarConfig.HOTBAR_SLOT_COUNT;
+        } else if (deltaY > 0) { // Cuộn lên thì quay lại ô vật phẩm trước đó
+            currentSlot = (currentSlot - 1 + HotbarConfig.HOTBAR_SLOT_COUNT) % HotbarConfig.HOTBAR_SLOT_COUNT;
+        }
+        gameManager.changeHotbarSlot(currentSlot);
+    }
+
+    // ==============================================================================================
+    // GHI / PHÁT LẠI ĐẦU VÀO
+    // ==============================================================================================
+
+    /**
+     * Bắt đầu chép mọi sự kiện đầu vào vào bản ghi (null để dừng).
+     */
+    public void startRecording(InputRecording recording) {
+        this.inputRecording = recording;
+    }
+
+    private void record(EventType type, String name, double x, double y) {
+        if (inputRecording != null) {
+            inputRecording.add(inputFrame, type, name, x, y);
+        }
+    }
+
+    /**
+     * Áp dụng lại một sự kiện đã ghi, qua đúng các hàm xử lý của sự kiện thật.
+     */
+    public void replay(InputRecording.InputEvent event) {
+        switch (event.type) {
+            case KEY_PRESSED -> pressKey(KeyCode.valueOf(event.name));
+            case KEY_RELEASED -> releaseKey(KeyCode.valueOf(event.name));
+            case MOUSE_MOVED -> moveMouse(event.x, event.y);
+            case MOUSE_CLICKED -> clickMouse(MouseButton.valueOf(event.name));
+            case SCROLL -> scroll(event.y);
+        }
+    }
+
     /**
      * Xử lý các phím hệ thống (Luôn được lắng nghe bất kể trạng thái tạm dừng của game)
      */
@@ -84,6 +146,18 @@ public class GameController {
         if (code == KeyCode.ESCAPE && gameManager != null) {
             gameManager.toggleSettingsMenu(); // Kích hoạt hoặc ẩn menu cài đặt
         }
+        if (code == KeyCode.F3 && gameManager != null) {
+            gameManager.toggleProfilerOverlay(); // Bật / tắt lớp phủ thời gian frame
+        }
+        if (code == KeyCode.F4 && gameManager != null) {
+            gameManager.dumpFrameProfile(); // Xuất các frame gần nhất ra file CSV
+        }
+        if (code == KeyCode.F6 && gameManager != null) {
+            gameManager.stopInputRecording(); // Dừng ghi đầu vào và lưu file ghi
+        }
+        if (code == KeyCode.F7 && gameManager != null) {
+            gameManager.toggleMetricsPanel(); // Bật / tắt bảng chỉ số
+        }
     }
 
     /**
@@ -154,11 +228,16 @@ public class GameController {
     }
 
     public void handleMouseClick(MouseEvent event) {
+        if (!replaying) clickMouse(event.getButton());
+    }
+
+    public void clickMouse(MouseButton button) {
+        record(EventType.MOUSE_CLICKED, button.name(), 0, 0);
         // Chặn mọi tương tác chuột khi game đang tạm dừng (lúc Menu cài đặt đang mở)
         if (gameManager == null || gameManager.isPaused()) return;
 
         // Xử lý sự kiện chuột phải (Secondary) để đóng/mở hàng rào hoặc ăn thực phẩm
-        if (event.getButton() == javafx.scene.input.MouseButton.SECONDARY) {
+        if (button == MouseButton.SECONDARY) {
             // Bước 1: Ưu tiên kiểm tra xem có đang click vào hàng rào để thực hiện đóng/mở hay không
             int tileX = gameManager.getCurrentMouseTileX();
             int tileY = gameManager.getCurrentMouseTileY();
@@ -174,7 +253,7 @@ public class GameController {
         }
 
         // Xử lý sự kiện chuột trái (Primary) cho các tương tác mặc định khác
-        if (event.getButton() != javafx.scene.input.MouseButton.PRIMARY) return;
+        if (button != MouseButton.PRIMARY) return;
         // Gửi yêu cầu tương tác đến GameManager để xử lý logic (đưa hành động vào hàng đợi)
         gameManager.interactWithTile(
                 gameManager.getCurrentMouseTileX(),
@@ -11,6 +11,7 @@ import lombok.Setter;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.SplittableRandom;
 
 @Getter
 @Setter
@@ -27,6 +28,7 @@ public class ActionManager {
     private FenceManager fenceManager;   // Quản lý logic nối hàng rào
     private AnimalManager animalManager; // Quản lý danh sách động vật
     private QuestManager questManager;   // Quản lý nhiệm vụ
+    private SplittableRandom random = new SplittableRandom(); // Độ lệch ngẫu nhiên của vật phẩm rơi (luồng ACTIONS của WorldRandom)
 
     public ActionManager(Player mainPlayer, PlayerView playerView) {
         this.pendingActions = new ArrayList<>();
@@ -34,6 +36,10 @@ public class ActionManager {
         this.playerView = playerView;
     }
 
+    public void setRandom(SplittableRandom random) {
+        this.random = random;
+    }
+
     public void addPendingAction(TimedTileAction action) {
         pendingActions.add(action);
     }
@@ -247,7 +253,7 @@ public class ActionManager {
                 // Nếu item rơi sang ô bên cạnh (không phải ô gốc), thêm chút lệch ngẫu nhiên cho tự nhiên
                 if (finalCol != treeCol || finalRow != treeRow) {
                     double scatter = GameLogicConfig.ITEM_DROP_SCATTER_RANGE;
-                    double jitterX = (Math.random() - 0.5) * scatter;
+                    double jitterX = (random.nextDouble() - 0.5) * scatter;
                     // Chỉ lệch theo chiều ngang, giữ nguyên chiều dọc
                     finalTile.setGroundItemOffsetX(finalTile.getGroundItemOffsetX() + jitterX);
                 }
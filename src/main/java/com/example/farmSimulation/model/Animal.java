@@ -4,6 +4,8 @@ import com.example.farmSimulation.config.AnimalConfig;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.util.SplittableRandom;
+
 /**
  * Class (Model) đại diện cho một con vật cụ thể trong game.
  * Lưu trữ trạng thái của động vật: vị trí, hướng, tuổi, độ đói, sản phẩm, v.v.
@@ -31,10 +33,15 @@ public class Animal {
     // --- Biến thể Sprite ---
     /**
      * Biến này dùng riêng cho EGG_ENTITY (trứng) để lưu trạng thái ngẫu nhiên (Đứng hoặc Nằm).
-     * Giá trị là 0 hoặc 1.
+     * Giá trị là 0 hoặc 1, được chọn khi trứng được thêm vào AnimalManager.
      */
     private int variant;
 
+    // --- Ngẫu nhiên ---
+    // Luồng ngẫu nhiên riêng của con vật (WorldRandom.forEntity, gán trong AnimalManager.addAnimal),
+    // để quyết định đi lang thang của mỗi con không phụ thuộc thứ tự cập nhật
+    private SplittableRandom random = new SplittableRandom();
+
     // --- Trạng thái ---
     private int age; // Tuổi thọ (dùng để tính toán lượng thịt rơi ra khi giết)
     private double hunger; // Chỉ số no (0-100, trong đó 100 là no hoàn toàn, 0 là chết đói)
@@ -93,16 +100,16 @@ public class Animal {
         this.currentAction = Action.IDLE;
         this.productionTimer = 0;
         this.hasProduct = false;
-        this.spawnTime = System.nanoTime();
-        this.lastDirectionChangeTime = System.nanoTime();
-        this.lastHungerUpdateTime = System.nanoTime();
+        this.spawnTime = GameClock.nanoTime();
+        this.lastDirectionChangeTime = GameClock.nanoTime();
+        this.lastHungerUpdateTime = GameClock.nanoTime();
         this.starvationStartTime = 0; // Chưa bị đói
         this.actionEndTime = 0; // Sẵn sàng thực hiện hành động ngay lập tức
 
         // Kiểm tra cấu hình xem có áp dụng thời gian hồi chiêu sinh sản ngay khi vừa sinh ra không
         if (AnimalConfig.ENABLE_BREEDING_COOLDOWN_ON_SPAWN) {
             // Gán timer bằng thời gian hiện tại để đảm bảo hiệu số (hiện tại - timer) nhỏ hơn thời gian hồi chiêu -> Chưa thể sinh sản
-            this.breedingCooldownTimer = System.nanoTime();
+            this.breedingCooldownTimer = GameClock.nanoTime();
         } else {
             this.breedingCooldownTimer = 0; // Có thể sinh sản ngay nếu đủ điều kiện (đã trưởng thành)
         }
@@ -110,12 +117,7 @@ public class Animal {
         this.breedingPartner = null;
         this.matingStartTime = 0;
 
-        // Chọn ngẫu nhiên trạng thái hiển thị cho trứng (0 hoặc 1)
-        if (type == AnimalType.EGG_ENTITY) {
-            this.variant = Math.random() < 0.5 ? 0 : 1;
-        } else {
-            this.variant = 0;
-        }
+        this.variant = 0; // Trạng thái hiển thị của trứng được chọn khi thêm vào AnimalManager
     }
 
     /**
@@ -143,7 +145,7 @@ public class Animal {
      * Tính tuổi của động vật theo đơn vị giây
      */
     public long getAgeInSeconds() {
-        return (System.nanoTime() - spawnTime) / 1_000_000_000L;
+        return (GameClock.nanoTime() - spawnTime) / 1_000_000_000L;
     }
 
     /**
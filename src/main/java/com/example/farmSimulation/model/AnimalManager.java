@@ -1,11 +1,13 @@
 package com.example.farmSimulation.model;
 
 import com.example.farmSimulation.config.*;
+import com.example.farmSimulation.model.GameSaveState.SavedAnimal;
+import com.example.farmSimulation.model.jfr.AnimalTickEvent;
 
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Collections;
 import java.util.List;
-import java.util.Random;
+import java.util.SplittableRandom;
 
 /**
  * Class quản lý hệ thống động vật trong game.
@@ -19,10 +21,32 @@ public class AnimalManager {
     private final WorldMap worldMap;
     private final CollisionManager collisionManager;
     private final List<Animal> animals;
-    private final Random random;
+    private final List<Animal> animalsView; // Khung nhìn chỉ đọc của animals (không sao chép)
+    private SplittableRandom random;  // Luồng ANIMALS của WorldRandom (rơi thịt)
+    private WorldRandom worldRandom;  // Cấp luồng riêng cho từng con vật (null: luồng không đặt hạt giống)
+    private long nextEntityId = 0;    // Số thứ tự của con vật được thêm tiếp theo (theo thứ tự thêm, không theo thứ tự cập nhật)
+    // Danh sách tạm các động vật sinh ra trong một lượt cập nhật, dùng lại giữa các frame để không cấp phát
+    private final List<Animal> newAnimals = new ArrayList<>();
+
+    // --- Lượt logic nặng đang chạy (chia thành nhiều đơn vị qua FrameScheduler) ---
+    // Lượt xét các con [logicCursor, logicPassEnd) theo thứ tự trong danh sách; con sinh ra trong lượt nằm sau
+    // logicPassEnd nên được xét từ lượt sau. Xóa một con phía trước con trỏ sẽ dịch con trỏ (removeAt)
+    private long lastLogicPassStartMs = 0;
+    private boolean logicPassActive = false;
+    private int logicCursor = 0;
+    private int logicPassEnd = 0;
+
+    private final FrameScheduler.Job logicJob = new FrameScheduler.Job() {
+        @Override
+        public boolean hasWork(long now) {
+            return logicPassActive || now / 1_000_000 - lastLogicPassStartMs >= SchedulerConfig.ANIMAL_LOGIC_MIN_INTERVAL_MS;
+        }
 
-    // Thời gian cập nhật lần cuối cho các logic xử lý chậm (không chạy theo từng khung hình)
-    private long lastLogicUpdateTimeMs = 0;
+        @Override
+        public boolean runUnit(long now) {
+            return runLogicUnit(now);
+        }
+    };
 
     // Thời gian cập nhật di chuyển lần cuối (tính bằng nano giây) để tính toán delta time
     private long lastMovementUpdateTime = 0;
@@ -31,7 +55,18 @@ public class AnimalManager {
         this.worldMap = worldMap;
         this.collisionManager = collisionManager;
         this.animals = new ArrayList<>();
-        this.random = new Random();
+        this.animalsView = Collections.unmodifiableList(animals);
+        this.random = new SplittableRandom();
+    }
+
+    /**
+     * Dùng các luồng ngẫu nhiên của thế giới. Gọi trước khi thêm động vật (vd: ngay trước khi khôi phục từ file save)
+     * để mỗi con nhận luồng theo đúng thứ tự trong file.
+     */
+    public void setWorldRandom(WorldRandom worldRandom) {
+        this.worldRandom = worldRandom;
+        this.random = worldRandom.stream(WorldRandom.Stream.ANIMALS);
+        this.nextEntityId = 0;
     }
 
     // -------------------------------------------------------------------------
@@ -43,15 +78,38 @@ public class AnimalManager {
      */
     public void addAnimal(Animal animal) {
         if (animal != null) {
+            assignRandom(animal);
             animals.add(animal);
         }
     }
 
+    /**
+     * Gán luồng ngẫu nhiên riêng cho con vật vừa xuất hiện; trứng chọn luôn trạng thái hiển thị (Đứng hoặc Nằm).
+     */
+    private void assignRandom(Animal animal) {
+        if (worldRandom != null) {
+            animal.setRandom(worldRandom.forEntity(WorldRandom.Stream.ANIMAL_AI, nextEntityId++));
+        }
+        if (animal.getType() == AnimalType.EGG_ENTITY) {
+            animal.setVariant(animal.getRandom().nextInt(2));
+        }
+    }
+
     /**
      * Xóa động vật khỏi danh sách.
      */
     public void removeAnimal(Animal animal) {
-        animals.remove(animal);
+        int index = animals.indexOf(animal);
+        if (index >= 0) removeAt(index);
+    }
+
+    /**
+     * Xóa con vật ở vị trí index, giữ con trỏ của lượt logic đang chạy trỏ đúng con kế tiếp.
+     */
+    private void removeAt(int index) {
+        animals.remove(index);
+        if (index < logicCursor) logicCursor--;
+        if (index < logicPassEnd) logicPassEnd--;
     }
 
     /**
@@ -62,6 +120,14 @@ public class AnimalManager {
         return new ArrayList<>(animals);
     }
 
+    /**
+     * Khung nhìn chỉ đọc của danh sách động vật, không sao chép (dùng mỗi frame).
+     * Chỉ duyệt khi không có ai thêm / xóa động vật cùng lúc (vd: trong vòng lặp game, sau updateAnimals).
+     */
+    public List<Animal> getAnimalsView() {
+        return animalsView;
+    }
+
     /**
      * Tìm động vật tại một vị trí cụ thể trong bán kính cho trước.
      * Dùng để xử lý tương tác của người chơi (ví dụ: click chuột vào con vật).
@@ -86,21 +152,21 @@ public class AnimalManager {
     // -------------------------------------------------------------------------
 
     /**
-     * Hàm cập nhật chính cho toàn bộ hệ thống động vật.
-     * Xử lý logic theo hai nhóm:
-     * 1. Logic nặng (Logic Loop): Đói, lớn, sinh sản... chạy ngắt quãng để tối ưu hiệu năng.
-     * 2. Logic di chuyển (Movement Loop): Chạy liên tục mỗi khung hình để chuyển động mượt mà.
+     * Công việc logic nặng của động vật (đói, sinh trưởng, sinh sản, sản phẩm), đăng ký với FrameScheduler.
+     */
+    public FrameScheduler.Job getLogicJob() {
+        return logicJob;
+    }
+
+    /**
+     * Cập nhật mỗi khung hình: loại bỏ động vật đã chết, di chuyển và trí tuệ nhân tạo (cần chạy liên tục
+     * để chuyển động mượt mà). Logic nặng chạy riêng qua getLogicJob().
      */
     public boolean updateAnimals(long currentTime, Player player) {
+        AnimalTickEvent event = new AnimalTickEvent();
+        event.begin();
         boolean needsRedraw = false;
-        long currentTimeMs = currentTime / 1_000_000;
-
-        // Kiểm tra xem đã đến lúc chạy các logic nặng chưa
-        boolean shouldUpdateLogic = (currentTimeMs - lastLogicUpdateTimeMs >= AnimalConfig.ANIMAL_UPDATE_INTERVAL_MS);
-
-        if (shouldUpdateLogic) {
-            lastLogicUpdateTimeMs = currentTimeMs;
-        }
+        int removed = 0;
 
         // Tính toán khoảng thời gian giữa 2 frame (deltaTime) để di chuyển mượt mà
         // Cap deltaTime tối đa 0.1s để tránh hiện tượng "teleport" khi game bị giật/lag
@@ -112,76 +178,120 @@ public class AnimalManager {
         }
         lastMovementUpdateTime = currentTime;
 
-        long now = System.currentTimeMillis();
-
-        // Danh sách tạm chứa các động vật mới sinh ra (trứng, con non)
-        // để thêm vào danh sách chính sau khi vòng lặp kết thúc
-        List<Animal> newAnimals = new ArrayList<>();
+        long now = GameClock.currentTimeMillis();
 
-        Iterator<Animal> iterator = animals.iterator();
-        while (iterator.hasNext()) {
-            Animal animal = iterator.next();
+        for (int i = 0; i < animals.size(); i++) {
+            Animal animal = animals.get(i);
 
             // Loại bỏ động vật đã chết khỏi danh sách
             if (animal.isDead()) {
-                iterator.remove();
+                removeAt(i--);
                 needsRedraw = true;
+                removed++;
                 continue;
             }
 
-            // --- NHÓM 1: CẬP NHẬT TRẠNG THÁI LOGIC (Chạy ngắt quãng) ---
-            if (shouldUpdateLogic) {
-                // 1. Cập nhật chỉ số đói
-                updateHunger(animal, currentTime);
+            if (updateMovement(animal, now, deltaTime, player)) {
+                needsRedraw = true;
+            }
+        }
 
-                // 2. Kiểm tra xem có bị chết đói không
-                if (checkStarvation(animal, currentTime)) {
-                    // Xử lý rơi thịt và đánh dấu đã chết
-                    handleStarvationDrop(animal);
-                    animal.setDead(true);
-                    needsRedraw = true;
-                    continue;
-                }
+        event.end();
+        if (event.shouldCommit()) {
+            event.animalCount = animals.size();
+            event.logicTick = false;
+            event.removed = removed;
+            event.commit();
+        }
 
-                // 3. Xử lý sự sinh trưởng (Trứng -> Con non -> Trưởng thành)
-                if (updateGrowth(animal, currentTime)) {
-                    needsRedraw = true;
-                }
+        return needsRedraw;
+    }
 
-                // 4. Xử lý sinh sản
-                // Chỉ áp dụng cho thú trưởng thành, no bụng và không phải là Gà (Gà đẻ trứng riêng)
-                if (!animal.isBaby() && animal.getType() != AnimalType.CHICKEN && animal.getHunger() >= AnimalConfig.MIN_HUNGER_FOR_BREEDING) {
-                    if (updateBreeding(animal, currentTime, newAnimals)) {
-                        needsRedraw = true;
-                    }
-                } else {
-                    // Nếu điều kiện không thỏa mãn (đói/chưa lớn), hủy bỏ trạng thái ghép đôi
-                    animal.setBreedingPartner(null);
-                    animal.setMatingStartTime(0);
-                }
+    /**
+     * Một đơn vị công việc logic: bắt đầu lượt mới hoặc xét ANIMALS_PER_UNIT con tiếp theo của lượt.
+     */
+    private boolean runLogicUnit(long currentTime) {
+        if (!logicPassActive) {
+            lastLogicPassStartMs = currentTime / 1_000_000;
+            logicCursor = 0;
+            logicPassEnd = animals.size();
+            logicPassActive = logicPassEnd > 0;
+            return false;
+        }
+
+        AnimalTickEvent event = new AnimalTickEvent();
+        event.begin();
+        boolean needsRedraw = false;
+        int deaths = 0;
 
-                // 5. Xử lý tạo sản phẩm (Sữa, Len, Trứng)
-                if (updateProduction(animal, currentTime, newAnimals)) {
+        // Danh sách tạm chứa các động vật mới sinh ra (trứng, con non)
+        // để thêm vào danh sách chính sau khi xét xong đơn vị này
+        newAnimals.clear();
+
+        int end = Math.min(logicPassEnd, logicCursor + SchedulerConfig.ANIMALS_PER_UNIT);
+        for (; logicCursor < end; logicCursor++) {
+            Animal animal = animals.get(logicCursor);
+            if (animal.isDead()) continue; // Được loại bỏ ở updateAnimals
+
+            // 1. Cập nhật chỉ số đói
+            updateHunger(animal, currentTime);
+
+            // 2. Kiểm tra xem có bị chết đói không
+            if (checkStarvation(animal, currentTime)) {
+                // Xử lý rơi thịt và đánh dấu đã chết
+                handleStarvationDrop(animal);
+                animal.setDead(true);
+                needsRedraw = true;
+                deaths++;
+                continue;
+            }
+
+            // 3. Xử lý sự sinh trưởng (Trứng -> Con non -> Trưởng thành)
+            if (updateGrowth(animal, currentTime)) {
+                needsRedraw = true;
+            }
+
+            // 4. Xử lý sinh sản
+            // Chỉ áp dụng cho thú trưởng thành, no bụng và không phải là Gà (Gà đẻ trứng riêng)
+            if (!animal.isBaby() && animal.getType() != AnimalType.CHICKEN && animal.getHunger() >= AnimalConfig.MIN_HUNGER_FOR_BREEDING) {
+                if (updateBreeding(animal, currentTime, newAnimals)) {
                     needsRedraw = true;
                 }
-
-                // 6. Cập nhật tuổi thọ tính theo giây
-                animal.setAge((int) animal.getAgeInSeconds());
+            } else {
+                // Nếu điều kiện không thỏa mãn (đói/chưa lớn), hủy bỏ trạng thái ghép đôi
+                animal.setBreedingPartner(null);
+                animal.setMatingStartTime(0);
             }
 
-            // --- NHÓM 2: DI CHUYỂN & TRÍ TUỆ NHÂN TẠO (Chạy mỗi khung hình) ---
-            // Cần chạy liên tục để đảm bảo vị trí được cập nhật mượt mà và timer AI chính xác
-            if (updateMovement(animal, now, deltaTime, player)) {
+            // 5. Xử lý tạo sản phẩm (Sữa, Len, Trứng)
+            if (updateProduction(animal, currentTime, newAnimals)) {
                 needsRedraw = true;
             }
+
+            // 6. Cập nhật tuổi thọ tính theo giây
+            animal.setAge((int) animal.getAgeInSeconds());
         }
+        if (logicCursor >= logicPassEnd) logicPassActive = false;
 
-        // Thêm các động vật mới sinh vào danh sách quản lý chính
+        // Thêm các động vật mới sinh vào cuối danh sách (sau logicPassEnd)
         if (!newAnimals.isEmpty()) {
+            for (int i = 0; i < newAnimals.size(); i++) {
+                assignRandom(newAnimals.get(i));
+            }
             animals.addAll(newAnimals);
             needsRedraw = true;
         }
 
+        event.end();
+        if (event.shouldCommit()) {
+            event.animalCount = animals.size();
+            event.logicTick = true;
+            event.births = newAnimals.size();
+            event.deaths = deaths;
+            event.commit();
+        }
+        newAnimals.clear();
+
         return needsRedraw;
     }
 
@@ -407,7 +517,7 @@ public class AnimalManager {
 
         // --- TRƯỜNG HỢP 1: ĐÃ CÓ ĐỐI TƯỢNG VÀ ĐANG THỰC HIỆN HOẠT CẢNH ---
         if (animal.getMatingStartTime() > 0 && animal.getBreedingPartner() != null) {
-            long matingDuration = System.currentTimeMillis() - animal.getMatingStartTime();
+            long matingDuration = GameClock.currentTimeMillis() - animal.getMatingStartTime();
 
             // Nếu đã hết thời gian hoạt cảnh -> Sinh con
             if (matingDuration >= AnimalConfig.BREEDING_ANIMATION_DURATION_MS) {
@@ -577,7 +687,7 @@ public class AnimalManager {
                 // Nếu đã đến đủ gần -> Bắt đầu timer sinh sản
                 if (distSq <= AnimalConfig.BREEDING_RANGE * AnimalConfig.BREEDING_RANGE) {
                     if (animal.getMatingStartTime() == 0) {
-                        animal.setMatingStartTime(System.currentTimeMillis());
+                        animal.setMatingStartTime(GameClock.currentTimeMillis());
                     }
                     animal.setCurrentAction(Animal.Action.IDLE);
                     return true;
@@ -697,18 +807,19 @@ public class AnimalManager {
 
         // 1. Quyết định hành động mới nếu hành động cũ đã hết thời gian
         if (nowMs >= animal.getActionEndTime()) {
-            double roll = random.nextDouble();
+            SplittableRandom animalRandom = animal.getRandom();
+            double roll = animalRandom.nextDouble();
 
             if (roll < walkChance) {
                 // Chuyển sang đi bộ
                 animal.setCurrentAction(Animal.Action.WALK);
-                animal.setDirection(random.nextInt(4)); // Hướng ngẫu nhiên
-                long duration = minWalk + (long)(random.nextDouble() * (maxWalk - minWalk));
+                animal.setDirection(animalRandom.nextInt(4)); // Hướng ngẫu nhiên
+                long duration = minWalk + (long)(animalRandom.nextDouble() * (maxWalk - minWalk));
                 animal.setActionEndTime(nowMs + duration);
             } else {
                 // Chuyển sang đứng yên
                 animal.setCurrentAction(Animal.Action.IDLE);
-                long duration = minIdle + (long)(random.nextDouble() * (maxIdle - minIdle));
+                long duration = minIdle + (long)(animalRandom.nextDouble() * (maxIdle - minIdle));
                 animal.setActionEndTime(nowMs + duration);
             }
         }
@@ -777,7 +888,7 @@ public class AnimalManager {
     public void harvestProduct(Animal animal) {
         if (animal != null && animal.isHasProduct()) {
             animal.setHasProduct(false);
-            animal.setProductionTimer(System.nanoTime()); // Bắt đầu chu kỳ sản xuất mới
+            animal.setProductionTimer(GameClock.nanoTime()); // Bắt đầu chu kỳ sản xuất mới
         }
     }
 
@@ -792,4 +903,44 @@ public class AnimalManager {
         }
         return 0;
     }
-}
\ No newline at end of file
+
+    // -------------------------------------------------------------------------
+    // 7. LƯU / TẢI (SAVE & LOAD)
+    // -------------------------------------------------------------------------
+
+    /**
+     * Sao chép một con vật sang SavedAnimal. Các bộ đếm được đổi sang thời gian mô phỏng (SimulationClock).
+     */
+    public static SavedAnimal snapshotAnimal(Animal animal) {
+        SavedAnimal saved = new SavedAnimal(animal.getType(), animal.getX(), animal.getY(), animal.getAge(), animal.getHunger());
+        saved.spawnTime = SimulationClock.toSimulation(animal.getSpawnTime());
+        saved.lastHungerUpdateTime = SimulationClock.toSimulation(animal.getLastHungerUpdateTime());
+        saved.starvationStartTime = SimulationClock.toSimulation(animal.getStarvationStartTime());
+        saved.productionTimer = SimulationClock.toSimulation(animal.getProductionTimer());
+        saved.breedingCooldownTimer = SimulationClock.toSimulation(animal.getBreedingCooldownTimer());
+        saved.hasProduct = animal.isHasProduct();
+        return saved;
+    }
+
+    /**
+     * Dựng lại con vật từ dữ liệu đã lưu, rồi bù phần thời gian chưa được mô phỏng bằng SimulationCatchUp.
+     */
+    public static Animal restoreAnimal(SavedAnimal saved) {
+        Animal animal = new Animal(saved.type, saved.x, saved.y);
+        animal.setAge(saved.age);
+        animal.setHunger(saved.hunger);
+
+        // File save cũ không có các bộ đếm: giữ giá trị mặc định của con vật mới
+        if (saved.spawnTime != 0) {
+            animal.setSpawnTime(SimulationClock.toNanoTime(saved.spawnTime));
+            animal.setLastHungerUpdateTime(SimulationClock.toNanoTime(saved.lastHungerUpdateTime));
+            animal.setStarvationStartTime(SimulationClock.toNanoTime(saved.starvationStartTime));
+            animal.setProductionTimer(SimulationClock.toNanoTime(saved.productionTimer));
+            animal.setBreedingCooldownTimer(SimulationClock.toNanoTime(saved.breedingCooldownTimer));
+            animal.setHasProduct(saved.hasProduct);
+        }
+
+        SimulationCatchUp.advanceAnimal(animal, GameClock.nanoTime());
+        return animal;
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.farmSimulation.model;
+
+import com.example.farmSimulation.config.SaveConfig;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Nén / giải nén dữ liệu chunk và chạy việc mã hóa các chunk song song.
+ * Mỗi chunk được mã hóa độc lập với các chunk khác, nên có thể chia cho nhiều luồng rồi ghép lại đúng thứ tự.
+ *
+ * Cấu trúc một chunk đã đóng gói (region file phiên bản 2):
+ * [kiểu nén (byte)][nếu DEFLATE: độ dài gốc (varint)][dữ liệu]
+ * Chunk nhỏ mà nén không lợi thì được giữ nguyên (STORED).
+ */
+public class ChunkCodec {
+    static final int METHOD_STORED = 0;
+    static final int METHOD_DEFLATE = 1;
+
+    // Bộ nén / giải nén dùng lại trong mỗi luồng (tạo mới mỗi chunk rất tốn bộ nhớ ngoài heap)
+    private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(() -> new Inflater(true));
+
+    private static ChunkCodec shared;
+
+    private final int threads;
+    private final int compressionLevel;
+    private final ExecutorService pool;     // null khi chỉ dùng 1 luồng (chạy ngay trên luồng gọi)
+    private final ThreadLocal<Deflater> deflater;
+
+    /**
+     * @param threads          Số luồng mã hóa (1 = chạy tuần tự trên luồng gọi)
+     * @param compressionLevel Mức nén Deflater (0-9, 0 = không nén)
+     */
+    public ChunkCodec(int threads, int compressionLevel) {
+        this.threads = Math.max(1, threads);
+        this.compressionLevel = compressionLevel;
+        this.deflater = ThreadLocal.withInitial(() -> new Deflater(compressionLevel, true));
+
+        if (this.threads > 1) {
+            AtomicInteger counter = new AtomicInteger();
+            this.pool = Executors.newFixedThreadPool(this.threads, runnable -> {
+                Thread thread = new Thread(runnable, SaveConfig.CHUNK_CODEC_THREAD_NAME + "-" + counter.incrementAndGet());
+                thread.setDaemon(true); // Không giữ JVM sống khi thoát game
+                return thread;
+            });
+        } else {
+            this.pool = null;
+        }
+    }
+
+    /**
+     * Bộ mã hóa dùng chung của game (số luồng / mức nén theo SaveConfig), tạo ở lần dùng đầu tiên.
+     */
+    public static synchronized ChunkCodec shared() {
+        if (shared == null) {
+            shared = new ChunkCodec(SaveConfig.CHUNK_CODEC_THREADS, SaveConfig.CHUNK_COMPRESSION_LEVEL);
+        }
+        return shared;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    // ==============================================================================================
+    // 1. CHẠY SONG SONG
+    // ==============================================================================================
+
+    /**
+     * Chạy mọi tác vụ trên pool và trả về kết quả theo đúng thứ tự đầu vào (để ghép file theo thứ tự).
+     */
+    public <T> List<T> runAll(List<Callable<T>> tasks) throws Exception {
+        List<T> results = new ArrayList<>(tasks.size());
+        if (pool == null || tasks.size() <= 1) {
+            for (Callable<T> task : tasks) results.add(task.call());
+            return results;
+        }
+
+        List<Future<T>> futures = pool.invokeAll(tasks);
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) throw (Exception) cause;
+            throw e;
+        }
+        return results;
+    }
+
+    /**
+     * Dừng pool (chỉ dùng cho bộ mã hóa tạo riêng, vd: công cụ đo; bộ dùng chung sống hết phiên).
+     */
+    public void close() {
+        if (pool != null) pool.shutdown();
+    }
+
+    // ==============================================================================================
+    // 2. NÉN / GIẢI NÉN MỘT CHUNK
+    // ==============================================================================================
+
+    /**
+     * Đóng gói dữ liệu chunk đã mã hóa (SaveCodec.encodeChunk). An toàn khi gọi từ nhiều luồng.
+     */
+    public byte[] pack(byte[] raw) {
+        if (compressionLevel > 0 && raw.length >= SaveConfig.CHUNK_COMPRESSION_MIN_BYTES) {
+            Deflater compressor = deflater.get();
+            compressor.reset();
+            compressor.setInput(raw);
+            compressor.finish();
+
+            // Chỉ giữ bản nén khi nó thực sự nhỏ hơn (header + bản nén < 1 + bản gốc)
+            byte[] buffer = new byte[raw.length];
+            int length = 0;
+            while (!compressor.finished() && length < buffer.length) {
+                length += compressor.deflate(buffer, length, buffer.length - length);
+            }
+            if (compressor.finished()) {
+                SaveDataWriter out = new SaveDataWriter();
+                out.writeByte(METHOD_DEFLATE);
+                out.writeVarInt(raw.length);
+                out.writeBytes(buffer, 0, length);
+                if (out.size() < raw.length + 1) return out.toByteArray();
+            }
+        }
+
+        byte[] stored = new byte[raw.length + 1];
+        stored[0] = METHOD_STORED;
+        System.arraycopy(raw, 0, stored, 1, raw.length);
+        return stored;
+    }
+
+    /**
+     * Mở gói một chunk (đã được đóng gói bởi pack). An toàn khi gọi từ nhiều luồng.
+     *
+     * @throws SaveFormatException nếu dữ liệu nén bị hỏng
+     */
+    static SaveDataReader unpack(ByteBuffer packed) {
+        SaveDataReader in = new SaveDataReader(packed);
+        int method = in.readByte();
+        if (method == METHOD_STORED) return in;
+        if (method != METHOD_DEFLATE) throw new SaveFormatException("Unknown chunk compression method " + method);
+
+        int rawLength = in.readVarInt();
+        byte[] compressed = new byte[in.remaining()];
+        in.readBytes(compressed);
+
+        Inflater inflater = INFLATER.get();
+        inflater.reset();
+        inflater.setInput(compressed);
+        byte[] raw = new byte[rawLength];
+        try {
+            int length = 0;
+            while (length < rawLength && !inflater.finished()) {
+                int read = inflater.inflate(raw, length, rawLength - length);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                length += read;
+            }
+            if (length != rawLength) throw new SaveFormatException("Compressed chunk is truncated");
+        } catch (DataFormatException e) {
+            throw new SaveFormatException("Compressed chunk is corrupted: " + e.getMessage());
+        }
+        return new SaveDataReader(raw);
+    }
+}
@@ -0,0 +1,382 @@
+package com.example.farmSimulation.model;
+
+import com.example.farmSimulation.config.SaveConfig;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Vùng lưu tạm (swap) trên đĩa cho các chunk bị gỡ khỏi bộ nhớ trong phiên chơi.
+ * Bố cục giống region file: mỗi file p.X.Y.page giữ tối đa REGION_SIZE x REGION_SIZE chunk với bảng vị trí ở đầu file,
+ * nên chỉ mục nằm trên đĩa chứ không nằm trên heap - bộ nhớ không tăng theo số chunk đã đi qua.
+ *
+ * Mỗi bản ghi gồm 2 phần: [phần phụ][dữ liệu chunk (mã hóa như SaveCodec.encodeChunk)].
+ * Mọi thao tác đều synchronized, nên luồng ghi file save đọc được song song với việc gỡ chunk trên FX thread.
+ *
+ * Để file trang không phình ra khi người chơi đi tới đi lui qua cùng một vùng:
+ * - Chunk được đọc lại rồi gỡ lần nữa mà không thay đổi: bản ghi cũ vẫn đúng, không ghi lại.
+ * - Bản ghi mới vừa chỗ của bản ghi cũ (capacity) thì ghi đè tại chỗ, nếu không mới nối vào cuối file.
+ * - Khi phần bản ghi bị bỏ lại vượt PAGE_STORE_COMPACT_GARBAGE_RATIO của file, file được chép gọn lại.
+ *
+ * Nội dung chỉ có giá trị trong phiên hiện tại: reset() (khi tải game khác) xóa sạch và tăng epoch,
+ * ảnh chụp cũ còn giữ epoch trước sẽ không đọc nhầm dữ liệu của phiên mới.
+ */
+public class ChunkPageStore {
+    private static final int ENTRY_SIZE = 20; // offset (long) + độ dài dữ liệu (int) + độ dài phần phụ (int) + chỗ dành sẵn (int)
+    private static final int SLOTS = SaveConfig.REGION_SIZE * SaveConfig.REGION_SIZE;
+    static final int TABLE_SIZE = SLOTS * ENTRY_SIZE;
+
+    private Path directory;                 // Tạo khi ghi trang đầu tiên
+    private int epoch = 0;
+    private long pageCount = 0;             // Tổng số lần ghi trang trong epoch hiện tại (để bỏ qua I/O khi chưa có trang nào)
+    private final Map<Long, Long> garbageBytes = new HashMap<>(); // Số byte bản ghi bị bỏ lại của từng file (theo khóa region)
+
+    // --- Thống kê (cho công cụ đo / debug) ---
+    private long skippedWrites = 0;         // Chunk gỡ lần nữa mà không đổi, không cần ghi lại
+    private long compactions = 0;
+
+    // Một hook chung khi thoát JVM xóa thư mục của mọi vùng lưu tạm còn lại. Vùng lưu tạm chỉ được giữ bằng tham chiếu yếu
+    // (để đóng kênh file trước khi xóa), nên tạo nhiều thế giới (benchmark, kiểm thử) không giữ chúng mãi trong bộ nhớ
+    private static final Set<ChunkPageStore> LIVE_STORES = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+    private static final Set<Path> LIVE_DIRECTORIES = ConcurrentHashMap.newKeySet();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(ChunkPageStore::deleteAllFiles, "chunk-page-cleanup"));
+    }
+
+    // Kênh file đang mở, giới hạn số lượng (LRU)
+    private final LinkedHashMap<Long, FileChannel> channels = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, FileChannel> eldest) {
+            if (size() <= SaveConfig.PAGE_STORE_OPEN_FILES) return false;
+            closeQuietly(eldest.getValue());
+            return true;
+        }
+    };
+
+    /**
+     * Một chunk đã được đọc lại từ vùng lưu tạm.
+     */
+    public static final class Page {
+        public final byte[] extra;
+        public final byte[] chunkData;
+
+        Page(byte[] extra, byte[] chunkData) {
+            this.extra = extra;
+            this.chunkData = chunkData;
+        }
+    }
+
+    public ChunkPageStore() {
+        LIVE_STORES.add(this);
+    }
+
+    // ==============================================================================================
+    // 1. GHI / ĐỌC TRANG
+    // ==============================================================================================
+
+    /**
+     * Cất một chunk. Bản ghi mới thay thế bản ghi cũ của cùng chunk (nếu có).
+     *
+     * @param extra     Dữ liệu phụ do nơi gọi định nghĩa (vd: mặt nạ ô đã sinh cây)
+     * @param chunkData Dữ liệu chunk đã mã hóa (rỗng = chunk toàn ô mặc định)
+     */
+    public synchronized void write(int chunkX, int chunkY, byte[] extra, byte[] chunkData) throws IOException {
+        FileChannel channel = channel(chunkX, chunkY, true);
+        long entryPosition = (long) localIndex(chunkX, chunkY) * ENTRY_SIZE;
+        ByteBuffer oldEntry = readFully(channel, entryPosition, ENTRY_SIZE);
+        long oldOffset = oldEntry.getLong();
+        int oldDataLength = oldEntry.getInt();
+        int oldExtraLength = oldEntry.getInt();
+        int oldCapacity = oldEntry.getInt();
+        int length = extra.length + chunkData.length;
+
+        // 1. Chunk được đọc lại mà chưa thay đổi: bản ghi cũ vẫn đúng
+        if (oldOffset != 0 && oldDataLength == chunkData.length && oldExtraLength == extra.length
+                && recordEquals(channel, oldOffset, extra, chunkData)) {
+            skippedWrites++;
+            return;
+        }
+
+        // 2. Ghi đè tại chỗ nếu vừa, nếu không thì nối vào cuối file (chỗ cũ thành phần bị bỏ lại).
+        // Ghi tại chỗ bị lỗi giữa chừng không sao: nơi gọi giữ chunk trong bộ nhớ nên bản ghi này không được đọc
+        long regionKey = regionKey(chunkX, chunkY);
+        long offset;
+        int capacity;
+        if (oldOffset != 0 && length <= oldCapacity) {
+            offset = oldOffset;
+            capacity = oldCapacity;
+        } else {
+            offset = Math.max(channel.size(), TABLE_SIZE);
+            capacity = length;
+        }
+
+        ByteBuffer record = ByteBuffer.allocate(length);
+        record.put(extra).put(chunkData).flip();
+        writeFully(channel, record, offset);
+
+        // Cập nhật bảng vị trí sau cùng: bản ghi chỉ "tồn tại" khi đã ghi xong
+        ByteBuffer entry = ByteBuffer.allocate(ENTRY_SIZE);
+        entry.putLong(offset).putInt(chunkData.length).putInt(extra.length).putInt(capacity).flip();
+        writeFully(channel, entry, entryPosition);
+        pageCount++;
+
+        if (oldOffset != 0 && offset != oldOffset) {
+            long garbage = garbageBytes.merge(regionKey, (long) oldCapacity, Long::sum);
+            long recordBytes = channel.size() - TABLE_SIZE;
+            if (recordBytes >= SaveConfig.PAGE_STORE_COMPACT_MIN_BYTES
+                    && garbage >= recordBytes * SaveConfig.PAGE_STORE_COMPACT_GARBAGE_RATIO) {
+                compact(chunkX, chunkY, channel);
+            }
+        }
+    }
+
+    /**
+     * Đọc lại chunk đã cất, null nếu chunk chưa từng bị gỡ trong phiên này.
+     */
+    public synchronized Page read(int chunkX, int chunkY) throws IOException {
+        if (pageCount == 0) return null;
+        FileChannel channel = channel(chunkX, chunkY, false);
+        if (channel == null) return null;
+
+        ByteBuffer entry = readFully(channel, (long) localIndex(chunkX, chunkY) * ENTRY_SIZE, ENTRY_SIZE);
+        long offset = entry.getLong();
+        int dataLength = entry.getInt();
+        int extraLength = entry.getInt();
+        if (offset == 0) return null;
+
+        ByteBuffer record = readFully(channel, offset, extraLength + dataLength);
+        byte[] extra = new byte[extraLength];
+        byte[] chunkData = new byte[dataLength];
+        record.get(extra).get(chunkData);
+        return new Page(extra, chunkData);
+    }
+
+    /**
+     * Đọc dữ liệu chunk cho luồng ghi file save. Ném IOException nếu vùng lưu tạm đã bị reset
+     * sau khi ảnh chụp được tạo (dữ liệu không còn thuộc về ảnh chụp đó).
+     */
+    public synchronized byte[] readChunkData(int chunkX, int chunkY, int expectedEpoch) throws IOException {
+        checkEpoch(expectedEpoch);
+        Page page = read(chunkX, chunkY);
+        return page != null ? page.chunkData : null;
+    }
+
+    /**
+     * Khóa mọi chunk đang được cất (đọc bảng vị trí của từng file; chỉ dùng khi lưu game).
+     */
+    public synchronized Set<Long> chunkKeys(int expectedEpoch) throws IOException {
+        checkEpoch(expectedEpoch);
+        Set<Long> keys = new HashSet<>();
+        if (pageCount == 0 || directory == null) return keys;
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "p.*.page")) {
+            for (Path file : stream) {
+                String[] parts = file.getFileName().toString().split("\\.");
+                int regionX = Integer.parseInt(parts[1]);
+                int regionY = Integer.parseInt(parts[2]);
+                FileChannel channel = channel(regionX * SaveConfig.REGION_SIZE, regionY * SaveConfig.REGION_SIZE, false);
+                if (channel == null) continue;
+
+                ByteBuffer table = readFully(channel, 0, TABLE_SIZE);
+                for (int local = 0; local < SLOTS; local++) {
+                    if (table.getLong(local * ENTRY_SIZE) == 0) continue;
+                    keys.add(SaveCodec.packKey(regionX * SaveConfig.REGION_SIZE + local % SaveConfig.REGION_SIZE,
+                            regionY * SaveConfig.REGION_SIZE + local / SaveConfig.REGION_SIZE));
+                }
+            }
+        }
+        return keys;
+    }
+
+    public synchronized int getEpoch() {
+        return epoch;
+    }
+
+    public synchronized long getPageCount() {
+        return pageCount;
+    }
+
+    public synchronized long getSkippedWrites() {
+        return skippedWrites;
+    }
+
+    public synchronized long getCompactions() {
+        return compactions;
+    }
+
+    /**
+     * Tổng kích thước các file trang trên đĩa (byte).
+     */
+    public synchronized long getDiskBytes() throws IOException {
+        return directory != null ? RegionStore.directorySize(directory) : 0;
+    }
+
+    /**
+     * Bỏ mọi trang của phiên trước (gọi khi tải game khác).
+     */
+    public synchronized void reset() {
+        deleteFiles();
+        epoch++;
+        pageCount = 0;
+    }
+
+    // ==============================================================================================
+    // 2. HÀM HỖ TRỢ
+    // ==============================================================================================
+
+    private void checkEpoch(int expectedEpoch) throws IOException {
+        if (expectedEpoch != epoch) {
+            throw new IOException("Chunk page store was reset after the snapshot was taken");
+        }
+    }
+
+    /**
+     * Chép các bản ghi còn dùng của một file trang sang file mới liền nhau, bỏ các chỗ bị bỏ lại.
+     */
+    private void compact(int chunkX, int chunkY, FileChannel channel) throws IOException {
+        long regionKey = regionKey(chunkX, chunkY);
+        Path file = pageFile(chunkX, chunkY);
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+
+        ByteBuffer table = readFully(channel, 0, TABLE_SIZE);
+        try (FileChannel out = FileChannel.open(tempFile,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long offset = TABLE_SIZE;
+            for (int local = 0; local < SLOTS; local++) {
+                int position = local * ENTRY_SIZE;
+                long recordOffset = table.getLong(position);
+                if (recordOffset == 0) continue;
+                int length = table.getInt(position + 8) + table.getInt(position + 12);
+                writeFully(out, readFully(channel, recordOffset, length), offset);
+                table.putLong(position, offset);
+                table.putInt(position + 16, length);
+                offset += length;
+            }
+            table.clear();
+            writeFully(out, table, 0);
+        }
+
+        channels.remove(regionKey);
+        closeQuietly(channel);
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+        garbageBytes.remove(regionKey);
+        compactions++;
+    }
+
+    private FileChannel channel(int chunkX, int chunkY, boolean create) throws IOException {
+        long regionKey = regionKey(chunkX, chunkY);
+        FileChannel channel = channels.get(regionKey);
+        if (channel != null) return channel;
+
+        if (directory == null) {
+            if (!create) return null;
+            directory = Files.createTempDirectory(SaveConfig.PAGE_STORE_DIR_PREFIX);
+            LIVE_DIRECTORIES.add(directory);
+        }
+        Path file = pageFile(chunkX, chunkY);
+        if (!create && !Files.exists(file)) return null;
+
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channels.put(regionKey, channel);
+        return channel;
+    }
+
+    private Path pageFile(int chunkX, int chunkY) {
+        return directory.resolve("p." + Math.floorDiv(chunkX, SaveConfig.REGION_SIZE) + "."
+                + Math.floorDiv(chunkY, SaveConfig.REGION_SIZE) + ".page");
+    }
+
+    private static long regionKey(int chunkX, int chunkY) {
+        return SaveCodec.packKey(Math.floorDiv(chunkX, SaveConfig.REGION_SIZE), Math.floorDiv(chunkY, SaveConfig.REGION_SIZE));
+    }
+
+    /**
+     * Bản ghi đang lưu ở offset có đúng bằng phần phụ và dữ liệu chunk này không.
+     */
+    private static boolean recordEquals(FileChannel channel, long offset, byte[] extra, byte[] chunkData) throws IOException {
+        ByteBuffer record = readFully(channel, offset, extra.length + chunkData.length);
+        return record.slice(0, extra.length).equals(ByteBuffer.wrap(extra))
+                && record.slice(extra.length, chunkData.length).equals(ByteBuffer.wrap(chunkData));
+    }
+
+    private static int localIndex(int chunkX, int chunkY) {
+        return Math.floorMod(chunkY, SaveConfig.REGION_SIZE) * SaveConfig.REGION_SIZE + Math.floorMod(chunkX, SaveConfig.REGION_SIZE);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) break; // Phần bảng chưa từng được ghi: đọc như số 0
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+    private synchronized void deleteFiles() {
+        for (FileChannel channel : channels.values()) {
+            closeQuietly(channel);
+        }
+        channels.clear();
+        garbageBytes.clear();
+        if (directory == null) return;
+        deleteDirectory(directory);
+        LIVE_DIRECTORIES.remove(directory);
+        directory = null;
+    }
+
+    /**
+     * Hook khi thoát: đóng kênh và xóa file của các vùng lưu tạm còn sống, rồi xóa thư mục của các vùng đã bị thu gom.
+     */
+    private static void deleteAllFiles() {
+        List<ChunkPageStore> stores;
+        synchronized (LIVE_STORES) {
+            stores = new ArrayList<>(LIVE_STORES);
+        }
+        for (ChunkPageStore store : stores) {
+            store.deleteFiles();
+        }
+        for (Path directory : LIVE_DIRECTORIES) {
+            deleteDirectory(directory);
+        }
+    }
+
+    private static void deleteDirectory(Path directory) {
+        try {
+            RegionStore.deleteRecursively(directory);
+        } catch (IOException e) {
+            System.err.println("[ChunkPageStore] Could not delete " + directory + ": " + e.getMessage());
+        }
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package com.example.farmSimulation.model;
+
+import com.example.farmSimulation.config.SaveConfig;
+import com.example.farmSimulation.config.TreeConfig;
+import com.example.farmSimulation.config.WorldConfig;
+import com.example.farmSimulation.model.GameSaveState.SavedTileData;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Quản lý việc chunk nào được giữ trong bộ nhớ.
+ * Mọi ô người chơi từng nhìn thấy vốn nằm mãi trong WorldMap; lớp này định kỳ gỡ các chunk ở xa
+ * và không có mô phỏng đang chạy (cây trồng, đất ướt / bón phân, cây đang lớn, động vật, thay đổi chưa ghi nhật ký)
+ * ra vùng lưu tạm trên đĩa (ChunkPageStore), nhờ vậy bộ nhớ không tăng dù người chơi đi khắp bản đồ.
+ *
+ * Đồng thời là nguồn chunk (ChunkSource) của WorldMap: chunk bị gỡ được đọc lại từ vùng lưu tạm,
+ * chunk chưa từng bị gỡ được đọc từ region file của file save (nếu có).
+ */
+public class ChunkResidencyManager implements WorldMap.ChunkSource {
+    private static final int CHUNK_SIZE = SaveConfig.SAVE_CHUNK_SIZE;
+
+    private final WorldMap worldMap;
+    private final TreeManager treeManager;
+    private final ChunkPageStore pageStore = new ChunkPageStore();
+    private final SaveCodec.EnumDictionary enumDictionary = SaveCodec.EnumDictionary.current();
+    private final SaveDataWriter chunkWriter = new SaveDataWriter();
+    private AnimalManager animalManager;
+
+    private RegionStore baseStore;          // Region file của file save đang chơi (null nếu chơi mới)
+    private long lastCheckTimeMs = 0;
+
+    // --- Thống kê (cho công cụ đo / debug) ---
+    private long evictedChunks = 0;
+    private long reloadedChunks = 0;
+
+    public ChunkResidencyManager(WorldMap worldMap, TreeManager treeManager) {
+        this.worldMap = worldMap;
+        this.treeManager = treeManager;
+    }
+
+    public void setAnimalManager(AnimalManager animalManager) {
+        this.animalManager = animalManager;
+    }
+
+    /**
+     * Bắt đầu bản đồ mới: xóa vùng lưu tạm và đặt region file nền (null nếu không có).
+     * Nguồn chunk của WorldMap được đặt lại về lớp này.
+     */
+    public void reset(RegionStore base) {
+        if (baseStore != null) baseStore.unpin();
+        baseStore = base;
+        if (base != null) base.pin(); // Giữ thư mục region không bị dọn khi đang đọc
+
+        pageStore.reset();
+        treeManager.clearGeneratedMasks();
+        worldMap.resetChunks(this);
+    }
+
+    public RegionStore getBaseStore() {
+        return baseStore;
+    }
+
+    public ChunkPageStore getPageStore() {
+        return pageStore;
+    }
+
+    // ==============================================================================================
+    // 1. TẢI LẠI CHUNK (ChunkSource)
+    // ==============================================================================================
+
+    @Override
+    public List<SavedTileData> readChunk(int chunkX, int chunkY) {
+        List<SavedTileData> tiles = readPagedChunk(chunkX, chunkY);
+        if (tiles != null) return tiles;
+        return baseStore != null ? baseStore.readChunk(chunkX, chunkY) : new ArrayList<>();
+    }
+
+    /**
+     * Chunk đã bị gỡ được đọc lại tuần tự (vùng lưu tạm và mặt nạ cây chỉ dùng trên FX thread),
+     * các chunk còn lại được region file giải mã song song.
+     */
+    @Override
+    public Map<Long, List<SavedTileData>> readChunks(long[] chunkKeys) {
+        Map<Long, List<SavedTileData>> chunks = new HashMap<>();
+        List<Long> fromBase = new ArrayList<>();
+        for (long key : chunkKeys) {
+            List<SavedTileData> tiles = readPagedChunk((int) (key >> 32), (int) key);
+            if (tiles != null) {
+                chunks.put(key, tiles);
+            } else if (baseStore != null) {
+                fromBase.add(key);
+            } else {
+                chunks.put(key, new ArrayList<>());
+            }
+        }
+
+        if (!fromBase.isEmpty()) {
+            long[] keys = new long[fromBase.size()];
+            for (int i = 0; i < keys.length; i++) keys[i] = fromBase.get(i);
+            chunks.putAll(baseStore.readChunks(keys));
+        }
+        return chunks;
+    }
+
+    /**
+     * Đọc lại chunk từ vùng lưu tạm, null nếu chunk chưa từng bị gỡ (hoặc đọc lỗi).
+     */
+    private List<SavedTileData> readPagedChunk(int chunkX, int chunkY) {
+        try {
+            ChunkPageStore.Page page = pageStore.read(chunkX, chunkY);
+            if (page == null) return null;
+            reloadedChunks++;
+            if (page.extra.length > 0) {
+                treeManager.restoreGeneratedMask(chunkX, chunkY, decodeMask(page.extra));
+            }
+            List<SavedTileData> tiles = new ArrayList<>();
+            SaveCodec.decodeChunk(new SaveDataReader(page.chunkData), chunkX, chunkY, CHUNK_SIZE, enumDictionary, tiles);
+            return tiles;
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.err.println("Failed to read paged chunk " + chunkX + "," + chunkY + ", falling back to the save file.");
+            return null;
+        }
+    }
+
+    // ==============================================================================================
+    // 2. GỠ CHUNK Ở XA
+    // ==============================================================================================
+
+    /**
+     * Gọi mỗi frame; thực sự kiểm tra mỗi CHUNK_RESIDENCY_CHECK_INTERVAL_MS.
+     *
+     * @param playerX Tọa độ X thực của người chơi (pixel)
+     * @param playerY Tọa độ Y thực của người chơi (pixel)
+     * @return Số chunk đã gỡ
+     */
+    public int update(long currentTime, double playerX, double playerY) {
+        if (!SaveConfig.CHUNK_EVICTION_ENABLED) return 0;
+        long currentTimeMs = currentTime / 1_000_000;
+        if (currentTimeMs - lastCheckTimeMs < SaveConfig.CHUNK_RESIDENCY_CHECK_INTERVAL_MS) return 0;
+        lastCheckTimeMs = currentTimeMs;
+
+        int playerChunkX = Math.floorDiv((int) Math.floor(playerX / WorldConfig.TILE_SIZE), CHUNK_SIZE);
+        int playerChunkY = Math.floorDiv((int) Math.floor(playerY / WorldConfig.TILE_SIZE), CHUNK_SIZE);
+        Set<Long> animalChunks = collectAnimalChunks();
+
+        int evicted = 0;
+        for (long key : worldMap.getResidentChunkKeys()) {
+            if (evicted >= SaveConfig.MAX_CHUNK_EVICTIONS_PER_CHECK) break;
+            int chunkX = (int) (key >> 32);
+            int chunkY = (int) key;
+            int distance = Math.max(Math.abs(chunkX - playerChunkX), Math.abs(chunkY - playerChunkY));
+            if (distance <= SaveConfig.CHUNK_EVICT_DISTANCE_CHUNKS || animalChunks.contains(key)) continue;
+
+            if (evictChunk(chunkX, chunkY)) evicted++;
+        }
+        return evicted;
+    }
+
+    /**
+     * Cất chunk ra vùng lưu tạm rồi gỡ khỏi bộ nhớ, nếu chunk không có mô phỏng đang chạy.
+     *
+     * @return true nếu chunk đã được gỡ
+     */
+    boolean evictChunk(int chunkX, int chunkY) {
+        SavedTileData[] tiles = new SavedTileData[CHUNK_SIZE * CHUNK_SIZE];
+        int startCol = chunkX * CHUNK_SIZE;
+        int startRow = chunkY * CHUNK_SIZE;
+        for (int row = startRow; row < startRow + CHUNK_SIZE; row++) {
+            for (int col = startCol; col < startCol + CHUNK_SIZE; col++) {
+                TileData data = worldMap.peekTileData(col, row);
+                if (data == null) continue;
+                if (isActive(data) || worldMap.isTileDirty(col, row)) return false;
+                if (!WorldMap.isDefaultTile(data)) {
+                    tiles[SaveCodec.localIndex(col, row)] = WorldMap.snapshotTile(col, row, data);
+                }
+            }
+        }
+
+        chunkWriter.reset();
+        SaveCodec.encodeChunk(tiles, chunkWriter);
+        long[] mask = treeManager.detachGeneratedMask(chunkX, chunkY);
+        try {
+            pageStore.write(chunkX, chunkY, encodeMask(mask), chunkWriter.toByteArray());
+        } catch (IOException e) {
+            // Không cất được: giữ chunk trong bộ nhớ
+            e.printStackTrace();
+            if (mask != null) treeManager.restoreGeneratedMask(chunkX, chunkY, mask);
+            return false;
+        }
+
+        worldMap.unloadChunk(chunkX, chunkY);
+        evictedChunks++;
+        return true;
+    }
+
+    /**
+     * Ô còn trạng thái đang chạy theo thời gian (sẽ mất nếu gỡ khỏi bộ nhớ).
+     */
+    private static boolean isActive(TileData data) {
+        if (data.getCropData() != null || data.isWatered() || data.isFertilized()) return true;
+        if (data.getBaseTileType() == Tile.SOIL || data.getBaseTileType() == Tile.SOIL_WET) return true; // Đất đang khô dần
+        TreeData tree = data.getTreeData();
+        return tree != null && (tree.getChopCount() > 0 || tree.getGrowthStage() < TreeConfig.TREE_MAX_GROWTH_STAGE);
+    }
+
+    private Set<Long> collectAnimalChunks() {
+        Set<Long> chunks = new HashSet<>();
+        if (animalManager == null) return chunks;
+        for (Animal animal : animalManager.getAnimals()) {
+            int col = (int) Math.floor(animal.getX() / WorldConfig.TILE_SIZE);
+            int row = (int) Math.floor(animal.getY() / WorldConfig.TILE_SIZE);
+            chunks.add(SaveCodec.packKey(Math.floorDiv(col, CHUNK_SIZE), Math.floorDiv(row, CHUNK_SIZE)));
+        }
+        return chunks;
+    }
+
+    private static byte[] encodeMask(long[] mask) {
+        if (mask == null) return new byte[0];
+        ByteBuffer buffer = ByteBuffer.allocate(mask.length * Long.BYTES);
+        for (long word : mask) buffer.putLong(word);
+        return buffer.array();
+    }
+
+    private static long[] decodeMask(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        long[] mask = new long[TreeManager.GENERATED_MASK_WORDS];
+        for (int i = 0; i < mask.length && buffer.remaining() >= Long.BYTES; i++) {
+            mask[i] = buffer.getLong();
+        }
+        return mask;
+    }
+
+    public long getEvictedChunks() {
+        return evictedChunks;
+    }
+
+    public long getReloadedChunks() {
+        return reloadedChunks;
+    }
+}
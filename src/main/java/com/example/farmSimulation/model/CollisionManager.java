@@ -12,6 +12,12 @@ import com.example.farmSimulation.config.WorldConfig;
 public class CollisionManager {
     private final WorldMap worldMap;
 
+    // Ô vừa đọc trong lượt checkCollision hiện tại: các điểm kiểm tra của một hộp va chạm thường rơi vào cùng 1-2 ô,
+    // giữ lại ô cuối giúp tránh tra bảng (và tạo khóa Long) lặp lại. Bị xóa khi lượt kiểm tra kết thúc.
+    private boolean inCollisionCheck;
+    private TileData cachedTile;
+    private int cachedCol, cachedRow;
+
     public CollisionManager(WorldMap worldMap) {
         this.worldMap = worldMap;
     }
@@ -26,7 +32,7 @@ public class CollisionManager {
         int col = (int) Math.floor(tileX / WorldConfig.TILE_SIZE);
         int row = (int) Math.floor(tileY / WorldConfig.TILE_SIZE);
 
-        TileData data = worldMap.getTileData(col, row);
+        TileData data = tileAt(col, row);
 
         // Kiểm tra va chạm với hàng rào
         if (data.getFenceData() != null && data.getFenceData().isSolid()) {
@@ -170,6 +176,16 @@ public class CollisionManager {
      * Việc này giúp khắc phục lỗi nhân vật đi xuyên qua vật cản khi vùng va chạm của cây quá nhỏ.
      */
     public boolean checkCollision(double centerX, double centerY, double width, double height) {
+        inCollisionCheck = true;
+        try {
+            return checkCollisionPoints(centerX, centerY, width, height);
+        } finally {
+            inCollisionCheck = false;
+            cachedTile = null;
+        }
+    }
+
+    private boolean checkCollisionPoints(double centerX, double centerY, double width, double height) {
         double halfW = width / 2.0;
         double halfH = height / 2.0;
 
@@ -191,4 +207,17 @@ public class CollisionManager {
 
         return false;
     }
-}
\ No newline at end of file
+
+    /**
+     * Lấy dữ liệu ô, dùng lại ô vừa đọc nếu đang trong một lượt checkCollision.
+     */
+    private TileData tileAt(int col, int row) {
+        if (!inCollisionCheck) return worldMap.getTileData(col, row);
+        if (cachedTile != null && cachedCol == col && cachedRow == row) return cachedTile;
+        TileData data = worldMap.getTileData(col, row);
+        cachedCol = col;
+        cachedRow = row;
+        cachedTile = data;
+        return data;
+    }
+}
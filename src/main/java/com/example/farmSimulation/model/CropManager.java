@@ -1,7 +1,11 @@
 package com.example.farmSimulation.model;
 
 import com.example.farmSimulation.config.CropConfig;
-import com.example.farmSimulation.config.GameLogicConfig;
+import com.example.farmSimulation.config.SchedulerConfig;
+import com.example.farmSimulation.model.jfr.CropUpdateEvent;
+
+import java.util.Arrays;
+import java.util.Map;
 
 // Class quản lý logic và trạng thái của hệ thống cây trồng
 public class CropManager {
@@ -9,14 +13,31 @@ public class CropManager {
     private WeatherManager weatherManager; // Quản lý thời tiết
     private TimeManager timeManager; // Quản lý thời gian trong game
 
-    // Thời điểm cập nhật frame trước đó
+    // Thời điểm gọi đầu tiên (0: chưa khởi tạo)
     private long lastUpdateTime = 0;
 
-    // Thời điểm cập nhật logic cây trồng lần cuối để kiểm soát tần suất xử lý
-    private long lastCropUpdateTimeMs = 0;
+    // --- Lượt cập nhật đang chạy (chia thành nhiều đơn vị qua FrameScheduler) ---
+    // Đầu mỗi lượt, khóa các ô cần xử lý được chụp lại và sắp xếp theo tọa độ (không theo thứ tự duyệt HashMap,
+    // vốn đổi khi chunk bị gỡ / tải lại hoặc sau khi tải game); mỗi đơn vị xử lý CROP_TILES_PER_UNIT ô tiếp theo
+    private long lastPassStartTime = 0;
+    private long passDeltaTime = 0;     // Thời gian giữa hai lần bắt đầu lượt, dùng để "đóng băng" cây thiếu nước
+    private boolean passActive = false;
+    private long[] passKeys = new long[256]; // Dùng lại giữa các lượt, chỉ nới rộng khi cần
+    private int passSize = 0;
+    private int passCursor = 0;
+
+    private final FrameScheduler.Job updateJob = new FrameScheduler.Job() {
+        @Override
+        public boolean hasWork(long now) {
+            return passActive || lastUpdateTime == 0
+                    || now - lastPassStartTime >= SchedulerConfig.CROP_PASS_MIN_INTERVAL_MS * 1_000_000;
+        }
 
-    // Chỉ số theo dõi các ô đất đã xử lý, giúp phân chia khối lượng công việc qua nhiều frame
-    private int lastProcessedIndex = 0;
+        @Override
+        public boolean runUnit(long now) {
+            return runCropUnit(now);
+        }
+    };
 
     public CropManager(WorldMap worldMap) {
         this.worldMap = worldMap;
@@ -50,47 +71,55 @@ public class CropManager {
         data.setStatusIndicator(CropStatusIndicator.NONE);
     }
 
+    /**
+     * Công việc cập nhật cây trồng, đăng ký với FrameScheduler.
+     */
+    public FrameScheduler.Job getUpdateJob() {
+        return updateJob;
+    }
+
+    /**
+     * Chạy trọn một lượt cập nhật nếu đã tới lúc (không giới hạn ngân sách - dùng trong benchmark và công cụ đo).
+     */
     public boolean updateCrops(long currentTime) {
-        boolean mapNeedsRedraw = false;
-        long currentTimeMs = currentTime / 1_000_000;
+        return FrameScheduler.runToCompletion(updateJob, currentTime);
+    }
 
-        // Tính toán thời gian trôi qua giữa hai lần gọi hàm update
+    /**
+     * Một đơn vị công việc: bắt đầu lượt mới (chụp danh sách ô) hoặc xử lý CROP_TILES_PER_UNIT ô tiếp theo của lượt.
+     */
+    private boolean runCropUnit(long currentTime) {
         if (lastUpdateTime == 0) {
             lastUpdateTime = currentTime;
-            lastCropUpdateTimeMs = currentTimeMs;
-            return false; // Bỏ qua frame đầu tiên
+            lastPassStartTime = currentTime;
+            return false; // Lần gọi đầu tiên chỉ khởi tạo mốc thời gian
         }
-        long deltaTime = currentTime - lastUpdateTime;
-        lastUpdateTime = currentTime;
 
-        // Chỉ thực hiện cập nhật logic cây trồng theo chu kỳ quy định để tối ưu hiệu năng
-        if (currentTimeMs - lastCropUpdateTimeMs < GameLogicConfig.CROP_UPDATE_INTERVAL_MS) {
+        if (!passActive) {
+            startPass(currentTime);
             return false;
         }
-        lastCropUpdateTimeMs = currentTimeMs;
-
-        // Lấy danh sách tất cả các ô đất để lọc ra những ô cần xử lý
-        java.util.Collection<TileData> allTiles = worldMap.getAllTileData();
-        java.util.ArrayList<TileData> tilesToUpdate = new java.util.ArrayList<>();
-
-        // Chỉ thêm vào danh sách xử lý nếu ô đất có cây, đang ướt, đã bón phân hoặc là đất thường
-        for (TileData data : allTiles) {
-            if (data.getCropData() != null ||
-                    data.isWatered() ||
-                    data.isFertilized() ||
-                    data.getBaseTileType() == Tile.SOIL) {
-                tilesToUpdate.add(data);
-            }
-        }
 
-        // Giới hạn số lượng ô đất được cập nhật trong mỗi frame để tránh giật lag
-        int processedCount = 0;
-        int startIndex = lastProcessedIndex;
+        boolean mapNeedsRedraw = false;
+        long currentTimeMs = currentTime / 1_000_000;
+        long deltaTime = passDeltaTime;
 
-        for (int i = 0; i < tilesToUpdate.size() && processedCount < GameLogicConfig.MAX_CROPS_UPDATE_PER_FRAME; i++) {
-            int index = (startIndex + i) % tilesToUpdate.size();
-            TileData data = tilesToUpdate.get(index);
+        CropUpdateEvent event = new CropUpdateEvent();
+        event.begin();
+        int processedCount = 0;
+        int changedTiles = 0;
+        int growthTransitions = 0;
+        int cropDeaths = 0;
+        int soilTransitions = 0;
+
+        int end = Math.min(passSize, passCursor + SchedulerConfig.CROP_TILES_PER_UNIT);
+        for (; passCursor < end; passCursor++) {
+            long key = passKeys[passCursor];
+            // Ô có thể đã đổi (thu hoạch, cuốc lại...) hoặc đã bị gỡ khỏi bộ nhớ từ lúc bắt đầu lượt
+            TileData data = worldMap.peekTileData(WorldMap.tileCol(key), WorldMap.tileRow(key));
+            if (data == null || !needsUpdate(data)) continue;
             boolean changed = false;
+            boolean timersChanged = false; // Chỉ đổi mốc thời gian (được lưu nhưng không cần vẽ lại)
             processedCount++;
 
             // --- LOGIC TƯỚI NƯỚC VÀ ĐẤT ---
@@ -102,6 +131,7 @@ public class CropManager {
                 data.setLastWateredTime(currentTime);
                 data.setDryStartTime(0); // Xóa thời gian bắt đầu khô do đất đã ướt
                 changed = true;
+                soilTransitions++;
             }
 
             if (data.isWatered()) {
@@ -112,6 +142,7 @@ public class CropManager {
                         data.setBaseTileType(Tile.SOIL);
                         data.setDryStartTime(currentTime); // Bắt đầu tính giờ khô
                         changed = true;
+                        soilTransitions++;
                     }
                 }
             } else if (data.getBaseTileType() == Tile.SOIL) { // Trường hợp đất khô
@@ -119,18 +150,21 @@ public class CropManager {
                     // Khởi tạo thời gian khô nếu chưa có
                     if (data.getDryStartTime() == 0) {
                         data.setDryStartTime(currentTime);
+                        timersChanged = true;
                     } else {
                         // Đất khô để lâu không canh tác sẽ mọc cỏ trở lại
                         if ((currentTime - data.getDryStartTime()) / 1_000_000 > CropConfig.SOIL_REVERT_TIME_MS) {
                             data.setBaseTileType(Tile.GRASS);
                             data.setDryStartTime(0);
                             changed = true;
+                            soilTransitions++;
                         }
                     }
                 } else { // Có cây trên đất khô
                     // Đảm bảo thời gian khô được ghi nhận để tính toán logic chết cây
                     if (data.getDryStartTime() == 0) {
                         data.setDryStartTime(currentTime);
+                        timersChanged = true;
                     }
                     long dryDuration = (currentTime - data.getDryStartTime()) / 1_000_000;
                     long deathTime = CropConfig.WATER_WARNING_DELAY_MS + CropConfig.CROP_DEATH_TIME_MS;
@@ -139,6 +173,7 @@ public class CropManager {
                     if (data.getCropData().getGrowthStage() != -1 && dryDuration > deathTime) {
                         resetTileToSoil(data, currentTime);
                         changed = true;
+                        cropDeaths++;
                     }
                 }
             }
@@ -215,6 +250,7 @@ public class CropManager {
                             data.setFertilized(false);
                         }
                         changed = true;
+                        growthTransitions++;
                     }
                 } else {
                     // Cơ chế đóng băng thời gian phát triển khi cây thiếu nước quá lâu
@@ -223,6 +259,7 @@ public class CropManager {
                     long newPlantTime = crop.getPlantTime() + deltaTime;
                     crop.setPlantTime(newPlantTime);
                     // Không đánh dấu changed là true vì giai đoạn phát triển không thay đổi
+                    timersChanged = true;
                 }
             }
 
@@ -235,17 +272,57 @@ public class CropManager {
 
             if (changed) {
                 mapNeedsRedraw = true;
+                worldMap.markDirty(key);
+                changedTiles++;
+            } else if (timersChanged) {
+                // Vẫn phải đánh dấu: mốc thời gian được lưu (nhật ký) và được băm (WorldHashTracker)
+                worldMap.markDirty(key);
             }
         }
-
-        // Lưu lại vị trí chỉ số hiện tại để tiếp tục xử lý các ô còn lại trong frame tiếp theo
-        if (tilesToUpdate.size() > 0) {
-            lastProcessedIndex = (startIndex + processedCount) % tilesToUpdate.size();
+        if (passCursor >= passSize) passActive = false;
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.loadedTiles = worldMap.getTileDataMap().size();
+            event.candidateTiles = passSize;
+            event.processedTiles = processedCount;
+            event.changedTiles = changedTiles;
+            event.growthTransitions = growthTransitions;
+            event.cropDeaths = cropDeaths;
+            event.soilTransitions = soilTransitions;
+            event.commit();
         }
 
         return mapNeedsRedraw;
     }
 
+    /**
+     * Bắt đầu lượt mới: chụp khóa các ô cần xử lý, sắp xếp để thứ tự xử lý chỉ phụ thuộc tọa độ.
+     */
+    private void startPass(long currentTime) {
+        passDeltaTime = currentTime - lastPassStartTime;
+        lastPassStartTime = currentTime;
+        passSize = 0;
+        passCursor = 0;
+        for (Map.Entry<Long, TileData> entry : worldMap.getTileDataMap().entrySet()) {
+            if (!needsUpdate(entry.getValue())) continue;
+            if (passSize == passKeys.length) passKeys = Arrays.copyOf(passKeys, passSize * 2);
+            passKeys[passSize++] = entry.getKey();
+        }
+        Arrays.sort(passKeys, 0, passSize);
+        passActive = passSize > 0;
+    }
+
+    /**
+     * Chỉ xử lý ô đất có cây, đang ướt, đã bón phân hoặc là đất thường.
+     */
+    private static boolean needsUpdate(TileData data) {
+        return data.getCropData() != null ||
+                data.isWatered() ||
+                data.isFertilized() ||
+                data.getBaseTileType() == Tile.SOIL;
+    }
+
     private CropStatusIndicator calculateStatus(TileData data, CropData crop, long currentTime) {
         if (crop == null) return CropStatusIndicator.NONE;
         if (crop.getGrowthStage() == -1) return CropStatusIndicator.DEAD;
@@ -1,5 +1,10 @@
 package com.example.farmSimulation.model;
 
+import com.example.farmSimulation.config.SaveConfig;
+import com.example.farmSimulation.config.SchedulerConfig;
+
+import java.util.Arrays;
+
 /**
  * Lớp quản lý hệ thống hàng rào.
  * Ch chịu trách nhiệm xử lý logic tự động nối hình ảnh (auto-tiling) và trạng thái đóng hoặc mở của cổng rào.
@@ -7,6 +12,23 @@ package com.example.farmSimulation.model;
 public class FenceManager {
     private final WorldMap worldMap;
 
+    // Hàng đợi các chunk vừa được tải lười cần nối lại hình hàng rào (khóa chunk, đọc từ pendingHead tới pendingTail)
+    private long[] pendingChunks = new long[16];
+    private int pendingHead = 0;
+    private int pendingTail = 0;
+
+    private final FrameScheduler.Job recomputeJob = new FrameScheduler.Job() {
+        @Override
+        public boolean hasWork(long now) {
+            return pendingHead < pendingTail;
+        }
+
+        @Override
+        public boolean runUnit(long now) {
+            return runRecomputeUnit();
+        }
+    };
+
     public FenceManager(WorldMap worldMap) {
         this.worldMap = worldMap;
     }
@@ -39,11 +61,14 @@ public class FenceManager {
      * Kiểm tra xem một ô đất tại vị trí cụ thể có được coi là hàng rào để kết nối hay không.
      * Lưu ý: Hàng rào đang mở (trạng thái cổng) sẽ được xử lý như không phải là rào,
      * điều này giúp hình ảnh các hàng rào bên cạnh tự động ngắt kết nối với cổng đang mở.
+     * Ô chưa nằm trong bộ nhớ (chunk chưa tải) được coi là không có rào; khi chunk đó được tải,
+     * updateFencePatternsInChunk sẽ nối lại phần rìa.
      */
     private boolean isFence(int col, int row) {
-        TileData data = worldMap.getTileData(col, row);
+        TileData data = worldMap.peekTileData(col, row);
         // Chỉ xác nhận kết nối nếu ô đó là hàng rào và đang ở trạng thái đóng
-        return data.getBaseTileType() == Tile.FENCE
+        return data != null
+                && data.getBaseTileType() == Tile.FENCE
                 && data.getFenceData() != null
                 && data.getFenceData().isSolid(); // isSolid là true nghĩa là hàng rào đang đóng
     }
@@ -72,9 +97,9 @@ public class FenceManager {
      * Phương thức hỗ trợ để cập nhật hình ảnh tại một vị trí cụ thể.
      */
     private void updateFencePatternAt(int col, int row) {
-        TileData data = worldMap.getTileData(col, row);
+        TileData data = worldMap.peekTileData(col, row);
         // Chỉ thực hiện cập nhật nếu ô tại vị trí đó cũng là hàng rào
-        if (data.getBaseTileType() == Tile.FENCE && data.getFenceData() != null) {
+        if (data != null && data.getBaseTileType() == Tile.FENCE && data.getFenceData() != null) {
             int pattern = calculateFencePattern(col, row);
             data.getFenceData().setTilePattern(pattern);
             worldMap.setTileData(col, row, data);
@@ -107,12 +132,70 @@ public class FenceManager {
             TileData data = entry.getValue();
             if (data.getBaseTileType() == Tile.FENCE && data.getFenceData() != null) {
                 long key = entry.getKey();
-                int col = (int) (key >> 32);
-                int row = (int) key;
+                int col = WorldMap.tileCol(key);
+                int row = WorldMap.tileRow(key);
 
                 int pattern = calculateFencePattern(col, row);
                 data.getFenceData().setTilePattern(pattern);
             }
         }
     }
+
+    /**
+     * Tính lại hình ảnh hàng rào của một chunk vừa được tải lười, kể cả viền 1 ô xung quanh
+     * (hàng rào của chunk bên cạnh cần nối sang chunk mới). Chỉ đọc các ô đã nằm trong bộ nhớ.
+     *
+     * @return true nếu có hàng rào đổi hình
+     */
+    public boolean updateFencePatternsInChunk(int chunkX, int chunkY, int chunkSize) {
+        boolean changed = false;
+        int startCol = chunkX * chunkSize - 1;
+        int startRow = chunkY * chunkSize - 1;
+        for (int row = startRow; row <= startRow + chunkSize + 1; row++) {
+            for (int col = startCol; col <= startCol + chunkSize + 1; col++) {
+                TileData data = worldMap.peekTileData(col, row);
+                if (data != null && data.getBaseTileType() == Tile.FENCE && data.getFenceData() != null) {
+                    int pattern = calculateFencePattern(col, row);
+                    if (data.getFenceData().getTilePattern() != pattern) {
+                        data.getFenceData().setTilePattern(pattern);
+                        changed = true;
+                    }
+                }
+            }
+        }
+        return changed;
+    }
+
+    // --- Tính lại hình hàng rào của chunk vừa tải (chạy qua FrameScheduler) ---
+
+    /**
+     * Công việc nối lại hình hàng rào của các chunk vừa được tải lười, đăng ký với FrameScheduler.
+     */
+    public FrameScheduler.Job getRecomputeJob() {
+        return recomputeJob;
+    }
+
+    /**
+     * Xếp hàng một chunk vừa được tải để tính lại hình hàng rào (gọi từ WorldMap.ChunkLoadListener).
+     * Không tính ngay: chunk thường được tải giữa lúc đang vẽ hoặc đang sinh cây.
+     */
+    public void requestChunkRecompute(int chunkX, int chunkY) {
+        if (pendingHead == pendingTail) {
+            pendingHead = 0;
+            pendingTail = 0;
+        } else if (pendingTail == pendingChunks.length) {
+            pendingChunks = Arrays.copyOf(pendingChunks, pendingChunks.length * 2);
+        }
+        pendingChunks[pendingTail++] = ((long) chunkX << 32) | (chunkY & 0xffffffffL);
+    }
+
+    private boolean runRecomputeUnit() {
+        boolean changed = false;
+        int end = Math.min(pendingTail, pendingHead + SchedulerConfig.FENCE_CHUNKS_PER_UNIT);
+        for (; pendingHead < end; pendingHead++) {
+            long key = pendingChunks[pendingHead];
+            changed |= updateFencePatternsInChunk((int) (key >> 32), (int) key, SaveConfig.SAVE_CHUNK_SIZE);
+        }
+        return changed;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,370 @@
+package com.example.farmSimulation.model;
+
+import com.example.farmSimulation.config.ProfilerConfig;
+import com.example.farmSimulation.model.jfr.GameFrameEvent;
+import com.example.farmSimulation.model.jfr.GameLoopStageEvent;
+import jdk.jfr.EventType;
+
+import java.lang.management.ManagementFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Đo thời gian từng giai đoạn của vòng lặp game mỗi frame, giữ lại FRAME_PROFILER_WINDOW frame gần nhất
+ * trong bộ đệm vòng để tính p50 / p95 / p99 / max và vẽ biểu đồ thời gian frame.
+ *
+ * Cách dùng (chỉ trên FX thread): beginFrame() -> begin(stage) / end() ... -> endFrame().
+ * Giai đoạn có thể lồng nhau (vd: MAP_REDRAW bên trong ACTIONS); thời gian được tính riêng (exclusive):
+ * khi giai đoạn con chạy, đồng hồ của giai đoạn cha tạm dừng. Gọi begin/end ngoài frame bị bỏ qua.
+ * Chi phí mỗi ranh giới chỉ là một lần System.nanoTime(), không cấp phát bộ nhớ.
+ * Số byte FX thread cấp phát trong mỗi frame cũng được ghi lại (nếu JVM hỗ trợ đếm cấp phát theo luồng).
+ *
+ * Khi có bản ghi Java Flight Recorder đang chạy, mỗi frame / giai đoạn cũng được phát thành
+ * GameFrameEvent / GameLoopStageEvent (chỉ khi đó mới tạo đối tượng sự kiện).
+ */
+public class FrameProfiler {
+
+    /**
+     * Các giai đoạn được đo trong GameManager.updateGameLogic.
+     */
+    public enum Stage {
+        TIME("Time"),
+        MOVEMENT("Movement"),
+        ACTIONS("Actions"),
+        JOBS("Jobs"),  // FrameScheduler: cây trồng, cây tự nhiên, logic động vật, hàng rào
+        ANIMALS("Animals"),
+        CHUNKS("Chunks"),
+        MAP_REDRAW("Map redraw"),
+        ENTITIES("Entities/weather"),
+        HUD("HUD"),
+        AUTOSAVE("Autosave");
+
+        private final String label;
+
+        Stage(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    private static final Stage[] STAGES = Stage.values();
+
+    // Kiểm tra nhanh xem sự kiện JFR có đang được ghi không (tránh tạo đối tượng sự kiện mỗi giai đoạn)
+    private static final EventType FRAME_EVENT_TYPE = EventType.getEventType(GameFrameEvent.class);
+    private static final EventType STAGE_EVENT_TYPE = EventType.getEventType(GameLoopStageEvent.class);
+
+    // Bộ đếm cấp phát theo luồng của HotSpot (null nếu JVM không hỗ trợ hoặc tắt trong cấu hình)
+    private static final com.sun.management.ThreadMXBean ALLOCATION_BEAN = allocationBean();
+
+    private final boolean enabled;
+    private final int capacity;
+
+    // --- Bộ đệm vòng: mỗi frame một cột ---
+    private final long[][] stageNanos;   // [giai đoạn][frame]
+    private final long[] updateNanos;    // Tổng thời gian xử lý của frame
+    private final long[] intervalNanos;  // Khoảng cách với frame trước (nghịch đảo FPS)
+    private final long[] allocatedBytes; // Số byte cấp phát trên luồng game trong frame (-1 nếu không đo được)
+    private int head = 0;                // Vị trí ghi frame tiếp theo
+    private int count = 0;               // Số frame đang có trong bộ đệm
+    private long frameCounter = 0;       // Tổng số frame đã ghi từ đầu phiên
+
+    // --- Frame đang đo ---
+    private final long[] current = new long[STAGES.length];
+    private final int[] stack;
+    private int depth = 0;
+    private boolean inFrame = false;
+    private long frameStart = 0;
+    private long lastFrameStart = 0;
+    private long mark = 0; // Thời điểm ranh giới gần nhất
+    private long allocationStart = 0;
+
+    // --- Sự kiện JFR của frame đang đo (null khi JFR không ghi) ---
+    private GameFrameEvent frameEvent;
+    private final GameLoopStageEvent[] stageEvents; // Song song với stack
+    private final long[] exclusiveAtBegin;          // current[stage] lúc giai đoạn bắt đầu
+
+    public FrameProfiler() {
+        this(ProfilerConfig.FRAME_PROFILER_ENABLED, ProfilerConfig.FRAME_PROFILER_WINDOW);
+    }
+
+    public FrameProfiler(boolean enabled, int capacity) {
+        this.enabled = enabled;
+        this.capacity = Math.max(1, capacity);
+        this.stageNanos = new long[STAGES.length][this.capacity];
+        this.updateNanos = new long[this.capacity];
+        this.intervalNanos = new long[this.capacity];
+        this.allocatedBytes = new long[this.capacity];
+        this.stack = new int[ProfilerConfig.FRAME_PROFILER_MAX_DEPTH];
+        this.stageEvents = new GameLoopStageEvent[ProfilerConfig.FRAME_PROFILER_MAX_DEPTH];
+        this.exclusiveAtBegin = new long[ProfilerConfig.FRAME_PROFILER_MAX_DEPTH];
+    }
+
+    // ==============================================================================================
+    // ĐO
+    // ==============================================================================================
+
+    public void beginFrame() {
+        if (!enabled) return;
+        long now = System.nanoTime();
+        intervalNanos[head] = lastFrameStart != 0 ? now - lastFrameStart : 0;
+        lastFrameStart = now;
+        frameStart = now;
+        mark = now;
+        depth = 0;
+        Arrays.fill(current, 0);
+        inFrame = true;
+        allocationStart = ALLOCATION_BEAN != null ? ALLOCATION_BEAN.getCurrentThreadAllocatedBytes() : -1;
+
+        if (FRAME_EVENT_TYPE.isEnabled()) {
+            frameEvent = new GameFrameEvent();
+            frameEvent.begin();
+        }
+    }
+
+    public void begin(Stage stage) {
+        if (!inFrame || depth == stack.length) return;
+        long now = System.nanoTime();
+        if (depth > 0) current[stack[depth - 1]] += now - mark;
+        if (STAGE_EVENT_TYPE.isEnabled()) {
+            GameLoopStageEvent event = new GameLoopStageEvent();
+            event.begin();
+            stageEvents[depth] = event;
+            exclusiveAtBegin[depth] = current[stage.ordinal()];
+        }
+        stack[depth++] = stage.ordinal();
+        mark = now;
+    }
+
+    public void end() {
+        if (!inFrame || depth == 0) return;
+        long now = System.nanoTime();
+        int stage = stack[--depth];
+        current[stage] += now - mark;
+        mark = now;
+
+        GameLoopStageEvent event = stageEvents[depth];
+        if (event != null) {
+            stageEvents[depth] = null;
+            event.end();
+            if (event.shouldCommit()) {
+                event.stage = STAGES[stage].getLabel();
+                event.frame = frameCounter;
+                event.exclusiveTime = current[stage] - exclusiveAtBegin[depth];
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Kết thúc frame (tự đóng các giai đoạn còn mở, vd: khi updateGameLogic return sớm) và ghi vào bộ đệm vòng.
+     */
+    public void endFrame() {
+        if (!inFrame) return;
+        while (depth > 0) end();
+        long now = System.nanoTime();
+        for (int s = 0; s < STAGES.length; s++) {
+            stageNanos[s][head] = current[s];
+        }
+        updateNanos[head] = now - frameStart;
+        allocatedBytes[head] = allocationStart >= 0 ? ALLOCATION_BEAN.getCurrentThreadAllocatedBytes() - allocationStart : -1;
+
+        if (frameEvent != null) {
+            frameEvent.end();
+            if (frameEvent.shouldCommit()) {
+                frameEvent.frame = frameCounter;
+                frameEvent.frameInterval = intervalNanos[head];
+                frameEvent.allocated = allocatedBytes[head];
+                frameEvent.commit();
+            }
+            frameEvent = null;
+        }
+
+        head = (head + 1) % capacity;
+        count = Math.min(count + 1, capacity);
+        frameCounter++;
+        inFrame = false;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Có đếm được số byte cấp phát mỗi frame không.
+     */
+    public static boolean isAllocationTrackingSupported() {
+        return ALLOCATION_BEAN != null;
+    }
+
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        if (!ProfilerConfig.FRAME_ALLOCATION_TRACKING_ENABLED) return null;
+        try {
+            if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                    && bean.isThreadAllocatedMemorySupported()) {
+                bean.setThreadAllocatedMemoryEnabled(true);
+                return bean;
+            }
+        } catch (UnsupportedOperationException | SecurityException e) {
+            System.err.println("[FrameProfiler] Allocation tracking unavailable: " + e.getMessage());
+        }
+        return null;
+    }
+
+    // ==============================================================================================
+    // ĐỌC KẾT QUẢ
+    // ==============================================================================================
+
+    /**
+     * Chép các frame đang có trong bộ đệm (theo thứ tự thời gian) thành bản ghi độc lập,
+     * có thể tính thống kê hoặc ghi file trên luồng khác.
+     */
+    public Recording snapshot() {
+        int start = (head - count + capacity) % capacity;
+        long[][] stages = new long[STAGES.length][];
+        for (int s = 0; s < STAGES.length; s++) {
+            stages[s] = chronological(stageNanos[s], start);
+        }
+        return new Recording(frameCounter - count, stages, chronological(updateNanos, start), chronological(intervalNanos, start),
+                chronological(allocatedBytes, start));
+    }
+
+    private long[] chronological(long[] ring, int start) {
+        long[] copy = new long[count];
+        int firstPart = Math.min(count, capacity - start);
+        System.arraycopy(ring, start, copy, 0, firstPart);
+        System.arraycopy(ring, 0, copy, firstPart, count - firstPart);
+        return copy;
+    }
+
+    /**
+     * Bản sao bất biến của các frame gần nhất.
+     */
+    public static class Recording {
+        private final long firstFrame;
+        private final long[][] stageNanos;
+        private final long[] updateNanos;
+        private final long[] intervalNanos;
+        private final long[] otherNanos; // Phần thời gian xử lý không thuộc giai đoạn nào
+        private final long[] allocatedBytes;
+
+        Recording(long firstFrame, long[][] stageNanos, long[] updateNanos, long[] intervalNanos, long[] allocatedBytes) {
+            this.firstFrame = firstFrame;
+            this.stageNanos = stageNanos;
+            this.updateNanos = updateNanos;
+            this.intervalNanos = intervalNanos;
+            this.allocatedBytes = allocatedBytes;
+            this.otherNanos = new long[updateNanos.length];
+            for (int f = 0; f < updateNanos.length; f++) {
+                long staged = 0;
+                for (long[] stage : stageNanos) staged += stage[f];
+                otherNanos[f] = Math.max(0, updateNanos[f] - staged);
+            }
+        }
+
+        public int frameCount() {
+            return updateNanos.length;
+        }
+
+        public long[] stage(Stage stage) {
+            return stageNanos[stage.ordinal()];
+        }
+
+        public long[] update() {
+            return updateNanos;
+        }
+
+        public long[] interval() {
+            return intervalNanos;
+        }
+
+        public long[] other() {
+            return otherNanos;
+        }
+
+        /**
+         * Số byte cấp phát mỗi frame (-1 nếu không đo được).
+         */
+        public long[] allocated() {
+            return allocatedBytes;
+        }
+
+        /**
+         * Tốc độ cấp phát trung bình (byte / giây thực) trên cả cửa sổ, -1 nếu không đo được.
+         */
+        public double allocationRate() {
+            long bytes = 0;
+            long nanos = 0;
+            for (int f = 0; f < allocatedBytes.length; f++) {
+                if (allocatedBytes[f] < 0) return -1;
+                bytes += allocatedBytes[f];
+                nanos += intervalNanos[f];
+            }
+            return nanos > 0 ? bytes * 1e9 / nanos : -1;
+        }
+
+        /**
+         * p50, p95, p99 và max của một chuỗi (ms), chỉ sắp xếp một lần.
+         */
+        public static double[] summaryMs(long[] samples) {
+            return summary(samples, 1_000_000.0);
+        }
+
+        /**
+         * p50, p95, p99 và max của một chuỗi, chia cho unit (vd: 1024 để đổi byte sang KB).
+         */
+        public static double[] summary(long[] samples, double unit) {
+            if (samples.length == 0) return new double[4];
+            long[] sorted = samples.clone();
+            Arrays.sort(sorted);
+            return new double[] {
+                    rank(sorted, 50) / unit, rank(sorted, 95) / unit, rank(sorted, 99) / unit, sorted[sorted.length - 1] / unit
+            };
+        }
+
+        private static long rank(long[] sorted, double percentile) {
+            int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+            return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+        }
+
+        /**
+         * Ghi từng frame ra file CSV (mỗi dòng một frame, mỗi cột một giai đoạn, đơn vị ms).
+         */
+        public void writeCsv(Path file) throws IOException {
+            if (file.getParent() != null) Files.createDirectories(file.getParent());
+            try (BufferedWriter out = Files.newBufferedWriter(file)) {
+                out.write("frame,interval_ms,update_ms");
+                for (Stage stage : STAGES) {
+                    out.write(',');
+                    out.write(stage.name().toLowerCase(Locale.ROOT));
+                    out.write("_ms");
+                }
+                out.write(",other_ms,alloc_bytes");
+                out.newLine();
+
+                for (int f = 0; f < updateNanos.length; f++) {
+                    out.write(Long.toString(firstFrame + f));
+                    writeMs(out, intervalNanos[f]);
+                    writeMs(out, updateNanos[f]);
+                    for (long[] stage : stageNanos) writeMs(out, stage[f]);
+                    writeMs(out, otherNanos[f]);
+                    out.write(',');
+                    out.write(Long.toString(allocatedBytes[f]));
+                    out.newLine();
+                }
+            }
+        }
+
+        private static void writeMs(BufferedWriter out, long nanos) throws IOException {
+            out.write(',');
+            out.write(String.format(Locale.ROOT, "%.4f", nanos / 1_000_000.0));
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.example.farmSimulation.model;
+
+import com.example.farmSimulation.config.SchedulerConfig;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Bộ lập lịch hợp tác cho các công việc nền của vòng lặp game (cây trồng, cây tự nhiên, logic động vật,
+ * hình hàng rào, sinh cây).
+ *
+ * Mỗi công việc (Job) tự chia phần việc của mình thành các đơn vị nhỏ có thể dừng giữa chừng và tiếp tục ở frame sau.
+ * Mỗi frame (runFrame), các công việc được chạy theo độ ưu tiên cho tới khi hết ngân sách FRAME_BUDGET_MS;
+ * phần chưa xong được mang sang frame sau. Một công việc có việc mà không được chạy suốt STARVATION_FRAMES frame
+ * được chạy trước một đơn vị (chống "đói"), và mỗi frame luôn chạy ít nhất một đơn vị.
+ *
+ * Khi đồng hồ chạy bước cố định (GameClock.isFixedTimestep - ghi / phát lại, công cụ chạy không giao diện),
+ * ngân sách thời gian (phụ thuộc tốc độ máy) được thay bằng FIXED_STEP_UNITS_PER_JOB đơn vị cho mỗi công việc:
+ * cùng đầu vào cho cùng cách chia việc, và lượng việc của công việc này không làm xê dịch công việc khác.
+ *
+ * Chỉ dùng trên FX thread (hoặc luồng duy nhất của công cụ chạy không giao diện).
+ */
+public class FrameScheduler {
+
+    /**
+     * Độ ưu tiên: công việc ưu tiên cao hơn được chạy trước trong mỗi frame.
+     */
+    public enum Priority {
+        HIGH,   // Người chơi thấy ngay (vật nuôi, hình hàng rào)
+        NORMAL, // Cây trồng, sinh cây quanh người chơi
+        LOW     // Trễ vài frame cũng không ai để ý (cây tự nhiên lớn lên)
+    }
+
+    /**
+     * Một công việc chia được thành nhiều đơn vị. Công việc tự giữ vị trí đang làm dở giữa các lần gọi.
+     */
+    public interface Job {
+        /**
+         * Còn việc để làm ở thời điểm now (đang làm dở một lượt hoặc đã tới lúc bắt đầu lượt mới).
+         */
+        boolean hasWork(long now);
+
+        /**
+         * Làm một đơn vị việc (đủ nhỏ để chạy xong trong một phần nhỏ của ngân sách frame).
+         *
+         * @return true nếu bản đồ cần vẽ lại
+         */
+        boolean runUnit(long now);
+    }
+
+    /**
+     * Một công việc đã đăng ký kèm số liệu thống kê của nó.
+     */
+    public static final class JobStats {
+        private final String name;
+        private final Priority priority;
+        private final Job job;
+
+        private long units;            // Tổng số đơn vị đã chạy
+        private int frameUnits;        // Số đơn vị đã chạy trong frame hiện tại
+        private boolean pending;       // Có việc ở đầu frame hiện tại
+        private int waitingFrames;     // Số frame liên tiếp có việc mà không được chạy đơn vị nào
+        private int maxWaitingFrames;
+        private long starvedFrames;    // Số frame công việc phải được chạy trước vì "đói"
+        private long readySince = -1;  // Thời điểm (nano giây) bắt đầu có việc, -1 nếu đang rảnh
+        private double lastLatencyMs;  // Từ lúc có việc tới lúc làm xong (ms) của lượt gần nhất
+        private double maxLatencyMs;
+
+        JobStats(String name, Priority priority, Job job) {
+            this.name = name;
+            this.priority = priority;
+            this.job = job;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Priority getPriority() {
+            return priority;
+        }
+
+        public long getUnits() {
+            return units;
+        }
+
+        public int getWaitingFrames() {
+            return waitingFrames;
+        }
+
+        public int getMaxWaitingFrames() {
+            return maxWaitingFrames;
+        }
+
+        public long getStarvedFrames() {
+            return starvedFrames;
+        }
+
+        public double getLastLatencyMs() {
+            return lastLatencyMs;
+        }
+
+        public double getMaxLatencyMs() {
+            return maxLatencyMs;
+        }
+    }
+
+    private final List<JobStats> jobs = new ArrayList<>(); // Theo độ ưu tiên, cùng độ ưu tiên theo thứ tự đăng ký
+    private final List<JobStats> jobsView = Collections.unmodifiableList(jobs);
+    private long budgetExhaustedFrames = 0; // Số frame hết ngân sách khi vẫn còn việc
+    private long lastFrameNanos = 0;        // Thời gian chạy các công việc trong frame gần nhất
+    private int lastFrameUnits = 0;
+
+    // ==============================================================================================
+    // ĐĂNG KÝ
+    // ==============================================================================================
+
+    /**
+     * Đăng ký một công việc.
+     *
+     * @return Số liệu thống kê của công việc (để đọc chỉ số)
+     */
+    public JobStats register(String name, Priority priority, Job job) {
+        JobStats stats = new JobStats(name, priority, job);
+        int index = 0;
+        while (index < jobs.size() && jobs.get(index).priority.compareTo(priority) <= 0) index++;
+        jobs.add(index, stats);
+        return stats;
+    }
+
+    public List<JobStats> getJobs() {
+        return jobsView;
+    }
+
+    // ==============================================================================================
+    // CHẠY MỖI FRAME
+    // ==============================================================================================
+
+    /**
+     * Chạy các công việc trong ngân sách của một frame.
+     *
+     * @return true nếu bản đồ cần vẽ lại
+     */
+    public boolean runFrame(long now) {
+        long start = System.nanoTime();
+        long deadline = start + (long) (SchedulerConfig.FRAME_BUDGET_MS * 1_000_000);
+        boolean fixedStep = GameClock.isFixedTimestep();
+        boolean mapChanged = false;
+        boolean exhausted = false;
+        int frameUnits = 0;
+
+        for (int i = 0; i < jobs.size(); i++) {
+            JobStats stats = jobs.get(i);
+            stats.frameUnits = 0;
+            stats.pending = stats.job.hasWork(now);
+            if (stats.pending && stats.readySince < 0) stats.readySince = now;
+        }
+
+        // 1. Công việc bị "đói" được chạy trước một đơn vị, bất kể độ ưu tiên
+        for (int i = 0; i < jobs.size(); i++) {
+            JobStats stats = jobs.get(i);
+            if (stats.pending && stats.waitingFrames >= SchedulerConfig.STARVATION_FRAMES) {
+                stats.starvedFrames++;
+                mapChanged |= runUnit(stats, now);
+                frameUnits++;
+            }
+        }
+
+        // 2. Theo độ ưu tiên cho tới khi hết ngân sách
+        for (int i = 0; i < jobs.size(); i++) {
+            JobStats stats = jobs.get(i);
+            while (stats.job.hasWork(now)) {
+                boolean outOfBudget = fixedStep
+                        ? stats.frameUnits >= SchedulerConfig.FIXED_STEP_UNITS_PER_JOB
+                        : frameUnits > 0 && System.nanoTime() >= deadline; // Luôn chạy ít nhất một đơn vị mỗi frame
+                if (outOfBudget) {
+                    exhausted = true;
+                    break;
+                }
+                mapChanged |= runUnit(stats, now);
+                frameUnits++;
+            }
+        }
+
+        // 3. Thống kê chờ / độ trễ
+        for (int i = 0; i < jobs.size(); i++) {
+            JobStats stats = jobs.get(i);
+            if (stats.frameUnits > 0 || !stats.pending) {
+                stats.waitingFrames = 0;
+            } else {
+                stats.waitingFrames++;
+                stats.maxWaitingFrames = Math.max(stats.maxWaitingFrames, stats.waitingFrames);
+            }
+            if (stats.readySince >= 0 && stats.frameUnits > 0 && !stats.job.hasWork(now)) {
+                stats.lastLatencyMs = (now - stats.readySince) / 1_000_000.0;
+                stats.maxLatencyMs = Math.max(stats.maxLatencyMs, stats.lastLatencyMs);
+                stats.readySince = -1;
+            }
+        }
+
+        if (exhausted) budgetExhaustedFrames++;
+        lastFrameUnits = frameUnits;
+        lastFrameNanos = System.nanoTime() - start;
+        return mapChanged;
+    }
+
+    private static boolean runUnit(JobStats stats, long now) {
+        stats.frameUnits++;
+        stats.units++;
+        return stats.job.runUnit(now);
+    }
+
+    /**
+     * Chạy một công việc tới khi hết việc, không giới hạn ngân sách (benchmark, công cụ đo).
+     *
+     * @return true nếu bản đồ cần vẽ lại
+     */
+    public static boolean runToCompletion(Job job, long now) {
+        boolean mapChanged = false;
+        while (job.hasWork(now)) {
+            mapChanged |= job.runUnit(now);
+        }
+        return mapChanged;
+    }
+
+    public long getBudgetExhaustedFrames() {
+        return budgetExhaustedFrames;
+    }
+
+    public long getLastFrameNanos() {
+        return lastFrameNanos;
+    }
+
+    public int getLastFrameUnits() {
+        return lastFrameUnits;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.farmSimulation.model;
+
+/**
+ * Nguồn thời gian của mô phỏng (thay cho System.nanoTime() / System.currentTimeMillis() trong logic game).
+ *
+ * Bình thường đồng hồ chạy theo thời gian thực. Khi ghi hoặc phát lại đầu vào (xem InputRecording), đồng hồ
+ * chuyển sang bước cố định: mỗi frame tiến đúng một bước, không phụ thuộc tốc độ máy, nên cùng một chuỗi đầu vào
+ * luôn cho cùng một chuỗi mốc thời gian và cùng một trạng thái thế giới.
+ */
+public final class GameClock {
+    private static volatile boolean fixed = false;
+    private static volatile long fixedNanos;   // Mốc nanoTime hiện tại khi chạy bước cố định
+    private static volatile long startNanos;   // Mốc nanoTime lúc bắt đầu chạy bước cố định
+    private static volatile long startMillis;  // Giờ hệ thống tương ứng với startNanos
+
+    private GameClock() {}
+
+    /**
+     * Thời gian hiện tại (nano giây), cùng gốc với System.nanoTime().
+     */
+    public static long nanoTime() {
+        return fixed ? fixedNanos : System.nanoTime();
+    }
+
+    /**
+     * Giờ hệ thống hiện tại (mili giây). Khi chạy bước cố định: giờ lúc bắt đầu cộng thời gian đã mô phỏng.
+     */
+    public static long currentTimeMillis() {
+        return fixed ? startMillis + (fixedNanos - startNanos) / 1_000_000L : System.currentTimeMillis();
+    }
+
+    /**
+     * Chuyển sang bước cố định, bắt đầu từ các mốc cho trước (lấy từ bản ghi khi phát lại).
+     */
+    public static void startFixedTimestep(long nanos, long millis) {
+        startNanos = nanos;
+        startMillis = millis;
+        fixedNanos = nanos;
+        fixed = true;
+    }
+
+    /**
+     * Tiến đồng hồ một bước (chỉ có tác dụng khi đang chạy bước cố định).
+     */
+    public static void advance(long stepNanos) {
+        if (fixed) fixedNanos += stepNanos;
+    }
+
+    /**
+     * Quay về thời gian thực.
+     */
+    public static void useSystemTime() {
+        fixed = false;
+    }
+
+    public static boolean isFixedTimestep() {
+        return fixed;
+    }
+}
@@ -5,10 +5,20 @@ import com.example.farmSimulation.controller.GameController;
 import com.example.farmSimulation.view.MainGameView;
 import com.example.farmSimulation.view.PlayerView;
 import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
 import com.example.farmSimulation.model.GameSaveState.*;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+
 @Getter
 @Setter
 public class GameManager {
@@ -32,19 +42,43 @@ public class GameManager {
     private final InteractionManager interactionManager;
     private final CropManager cropManager;
     private final TreeManager treeManager;          // Quản lý cây mọc tự nhiên
+    private final ChunkResidencyManager chunkResidencyManager; // Gỡ các chunk ở xa khỏi bộ nhớ
     private final FenceManager fenceManager;        // Quản lý hàng rào
+    private final FrameScheduler frameScheduler;    // Chia công việc nền (cây, động vật, hàng rào) theo ngân sách mỗi frame
     private final CollisionManager collisionManager; // Quản lý va chạm vật lý
     private final AnimalManager animalManager;      // Quản lý vật nuôi
     private final ShopManager shopManager;          // Quản lý cửa hàng
     private final WeatherManager weatherManager;    // Quản lý thời tiết
     private final QuestManager questManager;        // Quản lý nhiệm vụ hàng ngày
     private final com.example.farmSimulation.view.assets.AudioManager audioManager; // Quản lý âm thanh
+    private final SaveService saveService;          // Ghi file save trên luồng nền
+    private final int saveSlot;                     // Khe lưu của phiên chơi này
+    private final FrameProfiler frameProfiler;      // Đo thời gian từng giai đoạn của frame
+    private final GameMetrics gameMetrics;          // Chỉ số chạy liên tục của phiên chơi
+    private final MetricsExporter metricsExporter;  // Ghi chỉ số ra file định kỳ (luồng nền)
+    private WorldRandom worldRandom;                // Nguồn ngẫu nhiên của thế giới (hạt giống được lưu trong file save)
+    private SplittableRandom random;                // Độ lệch ngẫu nhiên khi ném vật phẩm (luồng GAMEPLAY)
 
     // --- Trạng thái Vòng lặp Game (Game Loop State) ---
     private AnimationTimer gameLoop;
     private boolean isPaused = false;
     private long lastUpdateTime = 0;            // Thời điểm cập nhật frame trước đó để tính deltaTime
     private boolean isGameOverSequenceTriggered = false; // Cờ kiểm soát để màn hình Game Over chỉ hiện một lần
+    private long lastAutosaveTime = 0;          // Thời điểm (nano giây) tự động lưu đầy đủ lần trước
+    private long lastJournalFlushTime = 0;      // Thời điểm (nano giây) ghi nhật ký thay đổi lần trước
+    private boolean sessionClosed = false;      // Đã ghi lần cuối và đóng dịch vụ lưu (closeSession)
+    private int frameIndex = 0;                 // Số frame đã chạy kể từ startGame (đánh dấu sự kiện đầu vào khi ghi / phát lại)
+    private boolean savingEnabled = true;       // Tắt khi phát lại để không ghi đè khe lưu của người chơi
+
+    // --- Ghi / phát lại đầu vào (xem InputRecording) ---
+    private InputRecording inputRecording;      // Khác null khi đang ghi
+    private Path inputRecordingFile;
+    private InputRecording replayRecording;     // Khác null khi đang phát lại
+    private int replayEventIndex = 0;           // Sự kiện tiếp theo cần áp dụng
+    private long replayStartTime = 0;           // Thời điểm (System.nanoTime) bắt đầu phát lại, để đo thời gian thực
+    private WorldHashTracker worldHashTracker;  // Mã băm ô đất tăng dần cho các điểm kiểm tra (chỉ khi ghi / phát lại)
+    private int replayCheckpointIndex = 0;      // Điểm kiểm tra tiếp theo cần so sánh
+    private int replayDivergedFrame = -1;       // Frame của điểm kiểm tra lệch đầu tiên (-1 = chưa lệch)
 
     // --- Theo dõi Tọa độ Chuột ---
     private int currentMouseTileX = 0;          // Tọa độ ô lưới (Grid) chuột đang trỏ tới
@@ -59,9 +93,13 @@ public class GameManager {
     // KHỞI TẠO (CONSTRUCTOR)
     // ==============================================================================================
 
+    /**
+     * @param saveSlot Khe lưu mà phiên chơi này đọc / ghi (bắt đầu từ 1)
+     */
     public GameManager(Player player, WorldMap worldMap, MainGameView mainGameView,
-                       PlayerView playerView, GameController gameController) {
+                       PlayerView playerView, GameController gameController, int saveSlot) {
         this.mainPlayer = player;
+        this.saveSlot = saveSlot;
         this.worldMap = worldMap;
         this.mainGameView = mainGameView;
         this.playerView = playerView;
@@ -80,10 +118,29 @@ public class GameManager {
         this.fenceManager = new FenceManager(this.worldMap);
         this.collisionManager = new CollisionManager(this.worldMap);
         this.animalManager = new AnimalManager(this.worldMap, this.collisionManager);
+        this.frameScheduler = new FrameScheduler();
+        this.frameScheduler.register("animals", FrameScheduler.Priority.HIGH, this.animalManager.getLogicJob());
+        this.frameScheduler.register("fences", FrameScheduler.Priority.HIGH, this.fenceManager.getRecomputeJob());
+        this.frameScheduler.register("crops", FrameScheduler.Priority.NORMAL, this.cropManager.getUpdateJob());
+        this.frameScheduler.register("tree_generation", FrameScheduler.Priority.NORMAL, this.treeManager.getGenerationJob());
+        this.frameScheduler.register("trees", FrameScheduler.Priority.LOW, this.treeManager.getGrowthJob());
+        this.chunkResidencyManager = new ChunkResidencyManager(this.worldMap, this.treeManager);
+        this.chunkResidencyManager.setAnimalManager(this.animalManager);
+        this.chunkResidencyManager.reset(null); // Bản đồ mới, chưa có file save
         this.shopManager = new ShopManager(player);
         this.weatherManager = new WeatherManager();
         this.questManager = new QuestManager();
         this.audioManager = new com.example.farmSimulation.view.assets.AudioManager();
+        this.saveService = new SaveService(SaveManager.slotPath(saveSlot), Platform::runLater); // Kết quả lưu được báo về FX thread
+        this.frameProfiler = new FrameProfiler();
+        mainGameView.setFrameProfiler(frameProfiler); // Đo thời gian vẽ lại bản đồ
+        this.gameMetrics = new GameMetrics();
+        this.gameMetrics.watchScheduler(frameScheduler);
+        this.metricsExporter = new MetricsExporter(gameMetrics.getRegistry());
+        if (MetricsConfig.METRICS_ENABLED) {
+            mainGameView.setGameMetrics(gameMetrics); // Đếm số lần vẽ lại bản đồ
+            saveService.setMetrics(gameMetrics);      // Thời gian lưu game
+        }
 
         // Thiết lập liên kết hiển thị thông báo cho người chơi
         player.setMainGameView(mainGameView);
@@ -93,6 +150,8 @@ public class GameManager {
 
         // Thiết lập mối quan hệ phụ thuộc giữa các Manager
         this.actionManager.setFenceManager(this.fenceManager);
+        // Chunk được tải lười từ region file: nối lại hình hàng rào với các chunk bên cạnh (ở lượt chạy công việc kế tiếp)
+        this.worldMap.setChunkLoadListener(this.fenceManager::requestChunkRecompute);
         this.actionManager.setAnimalManager(this.animalManager);
         this.actionManager.setQuestManager(this.questManager);
 
@@ -106,6 +165,9 @@ public class GameManager {
         this.cropManager.setTimeManager(this.timeManager);
 
         this.shopManager.setQuestManager(this.questManager);
+
+        // Thế giới mới: hạt giống ngẫu nhiên (bị thay bằng hạt giống trong file save khi tải game)
+        applyWorldSeed(WorldRandom.newWorldSeed(), 0);
     }
 
     // ==============================================================================================
@@ -119,14 +181,46 @@ public class GameManager {
         // Vẽ bản đồ lần đầu tiên
         mainGameView.updateMap(camera.getWorldOffsetX(), camera.getWorldOffsetY(), true);
 
+        // Hiệu ứng mưa được tạo cùng giao diện (sau constructor): nhận luồng ngẫu nhiên của thế giới tại đây
+        if (mainGameView.getWeatherEffectView() != null) {
+            mainGameView.getWeatherEffectView().setRandom(worldRandom.stream(WorldRandom.Stream.EFFECTS));
+        }
+
         // Khởi tạo và bắt đầu vòng lặp game
         this.gameLoop = new AnimationTimer() {
             @Override
             public void handle(long now) {
-                updateGameLogic(now);
+                frameProfiler.beginFrame();
+                try {
+                    // Khi ghi / phát lại: đồng hồ game tiến đúng một bước mỗi frame, không theo thời gian thực
+                    if (GameClock.isFixedTimestep()) {
+                        GameClock.advance(ReplayConfig.FIXED_TIMESTEP_NANOS);
+                        now = GameClock.nanoTime();
+                    }
+                    if (replayRecording != null) {
+                        applyReplayEvents(frameIndex);
+                    }
+                    long tickStart = System.nanoTime();
+                    updateGameLogic(now);
+                    if (MetricsConfig.METRICS_ENABLED) gameMetrics.recordTick(System.nanoTime() - tickStart);
+                } finally {
+                    frameProfiler.endFrame();
+                }
+                // Sự kiện đầu vào đến sau frame này được áp dụng trước frame kế tiếp
+                frameIndex++;
+                gameController.setInputFrame(frameIndex);
+                if (worldHashTracker != null && frameIndex % ReplayConfig.CHECKPOINT_INTERVAL_FRAMES == 0) {
+                    recordCheckpoint();
+                }
+                if (replayRecording != null && frameIndex >= replayRecording.frameCount) {
+                    finishReplay();
+                }
             }
         };
         gameLoop.start();
+        if (MetricsConfig.METRICS_ENABLED && MetricsConfig.METRICS_EXPORT_ENABLED) {
+            metricsExporter.start();
+        }
 
         // Tạo nhiệm vụ hàng ngày khởi đầu nếu danh sách nhiệm vụ đang trống
         if (questManager.getActiveQuests().isEmpty()) {
@@ -175,6 +269,7 @@ public class GameManager {
         lastUpdateTime = now;
 
         // 1. Cập nhật hệ thống thời gian
+        frameProfiler.begin(FrameProfiler.Stage.TIME);
         timeManager.update();
 
         // Xử lý sự kiện khi bắt đầu ngày mới
@@ -184,49 +279,72 @@ public class GameManager {
             System.out.println("New day started! Shop stock refreshed.");
             System.out.println("New daily quests generated!");
         }
+        frameProfiler.end();
 
         // 2. Logic hồi phục thể lực tự động
         updateStaminaRecovery(deltaTime);
 
         // 3. Cập nhật di chuyển và trạng thái người chơi
+        frameProfiler.begin(FrameProfiler.Stage.MOVEMENT);
         movementHandler.update(deltaTime);
         playerView.updateAnimation();
+        frameProfiler.end();
 
         // 4. Xử lý các hành động đang chờ trong hàng đợi
+        frameProfiler.begin(FrameProfiler.Stage.ACTIONS);
         actionManager.updateTimedActions(worldMap, mainGameView, camera.getWorldOffsetX(), camera.getWorldOffsetY());
+        frameProfiler.end();
 
         // 5. Cập nhật logic môi trường (Cây trồng, Cây tự nhiên, Động vật)
-        boolean cropsUpdated = cropManager.updateCrops(now);
-        if (cropsUpdated) {
-            actionManager.setMapNeedsUpdate(true);
-        }
-
-        boolean treesUpdated = treeManager.updateTrees(now, mainPlayer.getTileX(), mainPlayer.getTileY());
-        if (treesUpdated) {
+        // Công việc nền chạy theo độ ưu tiên trong ngân sách của frame, phần còn lại để frame sau
+        frameProfiler.begin(FrameProfiler.Stage.JOBS);
+        treeManager.requestGenerationAround(mainPlayer.getTileX(), mainPlayer.getTileY());
+        boolean jobsUpdated = frameScheduler.runFrame(now);
+        frameProfiler.end();
+        if (MetricsConfig.METRICS_ENABLED) gameMetrics.recordSchedulerFrame(frameScheduler.getLastFrameNanos());
+        if (jobsUpdated) {
             actionManager.setMapNeedsUpdate(true);
         }
 
+        frameProfiler.begin(FrameProfiler.Stage.ANIMALS);
         boolean animalsUpdated = animalManager.updateAnimals(now, mainPlayer);
+        frameProfiler.end();
         if (animalsUpdated) {
             actionManager.setMapNeedsUpdate(true);
         }
 
+        // Gỡ các chunk ở xa, không còn mô phỏng đang chạy, ra vùng lưu tạm trên đĩa
+        frameProfiler.begin(FrameProfiler.Stage.CHUNKS);
+        chunkResidencyManager.update(now, mainPlayer.getTileX(), mainPlayer.getTileY());
+        frameProfiler.end();
+
         // 6. Cập nhật hiển thị (View)
-        mainGameView.updateAnimals(animalManager.getAnimals(), camera.getWorldOffsetX(), camera.getWorldOffsetY());
+        frameProfiler.begin(FrameProfiler.Stage.ENTITIES);
+        mainGameView.updateAnimals(animalManager.getAnimalsView(), camera.getWorldOffsetX(), camera.getWorldOffsetY());
 
         weatherManager.updateWeather(now);
         mainGameView.updateWeather(weatherManager.isRaining());
+        frameProfiler.end();
 
+        frameProfiler.begin(FrameProfiler.Stage.HUD);
         if (mainGameView.getHudView() != null) {
             mainGameView.getHudView().updatePlayerStats();
             mainGameView.getHudView().updateWeather(weatherManager.isRaining());
+            mainGameView.getHudView().updateProfilerOverlay(frameProfiler, now);
         }
+        updateMetrics(now);
 
         // 7. Cập nhật các thành phần giao diện phụ trợ
         updateMouseSelector();
         updateGhostPlacement();
         updateCollisionHitbox();
         mainGameView.updateMoneyDisplay(mainPlayer.getMoney());
+        frameProfiler.end();
+
+        // 8. Tự động lưu (ở ranh giới giữa 2 tick, khi trạng thái thế giới nhất quán)
+        frameProfiler.begin(FrameProfiler.Stage.AUTOSAVE);
+        updateAutosave(now);
+        frameProfiler.end();
     }
 
     // ==============================================================================================
@@ -563,8 +681,8 @@ public class GameManager {
 
         // Thêm độ phân tán ngẫu nhiên nhỏ để các vật phẩm không chồng khít lên nhau
         double scatter = GameLogicConfig.ITEM_DROP_SCATTER_RANGE * 0.5;
-        offsetX += (Math.random() - 0.5) * scatter;
-        offsetY += (Math.random() - 0.5) * scatter;
+        offsetX += (random.nextDouble() - 0.5) * scatter;
+        offsetY += (random.nextDouble() - 0.5) * scatter;
 
         ItemType itemType = stackToDrop.getItemType();
         int amount = stackToDrop.getQuantity();
@@ -628,8 +746,8 @@ public class GameManager {
                 finalTile.setGroundItemOffsetY(offsetY);
             } else {
                 finalTile.setDefaultItemOffset();
-                double jitterX = (Math.random() - 0.5) * GameLogicConfig.ITEM_DROP_SCATTER_RANGE;
-                double jitterY = (Math.random() - 0.5) * GameLogicConfig.ITEM_DROP_SCATTER_RANGE;
+                double jitterX = (random.nextDouble() - 0.5) * GameLogicConfig.ITEM_DROP_SCATTER_RANGE;
+                double jitterY = (random.nextDouble() - 0.5) * GameLogicConfig.ITEM_DROP_SCATTER_RANGE;
                 finalTile.setGroundItemOffsetX(finalTile.getGroundItemOffsetX() + jitterX);
                 finalTile.setGroundItemOffsetY(finalTile.getGroundItemOffsetY() + jitterY);
             }
@@ -696,6 +814,9 @@ public class GameManager {
      * Dọn dẹp tài nguyên và gọi callback để quay về Menu chính.
      */
     public void returnToMainMenu() {
+        stopInputRecording();
+        GameClock.useSystemTime(); // Phiên tiếp theo chạy theo thời gian thực
+
         if (mainGameView != null) {
             mainGameView.hideGameOverUI();
         }
@@ -703,6 +824,8 @@ public class GameManager {
         if (gameLoop != null) {
             gameLoop.stop();
         }
+        metricsExporter.stop(); // Ghi lần cuối
+        closeSession();
 
         if (audioManager != null) {
             audioManager.pauseMusic();
@@ -743,15 +866,404 @@ public class GameManager {
         return weatherManager;
     }
 
+    // ==============================================================================================
+    // ĐO HIỆU NĂNG (FRAME PROFILER)
+    // ==============================================================================================
+
+    /**
+     * Bật / tắt lớp phủ thời gian frame trên HUD.
+     */
+    public void toggleProfilerOverlay() {
+        if (mainGameView != null && mainGameView.getHudView() != null) {
+            mainGameView.getHudView().toggleProfilerOverlay();
+        }
+    }
+
+    /**
+     * Xuất các frame gần nhất ra file CSV. Chỉ chép dữ liệu trên FX thread, việc ghi file chạy trên luồng nền.
+     */
+    public void dumpFrameProfile() {
+        if (!frameProfiler.isEnabled()) return;
+        FrameProfiler.Recording recording = frameProfiler.snapshot();
+        Path file = Paths.get(ProfilerConfig.FRAME_PROFILE_DIRECTORY, ProfilerConfig.FRAME_PROFILE_FILE_PREFIX
+                + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".csv");
+        CompletableFuture.runAsync(() -> {
+            try {
+                recording.writeCsv(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }).whenComplete((v, ex) -> Platform.runLater(() -> {
+            if (ex != null) {
+                ex.printStackTrace();
+                showPlayerMessage(ProfilerConfig.FRAME_PROFILE_FAILED_TEXT);
+            } else {
+                System.out.println("[Profiler] " + recording.frameCount() + " frames written to " + file.toAbsolutePath());
+                showPlayerMessage(ProfilerConfig.FRAME_PROFILE_SAVED_TEXT);
+            }
+        }));
+    }
+
+    // ==============================================================================================
+    // CHỈ SỐ (METRICS)
+    // ==============================================================================================
+
+    /**
+     * Lấy mẫu các chỉ số tức thời (theo chu kỳ GAUGE_SAMPLE_INTERVAL_MS) và làm mới bảng chỉ số nếu đang mở.
+     */
+    private void updateMetrics(long now) {
+        if (!MetricsConfig.METRICS_ENABLED) return;
+        long textureBytes = mainGameView.getAssetManager() != null ? mainGameView.getAssetManager().getTextureCache().getResidentBytes() : 0;
+        gameMetrics.sampleIfDue(now, worldMap, animalManager.getAnimalsView(), actionManager.getPendingActions().size(), textureBytes);
+        if (mainGameView.getHudView() != null) {
+            mainGameView.getHudView().updateMetricsPanel(gameMetrics.getRegistry(), now);
+        }
+    }
+
+    /**
+     * Bật / tắt bảng chỉ số trên HUD.
+     */
+    public void toggleMetricsPanel() {
+        if (MetricsConfig.METRICS_ENABLED && mainGameView != null && mainGameView.getHudView() != null) {
+            mainGameView.getHudView().toggleMetricsPanel();
+        }
+    }
+
+    // ==============================================================================================
+    // GHI / PHÁT LẠI ĐẦU VÀO (INPUT RECORDING & REPLAY)
+    // ==============================================================================================
+
+    /**
+     * Đặt hạt giống của thế giới và phát cho mỗi hệ thống luồng ngẫu nhiên riêng của nó (xem WorldRandom).
+     *
+     * @param epoch Thời gian mô phỏng lúc bắt đầu phiên chơi (0 với game mới)
+     */
+    public void applyWorldSeed(long worldSeed, long epoch) {
+        worldRandom = new WorldRandom(worldSeed, epoch);
+        random = worldRandom.stream(WorldRandom.Stream.GAMEPLAY);
+        treeManager.setWorldSeed(worldRandom.worldSeedOf(WorldRandom.Stream.TREES));
+        animalManager.setWorldRandom(worldRandom);
+        shopManager.setRandom(worldRandom.stream(WorldRandom.Stream.SHOP));
+        questManager.setRandom(worldRandom.stream(WorldRandom.Stream.QUESTS));
+        weatherManager.setRandom(worldRandom.stream(WorldRandom.Stream.WEATHER));
+        interactionManager.setRandom(worldRandom.stream(WorldRandom.Stream.INTERACTION));
+        actionManager.setRandom(worldRandom.stream(WorldRandom.Stream.ACTIONS));
+    }
+
+    /**
+     * Bắt đầu ghi đầu vào của phiên này. Gọi trước startGame, sau khi đồng hồ đã chuyển sang bước cố định.
+     */
+    public void startInputRecording(InputRecording recording, Path file) {
+        this.inputRecording = recording;
+        this.inputRecordingFile = file;
+        gameController.startRecording(recording);
+        attachHashTracker();
+        System.out.println("[Replay] Recording input to " + file.toAbsolutePath() + " (F6 to stop)");
+    }
+
+    /**
+     * Dừng ghi (F6 hoặc khi quay về menu): lưu số frame, mã băm trạng thái cuối và ghi file trên luồng nền.
+     */
+    public void stopInputRecording() {
+        if (inputRecording == null) return;
+        InputRecording recording = inputRecording;
+        Path file = inputRecordingFile;
+        inputRecording = null;
+        gameController.startRecording(null);
+        detachHashTracker();
+
+        recording.frameCount = frameIndex;
+        recording.finalHash = computeStateHash();
+        CompletableFuture.runAsync(() -> {
+            try {
+                recording.write(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }).whenComplete((v, ex) -> Platform.runLater(() -> {
+            if (ex != null) {
+                ex.printStackTrace();
+                showPlayerMessage(ReplayConfig.RECORDING_FAILED_TEXT);
+            } else {
+                System.out.println("[Replay] " + recording.frameCount + " frames, " + recording.events.size()
+                        + " input events written to " + file.toAbsolutePath() + " (state hash "
+                        + WorldStateHash.toHex(recording.finalHash) + ")");
+                showPlayerMessage(ReplayConfig.RECORDING_SAVED_TEXT);
+            }
+        }));
+    }
+
+    /**
+     * Bắt đầu phát lại một bản ghi: bỏ qua đầu vào thật và không ghi file save. Gọi trước startGame.
+     */
+    public void startReplay(InputRecording recording) {
+        this.replayRecording = recording;
+        this.replayEventIndex = 0;
+        this.replayStartTime = System.nanoTime();
+        this.replayCheckpointIndex = 0;
+        this.replayDivergedFrame = -1;
+        this.savingEnabled = false;
+        gameController.setReplaying(true);
+        attachHashTracker();
+        System.out.println("[Replay] Replaying " + recording.frameCount + " frames, " + recording.events.size() + " input events");
+    }
+
+    /**
+     * Áp dụng các sự kiện đã ghi của mọi frame tới frame chỉ định (tính cả frame đó).
+     */
+    private void applyReplayEvents(int frame) {
+        java.util.List<InputRecording.InputEvent> events = replayRecording.events;
+        while (replayEventIndex < events.size() && events.get(replayEventIndex).frame <= frame) {
+            gameController.replay(events.get(replayEventIndex++));
+        }
+    }
+
+    /**
+     * Kết thúc phát lại: so sánh mã băm trạng thái với lúc ghi, in thống kê thời gian frame và ghi CSV.
+     * Với -Dfarm.replay.exit=true, thoát với mã 0 nếu khớp, 1 nếu lệch.
+     */
+    private void finishReplay() {
+        InputRecording recording = replayRecording;
+        // Các sự kiện đến sau frame cuối (trước khi người ghi dừng) cũng đã được áp dụng lúc ghi
+        applyReplayEvents(recording.frameCount);
+        replayRecording = null;
+        gameController.setReplaying(false);
+        detachHashTracker();
+
+        double wallSeconds = (System.nanoTime() - replayStartTime) / 1_000_000_000.0;
+        long hash = computeStateHash();
+        boolean match = hash == recording.finalHash;
+        System.out.printf("[Replay] %d frames in %.2f s wall (%.1f frames/s)%n",
+                recording.frameCount, wallSeconds, recording.frameCount / Math.max(wallSeconds, 1e-9));
+        System.out.println("[Replay] State hash " + WorldStateHash.toHex(hash) + (match ? " matches" : " != recorded "
+                + WorldStateHash.toHex(recording.finalHash)));
+        if (!match && replayDivergedFrame < 0 && !recording.checkpoints.isEmpty()) {
+            System.out.println("[Replay] Every checkpoint matched: the state diverged after frame "
+                    + recording.checkpoints.get(recording.checkpoints.size() - 1).frame);
+        }
+
+        if (frameProfiler.isEnabled()) {
+            FrameProfiler.Recording frames = frameProfiler.snapshot();
+            double[] update = FrameProfiler.Recording.summaryMs(frames.update());
+            System.out.printf("[Replay] Update time over the last %d frames: p50 %.2f ms, p95 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+                    frames.frameCount(), update[0], update[1], update[2], update[3]);
+            Path file = Paths.get(ReplayConfig.REPLAY_PROFILE_DIRECTORY, ProfilerConfig.FRAME_PROFILE_FILE_PREFIX + "replay-"
+                    + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".csv");
+            try {
+                frames.writeCsv(file);
+                System.out.println("[Replay] Frame times written to " + file.toAbsolutePath());
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        showPlayerMessage(match ? ReplayConfig.REPLAY_MATCH_TEXT : ReplayConfig.REPLAY_MISMATCH_TEXT);
+        if (Boolean.getBoolean(ReplayConfig.REPLAY_EXIT_PROPERTY)) {
+            System.exit(match ? 0 : 1);
+        }
+    }
+
+    /**
+     * Gắn bộ theo dõi mã băm ô đất vào bản đồ (gọi trước khi tải file save: bản đồ được xóa và băm lại khi tải).
+     */
+    private void attachHashTracker() {
+        worldHashTracker = new WorldHashTracker(worldMap);
+        worldMap.setHashTracker(worldHashTracker);
+        worldHashTracker.rebuild();
+    }
+
+    private void detachHashTracker() {
+        worldMap.setHashTracker(null);
+        worldHashTracker = null;
+    }
+
+    /**
+     * Điểm kiểm tra sau frame frameIndex: khi ghi thì lưu mã băm từng thành phần vào bản ghi,
+     * khi phát lại thì so với bản ghi và báo frame / thành phần lệch đầu tiên.
+     */
+    private void recordCheckpoint() {
+        long[] hashes = WorldStateHash.components(captureGlobalState(), worldHashTracker);
+        if (inputRecording != null) {
+            inputRecording.checkpoints.add(new InputRecording.Checkpoint(frameIndex, hashes));
+        }
+        if (replayRecording == null || replayDivergedFrame >= 0) return;
+
+        java.util.List<InputRecording.Checkpoint> checkpoints = replayRecording.checkpoints;
+        while (replayCheckpointIndex < checkpoints.size() && checkpoints.get(replayCheckpointIndex).frame < frameIndex) {
+            replayCheckpointIndex++;
+        }
+        if (replayCheckpointIndex >= checkpoints.size() || checkpoints.get(replayCheckpointIndex).frame != frameIndex) return;
+        long[] recorded = checkpoints.get(replayCheckpointIndex++).hashes;
+        if (recorded.length != hashes.length) return; // Ghi bởi phiên bản có các thành phần khác
+
+        WorldStateHash.Component component = WorldStateHash.firstDifference(recorded, hashes);
+        if (component == null) return;
+        replayDivergedFrame = frameIndex;
+        int previous = Math.max(0, frameIndex - ReplayConfig.CHECKPOINT_INTERVAL_FRAMES);
+        System.out.println("[Replay] State diverged between frames " + previous + " and " + frameIndex + ": " + component
+                + " hash " + WorldStateHash.toHex(hashes[component.ordinal()]) + " != recorded "
+                + WorldStateHash.toHex(recorded[component.ordinal()]));
+    }
+
+    /**
+     * Mã băm của trạng thái mô phỏng hiện tại (người chơi, động vật, thời gian, cửa hàng, nhiệm vụ và các ô đất
+     * đang nằm trong bộ nhớ), xem WorldStateHash.
+     */
+    public long computeStateHash() {
+        GameSaveState state = captureGlobalState();
+        for (java.util.Map.Entry<Long, TileData> entry : worldMap.getTileDataMap().entrySet()) {
+            TileData td = entry.getValue();
+            if (WorldMap.isDefaultTile(td)) continue;
+            long key = entry.getKey();
+            state.worldTiles.add(WorldMap.snapshotTile(WorldMap.tileCol(key), WorldMap.tileRow(key), td));
+        }
+        return WorldStateHash.of(state);
+    }
+
     // ==============================================================================================
     // HỆ THỐNG LƯU VÀ TẢI GAME (SAVE & LOAD SYSTEM)
     // ==============================================================================================
 
     /**
      * Lưu toàn bộ dữ liệu game hiện tại vào file.
+     * Chỉ chụp ảnh trạng thái trên FX thread; mã hóa và ghi file chạy trên luồng nền.
      */
     public void saveGameData() {
+        if (!savingEnabled) return;
+        GameSaveState snapshot = captureSaveSnapshot();
+        saveService.saveAsync(snapshot, success ->
+                showPlayerMessage(success ? SaveConfig.SAVE_SUCCESS_TEXT : SaveConfig.SAVE_FAILED_TEXT));
+    }
+
+    /**
+     * Tự động lưu định kỳ:
+     * - Mỗi JOURNAL_FLUSH_INTERVAL_SECONDS: chỉ nối các thay đổi vào nhật ký (rẻ, không phụ thuộc kích thước nông trại).
+     * - Mỗi AUTOSAVE_INTERVAL_SECONDS (hoặc khi nhật ký quá lớn / chưa có file save): lưu đầy đủ và gộp nhật ký.
+     */
+    private void updateAutosave(long now) {
+        if (!SaveConfig.AUTOSAVE_ENABLED || !savingEnabled) return;
+        if (lastAutosaveTime == 0) {
+            // Không lưu ngay ở frame đầu tiên
+            lastAutosaveTime = now;
+            lastJournalFlushTime = now;
+            return;
+        }
+        if ((now - lastJournalFlushTime) / 1_000_000_000.0 < SaveConfig.JOURNAL_FLUSH_INTERVAL_SECONDS) return;
+        lastJournalFlushTime = now;
+
+        boolean autosaveDue = (now - lastAutosaveTime) / 1_000_000_000.0 >= SaveConfig.AUTOSAVE_INTERVAL_SECONDS;
+        if (saveService.canAppend() && !autosaveDue && !saveService.isCompactionDue()) {
+            appendJournal();
+            return;
+        }
+        if (!autosaveDue && !saveService.canAppend()) return; // Chưa có file save trong phiên này: chờ tới chu kỳ lưu đầy đủ
+        if (saveService.isSaving()) return;
+
+        lastAutosaveTime = now;
+        GameSaveState snapshot = captureSaveSnapshot();
+        saveService.saveAsync(snapshot, success -> {
+            if (success && autosaveDue) showPlayerMessage(SaveConfig.AUTOSAVE_SUCCESS_TEXT);
+        });
+    }
+
+    /**
+     * Nối các thay đổi kể từ lần ghi trước vào nhật ký.
+     * Nếu bản ghi bị bỏ (nhật ký bị tắt trước khi tới lượt), các ô của nó được đánh dấu lại để lần ghi sau không bỏ sót.
+     */
+    private void appendJournal() {
+        GameSaveState delta = captureSaveDelta();
+        saveService.appendAsync(delta).thenAcceptAsync(written -> {
+            if (!written) restoreDirtyTiles(delta);
+        }, Platform::runLater);
+    }
+
+    private void restoreDirtyTiles(GameSaveState delta) {
+        for (SavedTileData tile : delta.worldTiles) {
+            worldMap.restoreDirty(WorldMap.tileKey(tile.col, tile.row));
+        }
+    }
+
+    /**
+     * Kết thúc phiên chơi (quay về menu hoặc thoát game): ghi nốt các thay đổi kể từ lần ghi nhật ký trước,
+     * chờ luồng ghi xong rồi đóng dịch vụ lưu. Gọi trên FX thread; gọi nhiều lần không sao.
+     */
+    public void closeSession() {
+        if (sessionClosed) return;
+        sessionClosed = true;
+        if (gameLoop != null) gameLoop.stop();
+
+        // Giống tự động lưu: không lưu trạng thái người chơi đã chết
+        boolean flush = SaveConfig.AUTOSAVE_ENABLED && savingEnabled
+                && mainPlayer.getState() != PlayerView.PlayerState.DEAD;
+        if (flush) {
+            boolean written = false;
+            if (saveService.canAppend()) {
+                written = saveService.appendAsync(captureSaveDelta()).join();
+            }
+            // Chưa có nhật ký trong phiên này hoặc bản ghi bị bỏ: lưu đầy đủ (ảnh chụp gồm mọi ô)
+            if (!written) saveService.saveAsync(captureSaveSnapshot(), null);
+        }
+        saveService.shutdown(); // Chờ lượt ghi đang dở, đóng nhật ký và gỡ shutdown hook của phiên này
+    }
+
+    /**
+     * Chụp ảnh toàn bộ trạng thái game thành GameSaveState (bản sao giá trị).
+     * Sau khi chụp, thế giới có thể tiếp tục thay đổi mà không ảnh hưởng tới dữ liệu đang được ghi.
+     * Các ô cỏ mặc định được bỏ qua ngay tại đây để ảnh chụp rẻ nhất có thể.
+     */
+    public GameSaveState captureSaveSnapshot() {
+        GameSaveState state = captureGlobalState();
+
+        // 6. Lưu dữ liệu bản đồ (ảnh chụp đầy đủ đã bao gồm mọi thay đổi chưa ghi nhật ký)
+        // Chỉ chụp các chunk đang nằm trong bộ nhớ; chunk đã bị gỡ được lấy từ vùng lưu tạm,
+        // chunk chưa từng được tải được chép nguyên từ region file cũ
+        RegionStore store = chunkResidencyManager.getBaseStore();
+        if (store != null) {
+            store.pin(); // SaveService unpin sau khi ghi xong
+            state.regionStore = store;
+        }
+        state.residentChunks = worldMap.getResidentChunkKeys();
+        state.pageStore = chunkResidencyManager.getPageStore();
+        state.pageEpoch = state.pageStore.getEpoch();
+        worldMap.clearDirtyTiles();
+        try {
+            for (java.util.Map.Entry<Long, TileData> entry : worldMap.getTileDataMap().entrySet()) {
+                TileData td = entry.getValue();
+                if (WorldMap.isDefaultTile(td)) continue; // Ô cỏ trống được bản đồ tự tạo lại khi truy cập
+                long key = entry.getKey();
+                state.worldTiles.add(WorldMap.snapshotTile(WorldMap.tileCol(key), WorldMap.tileRow(key), td));
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            System.err.println("Error saving world map tiles!");
+        }
+
+        return state;
+    }
+
+    /**
+     * Chụp phần thay đổi kể từ lần ghi nhật ký trước: toàn bộ trạng thái nhỏ (người chơi, túi đồ,
+     * động vật, cửa hàng, nhiệm vụ) và chỉ những ô đất đã thay đổi.
+     * Ô đã trở về cỏ trống được ghi dưới dạng ô mặc định để bản ghi xóa nó khi phát lại.
+     */
+    public GameSaveState captureSaveDelta() {
+        GameSaveState delta = captureGlobalState();
+        java.util.Map<Long, TileData> tiles = worldMap.getTileDataMap();
+        for (long key : worldMap.drainDirtyTiles()) {
+            TileData td = tiles.get(key);
+            delta.worldTiles.add(WorldMap.snapshotTile(WorldMap.tileCol(key), WorldMap.tileRow(key), td != null ? td : new TileData(Tile.GRASS)));
+        }
+        return delta;
+    }
+
+    /**
+     * Chụp các phần trạng thái nhỏ (không gồm bản đồ).
+     */
+    private GameSaveState captureGlobalState() {
         GameSaveState state = new GameSaveState();
+        state.simulationTime = SimulationClock.now();
+        state.savedAtMillis = GameClock.currentTimeMillis();
+        state.worldSeed = worldRandom.getWorldSeed();
 
         // 1. Lưu thông tin người chơi
         Player p = mainPlayer;
@@ -774,7 +1286,7 @@ public class GameManager {
 
         // 2. Lưu danh sách động vật
         for (Animal a : animalManager.getAnimals()) {
-            state.animals.add(new SavedAnimal(a.getType(), a.getX(), a.getY(), a.getAge(), a.getHunger()));
+            state.animals.add(AnimalManager.snapshotAnimal(a));
         }
 
         // 3. Lưu thời gian và thời tiết
@@ -801,82 +1313,54 @@ public class GameManager {
             state.activeQuests.add(sq);
         }
 
-        // 6. Lưu dữ liệu bản đồ
-        // Sử dụng Reflection để truy cập dữ liệu bản đồ private mà không cần thay đổi tính đóng gói của class WorldMap
-        try {
-            java.lang.reflect.Field mapField = WorldMap.class.getDeclaredField("tileDataMap");
-            mapField.setAccessible(true);
-            java.util.HashMap<Long, TileData> rawMap = (java.util.HashMap<Long, TileData>) mapField.get(worldMap);
-
-            for (java.util.Map.Entry<Long, TileData> entry : rawMap.entrySet()) {
-                long key = entry.getKey();
-                TileData td = entry.getValue();
-
-                int col = (int) (key >> 32);
-                int row = (int) key;
-
-                SavedTileData std = new SavedTileData();
-                std.col = col;
-                std.row = row;
-                std.baseType = td.getBaseTileType();
-
-                // Lưu trạng thái ô đất
-                std.isWatered = td.isWatered();
-                std.isFertilized = td.isFertilized();
-                std.lastWateredTime = td.getLastWateredTime();
-                std.fertilizerStartTime = td.getFertilizerStartTime();
-
-                // Lưu thông tin cây trồng
-                if (td.getCropData() != null) {
-                    std.hasCrop = true;
-                    std.cropType = td.getCropData().getType();
-                    std.cropStage = td.getCropData().getGrowthStage();
-                }
-
-                // Lưu thông tin cây tự nhiên
-                if (td.getTreeData() != null) {
-                    std.hasTree = true;
-                    std.treeStage = td.getTreeData().getGrowthStage();
-                    std.treeChopCount = td.getTreeData().getChopCount();
-                }
-
-                // Lưu hàng rào
-                if (td.getFenceData() != null) {
-                    std.hasFence = true;
-                    std.fenceIsOpen = td.getFenceData().isOpen();
-                }
-
-                // Lưu vật phẩm trên mặt đất
-                if (td.getGroundItem() != null) {
-                    std.hasGroundItem = true;
-                    std.groundItemType = td.getGroundItem();
-                    std.groundItemAmount = td.getGroundItemAmount();
-                    std.groundItemDurability = td.getGroundItemDurability();
-                    std.groundItemOffsetX = td.getGroundItemOffsetX();
-                    std.groundItemOffsetY = td.getGroundItemOffsetY();
-                }
-
-                state.worldTiles.add(std);
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-            System.err.println("Error saving world map tiles!");
-        }
+        return state;
+    }
 
-        SaveManager.saveGame(state);
-        if (mainGameView != null) mainGameView.showTemporaryText("Game Saved!", p.getTileX(), p.getTileY());
+    /**
+     * Hiển thị thông báo ngắn trên đầu nhân vật.
+     */
+    private void showPlayerMessage(String message) {
+        if (mainGameView == null) return;
+        double playerScreenX = playerView.getSpriteContainer().getLayoutX();
+        double playerScreenY = playerView.getSpriteContainer().getLayoutY() + PlayerSpriteConfig.PLAYER_SPRITE_OFFSET_Y;
+        mainGameView.showTemporaryText(message, playerScreenX, playerScreenY);
     }
 
     /**
-     * Tải dữ liệu game từ file save.
+     * Tải dữ liệu game từ file save của khe hiện tại (đọc file ngay trên luồng gọi).
      */
     public void loadGameData() {
-        GameSaveState state = SaveManager.loadGame();
+        loadGameData(SaveManager.loadGame(saveSlot));
+    }
+
+    /**
+     * Áp dụng trạng thái đã đọc sẵn từ file save (vd: được SaveManager.loadGame giải mã trên luồng nền) vào thế giới.
+     * Phải gọi trên FX thread.
+     */
+    public void loadGameData(GameSaveState state) {
         if (state == null) {
             System.out.println("No save file found.");
             return;
         }
 
+        // Nối tiếp đồng hồ mô phỏng: mọi mốc thời gian trong file được đổi về System.nanoTime() của phiên này,
+        // cộng thêm thời gian thực đã trôi qua khi game tắt để nông trại tiến triển tiếp (bù trong một bước)
+        if (state.simulationTime != 0) {
+            long offlineNanos = SimulationClock.offlineNanos(state.savedAtMillis);
+            SimulationClock.resume(state.simulationTime, offlineNanos);
+            if (offlineNanos > 0) {
+                System.out.printf("Catching up %.1f s of offline time%n", offlineNanos / 1_000_000_000.0);
+            }
+        } else {
+            SimulationClock.reset(); // File save cũ: không có mốc thời gian nào để nối tiếp
+        }
+
+        // Tiếp tục thế giới với hạt giống đã lưu; các luồng ngẫu nhiên bắt đầu lại từ thời điểm đã lưu, nên tải cùng
+        // một file save rồi chơi giống nhau luôn cho cùng kết quả. File save cũ giữ hạt giống mới và lưu nó ở lần lưu sau
+        if (state.worldSeed != 0) {
+            applyWorldSeed(state.worldSeed, state.simulationTime);
+        }
+
         // 1. Khôi phục thông tin người chơi
         if (state.playerName != null) mainPlayer.setName(state.playerName);
         mainPlayer.setMoney(state.playerMoney);
@@ -905,10 +1389,7 @@ public class GameManager {
         // 2. Khôi phục động vật (Xóa cũ, tạo mới)
         animalManager.getAnimals().clear();
         for (SavedAnimal sa : state.animals) {
-            Animal a = new Animal(sa.type, sa.x, sa.y);
-            a.setAge(sa.age);
-            a.setHunger(sa.hunger);
-            animalManager.addAnimal(a);
+            animalManager.addAnimal(AnimalManager.restoreAnimal(sa));
         }
 
         // 3. Khôi phục môi trường
@@ -927,55 +1408,19 @@ public class GameManager {
         }
 
         // 4. Khôi phục dữ liệu bản đồ
-        // Xóa sạch map hiện tại và nạp lại dữ liệu thông qua Reflection
+        // Xóa sạch map hiện tại (ô không có trong file là ô cỏ mặc định). Nếu bản đồ nằm trong region file,
+        // các chunk chỉ được giải mã khi cần; worldTiles chỉ còn các ô từ nhật ký (hoặc toàn bộ bản đồ với file save cũ)
         try {
-            java.lang.reflect.Field mapField = WorldMap.class.getDeclaredField("tileDataMap");
-            mapField.setAccessible(true);
-            java.util.HashMap<Long, TileData> rawMap = (java.util.HashMap<Long, TileData>) mapField.get(worldMap);
-            rawMap.clear();
+            chunkResidencyManager.reset(state.regionStore);
 
             for (SavedTileData std : state.worldTiles) {
-                TileData td = new TileData(std.baseType);
-
-                // Khôi phục trạng thái
-                td.setWatered(std.isWatered);
-                td.setFertilized(std.isFertilized);
-                td.setLastWateredTime(std.lastWateredTime);
-                td.setFertilizerStartTime(std.fertilizerStartTime);
-
-                // Khôi phục cây trồng
-                if (std.hasCrop) {
-                    // Khởi tạo dữ liệu cây trồng với thời gian bắt đầu được tính lại từ thời điểm tải game
-                    CropData cd = new CropData(std.cropType, std.cropStage, System.nanoTime());
-                    td.setCropData(cd);
-                }
-
-                // Khôi phục cây tự nhiên
-                if (std.hasTree) {
-                    TreeData trd = new TreeData();
-                    trd.setGrowthStage(std.treeStage);
-                    trd.setChopCount(std.treeChopCount);
-                    td.setTreeData(trd);
-                }
-
-                // Khôi phục hàng rào
-                if (std.hasFence) {
-                    FenceData fd = new FenceData(std.fenceIsOpen);
-                    td.setFenceData(fd);
-                }
-
-                // Khôi phục vật phẩm trên đất
-                if (std.hasGroundItem) {
-                    td.setGroundItem(std.groundItemType);
-                    td.setGroundItemAmount(std.groundItemAmount);
-                    td.setGroundItemDurability(std.groundItemDurability);
-                    td.setGroundItemOffsetX(std.groundItemOffsetX);
-                    td.setGroundItemOffsetY(std.groundItemOffsetY);
-                }
-
-                worldMap.setTileData(std.col, std.row, td);
+                worldMap.setTileData(std.col, std.row, WorldMap.restoreTile(std));
             }
 
+            // Giải mã trước vùng quanh người chơi để khung hình đầu tiên không phải chờ
+            worldMap.loadChunksAround((int) Math.floor(state.playerX / WorldConfig.TILE_SIZE),
+                    (int) Math.floor(state.playerY / WorldConfig.TILE_SIZE), SaveConfig.REGION_PRELOAD_RADIUS_CHUNKS);
+
             // Tính toán lại hình dạng hàng rào sau khi tải xong toàn bộ
             fenceManager.updateAllFencePatterns();
 
@@ -1000,6 +1445,11 @@ public class GameManager {
                 mainGameView.getRootPane().requestFocus();
             }
         }
+
+        // Gộp nhật ký vừa phát lại vào một file save mới (chạy nền) để bắt đầu nhật ký sạch cho phiên này
+        if (savingEnabled) saveService.saveAsync(captureSaveSnapshot(), null);
+        lastAutosaveTime = 0;
+
         System.out.println("Game Loaded Successfully!");
     }
 }
\ No newline at end of file
@@ -0,0 +1,217 @@
+package com.example.farmSimulation.model;
+
+import com.example.farmSimulation.config.MetricsConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Các chỉ số của một phiên chơi, đăng ký sẵn trên một MetricsRegistry.
+ *
+ * - Cập nhật trên đường nóng (mỗi frame / mỗi lần lưu): thời gian tick, số frame, số lần vẽ lại bản đồ,
+ *   thời gian lưu game. Chỉ là một lần cộng vào LongAdder, gọi được từ mọi luồng.
+ * - Lấy mẫu định kỳ trên FX thread (sample, mỗi GAUGE_SAMPLE_INTERVAL_MS): số ô và chunk trong bộ nhớ,
+ *   cây trồng theo giai đoạn, vật nuôi theo loại, hành động đang chờ, bộ nhớ texture, số lần vẽ lại mỗi giây,
+ *   và số liệu của từng công việc trong FrameScheduler (số frame chờ, độ trễ của lượt, số frame bị "đói").
+ */
+public class GameMetrics {
+
+    /**
+     * Giai đoạn của cây trồng dùng làm nhãn (số giai đoạn khác nhau theo loại cây nên được gộp lại).
+     */
+    private enum CropStage {
+        SEED, GROWING, MATURE, DEAD;
+
+        final String label = name().toLowerCase(Locale.ROOT);
+    }
+
+    private final MetricsRegistry registry;
+
+    // --- Cập nhật trên đường nóng ---
+    private final MetricsRegistry.Histogram tickTime;
+    private final MetricsRegistry.Counter frames;
+    private final MetricsRegistry.Counter mapRedraws;
+    private final MetricsRegistry.Histogram fullSaveTime;
+    private final MetricsRegistry.Histogram journalAppendTime;
+    private final MetricsRegistry.Counter saveFailures;
+    private final MetricsRegistry.Histogram schedulerTime;
+
+    // --- Lấy mẫu định kỳ ---
+    private final MetricsRegistry.Gauge tilesLoaded;
+    private final MetricsRegistry.Gauge chunksResident;
+    private final MetricsRegistry.Gauge[] cropsByStage = new MetricsRegistry.Gauge[CropStage.values().length];
+    private final MetricsRegistry.Gauge[] animalsByType = new MetricsRegistry.Gauge[AnimalType.values().length];
+    private final MetricsRegistry.Gauge pendingActions;
+    private final MetricsRegistry.Gauge textureCacheBytes;
+    private final MetricsRegistry.Gauge redrawsPerSecond;
+    private final MetricsRegistry.Gauge heapUsedBytes;
+
+    // --- Bộ lập lịch công việc (watchScheduler) ---
+    private FrameScheduler scheduler;
+    private final List<JobMetrics> jobMetrics = new ArrayList<>();
+    private MetricsRegistry.Counter budgetExhausted;
+    private long lastBudgetExhausted = 0;
+
+    /**
+     * Chỉ số của một công việc trong FrameScheduler (nhãn job = tên đăng ký).
+     */
+    private static final class JobMetrics {
+        final FrameScheduler.JobStats stats;
+        final MetricsRegistry.Gauge backlogFrames;
+        final MetricsRegistry.Gauge passLatency;
+        final MetricsRegistry.Counter starvedFrames;
+        long lastStarvedFrames = 0;
+
+        JobMetrics(MetricsRegistry registry, FrameScheduler.JobStats stats) {
+            this.stats = stats;
+            backlogFrames = registry.gauge("farm_job_backlog_frames", "Consecutive frames a scheduled job has waited with work pending", "job", stats.getName());
+            passLatency = registry.gauge("farm_job_pass_latency_ms", "Time from a scheduled job having work to finishing it, last pass (ms)", "job", stats.getName());
+            starvedFrames = registry.counter("farm_job_starved_frames_total", "Frames a scheduled job was run ahead of priority after waiting too long", "job", stats.getName());
+        }
+    }
+
+    // Bộ đếm tạm của mỗi lần lấy mẫu (dùng lại, không cấp phát)
+    private final int[] cropCounts = new int[CropStage.values().length];
+    private final int[] animalCounts = new int[AnimalType.values().length];
+    private long lastSampleTime = 0;   // Thời điểm (nano giây) lần lấy mẫu gần nhất
+    private long lastRedrawCount = 0;
+
+    public GameMetrics() {
+        this(new MetricsRegistry());
+    }
+
+    public GameMetrics(MetricsRegistry registry) {
+        this.registry = registry;
+        tickTime = registry.histogram("farm_tick_time_ms", "Game logic time per frame (ms)", MetricsConfig.TICK_TIME_BUCKETS_MS);
+        frames = registry.counter("farm_frames_total", "Frames simulated");
+        mapRedraws = registry.counter("farm_map_redraws_total", "Full redraws of the on-screen tile grid");
+        fullSaveTime = registry.histogram("farm_save_duration_ms", "Time to write a save (ms)", MetricsConfig.SAVE_TIME_BUCKETS_MS, "kind", "full");
+        journalAppendTime = registry.histogram("farm_save_duration_ms", "Time to write a save (ms)", MetricsConfig.SAVE_TIME_BUCKETS_MS, "kind", "journal");
+        saveFailures = registry.counter("farm_save_failures_total", "Saves or journal appends that failed");
+        schedulerTime = registry.histogram("farm_scheduler_time_ms", "Time spent in scheduled jobs per frame (ms)", MetricsConfig.TICK_TIME_BUCKETS_MS);
+
+        tilesLoaded = registry.gauge("farm_tiles_loaded", "Tiles held in memory");
+        chunksResident = registry.gauge("farm_chunks_resident", "Chunks held in memory");
+        for (CropStage stage : CropStage.values()) {
+            cropsByStage[stage.ordinal()] = registry.gauge("farm_crops", "Planted crops by growth stage", "stage", stage.label);
+        }
+        for (AnimalType type : AnimalType.values()) {
+            animalsByType[type.ordinal()] = registry.gauge("farm_animals", "Animals by type", "type", type.name().toLowerCase(Locale.ROOT));
+        }
+        pendingActions = registry.gauge("farm_timed_actions_pending", "Timed tile actions waiting to complete");
+        textureCacheBytes = registry.gauge("farm_texture_cache_bytes", "Bytes held by the texture cache");
+        redrawsPerSecond = registry.gauge("farm_map_redraws_per_second", "Tile grid redraws per second since the previous sample");
+        heapUsedBytes = registry.gauge("farm_heap_used_bytes", "JVM heap in use");
+    }
+
+    public MetricsRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * Theo dõi các công việc đã đăng ký với bộ lập lịch (gọi sau khi đăng ký xong).
+     */
+    public void watchScheduler(FrameScheduler scheduler) {
+        this.scheduler = scheduler;
+        budgetExhausted = registry.counter("farm_scheduler_budget_exhausted_total", "Frames that ran out of job budget with work left over");
+        for (FrameScheduler.JobStats stats : scheduler.getJobs()) {
+            jobMetrics.add(new JobMetrics(registry, stats));
+        }
+    }
+
+    // ==============================================================================================
+    // ĐƯỜNG NÓNG
+    // ==============================================================================================
+
+    /**
+     * Ghi nhận một frame và thời gian xử lý logic của nó.
+     */
+    public void recordTick(long nanos) {
+        frames.increment();
+        tickTime.observeNanos(nanos);
+    }
+
+    /**
+     * Ghi nhận thời gian chạy các công việc nền của một frame.
+     */
+    public void recordSchedulerFrame(long nanos) {
+        schedulerTime.observeNanos(nanos);
+    }
+
+    public void recordMapRedraw() {
+        mapRedraws.increment();
+    }
+
+    /**
+     * Ghi nhận một lần lưu (gọi từ luồng ghi của SaveService).
+     *
+     * @param journal true nếu là bản ghi nối vào nhật ký, false nếu là lưu đầy đủ
+     */
+    public void recordSave(boolean journal, long nanos, boolean success) {
+        (journal ? journalAppendTime : fullSaveTime).observeNanos(nanos);
+        if (!success) saveFailures.increment();
+    }
+
+    // ==============================================================================================
+    // LẤY MẪU ĐỊNH KỲ
+    // ==============================================================================================
+
+    /**
+     * Cập nhật các giá trị tức thời nếu đã tới chu kỳ lấy mẫu. Chỉ gọi trên FX thread (duyệt bản đồ và danh sách động vật).
+     *
+     * @return true nếu vừa lấy mẫu
+     */
+    public boolean sampleIfDue(long now, WorldMap worldMap, List<Animal> animals, int pendingActionCount, long textureBytes) {
+        if (lastSampleTime != 0 && now - lastSampleTime < MetricsConfig.GAUGE_SAMPLE_INTERVAL_MS * 1_000_000L) return false;
+        double seconds = (now - lastSampleTime) / 1e9;
+        long redraws = mapRedraws.get();
+        redrawsPerSecond.set(lastSampleTime != 0 && seconds > 0 ? (redraws - lastRedrawCount) / seconds : 0);
+        lastRedrawCount = redraws;
+        lastSampleTime = now;
+
+        tilesLoaded.set(worldMap.getTileDataMap().size());
+        chunksResident.set(worldMap.getResidentChunkCount());
+
+        java.util.Arrays.fill(cropCounts, 0);
+        for (Map.Entry<Long, TileData> entry : worldMap.getTileDataMap().entrySet()) {
+            CropData crop = entry.getValue().getCropData();
+            if (crop == null) continue;
+            CropStage stage;
+            if (crop.getGrowthStage() < 0) stage = CropStage.DEAD;
+            else if (crop.getGrowthStage() >= crop.getType().getMaxStages() - 1) stage = CropStage.MATURE;
+            else if (crop.getGrowthStage() == 0) stage = CropStage.SEED;
+            else stage = CropStage.GROWING;
+            cropCounts[stage.ordinal()]++;
+        }
+        for (int i = 0; i < cropCounts.length; i++) cropsByStage[i].set(cropCounts[i]);
+
+        java.util.Arrays.fill(animalCounts, 0);
+        for (int i = 0; i < animals.size(); i++) {
+            animalCounts[animals.get(i).getType().ordinal()]++;
+        }
+        for (int i = 0; i < animalCounts.length; i++) animalsByType[i].set(animalCounts[i]);
+
+        pendingActions.set(pendingActionCount);
+        textureCacheBytes.set(textureBytes);
+        Runtime runtime = Runtime.getRuntime();
+        heapUsedBytes.set(runtime.totalMemory() - runtime.freeMemory());
+
+        if (scheduler != null) {
+            // Bộ lập lịch tự đếm; bộ đếm chỉ số được cộng phần tăng thêm kể từ lần lấy mẫu trước
+            long exhausted = scheduler.getBudgetExhaustedFrames();
+            budgetExhausted.add(exhausted - lastBudgetExhausted);
+            lastBudgetExhausted = exhausted;
+            for (int i = 0; i < jobMetrics.size(); i++) {
+                JobMetrics job = jobMetrics.get(i);
+                job.backlogFrames.set(job.stats.getWaitingFrames());
+                job.passLatency.set(job.stats.getLastLatencyMs());
+                long starved = job.stats.getStarvedFrames();
+                job.starvedFrames.add(starved - job.lastStarvedFrames);
+                job.lastStarvedFrames = starved;
+            }
+        }
+        return true;
+    }
+}
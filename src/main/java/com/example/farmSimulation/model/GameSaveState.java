@@ -25,6 +25,10 @@ public class GameSaveState implements Serializable {
     public double currentDaySeconds; // Thời điểm hiện tại trong ngày tính bằng giây
     // Ngày hiện tại trong game, được lưu riêng biến này để đảm bảo dữ liệu nhất quán
     public int currentDay;
+    // Thời gian mô phỏng (xem SimulationClock) và giờ thực (epoch ms) tại thời điểm chụp - dùng để nối tiếp đồng hồ
+    // và bù thời gian offline khi tải. Mọi mốc thời gian bên dưới đều tính theo thời gian mô phỏng
+    public long simulationTime;
+    public long savedAtMillis;
 
     // 3. Dữ liệu Động vật bao gồm vị trí, chủng loại, tuổi và chỉ số đói
     public List<SavedAnimal> animals = new ArrayList<>();
@@ -42,6 +46,22 @@ public class GameSaveState implements Serializable {
     // 7. Dữ liệu Nhiệm vụ đang thực hiện
     public List<SavedQuest> activeQuests = new ArrayList<>();
 
+    // 8. Thế hệ (generation) của file save - nhật ký (journal) chỉ được áp dụng lên đúng thế hệ của nó
+    public long saveGeneration;
+    // Hạt giống của thế giới (xem WorldRandom); 0 với file save trước phiên bản 3
+    public long worldSeed;
+
+    // 9. Tên thư mục region file chứa bản đồ (tương đối so với file save); null nếu bản đồ nằm ngay trong worldTiles
+    public String regionDirectory;
+
+    // Region file mà bản đồ đang chạy được tải lười từ đó (chỉ dùng khi chạy, không ghi ra file).
+    // Khi lưu, chunk không nằm trong residentChunks (chưa từng được tải) được chép nguyên từ đây.
+    public transient RegionStore regionStore;
+    public transient long[] residentChunks;
+    // Chunk đã bị gỡ khỏi bộ nhớ trong phiên chơi nằm ở vùng lưu tạm (ưu tiên hơn regionStore)
+    public transient ChunkPageStore pageStore;
+    public transient int pageEpoch;
+
     // Các lớp hỗ trợ bên dưới dùng để lưu trữ chi tiết cấu trúc dữ liệu của từng đối tượng
 
     public static class SavedItemStack implements Serializable {
@@ -56,10 +76,22 @@ public class GameSaveState implements Serializable {
     }
 
     public static class SavedAnimal implements Serializable {
+        // Giữ nguyên giá trị tự sinh của bản lưu cũ để thêm trường mới không làm hỏng file save cũ
+        private static final long serialVersionUID = 1344005198732111623L;
+
         public AnimalType type;
         public double x, y;
         public int age;
         public double hunger;
+
+        // Các mốc thời gian (thời gian mô phỏng, 0 = chưa đặt)
+        public long spawnTime;
+        public long lastHungerUpdateTime;
+        public long starvationStartTime;
+        public long productionTimer;
+        public long breedingCooldownTimer;
+        public boolean hasProduct;
+
         public SavedAnimal(AnimalType type, double x, double y, int age, double hunger) {
             this.type = type;
             this.x = x; this.y = y;
@@ -69,6 +101,9 @@ public class GameSaveState implements Serializable {
 
     // Lớp lưu trữ toàn bộ thông tin chi tiết của một ô đất bao gồm cây trồng, hàng rào, trạng thái đất và vật phẩm rơi
     public static class SavedTileData implements Serializable {
+        // Giữ nguyên giá trị tự sinh của bản lưu cũ để thêm trường mới không làm hỏng file save cũ
+        private static final long serialVersionUID = -6724887764130389013L;
+
         public int col, row;
         public Tile baseType; // Loại nền đất cơ bản như cỏ, đất thường, đất ướt
 
@@ -77,16 +112,22 @@ public class GameSaveState implements Serializable {
         public boolean isFertilized;
         public long lastWateredTime;
         public long fertilizerStartTime;
+        public long dryStartTime; // Thời điểm đất bắt đầu khô (chỉ với đất khô)
 
         // Dữ liệu về cây trồng nông nghiệp
         public boolean hasCrop;
         public CropType cropType;
         public int cropStage;
+        public long cropPlantTime;
+        // Thời điểm trạng thái cây trồng được mô phỏng tới (lúc chụp) - phần thời gian sau mốc này được bù khi tải
+        public long simulatedTime;
 
         // Dữ liệu về cây tự nhiên
         public boolean hasTree;
         public int treeStage;
         public int treeChopCount;
+        public long treeLastChopTime;
+        public long treeRegrowStartTime;
 
         // Dữ liệu về hàng rào
         public boolean hasFence;
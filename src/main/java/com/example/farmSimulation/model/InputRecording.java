@@ -0,0 +1,201 @@
+package com.example.farmSimulation.model;
+
+import com.example.farmSimulation.config.ReplayConfig;
+import com.example.farmSimulation.config.SaveConfig;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bản ghi đầu vào của một phiên chơi: hạt giống ngẫu nhiên, mốc đồng hồ lúc bắt đầu, điểm xuất phát
+ * (game mới hoặc file save đi kèm) và mọi sự kiện phím / chuột đi qua GameController, đánh dấu theo số frame.
+ * Phát lại với cùng bước thời gian cố định (GameClock) cho ra đúng trạng thái thế giới cuối cùng (finalHash),
+ * nên cùng một file vừa dùng để tái hiện lỗi vừa là một benchmark đầu-cuối lặp lại được.
+ *
+ * Định dạng: MAGIC (int) | VERSION (varint) | phần đầu | số sự kiện (varint) | mỗi sự kiện:
+ * khoảng cách frame so với sự kiện trước (varint) + loại (byte) + nội dung theo loại.
+ * Từ phiên bản 2: số điểm kiểm tra (varint) | mỗi điểm: khoảng cách frame (varint) + số thành phần (varint) + các mã băm (long).
+ */
+public class InputRecording {
+    public static final int MAGIC = 0x46535250; // "FSRP"
+    private static final int VERSION = 2;
+
+    public enum EventType {
+        KEY_PRESSED,    // name = KeyCode
+        KEY_RELEASED,   // name = KeyCode
+        MOUSE_MOVED,    // x, y = tọa độ trong Scene
+        MOUSE_CLICKED,  // name = MouseButton
+        SCROLL          // y = deltaY
+    }
+
+    /**
+     * Một sự kiện đầu vào, được áp dụng ngay trước khi frame số frame chạy.
+     */
+    public static class InputEvent {
+        public final int frame;
+        public final EventType type;
+        public final String name;
+        public final double x, y;
+
+        public InputEvent(int frame, EventType type, String name, double x, double y) {
+            this.frame = frame;
+            this.type = type;
+            this.name = name;
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+    /**
+     * Mã băm từng thành phần trạng thái (WorldStateHash.components) sau một frame, để khi phát lại chỉ ra
+     * frame và thành phần đầu tiên bị lệch thay vì chỉ biết trạng thái cuối khác nhau.
+     */
+    public static class Checkpoint {
+        public final int frame;
+        public final long[] hashes;
+
+        public Checkpoint(int frame, long[] hashes) {
+            this.frame = frame;
+            this.hashes = hashes;
+        }
+    }
+
+    // --- Phần đầu ---
+    public long seed;             // Hạt giống thế giới của phiên (GameManager.applyWorldSeed); file save xuất phát có hạt giống riêng
+    public long stepNanos;        // Bước thời gian cố định mỗi frame
+    public long startNanos;       // Mốc GameClock.nanoTime() lúc bắt đầu
+    public long startMillis;      // Mốc GameClock.currentTimeMillis() lúc bắt đầu
+    public String playerName;
+    public String playerGender;
+    public String startSave;      // Tên file save xuất phát (cùng thư mục với file ghi), null = game mới
+
+    // --- Kết quả của phiên ghi ---
+    public int frameCount;        // Số frame đã chạy
+    public long finalHash;        // Mã băm trạng thái thế giới sau frame cuối (WorldStateHash)
+
+    public final List<InputEvent> events = new ArrayList<>();
+    public final List<Checkpoint> checkpoints = new ArrayList<>(); // Theo thứ tự frame, mỗi CHECKPOINT_INTERVAL_FRAMES frame
+
+    public void add(int frame, EventType type, String name, double x, double y) {
+        events.add(new InputEvent(frame, type, name, x, y));
+    }
+
+    /**
+     * Đường dẫn file save xuất phát đi kèm một file ghi.
+     */
+    public static Path startSavePathFor(Path recordingFile) {
+        return recordingFile.resolveSibling(recordingFile.getFileName() + ReplayConfig.START_SAVE_SUFFIX);
+    }
+
+    // ==============================================================================================
+    // GHI / ĐỌC FILE
+    // ==============================================================================================
+
+    /**
+     * Ghi bản ghi ra file (file tạm rồi đổi tên).
+     */
+    public void write(Path file) throws IOException {
+        if (file.toAbsolutePath().getParent() != null) Files.createDirectories(file.toAbsolutePath().getParent());
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tempFile,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            SaveDataWriter out = new SaveDataWriter(channel, SaveConfig.SAVE_WRITE_BUFFER_SIZE);
+            out.writeInt(MAGIC);
+            out.writeVarInt(VERSION);
+            out.writeLong(seed);
+            out.writeVarLong(stepNanos);
+            out.writeLong(startNanos);
+            out.writeLong(startMillis);
+            out.writeString(playerName);
+            out.writeString(playerGender);
+            out.writeString(startSave);
+            out.writeVarInt(frameCount);
+            out.writeLong(finalHash);
+
+            out.writeVarInt(events.size());
+            int lastFrame = 0;
+            for (InputEvent event : events) {
+                out.writeVarInt(event.frame - lastFrame);
+                lastFrame = event.frame;
+                out.writeByte(event.type.ordinal());
+                switch (event.type) {
+                    case KEY_PRESSED, KEY_RELEASED, MOUSE_CLICKED -> out.writeString(event.name);
+                    case MOUSE_MOVED -> {
+                        out.writeDouble(event.x);
+                        out.writeDouble(event.y);
+                    }
+                    case SCROLL -> out.writeDouble(event.y);
+                }
+            }
+
+            out.writeVarInt(checkpoints.size());
+            lastFrame = 0;
+            for (Checkpoint checkpoint : checkpoints) {
+                out.writeVarInt(checkpoint.frame - lastFrame);
+                lastFrame = checkpoint.frame;
+                out.writeVarInt(checkpoint.hashes.length);
+                for (long hash : checkpoint.hashes) out.writeLong(hash);
+            }
+            out.flush();
+        }
+        SaveManager.moveReplacing(tempFile, file);
+    }
+
+    /**
+     * Đọc bản ghi từ file.
+     *
+     * @throws SaveFormatException nếu file không phải bản ghi đầu vào hoặc được ghi bởi phiên bản mới hơn
+     */
+    public static InputRecording read(Path file) throws IOException {
+        SaveDataReader in = new SaveDataReader(SaveManager.readAll(file));
+        if (in.readInt() != MAGIC) throw new SaveFormatException("Not an input recording: " + file);
+        int version = in.readVarInt();
+        if (version > VERSION) throw new SaveFormatException("Input recording version " + version + " is newer than supported version " + VERSION);
+
+        InputRecording recording = new InputRecording();
+        recording.seed = in.readLong();
+        recording.stepNanos = in.readVarLong();
+        recording.startNanos = in.readLong();
+        recording.startMillis = in.readLong();
+        recording.playerName = in.readString();
+        recording.playerGender = in.readString();
+        recording.startSave = in.readString();
+        recording.frameCount = in.readVarInt();
+        recording.finalHash = in.readLong();
+
+        EventType[] types = EventType.values();
+        int count = in.readVarInt();
+        int frame = 0;
+        for (int i = 0; i < count; i++) {
+            frame += in.readVarInt();
+            int ordinal = in.readByte();
+            if (ordinal < 0 || ordinal >= types.length) throw new SaveFormatException("Unknown input event type " + ordinal);
+            EventType type = types[ordinal];
+            switch (type) {
+                case KEY_PRESSED, KEY_RELEASED, MOUSE_CLICKED -> recording.add(frame, type, in.readString(), 0, 0);
+                case MOUSE_MOVED -> {
+                    double x = in.readDouble();
+                    recording.add(frame, type, null, x, in.readDouble());
+                }
+                case SCROLL -> recording.add(frame, type, null, 0, in.readDouble());
+            }
+        }
+
+        if (version >= 2) {
+            int checkpointCount = in.readVarInt();
+            frame = 0;
+            for (int i = 0; i < checkpointCount; i++) {
+                frame += in.readVarInt();
+                long[] hashes = new long[in.readVarInt()];
+                for (int j = 0; j < hashes.length; j++) hashes[j] = in.readLong();
+                recording.checkpoints.add(new Checkpoint(frame, hashes));
+            }
+        }
+        return recording;
+    }
+}
@@ -12,7 +12,7 @@ import com.example.farmSimulation.config.WorldConfig;
 import lombok.Getter;
 import lombok.Setter;
 
-import java.util.Random;
+import java.util.SplittableRandom;
 
 @Getter
 @Setter
@@ -25,6 +25,7 @@ public class InteractionManager {
     private AnimalManager animalManager;       // Quản lý danh sách và trạng thái động vật
     private CollisionManager collisionManager; // Quản lý va chạm vật lý
     private WorldMap worldMap;                 // Tham chiếu đến dữ liệu bản đồ
+    private SplittableRandom random = new SplittableRandom(); // Sản lượng thu hoạch, độ lệch vật phẩm rơi (luồng INTERACTION của WorldRandom)
 
     // Cấu trúc dữ liệu nội bộ để lưu trữ kết quả tính toán trước khi thực thi
     private record InteractionResult(
@@ -41,6 +42,10 @@ public class InteractionManager {
         this.actionManager = actionManager;
     }
 
+    public void setRandom(SplittableRandom random) {
+        this.random = random;
+    }
+
     // ==============================================================================================
     // CÁC HÀM TIỆN ÍCH HỖ TRỢ (UTILITY HELPERS)
     // ==============================================================================================
@@ -97,7 +102,7 @@ public class InteractionManager {
         newData.setCropData(null);
         newData.setWatered(false);
         newData.setFertilized(false);
-        newData.setDryStartTime(System.nanoTime());
+        newData.setDryStartTime(GameClock.nanoTime());
         newData.setFertilizerStartTime(0);
         newData.setStatusIndicator(CropStatusIndicator.NONE);
         // Lưu ý: Không xóa groundItem để tránh mất vật phẩm đang nằm trên ô đó
@@ -277,7 +282,7 @@ public class InteractionManager {
         if (itemType == ItemType.HOE && baseTile == Tile.GRASS) {
             TileData newData = new TileData(currentData);
             newData.setBaseTileType(Tile.SOIL);
-            newData.setDryStartTime(System.nanoTime());
+            newData.setDryStartTime(GameClock.nanoTime());
             long duration = (long) GameLogicConfig.HOE_REPETITIONS * GameLogicConfig.HOE_DURATION_PER_REPETITION_MS;
             return new InteractionResult(newData, PlayerView.PlayerState.HOE, duration, true, null, 0);
         }
@@ -295,7 +300,7 @@ public class InteractionManager {
                     TileData newData = new TileData(currentData);
                     newData.setBaseTileType(Tile.TREE);
                     TreeData tree = new TreeData(TreeConfig.TREE_SEED_STAGE);
-                    tree.setLastChopTime(System.nanoTime());
+                    tree.setLastChopTime(GameClock.nanoTime());
                     tree.setRegrowStartTime(0);
                     newData.setTreeData(tree);
                     return new InteractionResult(newData, PlayerView.PlayerState.PLANT, GameLogicConfig.PLANT_DURATION_MS, true, null, 0);
@@ -306,9 +311,9 @@ public class InteractionManager {
                 try {
                     CropType type = CropType.valueOf(itemType.name().substring(6));
                     TileData newData = new TileData(currentData);
-                    newData.setCropData(new CropData(type, 0, System.nanoTime()));
+                    newData.setCropData(new CropData(type, 0, GameClock.nanoTime()));
                     if (baseTile == Tile.SOIL) {
-                        newData.setDryStartTime(System.nanoTime());
+                        newData.setDryStartTime(GameClock.nanoTime());
                     } else {
                         newData.setDryStartTime(0);
                     }
@@ -326,7 +331,7 @@ public class InteractionManager {
                 TileData newData = new TileData(currentData);
                 newData.setBaseTileType(Tile.SOIL_WET);
                 newData.setWatered(true);
-                newData.setLastWateredTime(System.nanoTime());
+                newData.setLastWateredTime(GameClock.nanoTime());
                 newData.setDryStartTime(0);
                 long duration = (long) GameLogicConfig.WATERING_CAN_REPETITIONS * GameLogicConfig.WATERING_CAN_DURATION_PER_REPETITION_MS;
                 return new InteractionResult(newData, PlayerView.PlayerState.WATER, duration, true, null, 0);
@@ -342,7 +347,7 @@ public class InteractionManager {
                 if (currentStage >= CropConfig.MIN_GROWTH_STAGE_FOR_FERTILIZER && currentStage < maxStage - 1) {
                     TileData newData = new TileData(currentData);
                     newData.setFertilized(true);
-                    newData.setFertilizerStartTime(System.nanoTime());
+                    newData.setFertilizerStartTime(GameClock.nanoTime());
                     return new InteractionResult(newData, PlayerView.PlayerState.FERTILIZE, GameLogicConfig.FERTILIZER_DURATION_MS, true, null, 0);
                 } else {
                     return null;
@@ -386,7 +391,7 @@ public class InteractionManager {
                     // Tạo bản sao dữ liệu cây mới để tránh lỗi cập nhật tức thời khi animation chưa xong
                     TreeData newTreeData = new TreeData(tree.getGrowthStage());
                     newTreeData.setChopCount(1); // Đánh dấu là đã chặt (gốc cây)
-                    newTreeData.setRegrowStartTime(System.nanoTime());
+                    newTreeData.setRegrowStartTime(GameClock.nanoTime());
                     newData.setTreeData(newTreeData);
 
                     long duration = (long) GameLogicConfig.AXE_REPETITIONS * GameLogicConfig.AXE_DURATION_PER_REPETITION_MS;
@@ -436,7 +441,6 @@ public class InteractionManager {
      */
     private InteractionResult checkHarvest(TileData currentData, Player mainPlayer) {
         CropData crop = currentData.getCropData();
-        Random random = new Random();
         if (crop != null && crop.getGrowthStage() >= crop.getType().getMaxStages() - 1) {
             int yield = random.nextInt(crop.getType().getMaxYield() - crop.getType().getMinYield() + 1) + crop.getType().getMinYield();
 
@@ -938,8 +942,8 @@ public class InteractionManager {
                             // Nếu đặt lệch sang ô khác, thêm một chút ngẫu nhiên để trông tự nhiên hơn
                             finalTile.setDefaultItemOffset();
                             double scatter = GameLogicConfig.ITEM_DROP_SCATTER_RANGE;
-                            double jitterX = (Math.random() - 0.5) * scatter;
-                            double jitterY = (Math.random() - 0.5) * scatter;
+                            double jitterX = (random.nextDouble() - 0.5) * scatter;
+                            double jitterY = (random.nextDouble() - 0.5) * scatter;
                             finalTile.setGroundItemOffsetX(finalTile.getGroundItemOffsetX() + jitterX);
                             finalTile.setGroundItemOffsetY(finalTile.getGroundItemOffsetY() + jitterY);
                         }
@@ -0,0 +1,116 @@
+package com.example.farmSimulation.model;
+
+import com.example.farmSimulation.config.MetricsConfig;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ghi định kỳ toàn bộ MetricsRegistry ra file cục bộ trên một luồng nền (daemon), không chặn vòng lặp game.
+ *
+ * Mỗi lần xuất được nối vào cuối file hiện tại (metrics/farm-metrics.jsonl hoặc .prom). Khi file vượt
+ * METRICS_MAX_FILE_BYTES, file được xoay vòng: .1 -> .2 -> ..., file hiện tại -> .1, và chỉ giữ lại
+ * METRICS_MAX_ROLLED_FILES file cũ - dung lượng trên đĩa luôn có giới hạn dù phiên chơi kéo dài bao lâu.
+ */
+public class MetricsExporter {
+    private final MetricsRegistry registry;
+    private final Path file;
+    private final MetricsConfig.ExportFormat format;
+    private ScheduledExecutorService scheduler;
+
+    public MetricsExporter(MetricsRegistry registry) {
+        this(registry, Paths.get(MetricsConfig.METRICS_DIRECTORY), MetricsConfig.METRICS_EXPORT_FORMAT);
+    }
+
+    public MetricsExporter(MetricsRegistry registry, Path directory, MetricsConfig.ExportFormat format) {
+        this.registry = registry;
+        this.format = format;
+        this.file = directory.resolve(MetricsConfig.METRICS_FILE_NAME + format.getExtension());
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Bắt đầu xuất định kỳ (gọi lại khi đang chạy thì không làm gì).
+     */
+    public synchronized void start() {
+        if (scheduler != null) return;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics-exporter");
+            t.setDaemon(true); // Không giữ JVM sống khi đóng game
+            return t;
+        });
+        long interval = MetricsConfig.METRICS_EXPORT_INTERVAL_SECONDS;
+        scheduler.scheduleWithFixedDelay(this::exportQuietly, interval, interval, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Dừng xuất định kỳ và ghi lần cuối (trên luồng nền, không chờ).
+     */
+    public synchronized void stop() {
+        if (scheduler == null) return;
+        scheduler.execute(this::exportQuietly);
+        scheduler.shutdown();
+        scheduler = null;
+    }
+
+    private void exportQuietly() {
+        try {
+            export();
+        } catch (IOException | RuntimeException e) {
+            // Lỗi ghi chỉ số không được làm gián đoạn game: báo lỗi rồi thử lại ở lần sau
+            System.err.println("[Metrics] Export to " + file.toAbsolutePath() + " failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Ghi một lần xuất ngay trên luồng hiện tại (nối vào file, xoay vòng nếu cần).
+     */
+    public void export() throws IOException {
+        if (file.getParent() != null) Files.createDirectories(file.getParent());
+        if (Files.exists(file) && Files.size(file) >= MetricsConfig.METRICS_MAX_FILE_BYTES) {
+            roll();
+        }
+        StringBuilder sb = new StringBuilder(4096);
+        long now = System.currentTimeMillis();
+        if (format == MetricsConfig.ExportFormat.PROMETHEUS) {
+            registry.writePrometheus(sb, now);
+        } else {
+            registry.writeJsonLine(sb, now);
+        }
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            out.append(sb);
+        }
+    }
+
+    private void roll() throws IOException {
+        int keep = MetricsConfig.METRICS_MAX_ROLLED_FILES;
+        Files.deleteIfExists(rolled(keep));
+        for (int i = keep - 1; i >= 1; i--) {
+            if (Files.exists(rolled(i))) {
+                Files.move(rolled(i), rolled(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        if (keep > 0) {
+            Files.move(file, rolled(1), StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.delete(file);
+        }
+    }
+
+    private Path rolled(int index) {
+        return file.resolveSibling(file.getFileName() + "." + index);
+    }
+}
@@ -0,0 +1,331 @@
+package com.example.farmSimulation.model;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bộ chỉ số trong tiến trình: bộ đếm (Counter), giá trị tức thời (Gauge) và phân phối (Histogram).
+ *
+ * Chỉ số được đăng ký một lần (lúc khởi tạo) rồi giữ tham chiếu; việc cập nhật trên đường nóng không khóa,
+ * không cấp phát (LongAdder / DoubleAdder / AtomicLong), an toàn từ mọi luồng (vd: FX thread và luồng ghi save).
+ * Luồng xuất file đọc giá trị cùng lúc mà không chặn luồng cập nhật; giá trị đọc được có thể lệch nhau vài
+ * lần cập nhật, đủ cho mục đích theo dõi.
+ *
+ * Tên chỉ số theo quy ước Prometheus (chữ thường, gạch dưới, hậu tố _total cho bộ đếm); một chỉ số có thể
+ * có nhãn (vd: farm_animals{type="cow"}) - mỗi tổ hợp nhãn là một chuỗi giá trị riêng.
+ */
+public class MetricsRegistry {
+
+    /**
+     * Phần chung của mọi chỉ số.
+     */
+    public abstract static class Metric {
+        private final String name;
+        private final String help;
+        private final String labels; // Đã định dạng sẵn: type="cow",stage="mature" (rỗng nếu không có nhãn)
+
+        Metric(String name, String help, String labels) {
+            this.name = name;
+            this.help = help;
+            this.labels = labels;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getHelp() {
+            return help;
+        }
+
+        public String getLabels() {
+            return labels;
+        }
+
+        /**
+         * Tên kèm nhãn, vd: farm_animals{type="cow"}.
+         */
+        public String getKey() {
+            return labels.isEmpty() ? name : name + "{" + labels + "}";
+        }
+
+        abstract String type();
+    }
+
+    /**
+     * Bộ đếm chỉ tăng.
+     */
+    public static class Counter extends Metric {
+        private final LongAdder value = new LongAdder();
+
+        Counter(String name, String help, String labels) {
+            super(name, help, labels);
+        }
+
+        public void increment() {
+            value.increment();
+        }
+
+        public void add(long amount) {
+            value.add(amount);
+        }
+
+        public long get() {
+            return value.sum();
+        }
+
+        @Override
+        String type() {
+            return "counter";
+        }
+    }
+
+    /**
+     * Giá trị tức thời, được đặt lại mỗi lần lấy mẫu.
+     */
+    public static class Gauge extends Metric {
+        private final AtomicLong bits = new AtomicLong(Double.doubleToRawLongBits(0));
+
+        Gauge(String name, String help, String labels) {
+            super(name, help, labels);
+        }
+
+        public void set(double value) {
+            bits.set(Double.doubleToRawLongBits(value));
+        }
+
+        public double get() {
+            return Double.longBitsToDouble(bits.get());
+        }
+
+        @Override
+        String type() {
+            return "gauge";
+        }
+    }
+
+    /**
+     * Phân phối theo các ngăn cố định (cận trên tăng dần, ngăn cuối là +Inf).
+     */
+    public static class Histogram extends Metric {
+        private final double[] upperBounds;
+        private final LongAdder[] buckets; // Số mẫu rơi vào từng ngăn (không cộng dồn)
+        private final DoubleAdder sum = new DoubleAdder();
+
+        Histogram(String name, String help, String labels, double[] upperBounds) {
+            super(name, help, labels);
+            this.upperBounds = upperBounds.clone();
+            this.buckets = new LongAdder[upperBounds.length + 1];
+            for (int i = 0; i < buckets.length; i++) buckets[i] = new LongAdder();
+        }
+
+        public void observe(double value) {
+            int i = 0;
+            while (i < upperBounds.length && value > upperBounds[i]) i++;
+            buckets[i].increment();
+            sum.add(value);
+        }
+
+        /**
+         * Ghi nhận một khoảng thời gian đo bằng System.nanoTime(), theo đơn vị ms.
+         */
+        public void observeNanos(long nanos) {
+            observe(nanos / 1_000_000.0);
+        }
+
+        public double[] getUpperBounds() {
+            return upperBounds.clone();
+        }
+
+        /**
+         * Số mẫu của từng ngăn (không cộng dồn), ngăn cuối là +Inf.
+         */
+        public long[] getBucketCounts() {
+            long[] counts = new long[buckets.length];
+            for (int i = 0; i < counts.length; i++) counts[i] = buckets[i].sum();
+            return counts;
+        }
+
+        public long getCount() {
+            long count = 0;
+            for (LongAdder bucket : buckets) count += bucket.sum();
+            return count;
+        }
+
+        public double getSum() {
+            return sum.sum();
+        }
+
+        /**
+         * Ước lượng phân vị (0..100) bằng cận trên của ngăn chứa nó; +Inf nếu rơi vào ngăn cuối, NaN nếu chưa có mẫu.
+         */
+        public double estimatePercentile(double percentile) {
+            long[] counts = getBucketCounts();
+            long total = 0;
+            for (long c : counts) total += c;
+            if (total == 0) return Double.NaN;
+            long rank = (long) Math.ceil(percentile / 100.0 * total);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) return i < upperBounds.length ? upperBounds[i] : Double.POSITIVE_INFINITY;
+            }
+            return Double.POSITIVE_INFINITY;
+        }
+
+        @Override
+        String type() {
+            return "histogram";
+        }
+    }
+
+    // Theo thứ tự đăng ký; chỉ sửa khi đăng ký (hiếm), đọc từ luồng xuất file qua bản sao
+    private final Map<String, Metric> metrics = new LinkedHashMap<>();
+
+    // ==============================================================================================
+    // ĐĂNG KÝ
+    // ==============================================================================================
+
+    public Counter counter(String name, String help, String... labels) {
+        return register(new Counter(name, help, formatLabels(labels)));
+    }
+
+    public Gauge gauge(String name, String help, String... labels) {
+        return register(new Gauge(name, help, formatLabels(labels)));
+    }
+
+    public Histogram histogram(String name, String help, double[] upperBounds, String... labels) {
+        return register(new Histogram(name, help, formatLabels(labels), upperBounds));
+    }
+
+    /**
+     * Đăng ký chỉ số; nếu đã có chỉ số cùng tên và nhãn thì trả về chỉ số cũ (phải cùng loại).
+     */
+    @SuppressWarnings("unchecked")
+    private synchronized <M extends Metric> M register(M metric) {
+        Metric existing = metrics.get(metric.getKey());
+        if (existing != null) {
+            if (existing.getClass() != metric.getClass()) {
+                throw new IllegalArgumentException("Metric " + metric.getKey() + " is already registered as a " + existing.type());
+            }
+            return (M) existing;
+        }
+        metrics.put(metric.getKey(), metric);
+        return metric;
+    }
+
+    /**
+     * Nhãn dạng cặp tên / giá trị: ("type", "cow", "stage", "mature") -> type="cow",stage="mature".
+     */
+    private static String formatLabels(String... labels) {
+        if (labels.length % 2 != 0) throw new IllegalArgumentException("Labels must be name/value pairs");
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < labels.length; i += 2) {
+            if (sb.length() > 0) sb.append(',');
+            sb.append(labels[i]).append("=\"").append(escape(labels[i + 1])).append('"');
+        }
+        return sb.toString();
+    }
+
+    public synchronized List<Metric> getMetrics() {
+        return Collections.unmodifiableList(new ArrayList<>(metrics.values()));
+    }
+
+    // ==============================================================================================
+    // XUẤT
+    // ==============================================================================================
+
+    /**
+     * Ghi toàn bộ chỉ số theo định dạng văn bản của Prometheus, mỗi mẫu kèm mốc thời gian (ms).
+     * Phân phối được ghi thành các ngăn cộng dồn _bucket{le="..."}, _sum và _count.
+     */
+    public void writePrometheus(Appendable out, long timestampMs) throws IOException {
+        String lastName = null;
+        for (Metric metric : getMetrics()) {
+            if (!metric.getName().equals(lastName)) {
+                lastName = metric.getName();
+                out.append("# HELP ").append(metric.getName()).append(' ').append(metric.getHelp()).append('\n');
+                out.append("# TYPE ").append(metric.getName()).append(' ').append(metric.type()).append('\n');
+            }
+            if (metric instanceof Counter counter) {
+                writeSample(out, metric.getName(), metric.getLabels(), Long.toString(counter.get()), timestampMs);
+            } else if (metric instanceof Gauge gauge) {
+                writeSample(out, metric.getName(), metric.getLabels(), formatNumber(gauge.get()), timestampMs);
+            } else if (metric instanceof Histogram histogram) {
+                long[] counts = histogram.getBucketCounts();
+                double[] bounds = histogram.upperBounds;
+                long cumulative = 0;
+                for (int i = 0; i < counts.length; i++) {
+                    cumulative += counts[i];
+                    String le = "le=\"" + (i < bounds.length ? formatNumber(bounds[i]) : "+Inf") + "\"";
+                    String labels = metric.getLabels().isEmpty() ? le : metric.getLabels() + "," + le;
+                    writeSample(out, metric.getName() + "_bucket", labels, Long.toString(cumulative), timestampMs);
+                }
+                writeSample(out, metric.getName() + "_sum", metric.getLabels(), formatNumber(histogram.getSum()), timestampMs);
+                writeSample(out, metric.getName() + "_count", metric.getLabels(), Long.toString(cumulative), timestampMs);
+            }
+        }
+    }
+
+    private static void writeSample(Appendable out, String name, String labels, String value, long timestampMs) throws IOException {
+        out.append(name);
+        if (!labels.isEmpty()) out.append('{').append(labels).append('}');
+        out.append(' ').append(value).append(' ').append(Long.toString(timestampMs)).append('\n');
+    }
+
+    /**
+     * Ghi toàn bộ chỉ số thành một dòng JSON: {"ts":...,"metrics":{"tên{nhãn}":giá trị,...}}.
+     * Phân phối được ghi thành {"count":..,"sum":..,"buckets":{"cận trên":số mẫu,...}} (không cộng dồn).
+     */
+    public void writeJsonLine(Appendable out, long timestampMs) throws IOException {
+        out.append("{\"ts\":").append(Long.toString(timestampMs)).append(",\"metrics\":{");
+        boolean first = true;
+        for (Metric metric : getMetrics()) {
+            if (!first) out.append(',');
+            first = false;
+            out.append('"').append(escape(metric.getKey())).append("\":");
+            if (metric instanceof Counter counter) {
+                out.append(Long.toString(counter.get()));
+            } else if (metric instanceof Gauge gauge) {
+                out.append(formatJsonNumber(gauge.get()));
+            } else if (metric instanceof Histogram histogram) {
+                long[] counts = histogram.getBucketCounts();
+                long total = 0;
+                for (long c : counts) total += c;
+                out.append("{\"count\":").append(Long.toString(total))
+                        .append(",\"sum\":").append(formatJsonNumber(histogram.getSum()))
+                        .append(",\"buckets\":{");
+                for (int i = 0; i < counts.length; i++) {
+                    if (i > 0) out.append(',');
+                    out.append('"').append(i < histogram.upperBounds.length ? formatNumber(histogram.upperBounds[i]) : "+Inf")
+                            .append("\":").append(Long.toString(counts[i]));
+                }
+                out.append("}}");
+            }
+        }
+        out.append("}}\n");
+    }
+
+    private static String formatNumber(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) return Long.toString((long) value);
+        return Double.toString(value);
+    }
+
+    private static String formatJsonNumber(double value) {
+        return Double.isFinite(value) ? formatNumber(value) : "null";
+    }
+
+    /**
+     * Thoát dấu nháy kép và gạch chéo ngược (dùng chung cho giá trị nhãn Prometheus và chuỗi JSON).
+     */
+    private static String escape(String text) {
+        return text.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
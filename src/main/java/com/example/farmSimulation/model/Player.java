@@ -284,7 +284,7 @@ public class Player {
         if (this.currentStamina <= 0) {
             this.currentStamina = 0;
             this.state = PlayerView.PlayerState.DEAD;
-            this.timeOfDeath = System.currentTimeMillis(); // Ghi nhận thời gian chết để xử lý hoạt ảnh
+            this.timeOfDeath = GameClock.currentTimeMillis(); // Ghi nhận thời gian chết để xử lý hoạt ảnh
             // Hiển thị thông báo ngất xỉu
             if (mainGameView != null) {
                 mainGameView.showTemporaryText("You passed out!", tileX, tileY);
@@ -6,7 +6,7 @@ import lombok.Getter;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
+import java.util.SplittableRandom;
 
 /**
  * Lớp quản lý hệ thống nhiệm vụ hàng ngày
@@ -14,11 +14,18 @@ import java.util.Random;
 public class QuestManager {
     @Getter
     private final List<Quest> activeQuests;
-    private final Random random;
+    private SplittableRandom random; // Luồng QUESTS của WorldRandom
 
     public QuestManager() {
         this.activeQuests = new ArrayList<>();
-        this.random = new Random();
+        this.random = new SplittableRandom();
+    }
+
+    /**
+     * Dùng luồng ngẫu nhiên của thế giới (nhiệm vụ tạo sau đó lặp lại được).
+     */
+    public void setRandom(SplittableRandom random) {
+        this.random = random;
     }
 
     /**
@@ -35,7 +42,7 @@ public class QuestManager {
         questTypes.add(QuestType.SELL);
 
         // Xáo trộn danh sách để đảm bảo tính ngẫu nhiên của các loại nhiệm vụ
-        java.util.Collections.shuffle(questTypes, random);
+        WorldRandom.shuffle(questTypes, random);
 
         // Tạo tối đa 3 nhiệm vụ từ danh sách đã xáo trộn
         for (int i = 0; i < QuestConfig.MAX_DAILY_QUESTS && i < questTypes.size(); i++) {
@@ -0,0 +1,653 @@
+package com.example.farmSimulation.model;
+
+import com.example.farmSimulation.config.SaveConfig;
+import com.example.farmSimulation.model.GameSaveState.SavedTileData;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Bản đồ được lưu dưới dạng các region file, mỗi file chứa tối đa REGION_SIZE x REGION_SIZE chunk.
+ * File được ánh xạ vào bộ nhớ (memory-mapped) nên chỉ những chunk thực sự được đọc mới bị nạp từ đĩa;
+ * WorldMap giải mã từng chunk khi camera / logic game chạm tới nó lần đầu.
+ *
+ * Cấu trúc một region file (r.X.Y.reg):
+ * [magic "FSRG"][phiên bản (short)][cạnh chunk (short)][cạnh region (short)][dự phòng (short)]
+ * [độ dài bảng enum (int)]
+ * [bảng vị trí: REGION_SIZE^2 cặp (offset int, độ dài int) - độ dài 0 = chunk toàn ô mặc định]
+ * [bảng enum][dữ liệu các chunk (mã hóa như SaveCodec.encodeChunk, từ phiên bản 2 được đóng gói bởi ChunkCodec)]
+ *
+ * Mỗi lần lưu đầy đủ ghi ra một thư mục region mới (theo thế hệ file save). Các chunk được mã hóa và nén
+ * song song trên pool của ChunkCodec rồi ghép vào file theo đúng thứ tự. Chunk chưa từng được tải
+ * trong phiên chơi được chép nguyên byte từ thư mục cũ mà không cần giải mã.
+ * Thư mục cũ chỉ bị xóa khi không còn ai dùng (xem pin / unpin).
+ */
+public class RegionStore implements WorldMap.ChunkSource {
+    public static final int MAGIC = 0x46535247; // "FSRG"
+    private static final int REGION_VERSION = 2;            // 2: dữ liệu chunk được đóng gói (nén) bởi ChunkCodec
+    private static final int HEADER_SIZE = 16;
+
+    // Thư mục region đang được dùng (bản đồ đang chạy hoặc lượt lưu đang chờ) -> số lượt giữ
+    private static final Map<Path, AtomicInteger> PINNED_DIRECTORIES = new ConcurrentHashMap<>();
+
+    private final Path directory;
+    private final Map<Long, Path> regionFiles;      // Khóa region -> file (chỉ region có trên đĩa)
+    private final Map<Long, Region> openRegions = new HashMap<>();
+    private final int regionSize;
+
+    /**
+     * Một region file đã được ánh xạ vào bộ nhớ.
+     */
+    private static final class Region {
+        final ByteBuffer data;
+        final int version;
+        final int chunkSize;
+        final int regionSize;
+        final int[] offsets;
+        final int[] lengths;
+        final byte[] enumTables;
+        final SaveCodec.EnumDictionary dict;
+
+        Region(ByteBuffer data, int version, int chunkSize, int regionSize, int[] offsets, int[] lengths, byte[] enumTables) {
+            this.data = data;
+            this.version = version;
+            this.chunkSize = chunkSize;
+            this.regionSize = regionSize;
+            this.offsets = offsets;
+            this.lengths = lengths;
+            this.enumTables = enumTables;
+            this.dict = SaveCodec.readEnumTables(new SaveDataReader(enumTables));
+        }
+
+        /**
+         * Vùng dữ liệu của một chunk (không sao chép), null nếu chunk không có trong file.
+         */
+        ByteBuffer chunk(int localIndex) {
+            if (lengths[localIndex] == 0) return null;
+            ByteBuffer view = data.duplicate(); // Mỗi lần đọc dùng bản sao con trỏ riêng nên an toàn giữa các luồng
+            view.position(offsets[localIndex]).limit(offsets[localIndex] + lengths[localIndex]);
+            return view.slice();
+        }
+
+        /**
+         * Bộ đọc dữ liệu chunk đã giải nén, null nếu chunk không có trong file.
+         */
+        SaveDataReader reader(int localIndex) {
+            ByteBuffer packed = chunk(localIndex);
+            if (packed == null) return null;
+            return version >= 2 ? ChunkCodec.unpack(packed) : new SaveDataReader(packed);
+        }
+    }
+
+    private RegionStore(Path directory, Map<Long, Path> regionFiles, int regionSize) {
+        this.directory = directory;
+        this.regionFiles = regionFiles;
+        this.regionSize = regionSize;
+    }
+
+    // ==============================================================================================
+    // 1. MỞ VÀ ĐỌC
+    // ==============================================================================================
+
+    /**
+     * Thư mục region của một file save ở một thế hệ (vd: farm_save.sav.regions/1700000000000).
+     */
+    public static Path directoryFor(Path saveFile, long generation) {
+        return rootFor(saveFile).resolve(Long.toString(generation));
+    }
+
+    static Path rootFor(Path saveFile) {
+        return saveFile.resolveSibling(saveFile.getFileName() + SaveConfig.REGION_DIR_SUFFIX);
+    }
+
+    /**
+     * Mở thư mục region. Chỉ liệt kê tên file và đọc header của một file để biết cạnh region,
+     * dữ liệu chunk chưa được đọc.
+     */
+    public static RegionStore open(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            throw new IOException("Region directory not found: " + directory);
+        }
+
+        Map<Long, Path> files = new HashMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "r.*.reg")) {
+            for (Path file : stream) {
+                String[] parts = file.getFileName().toString().split("\\.");
+                if (parts.length != 4) continue;
+                try {
+                    files.put(SaveCodec.packKey(Integer.parseInt(parts[1]), Integer.parseInt(parts[2])), file);
+                } catch (NumberFormatException e) {
+                    System.err.println("[RegionStore] Ignoring unexpected file " + file);
+                }
+            }
+        }
+
+        if (files.isEmpty()) {
+            return new RegionStore(directory, files, SaveConfig.REGION_SIZE); // Bản đồ toàn ô mặc định
+        }
+
+        // Cạnh region của thư mục này (có thể khác cấu hình hiện tại nếu file được ghi bởi phiên bản cũ)
+        Map.Entry<Long, Path> first = files.entrySet().iterator().next();
+        Region firstRegion = mapRegion(first.getValue());
+        RegionStore store = new RegionStore(directory, files, firstRegion.regionSize);
+        store.openRegions.put(first.getKey(), firstRegion);
+        return store;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Các region file có cùng cạnh chunk với bản đồ hiện tại hay không.
+     * Nếu không, bản đồ không thể tải lười theo chunk và phải được đọc hết một lần (readAllTiles).
+     */
+    public boolean isChunkLayoutCompatible() {
+        for (long key : regionFiles.keySet()) {
+            Region region = region(key);
+            if (region != null && region.chunkSize != SaveCodec.CHUNK_SIZE) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Giải mã một chunk. Trả về danh sách rỗng nếu chunk không có dữ liệu.
+     */
+    @Override
+    public List<SavedTileData> readChunk(int chunkX, int chunkY) {
+        List<SavedTileData> tiles = new ArrayList<>();
+        Region region = region(SaveCodec.packKey(Math.floorDiv(chunkX, regionSize), Math.floorDiv(chunkY, regionSize)));
+        if (region == null) return tiles;
+
+        SaveDataReader data = region.reader(localChunkIndex(chunkX, chunkY, region.regionSize));
+        if (data != null) {
+            SaveCodec.decodeChunk(data, chunkX, chunkY, region.chunkSize, region.dict, tiles);
+        }
+        return tiles;
+    }
+
+    /**
+     * Giải nén / giải mã nhiều chunk song song (vd: vùng quanh người chơi khi vừa tải game).
+     * Chunk hỏng được trả về rỗng để game vẫn chạy tiếp.
+     */
+    @Override
+    public Map<Long, List<SavedTileData>> readChunks(long[] chunkKeys) {
+        List<Callable<List<SavedTileData>>> tasks = new ArrayList<>(chunkKeys.length);
+        for (long key : chunkKeys) {
+            tasks.add(() -> {
+                try {
+                    return readChunk((int) (key >> 32), (int) key);
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                    System.err.println("[RegionStore] Failed to decode chunk " + (int) (key >> 32) + "," + (int) key);
+                    return new ArrayList<>();
+                }
+            });
+        }
+
+        Map<Long, List<SavedTileData>> result = new HashMap<>();
+        try {
+            List<List<SavedTileData>> decoded = ChunkCodec.shared().runAll(tasks);
+            for (int i = 0; i < chunkKeys.length; i++) {
+                result.put(chunkKeys[i], decoded.get(i));
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            return WorldMap.ChunkSource.super.readChunks(chunkKeys); // Pool không chạy được: đọc tuần tự
+        }
+        return result;
+    }
+
+    /**
+     * Khóa của mọi chunk có dữ liệu trong thư mục (đọc từ bảng vị trí, không giải mã chunk).
+     */
+    public Set<Long> chunkKeys() {
+        Set<Long> keys = new HashSet<>();
+        for (long regionKey : regionFiles.keySet()) {
+            Region region = region(regionKey);
+            if (region == null) continue;
+            int regionX = (int) (regionKey >> 32);
+            int regionY = (int) regionKey;
+            for (int local = 0; local < region.lengths.length; local++) {
+                if (region.lengths[local] == 0) continue;
+                keys.add(SaveCodec.packKey(regionX * region.regionSize + local % region.regionSize,
+                        regionY * region.regionSize + local / region.regionSize));
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Đọc toàn bộ ô của mọi chunk (dùng khi không thể tải lười, hoặc cho công cụ kiểm tra).
+     * Mỗi hàng chunk của một region là một tác vụ trên pool của ChunkCodec, kết quả được nối theo thứ tự.
+     */
+    public void readAllTiles(List<SavedTileData> out) {
+        readAllTiles(out, ChunkCodec.shared());
+    }
+
+    /**
+     * Như readAllTiles(out) nhưng dùng pool của bộ mã hóa chỉ định (vd: công cụ đo so sánh số luồng).
+     */
+    public void readAllTiles(List<SavedTileData> out, ChunkCodec codec) {
+        List<Callable<List<SavedTileData>>> tasks = new ArrayList<>();
+        for (long regionKey : new TreeMap<>(regionFiles).keySet()) {
+            Region region = region(regionKey);
+            if (region == null) continue;
+            for (int localRow = 0; localRow < region.regionSize; localRow++) {
+                int row = localRow;
+                tasks.add(() -> readRegionRow(regionKey, region, row));
+            }
+        }
+        try {
+            for (List<SavedTileData> tiles : codec.runAll(tasks)) {
+                out.addAll(tiles);
+            }
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new SaveFormatException("Failed to decode region files: " + e.getMessage());
+        }
+    }
+
+    private static List<SavedTileData> readRegionRow(long regionKey, Region region, int localRow) {
+        List<SavedTileData> tiles = new ArrayList<>();
+        int regionX = (int) (regionKey >> 32);
+        int regionY = (int) regionKey;
+        int first = localRow * region.regionSize;
+        for (int local = first; local < first + region.regionSize; local++) {
+            SaveDataReader data = region.reader(local);
+            if (data == null) continue;
+            SaveCodec.decodeChunk(data,
+                    regionX * region.regionSize + local % region.regionSize,
+                    regionY * region.regionSize + local / region.regionSize,
+                    region.chunkSize, region.dict, tiles);
+        }
+        return tiles;
+    }
+
+    /**
+     * Duyệt lần lượt từng chunk có dữ liệu (theo thứ tự region, rồi thứ tự trong region).
+     * Mỗi lần chỉ một chunk được giải mã, nên có thể duyệt bản đồ rất lớn mà không giữ hết trên heap
+     * (dùng cho công cụ kiểm tra file save).
+     */
+    public void forEachChunk(ChunkVisitor visitor) {
+        List<SavedTileData> tiles = new ArrayList<>();
+        for (long regionKey : new TreeMap<>(regionFiles).keySet()) {
+            Region region = region(regionKey);
+            if (region == null) continue;
+            int regionX = (int) (regionKey >> 32);
+            int regionY = (int) regionKey;
+            for (int local = 0; local < region.lengths.length; local++) {
+                SaveDataReader data = region.reader(local);
+                if (data == null) continue;
+                int chunkX = regionX * region.regionSize + local % region.regionSize;
+                int chunkY = regionY * region.regionSize + local / region.regionSize;
+                tiles.clear();
+                SaveCodec.decodeChunk(data, chunkX, chunkY, region.chunkSize, region.dict, tiles);
+                visitor.visit(chunkX, chunkY, region.lengths[local], tiles);
+            }
+        }
+    }
+
+    /**
+     * Nhận từng chunk khi duyệt bằng forEachChunk. Danh sách ô được dùng lại giữa các lần gọi.
+     */
+    public interface ChunkVisitor {
+        void visit(int chunkX, int chunkY, int storedBytes, List<SavedTileData> tiles);
+    }
+
+    /**
+     * Byte đã đóng gói của một chunk theo bảng enum hiện tại, để ghi vào thư mục region mới.
+     * Nếu region cũ cùng phiên bản và cùng bảng enum thì chép nguyên byte (không giải nén);
+     * region phiên bản 1 chỉ cần đóng gói lại; còn lại (hoặc khi có bộ lọc ô) thì giải mã rồi mã hóa lại.
+     * Được gọi song song từ các luồng của ChunkCodec.
+     *
+     * @param keepTile Bộ lọc ô, null = giữ mọi ô
+     * @return null nếu chunk không có dữ liệu
+     */
+    byte[] copyChunk(int chunkX, int chunkY, byte[] currentEnumTables, ChunkCodec codec, Predicate<SavedTileData> keepTile) {
+        Region region = region(SaveCodec.packKey(Math.floorDiv(chunkX, regionSize), Math.floorDiv(chunkY, regionSize)));
+        if (region == null) return null;
+        int local = localChunkIndex(chunkX, chunkY, region.regionSize);
+        ByteBuffer data = region.chunk(local);
+        if (data == null) return null;
+
+        if (keepTile == null && Arrays.equals(region.enumTables, currentEnumTables) && region.chunkSize == SaveCodec.CHUNK_SIZE) {
+            byte[] raw = new byte[data.remaining()];
+            data.get(raw);
+            return region.version >= 2 ? raw : codec.pack(raw);
+        }
+        return recodeChunk(region.reader(local), chunkX, chunkY, region.chunkSize, region.dict, codec, keepTile);
+    }
+
+    /**
+     * Giải mã một chunk, lọc ô rồi mã hóa / đóng gói lại theo định dạng hiện tại.
+     *
+     * @return null nếu chunk không còn ô nào có dữ liệu
+     */
+    private static byte[] recodeChunk(SaveDataReader data, int chunkX, int chunkY, int chunkSize,
+                                      SaveCodec.EnumDictionary dict, ChunkCodec codec, Predicate<SavedTileData> keepTile) {
+        List<SavedTileData> tiles = new ArrayList<>();
+        SaveCodec.decodeChunk(data, chunkX, chunkY, chunkSize, dict, tiles);
+        if (keepTile != null) tiles.removeIf(keepTile.negate());
+        SavedTileData[] chunk = SaveCodec.groupByChunk(tiles).get(SaveCodec.packKey(chunkX, chunkY));
+        if (chunk == null) return null;
+        return codec.pack(encodeChunk(chunk));
+    }
+
+    /**
+     * Region đã ánh xạ (ánh xạ ở lần truy cập đầu tiên), null nếu không có / hỏng.
+     * Được gọi từ cả FX thread (tải lười) lẫn luồng ghi file save.
+     */
+    private synchronized Region region(long regionKey) {
+        if (openRegions.containsKey(regionKey)) return openRegions.get(regionKey);
+
+        Region region = null;
+        Path file = regionFiles.get(regionKey);
+        if (file != null) {
+            try {
+                region = mapRegion(file);
+            } catch (IOException | SaveFormatException e) {
+                e.printStackTrace();
+                System.err.println("[RegionStore] Failed to open region file " + file);
+            }
+        }
+        openRegions.put(regionKey, region);
+        return region;
+    }
+
+    private static Region mapRegion(Path file) throws IOException {
+        // Vùng ánh xạ vẫn hợp lệ sau khi đóng kênh
+        MappedByteBuffer data;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        SaveDataReader in = new SaveDataReader(data);
+        if (in.readInt() != MAGIC) throw new SaveFormatException("Not a region file: " + file);
+        int version = in.readShort();
+        if (version > REGION_VERSION) throw new SaveFormatException("Region file version " + version + " is not supported");
+        int chunkSize = in.readShort();
+        int regionSize = in.readShort();
+        in.readShort(); // Dự phòng
+        int enumLength = in.readInt();
+        if (chunkSize <= 0 || regionSize <= 0) throw new SaveFormatException("Invalid region header: " + file);
+
+        int slots = regionSize * regionSize;
+        int[] offsets = new int[slots];
+        int[] lengths = new int[slots];
+        for (int i = 0; i < slots; i++) {
+            offsets[i] = in.readInt();
+            lengths[i] = in.readInt();
+            if (lengths[i] < 0 || (lengths[i] > 0 && (offsets[i] < 0 || (long) offsets[i] + lengths[i] > data.capacity()))) {
+                throw new SaveFormatException("Chunk " + i + " out of bounds in " + file);
+            }
+        }
+        byte[] enumTables = new byte[enumLength];
+        in.readBytes(enumTables);
+        return new Region(data, version, chunkSize, regionSize, offsets, lengths, enumTables);
+    }
+
+    private static int localChunkIndex(int chunkX, int chunkY, int regionSize) {
+        return Math.floorMod(chunkY, regionSize) * regionSize + Math.floorMod(chunkX, regionSize);
+    }
+
+    // ==============================================================================================
+    // 2. GHI
+    // ==============================================================================================
+
+    /**
+     * Ghi bản đồ của ảnh chụp ra thư mục region mới:
+     * - Chunk đang nằm trong bộ nhớ (residentChunks) hoặc có ô trong worldTiles: mã hóa từ ảnh chụp.
+     * - Chunk đã bị gỡ khỏi bộ nhớ trong phiên: lấy từ vùng lưu tạm (state.pageStore).
+     * - Chunk chưa từng được tải: lấy từ region store cũ (state.regionStore) mà không cần giải mã.
+     * Dữ liệu được ghi vào thư mục tạm rồi đổi tên, thư mục đang được đọc không bao giờ bị ghi đè.
+     * Việc mã hóa / nén từng chunk chạy song song trên pool dùng chung (ChunkCodec.shared()).
+     *
+     * @return Số chunk đã ghi
+     */
+    static int writeWorld(GameSaveState state, Path directory) throws IOException {
+        return writeWorld(state, directory, ChunkCodec.shared());
+    }
+
+    /**
+     * Như writeWorld(state, directory) nhưng dùng bộ mã hóa chỉ định (vd: công cụ đo so sánh số luồng).
+     */
+    public static int writeWorld(GameSaveState state, Path directory, ChunkCodec codec) throws IOException {
+        return writeWorld(state, directory, codec, null);
+    }
+
+    /**
+     * Ghi bản đồ, chỉ giữ các ô thỏa bộ lọc (vd: công cụ nén file save bỏ các ô thừa).
+     * Khi có bộ lọc, mọi chunk (kể cả chunk chép từ thư mục cũ) đều được giải mã và lọc.
+     *
+     * @param keepTile Bộ lọc ô, null = giữ mọi ô
+     */
+    static int writeWorld(GameSaveState state, Path directory, ChunkCodec codec, Predicate<SavedTileData> keepTile) throws IOException {
+        RegionStore source = state.regionStore;
+        if (source != null && source.directory.toAbsolutePath().equals(directory.toAbsolutePath())) {
+            throw new IOException("Cannot overwrite the region directory that is being read: " + directory);
+        }
+
+        SaveDataWriter enumWriter = new SaveDataWriter();
+        SaveCodec.writeEnumTables(enumWriter);
+        byte[] enumTables = enumWriter.toByteArray();
+
+        // Mỗi chunk là một tác vụ độc lập, sắp theo khóa để file ghi ra giống nhau dù chạy bao nhiêu luồng
+        Map<Long, Callable<byte[]>> jobs = new TreeMap<>();
+
+        // 1. Mã hóa các chunk có trong ảnh chụp
+        List<SavedTileData> snapshotTiles = state.worldTiles;
+        if (keepTile != null) {
+            snapshotTiles = new ArrayList<>(state.worldTiles);
+            snapshotTiles.removeIf(keepTile.negate());
+        }
+        for (Map.Entry<Long, SavedTileData[]> entry : SaveCodec.groupByChunk(snapshotTiles).entrySet()) {
+            SavedTileData[] tiles = entry.getValue();
+            jobs.put(entry.getKey(), () -> codec.pack(encodeChunk(tiles)));
+        }
+
+        Set<Long> handled = new HashSet<>(jobs.keySet());
+        if (state.residentChunks != null) {
+            for (long key : state.residentChunks) handled.add(key);
+        }
+
+        // 2. Chunk đã bị gỡ khỏi bộ nhớ: dữ liệu trong vùng lưu tạm là bản mới nhất (kể cả khi chunk đã trống)
+        if (state.pageStore != null) {
+            for (long key : state.pageStore.chunkKeys(state.pageEpoch)) {
+                if (!handled.add(key)) continue;
+                // Đọc file trang trên luồng này (vùng lưu tạm không đọc song song), chỉ phần nén chạy trên pool
+                byte[] data = state.pageStore.readChunkData((int) (key >> 32), (int) key, state.pageEpoch);
+                if (data == null || data.length == 0) continue;
+                if (keepTile == null) {
+                    jobs.put(key, () -> codec.pack(data));
+                } else {
+                    jobs.put(key, () -> recodeChunk(new SaveDataReader(data), (int) (key >> 32), (int) key,
+                            SaveCodec.CHUNK_SIZE, SaveCodec.EnumDictionary.current(), codec, keepTile));
+                }
+            }
+        }
+
+        // 3. Chép các chunk chưa từng được tải từ thư mục cũ
+        if (source != null) {
+            for (long key : source.chunkKeys()) {
+                if (handled.contains(key)) continue;
+                jobs.put(key, () -> source.copyChunk((int) (key >> 32), (int) key, enumTables, codec, keepTile));
+            }
+        }
+
+        // 4. Chạy song song, kết quả trả về đúng thứ tự khóa
+        Map<Long, byte[]> chunks = new HashMap<>();
+        List<Long> keys = new ArrayList<>(jobs.keySet());
+        List<byte[]> payloads;
+        try {
+            payloads = codec.runAll(new ArrayList<>(jobs.values()));
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Chunk encoding failed", e);
+        }
+        for (int i = 0; i < keys.size(); i++) {
+            if (payloads.get(i) != null) chunks.put(keys.get(i), payloads.get(i));
+        }
+
+        // 5. Gom chunk theo region và ghi từng file vào thư mục tạm (theo thứ tự chunk trong region)
+        Map<Long, List<Long>> regions = new TreeMap<>();
+        for (long key : chunks.keySet()) {
+            int regionX = Math.floorDiv((int) (key >> 32), SaveConfig.REGION_SIZE);
+            int regionY = Math.floorDiv((int) key, SaveConfig.REGION_SIZE);
+            regions.computeIfAbsent(SaveCodec.packKey(regionX, regionY), k -> new ArrayList<>()).add(key);
+        }
+
+        Path tempDirectory = directory.resolveSibling(directory.getFileName() + ".tmp");
+        deleteRecursively(tempDirectory);
+        Files.createDirectories(tempDirectory);
+        for (Map.Entry<Long, List<Long>> entry : regions.entrySet()) {
+            long regionKey = entry.getKey();
+            int regionX = (int) (regionKey >> 32);
+            int regionY = (int) regionKey;
+            writeRegion(tempDirectory.resolve(regionFileName(regionX, regionY)), entry.getValue(), chunks, enumTables);
+        }
+
+        // Cùng thế hệ đã từng được ghi (vd: công cụ đo ghi nhiều lần): thay thế hoàn toàn
+        deleteRecursively(directory);
+        try {
+            Files.move(tempDirectory, directory, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempDirectory, directory);
+        }
+        return chunks.size();
+    }
+
+    private static void writeRegion(Path file, List<Long> chunkKeys, Map<Long, byte[]> chunks, byte[] enumTables) throws IOException {
+        int slots = SaveConfig.REGION_SIZE * SaveConfig.REGION_SIZE;
+        byte[][] payloads = new byte[slots][];
+        for (long key : chunkKeys) {
+            payloads[localChunkIndex((int) (key >> 32), (int) key, SaveConfig.REGION_SIZE)] = chunks.get(key);
+        }
+
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            SaveDataWriter out = new SaveDataWriter(channel, SaveConfig.SAVE_WRITE_BUFFER_SIZE);
+            out.writeInt(MAGIC);
+            out.writeShort(REGION_VERSION);
+            out.writeShort(SaveCodec.CHUNK_SIZE);
+            out.writeShort(SaveConfig.REGION_SIZE);
+            out.writeShort(0); // Dự phòng
+            out.writeInt(enumTables.length);
+
+            // Bảng vị trí ở đầu file: đọc một chunk bất kỳ chỉ cần một lần tra bảng
+            int position = HEADER_SIZE + slots * 8 + enumTables.length;
+            for (byte[] payload : payloads) {
+                out.writeInt(payload != null ? position : 0);
+                out.writeInt(payload != null ? payload.length : 0);
+                if (payload != null) position += payload.length;
+            }
+            out.writeBytes(enumTables, 0, enumTables.length);
+            for (byte[] payload : payloads) {
+                if (payload != null) out.writeBytes(payload, 0, payload.length);
+            }
+            out.flush();
+        }
+    }
+
+    private static byte[] encodeChunk(SavedTileData[] tiles) {
+        SaveDataWriter out = new SaveDataWriter();
+        SaveCodec.encodeChunk(tiles, out);
+        return out.toByteArray();
+    }
+
+    static String regionFileName(int regionX, int regionY) {
+        return "r." + regionX + "." + regionY + ".reg";
+    }
+
+    // ==============================================================================================
+    // 3. DỌN DẸP THƯ MỤC CŨ
+    // ==============================================================================================
+
+    /**
+     * Đánh dấu thư mục đang được dùng (bản đồ đang tải lười từ nó, hoặc một ảnh chụp chờ ghi cần chép từ nó).
+     * Mỗi lần pin phải đi kèm đúng một lần unpin.
+     */
+    public void pin() {
+        PINNED_DIRECTORIES.computeIfAbsent(directory.toAbsolutePath(), k -> new AtomicInteger()).incrementAndGet();
+    }
+
+    public void unpin() {
+        PINNED_DIRECTORIES.computeIfPresent(directory.toAbsolutePath(), (k, count) -> count.decrementAndGet() <= 0 ? null : count);
+    }
+
+    /**
+     * Xóa các thư mục region của file save không còn được tham chiếu:
+     * mọi thư mục trừ thư mục vừa ghi và các thư mục đang được pin.
+     */
+    static void deleteStale(Path saveFile, Path current) {
+        Path root = rootFor(saveFile);
+        if (!Files.isDirectory(root)) return;
+
+        List<Path> stale = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(root)) {
+            for (Path directory : stream) {
+                Path absolute = directory.toAbsolutePath();
+                if (absolute.equals(current.toAbsolutePath()) || PINNED_DIRECTORIES.containsKey(absolute)) continue;
+                stale.add(directory);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        for (Path directory : stale) {
+            try {
+                deleteRecursively(directory);
+            } catch (IOException e) {
+                // Trên một số hệ điều hành file đang được ánh xạ không xóa được: thử lại ở lần lưu sau
+                System.err.println("[RegionStore] Could not delete old region directory " + directory + ": " + e.getMessage());
+            }
+        }
+    }
+
+    static void deleteRecursively(Path path) throws IOException {
+        if (!Files.exists(path)) return;
+        try (Stream<Path> walk = Files.walk(path)) {
+            for (Path p : (Iterable<Path>) walk.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(p);
+            }
+        }
+    }
+
+    /**
+     * Tổng kích thước (byte) các file trong thư mục region.
+     */
+    public static long directorySize(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) return 0;
+        long total = 0;
+        try (Stream<Path> walk = Files.walk(directory)) {
+            for (Path p : (Iterable<Path>) walk.filter(Files::isRegularFile)::iterator) {
+                total += Files.size(p);
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,715 @@
+package com.example.farmSimulation.model;
+
+import com.example.farmSimulation.config.SaveConfig;
+import com.example.farmSimulation.config.WeatherConfig;
+import com.example.farmSimulation.model.GameSaveState.SavedAnimal;
+import com.example.farmSimulation.model.GameSaveState.SavedItemStack;
+import com.example.farmSimulation.model.GameSaveState.SavedQuest;
+import com.example.farmSimulation.model.GameSaveState.SavedShopSlot;
+import com.example.farmSimulation.model.GameSaveState.SavedTileData;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Mã hóa / giải mã GameSaveState sang định dạng nhị phân tự định nghĩa (thay cho Java Serialization).
+ *
+ * Cấu trúc file:
+ * [magic "FSAV"][phiên bản lược đồ (short)][cờ (short)]
+ * [section]...[TAG_END]
+ * Mỗi section: [tag (byte)][độ dài (varint)][dữ liệu] - bộ đọc bỏ qua các tag không biết,
+ * nên có thể thêm section mới mà file cũ vẫn đọc được.
+ *
+ * Enum không được lưu theo ordinal mà theo chỉ số trong bảng tên (section ENUMS) ở đầu file,
+ * nhờ vậy thêm / đổi thứ tự hằng số enum không làm hỏng file save cũ.
+ *
+ * Bản đồ được chia thành chunk SAVE_CHUNK_SIZE x SAVE_CHUNK_SIZE. Chỉ chunk có ô khác mặc định
+ * mới được ghi. Trong chunk, các ô được duyệt theo hàng và nén run-length:
+ * mỗi token varint = (độ dài run << 1) | (1 nếu là run ô có dữ liệu, 0 nếu là run ô mặc định).
+ * Ô có dữ liệu gồm cờ bit-packed và chỉ ghi các bản ghi con (cây trồng, cây, hàng rào, vật phẩm)
+ * khi chúng thực sự tồn tại.
+ *
+ * File save do SaveManager ghi ra không chứa section WORLD mà section REGIONS trỏ tới thư mục
+ * region file (xem RegionStore): các chunk được mã hóa như trên nhưng nằm trong region file và được tải lười.
+ *
+ * Mọi mốc thời gian trong file là thời gian mô phỏng (xem SimulationClock), không phải System.nanoTime() của phiên đã lưu.
+ */
+public final class SaveCodec {
+    public static final int MAGIC = 0x46534156; // "FSAV"
+
+    // --- Tag của các section ---
+    static final int TAG_END = 0;
+    static final int TAG_ENUMS = 1;
+    static final int TAG_PLAYER = 2;
+    static final int TAG_INVENTORY = 3;
+    static final int TAG_TIME = 4;
+    static final int TAG_WEATHER = 5;
+    static final int TAG_ANIMALS = 6;
+    static final int TAG_SHOP = 7;
+    static final int TAG_QUESTS = 8;
+    static final int TAG_WORLD = 9;
+    static final int TAG_META = 10;
+    static final int TAG_REGIONS = 11; // Bản đồ nằm trong thư mục region file (thay cho section WORLD)
+
+    // --- Cờ của một ô đất (varint, 7 cờ đầu vừa 1 byte) ---
+    static final int FLAG_WATERED = 1;
+    static final int FLAG_FERTILIZED = 1 << 1;
+    static final int FLAG_CROP = 1 << 2;
+    static final int FLAG_TREE = 1 << 3;
+    static final int FLAG_FENCE = 1 << 4;
+    static final int FLAG_FENCE_OPEN = 1 << 5;
+    static final int FLAG_GROUND_ITEM = 1 << 6;
+    static final int FLAG_WATER_TIME = 1 << 7;       // Có lưu thời điểm tưới
+    static final int FLAG_FERTILIZER_TIME = 1 << 8;  // Có lưu thời điểm bón phân
+    static final int FLAG_DRY_TIME = 1 << 9;         // Có lưu thời điểm đất bắt đầu khô (từ phiên bản 2)
+    static final int FLAG_CROP_CLOCK = 1 << 10;      // Có lưu thời điểm gieo hạt và thời điểm mô phỏng của cây trồng
+    static final int FLAG_TREE_CLOCK = 1 << 11;      // Có lưu thời điểm chặt / bắt đầu mọc lại của cây
+
+    // Cờ của khối mốc thời gian động vật (ghi sau danh sách động vật, file cũ không có khối này)
+    static final int ANIMAL_SPAWN_TIME = 1;
+    static final int ANIMAL_HUNGER_TIME = 1 << 1;
+    static final int ANIMAL_STARVATION_TIME = 1 << 2;
+    static final int ANIMAL_PRODUCTION_TIME = 1 << 3;
+    static final int ANIMAL_BREEDING_TIME = 1 << 4;
+    static final int ANIMAL_HAS_PRODUCT = 1 << 5;
+
+    static final int CHUNK_SIZE = SaveConfig.SAVE_CHUNK_SIZE;
+    static final int TILES_PER_CHUNK = CHUNK_SIZE * CHUNK_SIZE;
+
+    // Thứ tự các bảng enum trong section ENUMS (chỉ được thêm vào cuối)
+    private static final List<Class<? extends Enum<?>>> ENUM_TABLES = List.of(
+            Tile.class, CropType.class, ItemType.class, AnimalType.class, QuestType.class, WeatherConfig.WeatherType.class
+    );
+
+    private SaveCodec() {}
+
+    // ==============================================================================================
+    // 1. MÃ HÓA (ENCODE)
+    // ==============================================================================================
+
+    /**
+     * Ghi toàn bộ trạng thái game ra bộ ghi (header + các section).
+     */
+    public static void encode(GameSaveState state, SaveDataWriter out) {
+        SaveDataWriter section = new SaveDataWriter();
+        encodeWithoutWorld(state, out, section);
+
+        writeWorld(state.worldTiles, section);
+        writeSection(out, TAG_WORLD, section);
+
+        out.writeByte(TAG_END);
+    }
+
+    /**
+     * Ghi file save mà bản đồ nằm trong thư mục region file riêng (xem RegionStore).
+     *
+     * @param regionDirectory Tên thư mục region, tương đối so với thư mục chứa file save
+     */
+    static void encodeWithRegions(GameSaveState state, String regionDirectory, SaveDataWriter out) {
+        SaveDataWriter section = new SaveDataWriter();
+        encodeWithoutWorld(state, out, section);
+
+        section.writeString(regionDirectory);
+        writeSection(out, TAG_REGIONS, section);
+
+        out.writeByte(TAG_END);
+    }
+
+    /**
+     * Ghi header và mọi section trừ bản đồ (chưa ghi TAG_END).
+     */
+    private static void encodeWithoutWorld(GameSaveState state, SaveDataWriter out, SaveDataWriter section) {
+        out.writeInt(MAGIC);
+        out.writeShort(SaveConfig.SAVE_FORMAT_VERSION);
+        out.writeShort(0); // Cờ dự phòng
+
+        writeEnumTables(section);
+        writeSection(out, TAG_ENUMS, section);
+
+        section.writeLong(state.saveGeneration);
+        section.writeLong(state.worldSeed);
+        writeSection(out, TAG_META, section);
+
+        encodeStateSections(state, out, section);
+    }
+
+    /**
+     * Ghi các section trạng thái nhỏ (mọi thứ trừ bản đồ): người chơi, túi đồ, thời gian,
+     * thời tiết, động vật, cửa hàng, nhiệm vụ. Dùng chung cho file save đầy đủ và nhật ký (journal).
+     *
+     * @param section Bộ ghi tạm (bộ nhớ) để mã hóa từng section trước khi biết độ dài
+     */
+    static void encodeStateSections(GameSaveState state, SaveDataWriter out, SaveDataWriter section) {
+        writePlayer(state, section);
+        writeSection(out, TAG_PLAYER, section);
+
+        writeInventory(state, section);
+        writeSection(out, TAG_INVENTORY, section);
+
+        section.writeDouble(state.currentDaySeconds);
+        section.writeSignedVarInt(state.currentDay);
+        section.writeLong(state.simulationTime);
+        section.writeLong(state.savedAtMillis);
+        writeSection(out, TAG_TIME, section);
+
+        writeEnum(section, state.currentWeather);
+        writeSection(out, TAG_WEATHER, section);
+
+        writeAnimals(state, section);
+        writeSection(out, TAG_ANIMALS, section);
+
+        writeShop(state, section);
+        writeSection(out, TAG_SHOP, section);
+
+        writeQuests(state, section);
+        writeSection(out, TAG_QUESTS, section);
+    }
+
+    /**
+     * Mã hóa ra mảng byte (tiện cho việc đo đạc / kiểm tra).
+     */
+    public static byte[] encodeToBytes(GameSaveState state) {
+        SaveDataWriter out = new SaveDataWriter();
+        encode(state, out);
+        return out.toByteArray();
+    }
+
+    static void writeSection(SaveDataWriter out, int tag, SaveDataWriter section) {
+        out.writeByte(tag);
+        out.writeVarInt((int) section.size());
+        out.writeAll(section);
+        section.reset();
+    }
+
+    static void writeEnumTables(SaveDataWriter out) {
+        out.writeVarInt(ENUM_TABLES.size());
+        for (Class<? extends Enum<?>> enumClass : ENUM_TABLES) {
+            Enum<?>[] constants = enumClass.getEnumConstants();
+            out.writeVarInt(constants.length);
+            for (Enum<?> constant : constants) {
+                out.writeString(constant.name());
+            }
+        }
+    }
+
+    private static void writePlayer(GameSaveState state, SaveDataWriter out) {
+        out.writeString(state.playerName);
+        out.writeDouble(state.playerMoney);
+        out.writeDouble(state.playerXP);
+        out.writeSignedVarInt(state.playerLevel);
+        out.writeDouble(state.playerStamina);
+        out.writeDouble(state.playerX);
+        out.writeDouble(state.playerY);
+    }
+
+    private static void writeInventory(GameSaveState state, SaveDataWriter out) {
+        out.writeVarInt(state.inventory.size());
+        for (SavedItemStack stack : state.inventory) {
+            if (stack == null || stack.type == null) {
+                out.writeVarInt(0); // Ô trống
+                continue;
+            }
+            writeEnum(out, stack.type);
+            out.writeSignedVarInt(stack.quantity);
+            out.writeSignedVarInt(stack.durability);
+        }
+    }
+
+    private static void writeAnimals(GameSaveState state, SaveDataWriter out) {
+        out.writeVarInt(state.animals.size());
+        for (SavedAnimal animal : state.animals) {
+            writeEnum(out, animal.type);
+            out.writeDouble(animal.x);
+            out.writeDouble(animal.y);
+            out.writeSignedVarInt(animal.age);
+            out.writeDouble(animal.hunger);
+        }
+
+        // Mốc thời gian của từng con (cùng thứ tự), đặt cuối section để file cũ vẫn đọc được
+        for (SavedAnimal animal : state.animals) {
+            int flags = 0;
+            if (animal.spawnTime != 0) flags |= ANIMAL_SPAWN_TIME;
+            if (animal.lastHungerUpdateTime != 0) flags |= ANIMAL_HUNGER_TIME;
+            if (animal.starvationStartTime != 0) flags |= ANIMAL_STARVATION_TIME;
+            if (animal.productionTimer != 0) flags |= ANIMAL_PRODUCTION_TIME;
+            if (animal.breedingCooldownTimer != 0) flags |= ANIMAL_BREEDING_TIME;
+            if (animal.hasProduct) flags |= ANIMAL_HAS_PRODUCT;
+            out.writeVarInt(flags);
+            if ((flags & ANIMAL_SPAWN_TIME) != 0) out.writeLong(animal.spawnTime);
+            if ((flags & ANIMAL_HUNGER_TIME) != 0) out.writeLong(animal.lastHungerUpdateTime);
+            if ((flags & ANIMAL_STARVATION_TIME) != 0) out.writeLong(animal.starvationStartTime);
+            if ((flags & ANIMAL_PRODUCTION_TIME) != 0) out.writeLong(animal.productionTimer);
+            if ((flags & ANIMAL_BREEDING_TIME) != 0) out.writeLong(animal.breedingCooldownTimer);
+        }
+    }
+
+    private static void writeShop(GameSaveState state, SaveDataWriter out) {
+        List<SavedShopSlot> stock = state.dailyShopStock != null ? state.dailyShopStock : List.of();
+        out.writeVarInt(stock.size());
+        for (SavedShopSlot slot : stock) {
+            writeEnum(out, slot.itemType);
+            out.writeSignedVarInt(slot.quantity);
+            out.writeDouble(slot.discountRate);
+        }
+    }
+
+    private static void writeQuests(GameSaveState state, SaveDataWriter out) {
+        List<SavedQuest> quests = state.activeQuests != null ? state.activeQuests : List.of();
+        out.writeVarInt(quests.size());
+        for (SavedQuest quest : quests) {
+            out.writeString(quest.description);
+            writeEnum(out, quest.type);
+            writeEnum(out, quest.targetItem);
+            out.writeSignedVarInt(quest.targetAmount);
+            out.writeSignedVarInt(quest.currentAmount);
+            out.writeDouble(quest.rewardMoney);
+            out.writeDouble(quest.rewardXp);
+            out.writeBoolean(quest.isClaimed);
+        }
+    }
+
+    /**
+     * Gom các ô theo chunk rồi ghi từng chunk có dữ liệu.
+     * Chunk được sắp xếp theo tọa độ để file save ổn định (cùng dữ liệu -> cùng nội dung file).
+     */
+    private static void writeWorld(List<SavedTileData> tiles, SaveDataWriter out) {
+        Map<Long, SavedTileData[]> chunks = groupByChunk(tiles);
+
+        out.writeVarInt(CHUNK_SIZE);
+        out.writeVarInt(chunks.size());
+        SaveDataWriter chunkData = new SaveDataWriter();
+        for (Map.Entry<Long, SavedTileData[]> entry : chunks.entrySet()) {
+            long key = entry.getKey();
+            encodeChunk(entry.getValue(), chunkData);
+            out.writeSignedVarInt((int) (key >> 32));
+            out.writeSignedVarInt((int) key);
+            out.writeVarInt((int) chunkData.size()); // Độ dài để có thể bỏ qua / tải chunk riêng lẻ
+            out.writeAll(chunkData);
+            chunkData.reset();
+        }
+    }
+
+    /**
+     * Chia các ô có dữ liệu vào mảng theo chunk. Ô mặc định bị bỏ qua; chunk toàn ô mặc định không được tạo.
+     */
+    static Map<Long, SavedTileData[]> groupByChunk(List<SavedTileData> tiles) {
+        Map<Long, SavedTileData[]> chunks = new TreeMap<>();
+        for (SavedTileData tile : tiles) {
+            if (tile == null || isDefaultTile(tile)) continue;
+            int chunkX = Math.floorDiv(tile.col, CHUNK_SIZE);
+            int chunkY = Math.floorDiv(tile.row, CHUNK_SIZE);
+            SavedTileData[] chunk = chunks.computeIfAbsent(packKey(chunkX, chunkY), k -> new SavedTileData[TILES_PER_CHUNK]);
+            chunk[localIndex(tile.col, tile.row)] = tile;
+        }
+        return chunks;
+    }
+
+    /**
+     * Ghi một chunk (mảng TILES_PER_CHUNK ô, null = ô mặc định) dưới dạng các run.
+     * Run ô mặc định ở cuối chunk được lược bỏ.
+     */
+    static void encodeChunk(SavedTileData[] tiles, SaveDataWriter out) {
+        int last = tiles.length - 1;
+        while (last >= 0 && tiles[last] == null) last--;
+
+        int i = 0;
+        while (i <= last) {
+            boolean explicit = tiles[i] != null;
+            int runEnd = i;
+            while (runEnd <= last && (tiles[runEnd] != null) == explicit) runEnd++;
+
+            out.writeVarInt(((runEnd - i) << 1) | (explicit ? 1 : 0));
+            if (explicit) {
+                for (int j = i; j < runEnd; j++) {
+                    writeTile(tiles[j], out);
+                }
+            }
+            i = runEnd;
+        }
+    }
+
+    static void writeTile(SavedTileData tile, SaveDataWriter out) {
+        int flags = tileFlags(tile);
+        out.writeVarInt(flags);
+        writeEnum(out, tile.baseType != null ? tile.baseType : Tile.GRASS);
+
+        if ((flags & FLAG_WATER_TIME) != 0) out.writeLong(tile.lastWateredTime);
+        if ((flags & FLAG_FERTILIZER_TIME) != 0) out.writeLong(tile.fertilizerStartTime);
+        if ((flags & FLAG_DRY_TIME) != 0) out.writeLong(tile.dryStartTime);
+        if ((flags & FLAG_CROP) != 0) {
+            writeEnum(out, tile.cropType);
+            out.writeSignedVarInt(tile.cropStage);
+            if ((flags & FLAG_CROP_CLOCK) != 0) {
+                out.writeLong(tile.cropPlantTime);
+                out.writeLong(tile.simulatedTime);
+            }
+        }
+        if ((flags & FLAG_TREE) != 0) {
+            out.writeSignedVarInt(tile.treeStage);
+            out.writeSignedVarInt(tile.treeChopCount);
+            if ((flags & FLAG_TREE_CLOCK) != 0) {
+                out.writeLong(tile.treeLastChopTime);
+                out.writeLong(tile.treeRegrowStartTime);
+            }
+        }
+        if ((flags & FLAG_GROUND_ITEM) != 0) {
+            writeEnum(out, tile.groundItemType);
+            out.writeSignedVarInt(tile.groundItemAmount);
+            out.writeSignedVarInt(tile.groundItemDurability);
+            // Độ lệch hiển thị (pixel) - độ chính xác float là đủ
+            out.writeFloat((float) tile.groundItemOffsetX);
+            out.writeFloat((float) tile.groundItemOffsetY);
+        }
+    }
+
+    static int tileFlags(SavedTileData tile) {
+        int flags = 0;
+        if (tile.isWatered) flags |= FLAG_WATERED;
+        if (tile.isFertilized) flags |= FLAG_FERTILIZED;
+        if (tile.hasCrop && tile.cropType != null) {
+            flags |= FLAG_CROP;
+            if (tile.cropPlantTime != 0 || tile.simulatedTime != 0) flags |= FLAG_CROP_CLOCK;
+        }
+        if (tile.hasTree) {
+            flags |= FLAG_TREE;
+            if (tile.treeLastChopTime != 0 || tile.treeRegrowStartTime != 0) flags |= FLAG_TREE_CLOCK;
+        }
+        if (tile.hasFence) {
+            flags |= FLAG_FENCE;
+            if (tile.fenceIsOpen) flags |= FLAG_FENCE_OPEN;
+        }
+        if (tile.hasGroundItem && tile.groundItemType != null) flags |= FLAG_GROUND_ITEM;
+        if (tile.lastWateredTime != 0) flags |= FLAG_WATER_TIME;
+        if (tile.fertilizerStartTime != 0) flags |= FLAG_FERTILIZER_TIME;
+        if (tile.dryStartTime != 0) flags |= FLAG_DRY_TIME;
+        return flags;
+    }
+
+    /**
+     * Ô mặc định: nền cỏ, không có bất kỳ dữ liệu nào (bản đồ tự tạo lại khi truy cập).
+     */
+    static boolean isDefaultTile(SavedTileData tile) {
+        return (tile.baseType == null || tile.baseType == Tile.GRASS) && tileFlags(tile) == 0;
+    }
+
+    private static void writeEnum(SaveDataWriter out, Enum<?> value) {
+        out.writeVarInt(value == null ? 0 : value.ordinal() + 1); // 0 = null
+    }
+
+    // ==============================================================================================
+    // 2. GIẢI MÃ (DECODE)
+    // ==============================================================================================
+
+    /**
+     * Đọc trạng thái game từ bộ đọc.
+     *
+     * @throws SaveFormatException nếu dữ liệu không phải file save hợp lệ
+     */
+    public static GameSaveState decode(SaveDataReader in) {
+        if (in.readInt() != MAGIC) {
+            throw new SaveFormatException("Not a farm save file");
+        }
+        int version = in.readShort();
+        if (version > SaveConfig.SAVE_FORMAT_VERSION) {
+            throw new SaveFormatException("Save format version " + version + " is newer than supported version " + SaveConfig.SAVE_FORMAT_VERSION);
+        }
+        in.readShort(); // Cờ dự phòng
+
+        GameSaveState state = new GameSaveState();
+        readSections(in, state, EnumDictionary.current());
+        return state;
+    }
+
+    /**
+     * Đọc chuỗi section cho tới TAG_END (hoặc hết dữ liệu) và áp dụng vào state.
+     * Section danh sách (túi đồ, động vật...) thay thế hoàn toàn danh sách cũ;
+     * ô đất của section WORLD được thêm vào worldTiles.
+     *
+     * @return Bảng enum đang dùng (có thể được thay bởi section ENUMS)
+     */
+    static EnumDictionary readSections(SaveDataReader in, GameSaveState state, EnumDictionary dict) {
+        while (in.hasRemaining()) {
+            int tag = in.readByte();
+            if (tag == TAG_END) break;
+            SaveDataReader section = in.slice(in.readVarInt());
+
+            switch (tag) {
+                case TAG_ENUMS -> dict = readEnumTables(section);
+                case TAG_META -> {
+                    state.saveGeneration = section.readLong();
+                    if (section.hasRemaining()) { // File save trước phiên bản 3 không có hạt giống thế giới
+                        state.worldSeed = section.readLong();
+                    }
+                }
+                case TAG_PLAYER -> readPlayer(state, section);
+                case TAG_INVENTORY -> readInventory(state, section, dict);
+                case TAG_TIME -> {
+                    state.currentDaySeconds = section.readDouble();
+                    state.currentDay = section.readSignedVarInt();
+                    if (section.hasRemaining()) { // File save trước phiên bản 2 không có thời gian mô phỏng
+                        state.simulationTime = section.readLong();
+                        state.savedAtMillis = section.readLong();
+                    }
+                }
+                case TAG_WEATHER -> state.currentWeather = dict.get(WeatherConfig.WeatherType.class, section.readVarInt());
+                case TAG_ANIMALS -> readAnimals(state, section, dict);
+                case TAG_SHOP -> readShop(state, section, dict);
+                case TAG_QUESTS -> readQuests(state, section, dict);
+                case TAG_WORLD -> readWorld(state.worldTiles, section, dict);
+                case TAG_REGIONS -> state.regionDirectory = section.readString();
+                default -> {
+                    // Section của phiên bản mới hơn: bỏ qua
+                }
+            }
+        }
+        return dict;
+    }
+
+    public static GameSaveState decodeFromBytes(byte[] bytes) {
+        return decode(new SaveDataReader(bytes));
+    }
+
+    static EnumDictionary readEnumTables(SaveDataReader in) {
+        int tableCount = in.readVarInt();
+        String[][] names = new String[tableCount][];
+        for (int t = 0; t < tableCount; t++) {
+            names[t] = new String[in.readVarInt()];
+            for (int i = 0; i < names[t].length; i++) {
+                names[t][i] = in.readString();
+            }
+        }
+        return EnumDictionary.fromNames(names);
+    }
+
+    private static void readPlayer(GameSaveState state, SaveDataReader in) {
+        state.playerName = in.readString();
+        state.playerMoney = in.readDouble();
+        state.playerXP = in.readDouble();
+        state.playerLevel = in.readSignedVarInt();
+        state.playerStamina = in.readDouble();
+        state.playerX = in.readDouble();
+        state.playerY = in.readDouble();
+    }
+
+    private static void readInventory(GameSaveState state, SaveDataReader in, EnumDictionary dict) {
+        int count = in.readVarInt();
+        state.inventory.clear();
+        for (int i = 0; i < count; i++) {
+            int typeIndex = in.readVarInt();
+            if (typeIndex == 0) {
+                state.inventory.add(null);
+                continue;
+            }
+            ItemType type = dict.get(ItemType.class, typeIndex);
+            int quantity = in.readSignedVarInt();
+            int durability = in.readSignedVarInt();
+            // Vật phẩm đã bị xóa khỏi game: coi như ô trống
+            state.inventory.add(type != null ? new SavedItemStack(type, quantity, durability) : null);
+        }
+    }
+
+    private static void readAnimals(GameSaveState state, SaveDataReader in, EnumDictionary dict) {
+        int count = in.readVarInt();
+        state.animals.clear();
+        SavedAnimal[] read = new SavedAnimal[count]; // Giữ đúng thứ tự (kể cả loài đã bị xóa) để khớp khối mốc thời gian
+        for (int i = 0; i < count; i++) {
+            AnimalType type = dict.get(AnimalType.class, in.readVarInt());
+            double x = in.readDouble();
+            double y = in.readDouble();
+            int age = in.readSignedVarInt();
+            double hunger = in.readDouble();
+            if (type != null) {
+                read[i] = new SavedAnimal(type, x, y, age, hunger);
+                state.animals.add(read[i]);
+            }
+        }
+
+        if (!in.hasRemaining()) return; // File save trước phiên bản 2
+        for (int i = 0; i < count; i++) {
+            SavedAnimal animal = read[i] != null ? read[i] : new SavedAnimal(null, 0, 0, 0, 0);
+            int flags = in.readVarInt();
+            if ((flags & ANIMAL_SPAWN_TIME) != 0) animal.spawnTime = in.readLong();
+            if ((flags & ANIMAL_HUNGER_TIME) != 0) animal.lastHungerUpdateTime = in.readLong();
+            if ((flags & ANIMAL_STARVATION_TIME) != 0) animal.starvationStartTime = in.readLong();
+            if ((flags & ANIMAL_PRODUCTION_TIME) != 0) animal.productionTimer = in.readLong();
+            if ((flags & ANIMAL_BREEDING_TIME) != 0) animal.breedingCooldownTimer = in.readLong();
+            animal.hasProduct = (flags & ANIMAL_HAS_PRODUCT) != 0;
+        }
+    }
+
+    private static void readShop(GameSaveState state, SaveDataReader in, EnumDictionary dict) {
+        int count = in.readVarInt();
+        state.dailyShopStock.clear();
+        for (int i = 0; i < count; i++) {
+            ItemType type = dict.get(ItemType.class, in.readVarInt());
+            int quantity = in.readSignedVarInt();
+            double discount = in.readDouble();
+            if (type != null) {
+                state.dailyShopStock.add(new SavedShopSlot(type, quantity, discount));
+            }
+        }
+    }
+
+    private static void readQuests(GameSaveState state, SaveDataReader in, EnumDictionary dict) {
+        int count = in.readVarInt();
+        state.activeQuests.clear();
+        for (int i = 0; i < count; i++) {
+            SavedQuest quest = new SavedQuest();
+            quest.description = in.readString();
+            quest.type = dict.get(QuestType.class, in.readVarInt());
+            quest.targetItem = dict.get(ItemType.class, in.readVarInt());
+            quest.targetAmount = in.readSignedVarInt();
+            quest.currentAmount = in.readSignedVarInt();
+            quest.rewardMoney = in.readDouble();
+            quest.rewardXp = in.readDouble();
+            quest.isClaimed = in.readBoolean();
+            if (quest.type != null) {
+                state.activeQuests.add(quest);
+            }
+        }
+    }
+
+    private static void readWorld(List<SavedTileData> tiles, SaveDataReader in, EnumDictionary dict) {
+        int chunkSize = in.readVarInt();
+        int chunkCount = in.readVarInt();
+        for (int c = 0; c < chunkCount; c++) {
+            int chunkX = in.readSignedVarInt();
+            int chunkY = in.readSignedVarInt();
+            SaveDataReader chunkData = in.slice(in.readVarInt());
+            decodeChunk(chunkData, chunkX, chunkY, chunkSize, dict, tiles);
+        }
+    }
+
+    /**
+     * Giải mã một chunk, thêm các ô có dữ liệu vào danh sách kết quả.
+     */
+    static void decodeChunk(SaveDataReader in, int chunkX, int chunkY, int chunkSize, EnumDictionary dict, List<SavedTileData> out) {
+        int tileCount = chunkSize * chunkSize;
+        int index = 0;
+        while (index < tileCount && in.hasRemaining()) {
+            int token = in.readVarInt();
+            int run = token >>> 1;
+            boolean explicit = (token & 1) != 0;
+            if (run <= 0 || index + run > tileCount) {
+                throw new SaveFormatException("Invalid tile run in chunk " + chunkX + "," + chunkY);
+            }
+            if (explicit) {
+                for (int j = 0; j < run; j++) {
+                    int local = index + j;
+                    SavedTileData tile = readTile(in, dict);
+                    tile.col = chunkX * chunkSize + local % chunkSize;
+                    tile.row = chunkY * chunkSize + local / chunkSize;
+                    out.add(tile);
+                }
+            }
+            index += run;
+        }
+    }
+
+    static SavedTileData readTile(SaveDataReader in, EnumDictionary dict) {
+        SavedTileData tile = new SavedTileData();
+        int flags = in.readVarInt();
+        tile.baseType = dict.get(Tile.class, in.readVarInt());
+        if (tile.baseType == null) tile.baseType = Tile.GRASS;
+
+        tile.isWatered = (flags & FLAG_WATERED) != 0;
+        tile.isFertilized = (flags & FLAG_FERTILIZED) != 0;
+        if ((flags & FLAG_WATER_TIME) != 0) tile.lastWateredTime = in.readLong();
+        if ((flags & FLAG_FERTILIZER_TIME) != 0) tile.fertilizerStartTime = in.readLong();
+        if ((flags & FLAG_DRY_TIME) != 0) tile.dryStartTime = in.readLong();
+
+        if ((flags & FLAG_CROP) != 0) {
+            tile.cropType = dict.get(CropType.class, in.readVarInt());
+            tile.cropStage = in.readSignedVarInt();
+            tile.hasCrop = tile.cropType != null;
+            if ((flags & FLAG_CROP_CLOCK) != 0) {
+                tile.cropPlantTime = in.readLong();
+                tile.simulatedTime = in.readLong();
+            }
+        }
+        if ((flags & FLAG_TREE) != 0) {
+            tile.hasTree = true;
+            tile.treeStage = in.readSignedVarInt();
+            tile.treeChopCount = in.readSignedVarInt();
+            if ((flags & FLAG_TREE_CLOCK) != 0) {
+                tile.treeLastChopTime = in.readLong();
+                tile.treeRegrowStartTime = in.readLong();
+            }
+        }
+        if ((flags & FLAG_FENCE) != 0) {
+            tile.hasFence = true;
+            tile.fenceIsOpen = (flags & FLAG_FENCE_OPEN) != 0;
+        }
+        if ((flags & FLAG_GROUND_ITEM) != 0) {
+            tile.groundItemType = dict.get(ItemType.class, in.readVarInt());
+            tile.groundItemAmount = in.readSignedVarInt();
+            tile.groundItemDurability = in.readSignedVarInt();
+            tile.groundItemOffsetX = in.readFloat();
+            tile.groundItemOffsetY = in.readFloat();
+            tile.hasGroundItem = tile.groundItemType != null;
+        }
+        return tile;
+    }
+
+    // ==============================================================================================
+    // 3. HÀM HỖ TRỢ
+    // ==============================================================================================
+
+    /**
+     * Ghép 2 số int (tọa độ ô hoặc chunk) thành một khóa long, cùng quy ước với WorldMap.
+     */
+    static long packKey(int x, int y) {
+        return ((long) x << 32) | (y & 0xffffffffL);
+    }
+
+    static int localIndex(int col, int row) {
+        return Math.floorMod(row, CHUNK_SIZE) * CHUNK_SIZE + Math.floorMod(col, CHUNK_SIZE);
+    }
+
+    /**
+     * Bảng tra chỉ số enum trong file -> hằng số enum hiện tại (theo tên).
+     * Tên không còn tồn tại trong game được ánh xạ thành null.
+     */
+    static final class EnumDictionary {
+        private final Map<Class<?>, Enum<?>[]> tables = new HashMap<>();
+
+        static EnumDictionary current() {
+            EnumDictionary dict = new EnumDictionary();
+            for (Class<? extends Enum<?>> enumClass : ENUM_TABLES) {
+                dict.tables.put(enumClass, enumClass.getEnumConstants());
+            }
+            return dict;
+        }
+
+        static EnumDictionary fromNames(String[][] names) {
+            EnumDictionary dict = current(); // Bảng thiếu (file cũ hơn) dùng thứ tự hiện tại
+            for (int t = 0; t < names.length && t < ENUM_TABLES.size(); t++) {
+                Class<? extends Enum<?>> enumClass = ENUM_TABLES.get(t);
+                Enum<?>[] constants = enumClass.getEnumConstants();
+                Enum<?>[] mapped = new Enum<?>[names[t].length];
+                for (int i = 0; i < mapped.length; i++) {
+                    for (Enum<?> constant : constants) {
+                        if (constant.name().equals(names[t][i])) {
+                            mapped[i] = constant;
+                            break;
+                        }
+                    }
+                }
+                dict.tables.put(enumClass, mapped);
+            }
+            return dict;
+        }
+
+        /**
+         * @param index Chỉ số trong file (0 = null, còn lại là vị trí + 1)
+         */
+        <E extends Enum<E>> E get(Class<E> enumClass, int index) {
+            if (index <= 0) return null;
+            Enum<?>[] table = tables.get(enumClass);
+            if (table == null || index > table.length) return null;
+            return enumClass.cast(table[index - 1]);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.farmSimulation.model;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Bộ đọc dữ liệu nhị phân của file save - đối xứng với SaveDataWriter.
+ * Đọc trực tiếp trên một ByteBuffer (mảng trong bộ nhớ hoặc vùng nhớ ánh xạ từ file).
+ * Dữ liệu thiếu / hỏng sẽ ném SaveFormatException thay vì BufferUnderflowException.
+ */
+public class SaveDataReader {
+    private final ByteBuffer buffer;
+
+    public SaveDataReader(ByteBuffer buffer) {
+        this.buffer = buffer.slice().order(ByteOrder.BIG_ENDIAN);
+    }
+
+    public SaveDataReader(byte[] bytes) {
+        this(ByteBuffer.wrap(bytes));
+    }
+
+    // ==============================================================================================
+    // 1. KIỂU CƠ BẢN
+    // ==============================================================================================
+
+    public int readByte() {
+        try {
+            return buffer.get() & 0xFF;
+        } catch (BufferUnderflowException e) {
+            throw truncated();
+        }
+    }
+
+    public boolean readBoolean() {
+        return readByte() != 0;
+    }
+
+    public int readShort() {
+        try {
+            return buffer.getShort();
+        } catch (BufferUnderflowException e) {
+            throw truncated();
+        }
+    }
+
+    public int readInt() {
+        try {
+            return buffer.getInt();
+        } catch (BufferUnderflowException e) {
+            throw truncated();
+        }
+    }
+
+    public long readLong() {
+        try {
+            return buffer.getLong();
+        } catch (BufferUnderflowException e) {
+            throw truncated();
+        }
+    }
+
+    public float readFloat() {
+        try {
+            return buffer.getFloat();
+        } catch (BufferUnderflowException e) {
+            throw truncated();
+        }
+    }
+
+    public double readDouble() {
+        try {
+            return buffer.getDouble();
+        } catch (BufferUnderflowException e) {
+            throw truncated();
+        }
+    }
+
+    // ==============================================================================================
+    // 2. SỐ NGUYÊN ĐỘ DÀI THAY ĐỔI (VARINT)
+    // ==============================================================================================
+
+    public int readVarInt() {
+        int result = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = readByte();
+            result |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return result;
+        }
+        throw new SaveFormatException("Malformed varint");
+    }
+
+    public int readSignedVarInt() {
+        int raw = readVarInt();
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    public long readVarLong() {
+        long result = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            int b = readByte();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return result;
+        }
+        throw new SaveFormatException("Malformed varlong");
+    }
+
+    // ==============================================================================================
+    // 3. CHUỖI VÀ KHỐI BYTE
+    // ==============================================================================================
+
+    public String readString() {
+        int length = readVarInt();
+        if (length == 0) return null;
+        byte[] bytes = new byte[length - 1];
+        readBytes(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public void readBytes(byte[] target) {
+        if (buffer.remaining() < target.length) throw truncated();
+        buffer.get(target);
+    }
+
+    /**
+     * Tách ra một bộ đọc con cho đúng length byte tiếp theo và nhảy qua chúng.
+     * Dùng cho section / chunk có tiền tố độ dài.
+     */
+    public SaveDataReader slice(int length) {
+        if (length < 0 || buffer.remaining() < length) throw truncated();
+        ByteBuffer view = buffer.slice();
+        view.limit(length);
+        buffer.position(buffer.position() + length);
+        return new SaveDataReader(view);
+    }
+
+    public void skip(int length) {
+        if (length < 0 || buffer.remaining() < length) throw truncated();
+        buffer.position(buffer.position() + length);
+    }
+
+    // ==============================================================================================
+    // 4. TRẠNG THÁI
+    // ==============================================================================================
+
+    public int position() {
+        return buffer.position();
+    }
+
+    public int remaining() {
+        return buffer.remaining();
+    }
+
+    public boolean hasRemaining() {
+        return buffer.hasRemaining();
+    }
+
+    private SaveFormatException truncated() {
+        return new SaveFormatException("Unexpected end of save data at byte " + buffer.position());
+    }
+}
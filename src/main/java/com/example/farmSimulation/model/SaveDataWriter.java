@@ -0,0 +1,208 @@
+package com.example.farmSimulation.model;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Bộ ghi dữ liệu nhị phân dùng cho file save (Big-endian).
+ * Có 2 chế độ:
+ * - Bộ nhớ: dữ liệu được ghi vào mảng byte tự giãn (dùng để mã hóa từng section rồi mới biết độ dài).
+ * - Kênh (Channel): dữ liệu được gom vào bộ đệm cố định và đẩy xuống FileChannel mỗi khi đầy.
+ *
+ * Ngoài các kiểu cơ bản, hỗ trợ số nguyên độ dài thay đổi (varint) để các giá trị nhỏ
+ * (số lượng, chỉ số enum, độ dài run...) chỉ tốn 1 byte.
+ */
+public class SaveDataWriter {
+    private final WritableByteChannel channel; // null nếu ghi vào bộ nhớ
+    private ByteBuffer buffer;
+    private long flushedBytes = 0; // Số byte đã đẩy xuống kênh
+
+    /**
+     * Tạo bộ ghi vào bộ nhớ.
+     */
+    public SaveDataWriter() {
+        this(null, 256);
+    }
+
+    /**
+     * Tạo bộ ghi có bộ đệm, đẩy dữ liệu xuống kênh khi đầy.
+     */
+    public SaveDataWriter(WritableByteChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(Math.max(16, bufferSize)).order(ByteOrder.BIG_ENDIAN);
+    }
+
+    // ==============================================================================================
+    // 1. KIỂU CƠ BẢN
+    // ==============================================================================================
+
+    public SaveDataWriter writeByte(int value) {
+        ensureCapacity(1);
+        buffer.put((byte) value);
+        return this;
+    }
+
+    public SaveDataWriter writeBoolean(boolean value) {
+        return writeByte(value ? 1 : 0);
+    }
+
+    public SaveDataWriter writeShort(int value) {
+        ensureCapacity(2);
+        buffer.putShort((short) value);
+        return this;
+    }
+
+    public SaveDataWriter writeInt(int value) {
+        ensureCapacity(4);
+        buffer.putInt(value);
+        return this;
+    }
+
+    public SaveDataWriter writeLong(long value) {
+        ensureCapacity(8);
+        buffer.putLong(value);
+        return this;
+    }
+
+    public SaveDataWriter writeFloat(float value) {
+        ensureCapacity(4);
+        buffer.putFloat(value);
+        return this;
+    }
+
+    public SaveDataWriter writeDouble(double value) {
+        ensureCapacity(8);
+        buffer.putDouble(value);
+        return this;
+    }
+
+    // ==============================================================================================
+    // 2. SỐ NGUYÊN ĐỘ DÀI THAY ĐỔI (VARINT)
+    // ==============================================================================================
+
+    /**
+     * Ghi số nguyên không âm dạng varint (7 bit mỗi byte, bit cao báo còn byte tiếp theo).
+     */
+    public SaveDataWriter writeVarInt(int value) {
+        ensureCapacity(5);
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+        return this;
+    }
+
+    /**
+     * Ghi số nguyên có dấu dạng ZigZag + varint (số âm nhỏ như -1 cũng chỉ tốn 1 byte).
+     */
+    public SaveDataWriter writeSignedVarInt(int value) {
+        return writeVarInt((value << 1) ^ (value >> 31));
+    }
+
+    public SaveDataWriter writeVarLong(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+        return this;
+    }
+
+    // ==============================================================================================
+    // 3. CHUỖI VÀ KHỐI BYTE
+    // ==============================================================================================
+
+    /**
+     * Ghi chuỗi UTF-8 kèm độ dài. Chuỗi null được ghi với độ dài 0 và cờ riêng.
+     */
+    public SaveDataWriter writeString(String value) {
+        if (value == null) {
+            return writeVarInt(0);
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(bytes.length + 1); // +1 để phân biệt chuỗi rỗng với null
+        return writeBytes(bytes, 0, bytes.length);
+    }
+
+    public SaveDataWriter writeBytes(byte[] bytes, int offset, int length) {
+        while (length > 0) {
+            if (channel != null && !buffer.hasRemaining()) flush();
+            int chunk = channel != null ? Math.min(length, buffer.remaining()) : length;
+            ensureCapacity(chunk);
+            buffer.put(bytes, offset, chunk);
+            offset += chunk;
+            length -= chunk;
+        }
+        return this;
+    }
+
+    /**
+     * Ghi toàn bộ nội dung của một bộ ghi bộ nhớ khác (dùng để nối section đã mã hóa).
+     */
+    public SaveDataWriter writeAll(SaveDataWriter other) {
+        return writeBytes(other.buffer.array(), 0, other.buffer.position());
+    }
+
+    // ==============================================================================================
+    // 4. TRẠNG THÁI
+    // ==============================================================================================
+
+    /**
+     * Tổng số byte đã ghi (kể cả phần đã đẩy xuống kênh).
+     */
+    public long size() {
+        return flushedBytes + buffer.position();
+    }
+
+    /**
+     * Bản sao dữ liệu đã ghi (chỉ dùng cho chế độ bộ nhớ).
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    /**
+     * Xóa dữ liệu để tái sử dụng bộ ghi (giữ lại mảng đã cấp phát).
+     */
+    public void reset() {
+        buffer.clear();
+        flushedBytes = 0;
+    }
+
+    /**
+     * Đẩy toàn bộ dữ liệu trong bộ đệm xuống kênh.
+     */
+    public void flush() {
+        if (channel == null) return;
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                flushedBytes += channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.clear();
+    }
+
+    private void ensureCapacity(int needed) {
+        if (buffer.remaining() >= needed) return;
+        if (channel != null) {
+            flush();
+            return;
+        }
+        // Chế độ bộ nhớ: nhân đôi dung lượng
+        int newCapacity = Math.max(buffer.capacity() * 2, buffer.position() + needed);
+        ByteBuffer grown = ByteBuffer.allocate(newCapacity).order(ByteOrder.BIG_ENDIAN);
+        buffer.flip();
+        grown.put(buffer);
+        buffer = grown;
+    }
+}
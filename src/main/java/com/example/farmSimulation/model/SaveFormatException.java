@@ -0,0 +1,10 @@
+package com.example.farmSimulation.model;
+
+/**
+ * Ngoại lệ khi file save không đúng định dạng (sai magic, sai phiên bản, dữ liệu bị cắt cụt...).
+ */
+public class SaveFormatException extends RuntimeException {
+    public SaveFormatException(String message) {
+        super(message);
+    }
+}
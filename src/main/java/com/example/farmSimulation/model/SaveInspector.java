@@ -0,0 +1,294 @@
+package com.example.farmSimulation.model;
+
+import com.example.farmSimulation.config.SaveConfig;
+import com.example.farmSimulation.model.GameSaveState.SavedAnimal;
+import com.example.farmSimulation.model.GameSaveState.SavedTileData;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Kiểm tra và nén file save mà không cần chạy game (dùng bởi công cụ dòng lệnh tools.SaveTool).
+ *
+ * - inspect: đọc file save theo kiểu luồng - các section trạng thái nhỏ được giải mã bình thường,
+ *   còn bản đồ (section WORLD hoặc region file) được giải mã từng chunk một và chỉ cộng dồn thống kê,
+ *   nên không bao giờ dựng toàn bộ bản đồ trên heap.
+ * - compact: gộp nhật ký vào file save, bỏ các ô thừa (cỏ trống chỉ còn dấu thời gian cũ, vật phẩm số lượng 0...)
+ *   rồi ghi lại file save theo định dạng hiện tại (kể cả file save cũ .dat).
+ */
+public class SaveInspector {
+    private static final int JAVA_SERIALIZATION_MAGIC = 0xACED;
+
+    private SaveInspector() {}
+
+    /**
+     * Thống kê của một file save.
+     */
+    public static final class Report {
+        public String format;
+        public long saveFileBytes;
+        public long regionBytes;        // Các thư mục region của file save (kể cả thư mục cũ chưa dọn)
+        public long journalBytes;
+        public final Map<String, Long> sectionBytes = new LinkedHashMap<>();
+
+        public long chunks;
+        public long storedTiles;
+        public long redundantTiles;     // Ô sẽ bị bỏ khi nén (compact)
+        public final Map<Tile, Long> tilesByType = new EnumMap<>(Tile.class);
+        public long watered, fertilized, trees, fences, groundItems;
+        public final Map<CropType, Long> cropsByType = new EnumMap<>(CropType.class);
+        public final Map<Integer, Long> cropStages = new TreeMap<>();
+        public final Map<AnimalType, Long> animalsByType = new EnumMap<>(AnimalType.class);
+
+        void addTile(SavedTileData tile) {
+            storedTiles++;
+            if (isRedundantTile(tile)) redundantTiles++;
+            tilesByType.merge(tile.baseType != null ? tile.baseType : Tile.GRASS, 1L, Long::sum);
+            if (tile.isWatered) watered++;
+            if (tile.isFertilized) fertilized++;
+            if (tile.hasTree) trees++;
+            if (tile.hasFence) fences++;
+            if (tile.hasGroundItem) groundItems++;
+            if (tile.hasCrop && tile.cropType != null) {
+                cropsByType.merge(tile.cropType, 1L, Long::sum);
+                cropStages.merge(tile.cropStage, 1L, Long::sum);
+            }
+        }
+
+        public long totalBytes() {
+            return saveFileBytes + regionBytes + journalBytes;
+        }
+
+        public void print(PrintStream out) {
+            out.println("Format: " + format);
+            out.printf("Size on disk: %d bytes (save file %d, region files %d, journal %d)%n",
+                    totalBytes(), saveFileBytes, regionBytes, journalBytes);
+            if (!sectionBytes.isEmpty()) {
+                out.println("Bytes per section:");
+                sectionBytes.forEach((name, bytes) -> out.printf("  %-12s %12d%n", name, bytes));
+            }
+
+            out.printf("Stored tiles: %d in %d chunks (%d redundant, removable with 'compact')%n", storedTiles, chunks, redundantTiles);
+            out.println("Tiles by type:");
+            tilesByType.forEach((type, count) -> out.printf("  %-12s %12d%n", type, count));
+            out.printf("  %-12s %12d%n  %-12s %12d%n  %-12s %12d%n  %-12s %12d%n  %-12s %12d%n",
+                    "(watered)", watered, "(fertilized)", fertilized, "(trees)", trees, "(fences)", fences, "(items)", groundItems);
+
+            out.println("Crops by type:");
+            cropsByType.forEach((type, count) -> out.printf("  %-12s %12d%n", type, count));
+            out.println("Crop stage histogram:");
+            long maxStage = cropStages.values().stream().mapToLong(Long::longValue).max().orElse(1);
+            cropStages.forEach((stage, count) -> out.printf("  stage %-6d %12d  %s%n", stage, count,
+                    "#".repeat((int) Math.max(1, count * 40 / maxStage))));
+
+            out.println("Animals by type:");
+            animalsByType.forEach((type, count) -> out.printf("  %-12s %12d%n", type, count));
+            if (journalBytes > 0) {
+                out.println("Note: tile statistics cover the full save only; the journal is replayed on load and folded in by 'compact'.");
+            }
+        }
+    }
+
+    // ==============================================================================================
+    // 1. KIỂM TRA (INSPECT)
+    // ==============================================================================================
+
+    /**
+     * Đọc thống kê của file save (định dạng nhị phân hoặc file save cũ .dat).
+     */
+    public static Report inspect(Path saveFile) throws IOException {
+        Report report = new Report();
+        report.saveFileBytes = Files.size(saveFile);
+        report.regionBytes = RegionStore.directorySize(RegionStore.rootFor(saveFile));
+        Path journal = SaveJournal.pathFor(saveFile);
+        report.journalBytes = Files.exists(journal) ? Files.size(journal) : 0;
+
+        if (isLegacySave(saveFile)) {
+            // Java Serialization không đọc theo luồng được: phải dựng lại cả đối tượng
+            report.format = "legacy Java serialization (run 'compact' to convert)";
+            GameSaveState state = SaveManager.loadLegacySave(saveFile.toFile());
+            if (state == null) throw new IOException("Could not read legacy save " + saveFile);
+            report.chunks = SaveCodec.groupByChunk(state.worldTiles).size();
+            for (SavedTileData tile : state.worldTiles) report.addTile(tile);
+            for (SavedAnimal animal : state.animals) report.animalsByType.merge(animal.type, 1L, Long::sum);
+            return report;
+        }
+
+        SaveDataReader in = new SaveDataReader(SaveManager.readAll(saveFile));
+        if (in.readInt() != SaveCodec.MAGIC) throw new SaveFormatException("Not a farm save file: " + saveFile);
+        int version = in.readShort();
+        in.readShort(); // Cờ dự phòng
+        report.format = "binary v" + version;
+        report.sectionBytes.put("HEADER", 8L);
+
+        // Section trạng thái nhỏ được gom lại rồi giải mã như bình thường; bản đồ được duyệt từng chunk
+        SaveDataWriter smallSections = new SaveDataWriter();
+        SaveCodec.EnumDictionary dict = SaveCodec.EnumDictionary.current();
+        String regionDirectory = null;
+        while (in.hasRemaining()) {
+            int start = in.position();
+            int tag = in.readByte();
+            if (tag == SaveCodec.TAG_END) {
+                report.sectionBytes.merge("END", 1L, Long::sum);
+                break;
+            }
+            int length = in.readVarInt();
+            SaveDataReader section = in.slice(length);
+            report.sectionBytes.merge(sectionName(tag), (long) (in.position() - start), Long::sum);
+
+            if (tag == SaveCodec.TAG_ENUMS) {
+                dict = SaveCodec.readEnumTables(section);
+            } else if (tag == SaveCodec.TAG_WORLD) {
+                scanWorldSection(section, dict, report);
+            } else if (tag == SaveCodec.TAG_REGIONS) {
+                regionDirectory = section.readString();
+            } else {
+                byte[] data = new byte[length];
+                section.readBytes(data);
+                smallSections.writeByte(tag).writeVarInt(length).writeBytes(data, 0, length);
+            }
+        }
+
+        GameSaveState state = new GameSaveState();
+        SaveCodec.readSections(new SaveDataReader(smallSections.toByteArray()), state, dict);
+        for (SavedAnimal animal : state.animals) report.animalsByType.merge(animal.type, 1L, Long::sum);
+
+        if (regionDirectory != null) {
+            report.format += " + region files (" + regionDirectory + ")";
+            RegionStore store = RegionStore.open(saveFile.resolveSibling(regionDirectory));
+            store.forEachChunk((chunkX, chunkY, storedBytes, tiles) -> {
+                report.chunks++;
+                for (SavedTileData tile : tiles) report.addTile(tile);
+            });
+        } else {
+            report.format += " (inline world)";
+        }
+        return report;
+    }
+
+    private static void scanWorldSection(SaveDataReader in, SaveCodec.EnumDictionary dict, Report report) {
+        int chunkSize = in.readVarInt();
+        int chunkCount = in.readVarInt();
+        List<SavedTileData> tiles = new ArrayList<>();
+        for (int c = 0; c < chunkCount; c++) {
+            int chunkX = in.readSignedVarInt();
+            int chunkY = in.readSignedVarInt();
+            SaveDataReader chunkData = in.slice(in.readVarInt());
+            tiles.clear();
+            SaveCodec.decodeChunk(chunkData, chunkX, chunkY, chunkSize, dict, tiles);
+            report.chunks++;
+            for (SavedTileData tile : tiles) report.addTile(tile);
+        }
+    }
+
+    private static String sectionName(int tag) {
+        return switch (tag) {
+            case SaveCodec.TAG_ENUMS -> "ENUMS";
+            case SaveCodec.TAG_PLAYER -> "PLAYER";
+            case SaveCodec.TAG_INVENTORY -> "INVENTORY";
+            case SaveCodec.TAG_TIME -> "TIME";
+            case SaveCodec.TAG_WEATHER -> "WEATHER";
+            case SaveCodec.TAG_ANIMALS -> "ANIMALS";
+            case SaveCodec.TAG_SHOP -> "SHOP";
+            case SaveCodec.TAG_QUESTS -> "QUESTS";
+            case SaveCodec.TAG_WORLD -> "WORLD";
+            case SaveCodec.TAG_META -> "META";
+            case SaveCodec.TAG_REGIONS -> "REGIONS";
+            default -> "UNKNOWN(" + tag + ")";
+        };
+    }
+
+    // ==============================================================================================
+    // 2. NÉN (COMPACT)
+    // ==============================================================================================
+
+    /**
+     * Ô không mang thông tin gì cho game: cỏ trống (có thể còn dấu thời gian tưới / bón phân cũ
+     * từ khi còn là đất canh tác), không cây trồng / cây / hàng rào, vật phẩm rơi (nếu có) đã hết.
+     */
+    public static boolean isRedundantTile(SavedTileData tile) {
+        if (SaveCodec.isDefaultTile(tile)) return true;
+        boolean grass = tile.baseType == null || tile.baseType == Tile.GRASS;
+        boolean hasItem = tile.hasGroundItem && tile.groundItemType != null && tile.groundItemAmount > 0;
+        boolean hasCrop = tile.hasCrop && tile.cropType != null;
+        return grass && !hasItem && !hasCrop && !tile.hasTree && !tile.hasFence && !tile.isWatered && !tile.isFertilized;
+    }
+
+    /**
+     * Gộp nhật ký, bỏ các ô thừa và ghi lại file save theo định dạng hiện tại.
+     *
+     * @param outputFile File save kết quả (có thể trùng saveFile để nén tại chỗ)
+     * @return Số ô đã bị bỏ
+     */
+    public static long compact(Path saveFile, Path outputFile) throws IOException {
+        GameSaveState state = isLegacySave(saveFile)
+                ? SaveManager.loadLegacySave(saveFile.toFile())
+                : SaveManager.loadGame(saveFile);
+        if (state == null) throw new IOException("Could not load " + saveFile);
+
+        // Chunk có ô trong nhật ký: ghép ô của nhật ký lên dữ liệu chunk trong region file,
+        // ô trở về mặc định (đánh dấu xóa) ghi đè rồi bị bộ lọc bỏ đi
+        if (state.regionStore != null) {
+            Map<Long, Map<Long, SavedTileData>> touched = new TreeMap<>();
+            for (SavedTileData tile : state.worldTiles) {
+                int chunkX = Math.floorDiv(tile.col, SaveCodec.CHUNK_SIZE);
+                int chunkY = Math.floorDiv(tile.row, SaveCodec.CHUNK_SIZE);
+                Map<Long, SavedTileData> chunk = touched.get(SaveCodec.packKey(chunkX, chunkY));
+                if (chunk == null) {
+                    chunk = new LinkedHashMap<>();
+                    for (SavedTileData base : state.regionStore.readChunk(chunkX, chunkY)) {
+                        chunk.put(SaveCodec.packKey(base.col, base.row), base);
+                    }
+                    touched.put(SaveCodec.packKey(chunkX, chunkY), chunk);
+                }
+                chunk.put(SaveCodec.packKey(tile.col, tile.row), tile);
+            }
+
+            state.worldTiles.clear();
+            state.residentChunks = new long[touched.size()];
+            int i = 0;
+            for (Map.Entry<Long, Map<Long, SavedTileData>> entry : touched.entrySet()) {
+                state.residentChunks[i++] = entry.getKey();
+                state.worldTiles.addAll(entry.getValue().values());
+            }
+        }
+
+        AtomicLong stripped = new AtomicLong(); // Bộ lọc chạy trên các luồng của ChunkCodec
+        Predicate<SavedTileData> keepTile = tile -> {
+            if (!isRedundantTile(tile)) return true;
+            if (!SaveCodec.isDefaultTile(tile)) stripped.incrementAndGet(); // Ô mặc định không nằm trong file
+            return false;
+        };
+
+        state.saveGeneration = Math.max(state.saveGeneration + 1, System.currentTimeMillis());
+        if (!SaveManager.saveGame(state, outputFile, keepTile)) {
+            throw new IOException("Could not write " + outputFile);
+        }
+        // Nhật ký đã được gộp vào file save mới (và không còn khớp thế hệ)
+        Files.deleteIfExists(SaveJournal.pathFor(outputFile));
+        return stripped.get();
+    }
+
+    /**
+     * File save cũ (Java Serialization, mặc định farm_save.dat).
+     */
+    public static boolean isLegacySave(Path saveFile) throws IOException {
+        if (saveFile.getFileName().toString().equals(SaveConfig.LEGACY_SAVE_FILE_NAME)) return true;
+        try (InputStream in = Files.newInputStream(saveFile)) {
+            int high = in.read();
+            int low = in.read();
+            return high >= 0 && low >= 0 && ((high << 8) | low) == JAVA_SERIALIZATION_MAGIC;
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.example.farmSimulation.model;
+
+import com.example.farmSimulation.config.SaveConfig;
+import com.example.farmSimulation.model.GameSaveState.SavedTileData;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Nhật ký ghi trước (write-ahead log) cho việc lưu game tăng dần.
+ * Thay vì ghi lại toàn bộ bản đồ, mỗi lần lưu nhanh chỉ nối thêm một bản ghi nhỏ vào cuối file:
+ * các section trạng thái nhỏ (người chơi, túi đồ, động vật...) và những ô đất đã thay đổi.
+ * Khi tải game: đọc file save đầy đủ (base) rồi áp dụng lần lượt các bản ghi trong nhật ký.
+ *
+ * Cấu trúc file:
+ * [magic "FSJL"][phiên bản (short)][thế hệ của file save base (long)][độ dài + bảng enum]
+ * [bản ghi]...
+ * Mỗi bản ghi: [loại (byte)][độ dài (varint)][dữ liệu][CRC32 của dữ liệu (int)]
+ * Bản ghi bị cắt cụt / sai CRC (game bị tắt đột ngột khi đang ghi) đánh dấu điểm kết thúc:
+ * mọi bản ghi trước đó vẫn được khôi phục.
+ *
+ * Nhật ký chỉ hợp lệ với đúng thế hệ file save mà nó được tạo ra cùng; sau mỗi lần gộp
+ * (ghi file save đầy đủ mới), nhật ký được tạo lại với thế hệ mới.
+ */
+public class SaveJournal {
+    public static final int MAGIC = 0x46534A4C; // "FSJL"
+    private static final int JOURNAL_VERSION = 1;
+
+    // --- Loại bản ghi ---
+    static final int REC_DELTA = 1; // Trạng thái nhỏ + các ô đất đã thay đổi
+
+    private final Path file;
+    private FileChannel channel;
+    private long generation = -1; // Thế hệ của file save base mà nhật ký đang gắn với
+    private long size = 0;
+
+    // Bộ ghi tái sử dụng giữa các lần nối bản ghi (chỉ dùng trên luồng ghi)
+    private final SaveDataWriter payload = new SaveDataWriter();
+    private final SaveDataWriter section = new SaveDataWriter();
+    private final SaveDataWriter record = new SaveDataWriter();
+    private final CRC32 crc = new CRC32();
+
+    public SaveJournal(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Đường dẫn file nhật ký tương ứng với một file save.
+     */
+    public static Path pathFor(Path saveFile) {
+        return saveFile.resolveSibling(saveFile.getFileName() + SaveConfig.JOURNAL_FILE_SUFFIX);
+    }
+
+    // ==============================================================================================
+    // 1. GHI NHẬT KÝ
+    // ==============================================================================================
+
+    /**
+     * Tạo lại nhật ký rỗng gắn với thế hệ file save mới (gọi ngay sau khi ghi file save đầy đủ).
+     */
+    public void reset(long newGeneration) throws IOException {
+        close();
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+
+        SaveDataWriter header = new SaveDataWriter();
+        header.writeInt(MAGIC);
+        header.writeShort(JOURNAL_VERSION);
+        header.writeLong(newGeneration);
+        SaveCodec.writeEnumTables(section);
+        header.writeVarInt((int) section.size());
+        header.writeAll(section);
+        section.reset();
+
+        writeFully(header);
+        generation = newGeneration;
+        size = header.size();
+    }
+
+    /**
+     * Nhật ký đang mở và gắn với đúng thế hệ file save hay không.
+     */
+    public boolean isOpenFor(long saveGeneration) {
+        return channel != null && generation == saveGeneration;
+    }
+
+    /**
+     * Nối một bản ghi thay đổi vào cuối nhật ký.
+     *
+     * @param delta Trạng thái nhỏ hiện tại + danh sách ô đã thay đổi (ô mặc định = ô bị xóa)
+     * @return Số byte đã ghi
+     */
+    public long append(GameSaveState delta) throws IOException {
+        if (channel == null) throw new IOException("Journal is not open");
+
+        SaveCodec.encodeStateSections(delta, payload, section);
+        payload.writeByte(SaveCodec.TAG_END);
+        payload.writeVarInt(delta.worldTiles.size());
+        for (SavedTileData tile : delta.worldTiles) {
+            payload.writeSignedVarInt(tile.col);
+            payload.writeSignedVarInt(tile.row);
+            SaveCodec.writeTile(tile, payload);
+        }
+
+        byte[] data = payload.toByteArray();
+        payload.reset();
+        crc.reset();
+        crc.update(data, 0, data.length);
+
+        record.writeByte(REC_DELTA);
+        record.writeVarInt(data.length);
+        record.writeBytes(data, 0, data.length);
+        record.writeInt((int) crc.getValue());
+        long written = record.size();
+        writeFully(record);
+        record.reset();
+
+        if (SaveConfig.JOURNAL_FSYNC) channel.force(false);
+        size += written;
+        return written;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public void close() {
+        if (channel == null) return;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        channel = null;
+        generation = -1;
+    }
+
+    private void writeFully(SaveDataWriter data) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(data.toByteArray());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    // ==============================================================================================
+    // 2. PHÁT LẠI NHẬT KÝ KHI TẢI GAME
+    // ==============================================================================================
+
+    /**
+     * Áp dụng nhật ký lên trạng thái đã đọc từ file save base.
+     * Nhật ký của thế hệ khác (cũ hơn) bị bỏ qua.
+     * Nếu bản đồ nằm trong region file (base.regionStore), ô trở về mặc định được giữ lại trong worldTiles
+     * để ghi đè lên dữ liệu cũ của chunk khi nạp vào bản đồ.
+     *
+     * @return Số bản ghi đã áp dụng
+     */
+    public static int replay(Path journalFile, GameSaveState base) {
+        if (!Files.exists(journalFile)) return 0;
+
+        SaveDataReader in;
+        SaveCodec.EnumDictionary dict;
+        try {
+            in = new SaveDataReader(SaveManager.readAll(journalFile));
+            if (in.readInt() != MAGIC || in.readShort() != JOURNAL_VERSION) {
+                System.err.println("[SaveJournal] Unknown journal format, ignoring " + journalFile);
+                return 0;
+            }
+            if (in.readLong() != base.saveGeneration) {
+                return 0; // Nhật ký của file save cũ hơn (đã được gộp)
+            }
+            dict = SaveCodec.readEnumTables(in.slice(in.readVarInt()));
+        } catch (IOException | SaveFormatException e) {
+            e.printStackTrace();
+            return 0;
+        }
+
+        // Dựng bảng tra ô theo tọa độ để áp dụng thay đổi
+        Map<Long, SavedTileData> tiles = new LinkedHashMap<>();
+        for (SavedTileData tile : base.worldTiles) {
+            tiles.put(SaveCodec.packKey(tile.col, tile.row), tile);
+        }
+
+        int applied = 0;
+        CRC32 crc = new CRC32();
+        while (in.hasRemaining()) {
+            try {
+                int type = in.readByte();
+                int length = in.readVarInt();
+                if (length > in.remaining()) throw new SaveFormatException("Truncated journal record");
+                byte[] data = new byte[length];
+                in.readBytes(data);
+                int storedCrc = in.readInt();
+                crc.reset();
+                crc.update(data, 0, data.length);
+                if ((int) crc.getValue() != storedCrc) {
+                    System.err.println("[SaveJournal] Corrupt record #" + applied + ", stopping replay.");
+                    break;
+                }
+                if (type == REC_DELTA) {
+                    applyDelta(new SaveDataReader(data), base, tiles, dict);
+                }
+                applied++;
+            } catch (SaveFormatException e) {
+                // Bản ghi cuối bị cắt cụt: dừng tại bản ghi hoàn chỉnh gần nhất
+                System.err.println("[SaveJournal] Truncated record after #" + applied + ", stopping replay.");
+                break;
+            }
+        }
+
+        base.worldTiles.clear();
+        base.worldTiles.addAll(tiles.values());
+        if (applied > 0) {
+            System.out.println("[SaveJournal] Replayed " + applied + " journal records.");
+        }
+        return applied;
+    }
+
+    private static void applyDelta(SaveDataReader in, GameSaveState state, Map<Long, SavedTileData> tiles, SaveCodec.EnumDictionary dict) {
+        SaveCodec.readSections(in, state, dict);
+        int count = in.readVarInt();
+        for (int i = 0; i < count; i++) {
+            int col = in.readSignedVarInt();
+            int row = in.readSignedVarInt();
+            SavedTileData tile = SaveCodec.readTile(in, dict);
+            tile.col = col;
+            tile.row = row;
+            long key = SaveCodec.packKey(col, row);
+            if (SaveCodec.isDefaultTile(tile) && state.regionStore == null) {
+                tiles.remove(key); // Ô trở về cỏ trống
+            } else {
+                tiles.put(key, tile);
+            }
+        }
+    }
+}
@@ -1,36 +1,290 @@
 package com.example.farmSimulation.model;
 
+import com.example.farmSimulation.config.SaveConfig;
+import com.example.farmSimulation.model.GameSaveState.SavedTileData;
+import com.example.farmSimulation.model.jfr.LoadEvent;
+import com.example.farmSimulation.model.jfr.SaveEvent;
+
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
 
+/**
+ * Đọc / ghi file save.
+ * - File save dùng định dạng nhị phân của SaveCodec, ghi qua FileChannel có bộ đệm.
+ * - Bản đồ nằm trong thư mục region file riêng (RegionStore), được ánh xạ vào bộ nhớ và tải lười theo chunk.
+ * - File save cũ (.dat, Java Serialization) được tự động chuyển sang định dạng mới ở lần tải đầu tiên.
+ * - Khi tải, nhật ký thay đổi (SaveJournal) đi kèm được phát lại lên trên file save.
+ * - Có nhiều khe lưu (SAVE_SLOT_COUNT), mỗi khe một file save; thông tin tóm tắt của các khe nằm trong SaveSlotIndex.
+ */
 public class SaveManager {
-    private static final String SAVE_FILE_NAME = "farm_save.dat";
 
     // Hàm Lưu: Nhận vào GameSaveState và ghi ra file
     public static void saveGame(GameSaveState state) {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(SAVE_FILE_NAME))) {
-            oos.writeObject(state);
-            System.out.println("Game Saved Successfully!");
-        } catch (IOException e) {
+        saveGame(state, Paths.get(SaveConfig.SAVE_FILE_NAME));
+    }
+
+    /**
+     * Ghi trạng thái game ra file chỉ định.
+     * Thứ tự ghi: thư mục region mới -> file save (file tạm rồi đổi tên) -> dọn thư mục region cũ.
+     * File save cũ và thư mục region nó trỏ tới không bao giờ bị hỏng nếu game bị tắt giữa chừng.
+     */
+    public static boolean saveGame(GameSaveState state, Path saveFile) {
+        return saveGame(state, saveFile, null);
+    }
+
+    /**
+     * Như saveGame(state, saveFile) nhưng chỉ ghi các ô thỏa bộ lọc (null = mọi ô), xem SaveInspector.compact.
+     */
+    static boolean saveGame(GameSaveState state, Path saveFile, Predicate<SavedTileData> keepTile) {
+        SaveEvent event = new SaveEvent();
+        event.begin();
+        event.file = saveFile.toString();
+        event.kind = "full";
+        long start = System.nanoTime();
+        Path tempFile = saveFile.resolveSibling(saveFile.getFileName() + ".tmp");
+        try {
+            // 1. Bản đồ: ghi ra thư mục region của thế hệ này
+            Path regionDirectory = RegionStore.directoryFor(saveFile, state.saveGeneration);
+            int chunkCount = RegionStore.writeWorld(state, regionDirectory, ChunkCodec.shared(), keepTile);
+            String regionName = saveFile.toAbsolutePath().getParent()
+                    .relativize(regionDirectory.toAbsolutePath()).toString().replace(File.separatorChar, '/');
+
+            // 2. File save: trạng thái nhỏ + tên thư mục region
+            try (FileChannel channel = FileChannel.open(tempFile,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                SaveDataWriter writer = new SaveDataWriter(channel, SaveConfig.SAVE_WRITE_BUFFER_SIZE);
+                SaveCodec.encodeWithRegions(state, regionName, writer);
+                writer.flush();
+            }
+            moveReplacing(tempFile, saveFile);
+            SaveSlotIndex.recordSave(saveFile, state, chunkCount);
+
+            // 3. Thư mục region của các lần lưu trước không còn được tham chiếu
+            RegionStore.deleteStale(saveFile, regionDirectory);
+
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+            long saveBytes = Files.size(saveFile);
+            long regionBytes = RegionStore.directorySize(regionDirectory);
+            System.out.println("Game Saved Successfully! (" + saveBytes + " bytes + "
+                    + regionBytes + " bytes in " + chunkCount + " chunks, "
+                    + elapsedMs + " ms)");
+            event.bytes = saveBytes + regionBytes;
+            event.chunks = chunkCount;
+            event.success = true;
+            return true;
+        } catch (IOException | UncheckedIOException e) {
             e.printStackTrace();
             System.err.println("Failed to save game.");
+            return false;
+        } finally {
+            event.commit();
         }
     }
 
     // Hàm Tải: Đọc file và trả về GameSaveState
     public static GameSaveState loadGame() {
-        File file = new File(SAVE_FILE_NAME);
-        if (!file.exists()) return null; // Chưa có file save
+        return loadGame(1);
+    }
 
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(file))) {
-            return (GameSaveState) ois.readObject();
-        } catch (IOException | ClassNotFoundException e) {
+    /**
+     * Đọc trạng thái game của một khe lưu. Khe 1 tự chuyển đổi file save cũ (.dat) nếu chưa có file save mới.
+     * Có thể gọi trên luồng nền: chỉ đọc file, không chạm vào thế giới đang sống.
+     */
+    public static GameSaveState loadGame(int slot) {
+        Path saveFile = slotPath(slot);
+        if (slot == 1 && !Files.exists(saveFile)) {
+            // Chưa có file save mới: thử chuyển đổi file save cũ (nếu có)
+            return migrateLegacySave();
+        }
+        return loadGame(saveFile);
+    }
+
+    /**
+     * Đọc trạng thái game từ file chỉ định (định dạng nhị phân).
+     *
+     * @return Trạng thái game, hoặc null nếu file không tồn tại / hỏng
+     */
+    public static GameSaveState loadGame(Path saveFile) {
+        if (!Files.exists(saveFile)) return null;
+
+        LoadEvent event = new LoadEvent();
+        event.begin();
+        event.file = saveFile.toString();
+        long start = System.nanoTime();
+        try {
+            ByteBuffer data = readAll(saveFile);
+            event.bytes = data.remaining();
+            GameSaveState state = SaveCodec.decode(new SaveDataReader(data));
+            if (state.regionDirectory != null) {
+                // Chỉ mở thư mục region, các chunk được giải mã khi cần
+                RegionStore store = RegionStore.open(saveFile.resolveSibling(state.regionDirectory));
+                if (store.isChunkLayoutCompatible()) {
+                    state.regionStore = store;
+                } else {
+                    // Region file ghi với cạnh chunk khác cấu hình hiện tại: đọc hết một lần
+                    store.readAllTiles(state.worldTiles);
+                }
+            }
+            // Áp dụng các thay đổi đã ghi vào nhật ký sau lần lưu đầy đủ cuối cùng
+            event.journalRecords = SaveJournal.replay(SaveJournal.pathFor(saveFile), state);
+            event.tilesDecoded = state.worldTiles.size();
+            event.lazyWorld = state.regionStore != null;
+            event.success = true;
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+            System.out.println("Game Loaded (" + state.worldTiles.size() + " tiles decoded"
+                    + (state.regionStore != null ? ", world loaded on demand from " + state.regionDirectory : "")
+                    + ", " + elapsedMs + " ms)");
+            return state;
+        } catch (IOException | SaveFormatException e) {
             e.printStackTrace();
+            System.err.println("Failed to load save file: " + saveFile);
             return null;
+        } finally {
+            event.commit();
         }
     }
 
     // Kiểm tra xem có file save không (để hiện nút Continue)
     public static boolean hasSaveFile() {
-        return new File(SAVE_FILE_NAME).exists();
+        for (int slot = 1; slot <= SaveConfig.SAVE_SLOT_COUNT; slot++) {
+            if (hasSaveFile(slot)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Khe lưu có file save hay không (khe 1 tính cả file save cũ .dat chưa chuyển đổi).
+     */
+    public static boolean hasSaveFile(int slot) {
+        return Files.exists(slotPath(slot)) || (slot == 1 && new File(SaveConfig.LEGACY_SAVE_FILE_NAME).exists());
+    }
+
+    // ==============================================================================================
+    // KHE LƯU (SAVE SLOTS)
+    // ==============================================================================================
+
+    /**
+     * Đường dẫn file save của khe (bắt đầu từ 1). Khe 1 là file save mặc định để file save sẵn có vẫn được nhận.
+     */
+    public static Path slotPath(int slot) {
+        return Paths.get(slot == 1 ? SaveConfig.SAVE_FILE_NAME : String.format(SaveConfig.SAVE_SLOT_FILE_PATTERN, slot));
+    }
+
+    /**
+     * Số khe của file save theo tên file, hoặc -1 nếu không phải file của khe nào.
+     */
+    public static int slotOf(Path saveFile) {
+        String fileName = saveFile.getFileName().toString();
+        for (int slot = 1; slot <= SaveConfig.SAVE_SLOT_COUNT; slot++) {
+            if (slotPath(slot).getFileName().toString().equals(fileName)) return slot;
+        }
+        return -1;
+    }
+
+    /**
+     * Liệt kê thông tin các khe lưu chỉ từ file chỉ mục (không giải mã file save hay dữ liệu thế giới),
+     * đủ nhanh để gọi trên FX thread khi dựng menu.
+     *
+     * @return SAVE_SLOT_COUNT phần tử theo thứ tự khe
+     */
+    public static List<SaveSlotIndex.SlotInfo> listSlots() {
+        Map<Integer, SaveSlotIndex.SlotInfo> entries = SaveSlotIndex.read(SaveSlotIndex.pathFor(slotPath(1)));
+        List<SaveSlotIndex.SlotInfo> slots = new ArrayList<>(SaveConfig.SAVE_SLOT_COUNT);
+        for (int slot = 1; slot <= SaveConfig.SAVE_SLOT_COUNT; slot++) {
+            SaveSlotIndex.SlotInfo info = entries.get(slot);
+            if (info == null) info = new SaveSlotIndex.SlotInfo(slot);
+            info.hasSave = hasSaveFile(slot);
+            slots.add(info);
+        }
+        return slots;
+    }
+
+    // ==============================================================================================
+    // CHUYỂN ĐỔI FILE SAVE CŨ
+    // ==============================================================================================
+
+    /**
+     * Đọc file save cũ (Java Serialization), ghi lại theo định dạng mới và đổi tên file cũ thành .bak.
+     * Nếu ghi định dạng mới thất bại, file cũ được giữ nguyên để lần sau thử lại.
+     */
+    private static GameSaveState migrateLegacySave() {
+        File legacyFile = new File(SaveConfig.LEGACY_SAVE_FILE_NAME);
+        if (!legacyFile.exists()) return null; // Chưa có file save
+
+        GameSaveState state = loadLegacySave(legacyFile);
+        if (state == null) return null;
+
+        System.out.println("Migrating legacy save " + legacyFile.getName() + " to " + SaveConfig.SAVE_FILE_NAME);
+        if (saveGame(state, Paths.get(SaveConfig.SAVE_FILE_NAME))) {
+            try {
+                Path legacyPath = legacyFile.toPath();
+                Files.move(legacyPath, legacyPath.resolveSibling(legacyFile.getName() + SaveConfig.LEGACY_BACKUP_SUFFIX),
+                        StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        return state;
+    }
+
+    /**
+     * Đọc file save theo định dạng cũ (ObjectInputStream).
+     */
+    public static GameSaveState loadLegacySave(File file) {
+        try (ObjectInputStream ois = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            return (GameSaveState) ois.readObject();
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    // ==============================================================================================
+    // HÀM HỖ TRỢ
+    // ==============================================================================================
+
+    /**
+     * Đọc toàn bộ file vào một ByteBuffer qua FileChannel.
+     */
+    static ByteBuffer readAll(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) throw new IOException("Save file too large: " + size);
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) break;
+            }
+            buffer.flip();
+            return buffer;
+        }
+    }
+
+    /**
+     * Xóa file save cùng nhật ký và thư mục region đi kèm.
+     */
+    public static void deleteSaveFiles(Path saveFile) throws IOException {
+        Files.deleteIfExists(saveFile);
+        SaveSlotIndex.remove(saveFile);
+        Files.deleteIfExists(SaveJournal.pathFor(saveFile));
+        RegionStore.deleteRecursively(RegionStore.rootFor(saveFile));
+    }
+
+    static void moveReplacing(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
     }
-}
\ No newline at end of file
+}
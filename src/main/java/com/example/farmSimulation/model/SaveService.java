@@ -0,0 +1,295 @@
+package com.example.farmSimulation.model;
+
+import com.example.farmSimulation.config.SaveConfig;
+import com.example.farmSimulation.model.jfr.SaveEvent;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Lưu game trên luồng nền.
+ * Luồng giao diện chỉ chụp lại ảnh chụp (snapshot) GameSaveState - bản sao giá trị, không dính
+ * tới đối tượng đang sống của thế giới - rồi giao cho luồng ghi. Việc mã hóa và ghi file
+ * (file tạm rồi đổi tên) diễn ra hoàn toàn trên luồng nền nên không gây giật khung hình.
+ *
+ * Có 2 kiểu lưu, cùng chạy tuần tự trên một luồng ghi duy nhất (giữ đúng thứ tự gửi):
+ * - Lưu đầy đủ (gộp / compaction): ghi toàn bộ trạng thái ra file save với thế hệ mới,
+ *   sau đó tạo lại nhật ký rỗng cho thế hệ đó.
+ * - Lưu tăng dần: chỉ nối các thay đổi vào nhật ký (SaveJournal) - chi phí không phụ thuộc kích thước nông trại.
+ *
+ * Các yêu cầu lưu đầy đủ liên tiếp (chưa có gì xen giữa) được gộp lại: chỉ ảnh chụp mới nhất được ghi,
+ * mọi yêu cầu bị gộp đều nhận chung kết quả của lượt ghi đó.
+ *
+ * Mục của khe lưu trong SaveSlotIndex được cập nhật sau mỗi lần lưu đầy đủ (SaveManager). Sau khi ghi nhật ký,
+ * dịch vụ này cập nhật nó thưa hơn (SAVE_INDEX_PROGRESS_INTERVAL_SECONDS) và một lần cuối khi dừng.
+ *
+ * Ảnh chụp có thể tham chiếu region store mà bản đồ đang tải lười (snapshot.regionStore, đã được pin khi chụp):
+ * dịch vụ nhận quyền sở hữu lượt pin đó và unpin khi ảnh chụp đã được ghi hoặc bị thay thế.
+ */
+public class SaveService {
+    private final Path saveFile;
+    private final Executor callbackExecutor; // Nơi chạy callback hoàn thành (FX thread)
+    private final ExecutorService writer;
+    private final SaveJournal journal;
+    private final Thread shutdownHook;
+
+    // Lượt lưu đầy đủ cuối hàng đợi, còn có thể gộp thêm. Truy cập trong khối synchronized
+    private SaveJob coalescableJob;
+    private int queuedFullSaves = 0;
+    private boolean shutDown = false; // Đã gọi shutdown(): không nhận yêu cầu mới
+
+    // --- Trạng thái của luồng ghi ---
+    private long generation = 0;                        // Thế hệ file save hiện tại (chỉ luồng ghi sửa)
+    private volatile boolean journalReady = false;      // Đã có file save base + nhật ký hợp lệ trong phiên này
+    private volatile long journalBytes = 0;
+    private GameSaveState unindexedProgress;             // Bản ghi nhật ký mới nhất chưa được ghi vào chỉ mục (chỉ luồng ghi)
+    private long lastIndexUpdateNanos = 0;               // Lần cập nhật chỉ mục sau nhật ký gần nhất (chỉ luồng ghi)
+
+    private volatile GameMetrics metrics; // Ghi nhận thời gian mỗi lần lưu (null nếu không đo)
+
+    private static final class SaveJob {
+        GameSaveState snapshot;
+        boolean started = false;
+        final CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+        SaveJob(GameSaveState snapshot) {
+            this.snapshot = snapshot;
+        }
+    }
+
+    /**
+     * @param callbackExecutor Executor chạy callback hoàn thành (vd: Platform::runLater)
+     */
+    public SaveService(Executor callbackExecutor) {
+        this(Paths.get(SaveConfig.SAVE_FILE_NAME), callbackExecutor);
+    }
+
+    public SaveService(Path saveFile, Executor callbackExecutor) {
+        this.saveFile = saveFile;
+        this.callbackExecutor = callbackExecutor;
+        this.journal = new SaveJournal(SaveJournal.pathFor(saveFile));
+        this.writer = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, SaveConfig.SAVE_THREAD_NAME);
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // Khi thoát game (kể cả System.exit), chờ lượt ghi đang dở hoàn tất để không mất dữ liệu.
+        // Hook được gỡ trong shutdown() để dịch vụ của phiên chơi đã kết thúc không bị giữ lại tới khi thoát
+        this.shutdownHook = new Thread(this::awaitWriter, SaveConfig.SAVE_THREAD_NAME + "-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    // ==============================================================================================
+    // API
+    // ==============================================================================================
+
+    /**
+     * Gửi ảnh chụp đầy đủ để ghi trên luồng nền (đồng thời gộp nhật ký).
+     *
+     * @param snapshot   Ảnh chụp trạng thái game (không được sửa đổi sau khi gửi)
+     * @param onComplete Callback nhận kết quả (true nếu ghi thành công), chạy trên callbackExecutor; có thể null
+     */
+    public CompletableFuture<Boolean> saveAsync(GameSaveState snapshot, Consumer<Boolean> onComplete) {
+        CompletableFuture<Boolean> result;
+        synchronized (this) {
+            if (shutDown) {
+                releaseRegions(snapshot);
+                result = CompletableFuture.completedFuture(false);
+            } else if (coalescableJob != null && !coalescableJob.started) {
+                // Luồng ghi chưa kịp lấy lượt trước: thay bằng ảnh chụp mới hơn
+                releaseRegions(coalescableJob.snapshot);
+                coalescableJob.snapshot = snapshot;
+                result = coalescableJob.result;
+            } else {
+                SaveJob job = new SaveJob(snapshot);
+                coalescableJob = job;
+                queuedFullSaves++;
+                result = job.result;
+                writer.execute(() -> writeFullSave(job));
+            }
+        }
+
+        if (onComplete != null) {
+            result.thenAcceptAsync(onComplete, callbackExecutor);
+        }
+        return result;
+    }
+
+    /**
+     * Gửi các thay đổi để nối vào nhật ký trên luồng nền.
+     * Chỉ có hiệu lực khi canAppend() trả về true.
+     *
+     * @param delta Trạng thái nhỏ hiện tại + các ô đã thay đổi (không được sửa đổi sau khi gửi)
+     * @return Hoàn thành với true nếu bản ghi đã được ghi, false nếu bị bỏ (nhật ký bị tắt trước khi tới lượt,
+     *         lỗi ghi hoặc dịch vụ đã dừng) - khi đó người gọi cần đánh dấu lại các ô của delta
+     */
+    public CompletableFuture<Boolean> appendAsync(GameSaveState delta) {
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        synchronized (this) {
+            if (shutDown) {
+                result.complete(false);
+                return result;
+            }
+            coalescableJob = null; // Giữ đúng thứ tự: lượt lưu đầy đủ sau đây phải chạy sau bản ghi này
+            writer.execute(() -> result.complete(writeJournalRecord(delta)));
+        }
+        return result;
+    }
+
+    public void setMetrics(GameMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Có lượt lưu đầy đủ đang chạy hoặc đang chờ hay không.
+     */
+    public synchronized boolean isSaving() {
+        return queuedFullSaves > 0;
+    }
+
+    /**
+     * Có thể lưu tăng dần vào nhật ký hay không (đã có file save base hợp lệ trong phiên này).
+     */
+    public boolean canAppend() {
+        return journalReady;
+    }
+
+    /**
+     * Nhật ký đã đủ lớn để nên gộp vào file save đầy đủ.
+     */
+    public boolean isCompactionDue() {
+        return journalBytes > SaveConfig.JOURNAL_COMPACT_THRESHOLD_BYTES;
+    }
+
+    /**
+     * Ngừng nhận yêu cầu mới và chờ các lượt ghi đã gửi (tối đa SAVE_SHUTDOWN_TIMEOUT_MS).
+     * Gọi khi kết thúc phiên chơi; gọi nhiều lần không sao.
+     */
+    public void shutdown() {
+        synchronized (this) {
+            if (shutDown) return;
+            shutDown = true;
+        }
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            // JVM đang tắt: hook đã hoặc sẽ tự chạy
+        }
+        awaitWriter();
+    }
+
+    private void awaitWriter() {
+        try {
+            writer.execute(this::flushProgress); // Chạy sau mọi lượt ghi đã gửi
+        } catch (RejectedExecutionException e) {
+            // Đã dừng (hook và shutdown() cùng chạy)
+        }
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(SaveConfig.SAVE_SHUTDOWN_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                System.err.println("[SaveService] Timed out waiting for the save writer to finish.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        journal.close();
+    }
+
+    // ==============================================================================================
+    // LUỒNG GHI
+    // ==============================================================================================
+
+    private void writeFullSave(SaveJob job) {
+        GameSaveState snapshot;
+        synchronized (this) {
+            job.started = true;
+            snapshot = job.snapshot;
+        }
+
+        boolean success = false;
+        long start = System.nanoTime();
+        try {
+            // Thế hệ mới luôn tăng và khác mọi lần chạy trước, để nhật ký cũ không bao giờ bị áp nhầm
+            generation = Math.max(generation + 1, System.currentTimeMillis());
+            snapshot.saveGeneration = generation;
+            success = SaveManager.saveGame(snapshot, saveFile);
+            if (success) { // SaveManager đã cập nhật chỉ mục
+                unindexedProgress = null;
+                lastIndexUpdateNanos = System.nanoTime();
+            }
+            journalReady = false;
+            if (success) {
+                journal.reset(generation);
+                journalBytes = journal.size();
+                journalReady = true;
+            }
+        } catch (IOException | RuntimeException e) {
+            // Nếu file save đã ghi xong mà không tạo được nhật ký: vẫn coi là lưu thành công,
+            // chỉ tắt lưu tăng dần cho tới lần lưu đầy đủ tiếp theo
+            e.printStackTrace();
+            journal.close();
+            journalReady = false;
+        } finally {
+            releaseRegions(snapshot);
+        }
+        GameMetrics metrics = this.metrics;
+        if (metrics != null) metrics.recordSave(false, System.nanoTime() - start, success);
+
+        synchronized (this) {
+            queuedFullSaves--;
+            if (coalescableJob == job) coalescableJob = null;
+        }
+        job.result.complete(success);
+    }
+
+    private void flushProgress() {
+        if (unindexedProgress == null) return;
+        SaveSlotIndex.recordProgress(saveFile, unindexedProgress);
+        unindexedProgress = null;
+        lastIndexUpdateNanos = System.nanoTime();
+    }
+
+    private static void releaseRegions(GameSaveState snapshot) {
+        if (snapshot.regionStore != null) snapshot.regionStore.unpin();
+    }
+
+    private boolean writeJournalRecord(GameSaveState delta) {
+        if (!journalReady || !journal.isOpenFor(generation)) return false;
+        SaveEvent event = new SaveEvent();
+        event.begin();
+        event.file = saveFile.toString();
+        event.kind = "journal";
+        long start = System.nanoTime();
+        try {
+            long before = journalBytes;
+            journal.append(delta);
+            journalBytes = journal.size();
+            event.bytes = journalBytes - before;
+            event.success = true;
+            // Menu chính thấy ngày / tiền mới nhất mà không cần lưu đầy đủ; không ghi lại chỉ mục ở mọi bản ghi
+            unindexedProgress = delta;
+            if (System.nanoTime() - lastIndexUpdateNanos >= SaveConfig.SAVE_INDEX_PROGRESS_INTERVAL_SECONDS * 1_000_000_000L) {
+                flushProgress();
+            }
+        } catch (IOException | RuntimeException e) {
+            // Bản ghi có thể đã bị ghi dở: ngừng nối thêm, lần lưu đầy đủ kế tiếp sẽ tạo lại nhật ký
+            e.printStackTrace();
+            journal.close();
+            journalReady = false;
+        } finally {
+            event.commit();
+            GameMetrics metrics = this.metrics;
+            if (metrics != null) metrics.recordSave(true, System.nanoTime() - start, event.success);
+        }
+        return event.success;
+    }
+}
@@ -0,0 +1,264 @@
+package com.example.farmSimulation.model;
+
+import com.example.farmSimulation.config.SaveConfig;
+import com.example.farmSimulation.config.WorldConfig;
+import com.example.farmSimulation.model.GameSaveState.SavedTileData;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * File chỉ mục nhỏ đặt cạnh các file save, chứa thông tin tóm tắt của từng khe lưu
+ * (tên người chơi, ngày, tiền, kích thước nông trại, lần chơi cuối, ảnh thu nhỏ).
+ * Menu chính đọc file này để liệt kê các khe lưu ngay lập tức, không cần giải mã dữ liệu thế giới.
+ *
+ * Chỉ mục được cập nhật sau mỗi lần lưu đầy đủ (kèm ảnh thu nhỏ mới) và mỗi bản ghi nhật ký (chỉ phần tóm tắt).
+ * File được ghi lại toàn bộ (file tạm rồi đổi tên) nên luồng giao diện luôn đọc được một phiên bản hoàn chỉnh.
+ *
+ * Định dạng: MAGIC (int) | VERSION (varint) | số mục (varint) | mỗi mục: độ dài (varint) + nội dung.
+ * Tiền tố độ dài cho phép phiên bản sau thêm trường vào cuối mục mà bản cũ vẫn đọc được.
+ */
+public final class SaveSlotIndex {
+    public static final int MAGIC = 0x46534958; // "FSIX"
+    private static final int VERSION = 1;
+
+    // --- Loại điểm ảnh trong ảnh thu nhỏ (chỉ số vào SaveConfig.SAVE_THUMBNAIL_COLORS) ---
+    public static final byte PIXEL_GRASS = 0;
+    public static final byte PIXEL_SOIL = 1;
+    public static final byte PIXEL_SOIL_WET = 2;
+    public static final byte PIXEL_WATER = 3;
+    public static final byte PIXEL_TREE = 4;
+    public static final byte PIXEL_FENCE = 5;
+    public static final byte PIXEL_CROP = 6;
+    public static final byte PIXEL_PLAYER = 7;
+
+    // Mọi lượt đọc-sửa-ghi chỉ mục đi qua khóa này (nhiều SaveService có thể cùng ghi vào một thư mục)
+    private static final Object LOCK = new Object();
+
+    private SaveSlotIndex() {}
+
+    /**
+     * Thông tin tóm tắt của một khe lưu.
+     */
+    public static class SlotInfo {
+        public final int slot;
+        public boolean hasSave;          // File save của khe có tồn tại hay không
+        public String playerName;
+        public int day;
+        public double money;
+        public int farmChunks;           // Số chunk bản đồ có dữ liệu (kích thước nông trại)
+        public long lastPlayedMillis;    // 0 nếu chưa có thông tin (file save tạo trước khi có chỉ mục)
+        public int thumbnailSize;        // Cạnh ảnh thu nhỏ (số ô), 0 nếu không có
+        public byte[] thumbnail;         // thumbnailSize x thumbnailSize loại điểm ảnh (PIXEL_*), theo hàng
+
+        public SlotInfo(int slot) {
+            this.slot = slot;
+        }
+
+        /**
+         * Khe có file save nhưng chỉ mục chưa có thông tin về nó.
+         */
+        public boolean isDetailsMissing() {
+            return hasSave && lastPlayedMillis == 0;
+        }
+    }
+
+    // ==============================================================================================
+    // ĐỌC
+    // ==============================================================================================
+
+    /**
+     * Đường dẫn file chỉ mục của thư mục chứa file save.
+     */
+    public static Path pathFor(Path saveFile) {
+        return saveFile.resolveSibling(SaveConfig.SAVE_INDEX_FILE_NAME);
+    }
+
+    /**
+     * Đọc toàn bộ chỉ mục. File không tồn tại hoặc hỏng được coi như chỉ mục rỗng (chỉ mất phần hiển thị, không mất save).
+     *
+     * @return Các mục theo số khe
+     */
+    public static Map<Integer, SlotInfo> read(Path indexFile) {
+        Map<Integer, SlotInfo> entries = new TreeMap<>();
+        if (!Files.exists(indexFile)) return entries;
+        try {
+            SaveDataReader in = new SaveDataReader(SaveManager.readAll(indexFile));
+            if (in.readInt() != MAGIC) throw new SaveFormatException("Not a save slot index");
+            int version = in.readVarInt();
+            if (version > VERSION) throw new SaveFormatException("Save slot index version " + version + " is newer than supported version " + VERSION);
+
+            int count = in.readVarInt();
+            for (int i = 0; i < count; i++) {
+                SlotInfo info = readEntry(in.slice(in.readVarInt()));
+                entries.put(info.slot, info);
+            }
+        } catch (IOException | SaveFormatException e) {
+            System.err.println("[SaveSlotIndex] Ignoring unreadable index " + indexFile + ": " + e.getMessage());
+            entries.clear();
+        }
+        return entries;
+    }
+
+    private static SlotInfo readEntry(SaveDataReader in) {
+        SlotInfo info = new SlotInfo(in.readVarInt());
+        info.playerName = in.readString();
+        info.day = in.readVarInt();
+        info.money = in.readDouble();
+        info.farmChunks = in.readVarInt();
+        info.lastPlayedMillis = in.readLong();
+        info.thumbnailSize = in.readVarInt();
+        if (info.thumbnailSize > 0) {
+            info.thumbnail = new byte[info.thumbnailSize * info.thumbnailSize];
+            in.readBytes(info.thumbnail);
+        }
+        return info;
+    }
+
+    // ==============================================================================================
+    // CẬP NHẬT
+    // ==============================================================================================
+
+    /**
+     * Cập nhật mục của khe sau một lần lưu đầy đủ: thông tin tóm tắt, kích thước nông trại và ảnh thu nhỏ mới.
+     * Không làm gì nếu saveFile không phải file của một khe lưu.
+     *
+     * @param chunkCount Số chunk đã ghi vào region file
+     */
+    public static void recordSave(Path saveFile, GameSaveState state, int chunkCount) {
+        update(saveFile, state, chunkCount, true);
+    }
+
+    /**
+     * Cập nhật phần tóm tắt của khe sau khi ghi nhật ký (giữ nguyên kích thước nông trại và ảnh thu nhỏ của lần lưu đầy đủ trước).
+     */
+    public static void recordProgress(Path saveFile, GameSaveState delta) {
+        update(saveFile, delta, -1, false);
+    }
+
+    /**
+     * Xóa mục của khe (khi file save bị xóa). File chỉ mục rỗng bị xóa luôn.
+     */
+    public static void remove(Path saveFile) throws IOException {
+        int slot = SaveManager.slotOf(saveFile);
+        if (slot < 1) return;
+        Path indexFile = pathFor(saveFile);
+        synchronized (LOCK) {
+            Map<Integer, SlotInfo> entries = read(indexFile);
+            if (entries.remove(slot) == null) return;
+            if (entries.isEmpty()) {
+                Files.deleteIfExists(indexFile);
+            } else {
+                write(indexFile, entries);
+            }
+        }
+    }
+
+    private static void update(Path saveFile, GameSaveState state, int chunkCount, boolean refreshThumbnail) {
+        int slot = SaveManager.slotOf(saveFile);
+        if (slot < 1) return;
+        Path indexFile = pathFor(saveFile);
+        try {
+            synchronized (LOCK) {
+                Map<Integer, SlotInfo> entries = read(indexFile);
+                SlotInfo info = entries.computeIfAbsent(slot, SlotInfo::new);
+                info.playerName = state.playerName;
+                info.day = state.currentDay;
+                info.money = state.playerMoney;
+                info.lastPlayedMillis = state.savedAtMillis != 0 ? state.savedAtMillis : System.currentTimeMillis();
+                if (chunkCount >= 0) info.farmChunks = chunkCount;
+                if (refreshThumbnail) {
+                    info.thumbnailSize = SaveConfig.SAVE_THUMBNAIL_SIZE;
+                    info.thumbnail = renderThumbnail(state, SaveConfig.SAVE_THUMBNAIL_SIZE);
+                }
+                write(indexFile, entries);
+            }
+        } catch (IOException | UncheckedIOException e) {
+            // Chỉ mục chỉ phục vụ hiển thị: lỗi ở đây không làm hỏng lần lưu
+            e.printStackTrace();
+            System.err.println("[SaveSlotIndex] Failed to update " + indexFile);
+        }
+    }
+
+    private static void write(Path indexFile, Map<Integer, SlotInfo> entries) throws IOException {
+        SaveDataWriter entryWriter = new SaveDataWriter();
+        Path tempFile = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tempFile,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            SaveDataWriter out = new SaveDataWriter(channel, SaveConfig.SAVE_WRITE_BUFFER_SIZE);
+            out.writeInt(MAGIC);
+            out.writeVarInt(VERSION);
+            out.writeVarInt(entries.size());
+            for (SlotInfo info : entries.values()) {
+                entryWriter.reset();
+                writeEntry(info, entryWriter);
+                out.writeVarInt((int) entryWriter.size());
+                out.writeAll(entryWriter);
+            }
+            out.flush();
+        }
+        SaveManager.moveReplacing(tempFile, indexFile);
+    }
+
+    private static void writeEntry(SlotInfo info, SaveDataWriter out) {
+        out.writeVarInt(info.slot);
+        out.writeString(info.playerName);
+        out.writeVarInt(Math.max(0, info.day));
+        out.writeDouble(info.money);
+        out.writeVarInt(Math.max(0, info.farmChunks));
+        out.writeLong(info.lastPlayedMillis);
+        boolean hasThumbnail = info.thumbnail != null && info.thumbnail.length == info.thumbnailSize * info.thumbnailSize;
+        out.writeVarInt(hasThumbnail ? info.thumbnailSize : 0);
+        if (hasThumbnail) out.writeBytes(info.thumbnail, 0, info.thumbnail.length);
+    }
+
+    // ==============================================================================================
+    // ẢNH THU NHỎ
+    // ==============================================================================================
+
+    /**
+     * Vẽ ảnh thu nhỏ size x size ô quanh người chơi từ các ô trong ảnh chụp (mỗi ô một điểm ảnh).
+     * Ô không có trong ảnh chụp là cỏ mặc định. Chạy trên luồng ghi, không chạm vào bản đồ đang sống.
+     */
+    static byte[] renderThumbnail(GameSaveState state, int size) {
+        byte[] pixels = new byte[size * size]; // Mặc định PIXEL_GRASS = 0
+        int centerCol = (int) Math.floor(state.playerX / WorldConfig.TILE_SIZE);
+        int centerRow = (int) Math.floor(state.playerY / WorldConfig.TILE_SIZE);
+        int minCol = centerCol - size / 2;
+        int minRow = centerRow - size / 2;
+
+        for (SavedTileData tile : state.worldTiles) {
+            int x = tile.col - minCol;
+            int y = tile.row - minRow;
+            if (x < 0 || y < 0 || x >= size || y >= size) continue;
+            pixels[y * size + x] = pixelOf(tile);
+        }
+
+        int playerX = centerCol - minCol;
+        int playerY = centerRow - minRow;
+        if (playerX >= 0 && playerY >= 0 && playerX < size && playerY < size) {
+            pixels[playerY * size + playerX] = PIXEL_PLAYER;
+        }
+        return pixels;
+    }
+
+    private static byte pixelOf(SavedTileData tile) {
+        if (tile.hasFence) return PIXEL_FENCE;
+        if (tile.hasTree || tile.baseType == Tile.TREE) return PIXEL_TREE;
+        if (tile.hasCrop) return PIXEL_CROP;
+        if (tile.baseType == null) return PIXEL_GRASS;
+        switch (tile.baseType) {
+            case SOIL: return PIXEL_SOIL;
+            case SOIL_WET: return PIXEL_SOIL_WET;
+            case WATER: return PIXEL_WATER;
+            case FENCE: return PIXEL_FENCE;
+            default: return PIXEL_GRASS;
+        }
+    }
+}
@@ -6,9 +6,8 @@ import lombok.Getter;
 import lombok.Setter;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
-import java.util.Random;
+import java.util.SplittableRandom;
 
 @Getter
 @Setter
@@ -18,19 +17,28 @@ import java.util.Random;
  */
 public class ShopManager {
     private final Player player;
-    private final Random random;
+    private SplittableRandom random; // Luồng SHOP của WorldRandom
     private List<ShopSlot> currentDailyStock; // Danh sách các vật phẩm có sẵn trong cửa hàng hôm nay
     private QuestManager questManager; // Trình quản lý nhiệm vụ, sẽ được thiết lập từ bên ngoài
 
     public ShopManager(Player player) {
         this.player = player;
-        this.random = new Random();
+        this.random = new SplittableRandom();
         this.currentDailyStock = new ArrayList<>();
 
         // Khởi tạo kho hàng của cửa hàng ngay khi bắt đầu game
         generateDailyStock(true); // Cho phép áp dụng giảm giá cho lần tạo đầu tiên
     }
 
+    /**
+     * Dùng luồng ngẫu nhiên của thế giới và tạo lại kho hàng hôm nay theo luồng đó
+     * (kho hàng tạo trong constructor dùng hạt giống ngẫu nhiên).
+     */
+    public void setRandom(SplittableRandom random) {
+        this.random = random;
+        generateDailyStock(true);
+    }
+
     /**
      * Tạo danh sách vật phẩm ngẫu nhiên cho cửa hàng mỗi ngày.
      * Sử dụng thuật toán xáo trộn bộ bài để đảm bảo mỗi vật phẩm chỉ xuất hiện tối đa một lần trong danh sách.
@@ -48,7 +56,7 @@ public class ShopManager {
         }
 
         // Xáo trộn danh sách vật phẩm để tạo sự ngẫu nhiên và tránh trùng lặp khi chọn
-        Collections.shuffle(allBuyableItems, random);
+        WorldRandom.shuffle(allBuyableItems, random);
 
         // Xác định số lượng vật phẩm sẽ xuất hiện trong cửa hàng, không vượt quá số lượng vật phẩm khả dụng
         int count = Math.min(ShopConfig.DAILY_SHOP_SLOTS, allBuyableItems.size());
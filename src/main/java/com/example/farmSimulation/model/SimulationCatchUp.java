@@ -0,0 +1,120 @@
+package com.example.farmSimulation.model;
+
+import com.example.farmSimulation.config.AnimalConfig;
+import com.example.farmSimulation.config.CropConfig;
+import com.example.farmSimulation.config.TreeConfig;
+
+/**
+ * Bù thời gian chưa được mô phỏng (game đang tắt, hoặc chunk đang nằm trên đĩa) cho ô đất và động vật trong một bước,
+ * thay vì chạy lại từng frame. Mọi sự kiện được tính đúng thời điểm nó xảy ra (đất khô lúc hết SOIL_DRY_TIME_MS,
+ * cây chết lúc hết CROP_DEATH_TIME_MS...) để các bộ đếm phía sau tiếp tục chính xác.
+ *
+ * Chỉ xử lý các quá trình mà logic theo frame không tự bù đúng được; giai đoạn phát triển của cây trồng / cây tự nhiên,
+ * sản phẩm và sinh trưởng của động vật được CropManager, TreeManager, AnimalManager tính lại từ các mốc thời gian
+ * ở lần cập nhật kế tiếp. Thời tiết lúc offline không được mô phỏng (coi như trời không mưa).
+ * Mọi tham số thời gian là mốc System.nanoTime() của phiên hiện tại.
+ */
+public final class SimulationCatchUp {
+
+    private SimulationCatchUp() {}
+
+    /**
+     * Cho ô đất tiến triển từ simulatedTime (thời điểm trạng thái được chụp) tới now.
+     *
+     * @param simulatedTime Thời điểm cây trồng trên ô được mô phỏng tới; 0 nếu không rõ (coi như không có khoảng trống)
+     * @return true nếu trạng thái ô thay đổi
+     */
+    public static boolean advanceTile(TileData data, long simulatedTime, long now) {
+        boolean changed = false;
+
+        // --- 1. Đất ướt tự khô đúng lúc hết thời gian giữ nước ---
+        if (data.isWatered() && data.getLastWateredTime() != 0) {
+            long dryAt = data.getLastWateredTime() + CropConfig.SOIL_DRY_TIME_MS * 1_000_000L;
+            if (now > dryAt) {
+                data.setWatered(false);
+                data.setBaseTileType(Tile.SOIL);
+                data.setDryStartTime(dryAt);
+                changed = true;
+            }
+        }
+
+        // --- 2. Lớp phân bón hết hiệu lực hiển thị ---
+        if (data.isFertilized() && data.getFertilizerStartTime() != 0
+                && now - data.getFertilizerStartTime() > CropConfig.FERTILIZER_EFFECT_DURATION_MS * 1_000_000L) {
+            data.setFertilized(false);
+            changed = true;
+        }
+
+        // --- 3. Cây trồng trên đất khô: ngừng lớn sau thời gian cảnh báo, chết sau thời gian chịu hạn ---
+        CropData crop = data.getCropData();
+        if (crop != null && crop.getGrowthStage() != -1 && !data.isWatered()
+                && data.getBaseTileType() == Tile.SOIL && data.getDryStartTime() != 0) {
+            long growthEnd = data.getDryStartTime() + CropConfig.WATER_WARNING_DELAY_MS * 1_000_000L;
+            long deathAt = growthEnd + CropConfig.CROP_DEATH_TIME_MS * 1_000_000L;
+
+            // Khoảng bị đóng băng chưa được mô phỏng được cộng vào thời điểm gieo (giống CropManager) để tuổi cây không tăng
+            long frozenFrom = Math.max(growthEnd, simulatedTime != 0 ? simulatedTime : now);
+            long frozenTo = Math.min(now, deathAt);
+            if (frozenTo > frozenFrom && crop.getGrowthStage() < crop.getType().getMaxStages() - 1) {
+                crop.setPlantTime(crop.getPlantTime() + (frozenTo - frozenFrom));
+            }
+
+            if (now > deathAt) {
+                data.setBaseTileType(Tile.SOIL);
+                data.setCropData(null);
+                data.setWatered(false);
+                data.setFertilized(false);
+                data.setDryStartTime(deathAt);
+                data.setFertilizerStartTime(0);
+                data.setStatusIndicator(CropStatusIndicator.NONE);
+                changed = true;
+            }
+        }
+
+        // --- 4. Đất khô bỏ hoang mọc cỏ trở lại ---
+        if (data.getBaseTileType() == Tile.SOIL && data.getCropData() == null && !data.isWatered()
+                && data.getDryStartTime() != 0
+                && now - data.getDryStartTime() > CropConfig.SOIL_REVERT_TIME_MS * 1_000_000L) {
+            data.setBaseTileType(Tile.GRASS);
+            data.setDryStartTime(0);
+            changed = true;
+        }
+
+        // --- 5. Gốc cây mọc lại đúng lúc hết thời gian hồi phục ---
+        TreeData tree = data.getTreeData();
+        if (tree != null && data.getBaseTileType() == Tile.TREE && tree.getChopCount() > 0 && tree.getRegrowStartTime() != 0) {
+            long regrowAt = tree.getRegrowStartTime() + TreeConfig.REGROW_TIME_MS * 1_000_000L;
+            if (now >= regrowAt) {
+                tree.setChopCount(0);
+                tree.setGrowthStage(TreeConfig.STUMP_REGROW_TARGET_STAGE);
+                tree.setRegrowStartTime(0);
+                // Cùng quy ước với TreeManager: tuổi cây tính từ lúc mọc lại khớp với giai đoạn STUMP_REGROW_TARGET_STAGE
+                tree.setLastChopTime(regrowAt - TreeConfig.STUMP_REGROW_TARGET_STAGE * TreeConfig.TIME_PER_GROWTH_STAGE_MS * 1_000_000L);
+                changed = true;
+            }
+        }
+
+        return changed;
+    }
+
+    /**
+     * Trừ độ no của động vật cho khoảng thời gian từ lần cập nhật cuối tới now, và đặt thời điểm bắt đầu đói
+     * đúng lúc độ no tụt dưới ngưỡng cảnh báo (AnimalManager chỉ biết thời điểm nó phát hiện ra).
+     */
+    public static void advanceAnimal(Animal animal, long now) {
+        long last = animal.getLastHungerUpdateTime();
+        if (animal.isDead() || last == 0 || now <= last) return;
+
+        double before = animal.getHunger();
+        double seconds = (now - last) / 1_000_000_000.0;
+        animal.setHunger(Math.max(0, before - seconds * AnimalConfig.HUNGER_DECREASE_RATE));
+        animal.setLastHungerUpdateTime(now);
+
+        if (!animal.isHungry()) {
+            animal.setStarvationStartTime(0);
+        } else if (animal.getStarvationStartTime() == 0) {
+            double secondsToThreshold = Math.max(0, (before - AnimalConfig.HUNGER_WARNING_THRESHOLD) / AnimalConfig.HUNGER_DECREASE_RATE);
+            animal.setStarvationStartTime(last + (long) (secondsToThreshold * 1_000_000_000L));
+        }
+    }
+}
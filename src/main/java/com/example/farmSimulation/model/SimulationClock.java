@@ -0,0 +1,66 @@
+package com.example.farmSimulation.model;
+
+import com.example.farmSimulation.config.SaveConfig;
+
+/**
+ * Đồng hồ mô phỏng liên tục qua các phiên chơi.
+ *
+ * Trong game mọi mốc thời gian (tưới nước, gieo hạt, chặt cây, đói...) là giá trị System.nanoTime() của phiên hiện tại,
+ * vốn vô nghĩa sau khi tắt game. Khi lưu, các mốc này được đổi sang "thời gian mô phỏng" (nano giây, không bị reset);
+ * khi tải, đồng hồ được nối tiếp từ thời điểm đã lưu (cộng thời gian offline) rồi đổi ngược lại.
+ * Giá trị 0 luôn giữ nguyên nghĩa "chưa đặt" ở cả hai chiều.
+ * (Các mốc "System.nanoTime()" ở đây được đọc qua GameClock để chạy được với bước thời gian cố định khi phát lại.)
+ */
+public final class SimulationClock {
+    // thời gian mô phỏng = System.nanoTime() - offsetNanos
+    private static volatile long offsetNanos = 0;
+
+    private SimulationClock() {}
+
+    /**
+     * Thời gian mô phỏng hiện tại (nano giây).
+     */
+    public static long now() {
+        return GameClock.nanoTime() - offsetNanos;
+    }
+
+    /**
+     * Đổi mốc System.nanoTime() của phiên này sang thời gian mô phỏng (0 giữ nguyên là 0).
+     */
+    public static long toSimulation(long nanoTime) {
+        return nanoTime == 0 ? 0 : nanoTime - offsetNanos;
+    }
+
+    /**
+     * Đổi thời gian mô phỏng sang mốc System.nanoTime() của phiên này (0 giữ nguyên là 0).
+     * Mốc quá cũ (trước cả gốc của nanoTime) bị kẹp về 1 để các phép kiểm tra "> 0" vẫn coi là đã đặt.
+     */
+    public static long toNanoTime(long simulationTime) {
+        return simulationTime == 0 ? 0 : Math.max(1, simulationTime + offsetNanos);
+    }
+
+    /**
+     * Nối tiếp đồng hồ từ file save: thời gian mô phỏng hiện tại = thời điểm đã lưu + thời gian offline.
+     */
+    public static void resume(long savedSimulationTime, long offlineNanos) {
+        offsetNanos = GameClock.nanoTime() - (savedSimulationTime + offlineNanos);
+    }
+
+    /**
+     * Đặt lại đồng hồ trùng với System.nanoTime() (file save cũ không có thời gian mô phỏng).
+     */
+    public static void reset() {
+        offsetNanos = 0;
+    }
+
+    /**
+     * Thời gian thực đã trôi qua kể từ khi lưu (nano giây), giới hạn trong [0, OFFLINE_CATCH_UP_MAX_SECONDS].
+     * Trả về 0 nếu tắt tính năng bù thời gian hoặc file save không ghi thời điểm lưu.
+     */
+    public static long offlineNanos(long savedAtMillis) {
+        if (!SaveConfig.OFFLINE_CATCH_UP_ENABLED || savedAtMillis <= 0) return 0;
+        long elapsedMs = GameClock.currentTimeMillis() - savedAtMillis;
+        long cappedMs = Math.max(0, Math.min(elapsedMs, SaveConfig.OFFLINE_CATCH_UP_MAX_SECONDS * 1000L));
+        return cappedMs * 1_000_000L;
+    }
+}
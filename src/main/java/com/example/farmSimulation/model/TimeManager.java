@@ -19,6 +19,7 @@ public class TimeManager {
 
     // Biến lưu thời gian cập nhật trước đó tính bằng nanoseconds để tính toán delta time
     private long lastUpdateTimeNanos = 0;
+    private int lastDisplayedMinute = -1; // Phút (tính từ ngày 0) đang hiển thị, chỉ định dạng lại chuỗi khi đổi phút
 
     private final MainGameView mainGameView;
 
@@ -42,7 +43,7 @@ public class TimeManager {
     public void update() {
 
         // Tự động tính toán thời gian chênh lệch (delta time) để đảm bảo tốc độ game độc lập với tốc độ khung hình (FPS)
-        long currentNanos = System.nanoTime();
+        long currentNanos = GameClock.nanoTime();
         if (lastUpdateTimeNanos == 0) {
             lastUpdateTimeNanos = currentNanos;
             return; // Bỏ qua frame đầu tiên do chưa có dữ liệu delta
@@ -107,6 +108,12 @@ public class TimeManager {
             hours12 = 12; // Hiển thị 12 giờ cho cả mốc 0 giờ (nửa đêm) và 12 giờ (trưa)
         }
 
+        int displayedMinute = (this.currentDay * 24 + hours24) * 60 + minutes;
+        if (displayedMinute == lastDisplayedMinute) {
+            return;
+        }
+        lastDisplayedMinute = displayedMinute;
+
         String timeString = String.format("%d:%02d", hours12, minutes); // Định dạng chuỗi: "12:10" hoặc "1:05"
 
         // Cập nhật ngày và giờ lên giao diện người dùng
@@ -1,12 +1,14 @@
 package com.example.farmSimulation.model;
 
+import com.example.farmSimulation.config.SaveConfig;
+import com.example.farmSimulation.config.SchedulerConfig;
 import com.example.farmSimulation.config.TreeConfig;
-import com.example.farmSimulation.config.GameLogicConfig;
 import com.example.farmSimulation.config.WorldConfig;
+import com.example.farmSimulation.model.jfr.TreeGenerationEvent;
 
-import java.util.HashSet;
-import java.util.Random;
-import java.util.Set;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Lớp quản lý hệ thống cây tự nhiên.
@@ -14,20 +16,70 @@ import java.util.Set;
  */
 public class TreeManager {
     private final WorldMap worldMap;
-    private final Random random;
 
-    private final long worldSeed;
-    private long lastUpdateTimeMs = 0;
+    private long worldSeed; // Hạt giống vị trí cây (WorldRandom.worldSeedOf(TREES)), giống nhau ở mọi phiên chơi của cùng thế giới
     private double lastPlayerX = -9999; // Khởi tạo giá trị ảo để đảm bảo cập nhật ngay trong lần đầu tiên
     private double lastPlayerY = -9999;
 
-    private final Set<Long> generatedTiles;
+    // Bán kính (ô) của vùng sinh cây quanh người chơi
+    private static final int GENERATION_RADIUS = 14;
+
+    // --- Lượt phát triển đang chạy (chia thành nhiều đơn vị qua FrameScheduler) ---
+    // Chỉ chụp các cây còn có thể đổi (gốc đang chờ mọc lại, cây chưa trưởng thành), sắp xếp theo tọa độ
+    private long lastGrowthPassStartMs = 0;
+    private boolean growthPassActive = false;
+    private long[] growthKeys = new long[256]; // Dùng lại giữa các lượt, chỉ nới rộng khi cần
+    private int growthSize = 0;
+    private int growthCursor = 0;
+
+    // --- Vùng sinh cây đang chờ (yêu cầu mới nhất thay thế yêu cầu cũ; ô đã xét không bị xét lại) ---
+    private boolean generationPending = false;
+    private int generationCenterCol;
+    private int generationCenterRow;
+    private int generationNextRow;
+
+    private final FrameScheduler.Job growthJob = new FrameScheduler.Job() {
+        @Override
+        public boolean hasWork(long now) {
+            return growthPassActive || now / 1_000_000 - lastGrowthPassStartMs >= SchedulerConfig.TREE_PASS_MIN_INTERVAL_MS;
+        }
+
+        @Override
+        public boolean runUnit(long now) {
+            return runGrowthUnit(now);
+        }
+    };
+
+    private final FrameScheduler.Job generationJob = new FrameScheduler.Job() {
+        @Override
+        public boolean hasWork(long now) {
+            return generationPending;
+        }
+
+        @Override
+        public boolean runUnit(long now) {
+            return runGenerationUnit();
+        }
+    };
+
+    // Các ô đã được xét sinh cây, lưu theo chunk dưới dạng mặt nạ bit (CHUNK_SIZE^2 bit mỗi chunk).
+    // Mặt nạ của chunk bị gỡ khỏi bộ nhớ được cất cùng chunk (xem ChunkResidencyManager) để bộ nhớ không tăng mãi
+    private static final int CHUNK_SIZE = SaveConfig.SAVE_CHUNK_SIZE;
+    public static final int GENERATED_MASK_WORDS = (CHUNK_SIZE * CHUNK_SIZE + 63) / 64;
+    private final Map<Long, long[]> generatedMasks;
 
     public TreeManager(WorldMap worldMap) {
         this.worldMap = worldMap;
-        this.random = new Random();
-        this.worldSeed = random.nextLong();
-        this.generatedTiles = new HashSet<>();
+        this.worldSeed = WorldRandom.newWorldSeed();
+        this.generatedMasks = new HashMap<>();
+    }
+
+    /**
+     * Đặt hạt giống của thế giới (vị trí cây mọc tự nhiên).
+     * Gọi trước khi sinh cây lần đầu để cùng hạt giống cho cùng cách bố trí cây.
+     */
+    public void setWorldSeed(long worldSeed) {
+        this.worldSeed = worldSeed;
     }
 
     // Chuyển đổi tọa độ x, y thành một khóa duy nhất dạng long để lưu trữ và truy xuất nhanh
@@ -90,85 +142,160 @@ public class TreeManager {
         return (hash & Long.MAX_VALUE) / (double) Long.MAX_VALUE;
     }
 
+    /**
+     * Công việc phát triển cây (mọc lại gốc, lớn lên), đăng ký với FrameScheduler.
+     */
+    public FrameScheduler.Job getGrowthJob() {
+        return growthJob;
+    }
+
+    /**
+     * Công việc sinh cây quanh người chơi, đăng ký với FrameScheduler.
+     */
+    public FrameScheduler.Job getGenerationJob() {
+        return generationJob;
+    }
+
+    /**
+     * Chạy đồng bộ cả hai công việc tới khi xong (công cụ đo, benchmark); trong game chúng chạy qua FrameScheduler.
+     */
     public boolean updateTrees(long currentTime, double playerX, double playerY) {
+        requestGenerationAround(playerX, playerY);
+        boolean mapNeedsRedraw = FrameScheduler.runToCompletion(growthJob, currentTime);
+        mapNeedsRedraw |= FrameScheduler.runToCompletion(generationJob, currentTime);
+        return mapNeedsRedraw;
+    }
+
+    // --- PHẦN 1: QUÁ TRÌNH PHÁT TRIỂN CỦA CÂY ---
+
+    /**
+     * Một đơn vị công việc: bắt đầu lượt mới (chụp danh sách cây) hoặc xử lý TREE_TILES_PER_UNIT cây tiếp theo của lượt.
+     */
+    private boolean runGrowthUnit(long currentTime) {
+        if (!growthPassActive) {
+            lastGrowthPassStartMs = currentTime / 1_000_000;
+            growthSize = 0;
+            growthCursor = 0;
+            for (Map.Entry<Long, TileData> entry : worldMap.getTileDataMap().entrySet()) {
+                if (!canGrow(entry.getValue())) continue;
+                if (growthSize == growthKeys.length) growthKeys = Arrays.copyOf(growthKeys, growthSize * 2);
+                growthKeys[growthSize++] = entry.getKey();
+            }
+            Arrays.sort(growthKeys, 0, growthSize);
+            growthPassActive = growthSize > 0;
+            return false;
+        }
+
         boolean mapNeedsRedraw = false;
-        long currentTimeMs = currentTime / 1_000_000;
-
-        // --- PHẦN 1: QUÁ TRÌNH PHÁT TRIỂN CỦA CÂY ---
-        if (currentTimeMs - lastUpdateTimeMs >= GameLogicConfig.CROP_UPDATE_INTERVAL_MS) {
-            lastUpdateTimeMs = currentTimeMs;
-            for (TileData data : worldMap.getAllTileData()) {
-                if (data.getTreeData() != null && data.getBaseTileType() == Tile.TREE) {
-                    TreeData tree = data.getTreeData();
-
-                    // Xử lý việc gốc cây tự mọc lại sau khi bị chặt
-                    if (tree.getChopCount() > 0) {
-                        // Gốc cây sẽ bắt đầu mọc lại sau khoảng thời gian quy định
-                        if (tree.getRegrowStartTime() > 0) {
-                            long timeSinceRegrow = (currentTime - tree.getRegrowStartTime()) / 1_000_000;
-                            if (timeSinceRegrow >= TreeConfig.REGROW_TIME_MS) {
-                                tree.setChopCount(0); // Đặt lại trạng thái không còn là gốc cây
-                                tree.setGrowthStage(TreeConfig.STUMP_REGROW_TARGET_STAGE); // Cây hồi phục ở giai đoạn 2
-                                tree.setRegrowStartTime(0);
-                                // Điều chỉnh thời gian chặt lần cuối để đồng bộ với logic phát triển.
-                                // Việc này đảm bảo khi tính toán lại tuổi của cây, nó sẽ khớp đúng với giai đoạn 2 để tiếp tục lớn lên giai đoạn 3.
-                                long targetTimeNanos = TreeConfig.STUMP_REGROW_TARGET_STAGE * TreeConfig.TIME_PER_GROWTH_STAGE_MS * 1_000_000L;
-                                tree.setLastChopTime(currentTime - targetTimeNanos);
-                                mapNeedsRedraw = true;
-                            }
-                        }
+        int end = Math.min(growthSize, growthCursor + SchedulerConfig.TREE_TILES_PER_UNIT);
+        for (; growthCursor < end; growthCursor++) {
+            long key = growthKeys[growthCursor];
+            // Cây có thể đã bị chặt / đốn hoặc đã bị gỡ khỏi bộ nhớ từ lúc bắt đầu lượt
+            TileData data = worldMap.peekTileData(WorldMap.tileCol(key), WorldMap.tileRow(key));
+            if (data == null || !canGrow(data)) continue;
+            TreeData tree = data.getTreeData();
+            // Xử lý việc gốc cây tự mọc lại sau khi bị chặt
+            if (tree.getChopCount() > 0) {
+                // Gốc cây sẽ bắt đầu mọc lại sau khoảng thời gian quy định
+                if (tree.getRegrowStartTime() > 0) {
+                    long timeSinceRegrow = (currentTime - tree.getRegrowStartTime()) / 1_000_000;
+                    if (timeSinceRegrow >= TreeConfig.REGROW_TIME_MS) {
+                        tree.setChopCount(0); // Đặt lại trạng thái không còn là gốc cây
+                        tree.setGrowthStage(TreeConfig.STUMP_REGROW_TARGET_STAGE); // Cây hồi phục ở giai đoạn 2
+                        tree.setRegrowStartTime(0);
+                        // Điều chỉnh thời gian chặt lần cuối để đồng bộ với logic phát triển.
+                        // Việc này đảm bảo khi tính toán lại tuổi của cây, nó sẽ khớp đúng với giai đoạn 2 để tiếp tục lớn lên giai đoạn 3.
+                        long targetTimeNanos = TreeConfig.STUMP_REGROW_TARGET_STAGE * TreeConfig.TIME_PER_GROWTH_STAGE_MS * 1_000_000L;
+                        tree.setLastChopTime(currentTime - targetTimeNanos);
+                        worldMap.markDirty(key);
+                        mapNeedsRedraw = true;
                     }
-                    // Chỉ cho phép cây phát triển tiếp nếu cây đang ở trạng thái bình thường, chưa bị chặt
-                    else if (tree.getChopCount() == 0) {
-                        // Quy trình phát triển từ hạt giống qua các giai đoạn 0, 1, 2, 3
-                        if (tree.getGrowthStage() >= TreeConfig.TREE_SEED_STAGE && tree.getGrowthStage() < TreeConfig.TREE_MAX_GROWTH_STAGE) {
-                            long timeSincePlant = tree.getLastChopTime() > 0 ?
-                                    (currentTime - tree.getLastChopTime()) / 1_000_000 :
-                                    TreeConfig.TIME_PER_GROWTH_STAGE_MS;
-
-                            int targetStage = (int) (timeSincePlant / TreeConfig.TIME_PER_GROWTH_STAGE_MS);
-                            targetStage = Math.min(targetStage, TreeConfig.TREE_MAX_GROWTH_STAGE);
-
-                            if (targetStage > tree.getGrowthStage()) {
-                                tree.setGrowthStage(targetStage);
-                                mapNeedsRedraw = true;
-                            }
-                        }
+                }
+            }
+            // Chỉ cho phép cây phát triển tiếp nếu cây đang ở trạng thái bình thường, chưa bị chặt
+            else if (tree.getChopCount() == 0) {
+                // Quy trình phát triển từ hạt giống qua các giai đoạn 0, 1, 2, 3
+                if (tree.getGrowthStage() >= TreeConfig.TREE_SEED_STAGE && tree.getGrowthStage() < TreeConfig.TREE_MAX_GROWTH_STAGE) {
+                    long timeSincePlant = tree.getLastChopTime() > 0 ?
+                            (currentTime - tree.getLastChopTime()) / 1_000_000 :
+                            TreeConfig.TIME_PER_GROWTH_STAGE_MS;
+
+                    int targetStage = (int) (timeSincePlant / TreeConfig.TIME_PER_GROWTH_STAGE_MS);
+                    targetStage = Math.min(targetStage, TreeConfig.TREE_MAX_GROWTH_STAGE);
+
+                    if (targetStage > tree.getGrowthStage()) {
+                        tree.setGrowthStage(targetStage);
+                        worldMap.markDirty(key);
+                        mapNeedsRedraw = true;
                     }
                 }
             }
         }
+        if (growthCursor >= growthSize) growthPassActive = false;
+        return mapNeedsRedraw;
+    }
+
+    /**
+     * Cây còn có thể đổi trạng thái: gốc cây đang chờ mọc lại, hoặc cây chưa bị chặt và chưa trưởng thành.
+     */
+    private static boolean canGrow(TileData data) {
+        TreeData tree = data.getTreeData();
+        if (tree == null || data.getBaseTileType() != Tile.TREE) return false;
+        if (tree.getChopCount() > 0) return tree.getRegrowStartTime() > 0;
+        return tree.getGrowthStage() >= TreeConfig.TREE_SEED_STAGE && tree.getGrowthStage() < TreeConfig.TREE_MAX_GROWTH_STAGE;
+    }
+
+    // --- PHẦN 2: SINH CÂY MỚI TỰ ĐỘNG ---
 
-        // --- PHẦN 2: SINH CÂY MỚI TỰ ĐỘNG ---
-        // Kiểm tra xem người chơi có di chuyển quá khoảng cách của một ô đất so với lần cập nhật trước hay không
+    /**
+     * Yêu cầu sinh cây quanh vị trí người chơi nếu người chơi đã đi quá một ô so với lần yêu cầu trước.
+     * Việc sinh cây được chia thành nhiều đơn vị (TREE_GENERATION_ROWS_PER_UNIT hàng) và chạy qua generationJob.
+     */
+    public void requestGenerationAround(double playerX, double playerY) {
         if (Math.abs(playerX - lastPlayerX) > WorldConfig.TILE_SIZE || Math.abs(playerY - lastPlayerY) > WorldConfig.TILE_SIZE) {
-            boolean spawned = generateTreesAroundPlayer(playerX, playerY);
-            if (spawned) mapNeedsRedraw = true;
+            generationCenterCol = (int) Math.floor(playerX / WorldConfig.TILE_SIZE);
+            generationCenterRow = (int) Math.floor(playerY / WorldConfig.TILE_SIZE);
+            generationNextRow = generationCenterRow - GENERATION_RADIUS;
+            generationPending = true;
 
             lastPlayerX = playerX;
             lastPlayerY = playerY;
         }
+    }
 
-        return mapNeedsRedraw;
+    private boolean runGenerationUnit() {
+        int lastRow = Math.min(generationNextRow + SchedulerConfig.TREE_GENERATION_ROWS_PER_UNIT, generationCenterRow + GENERATION_RADIUS + 1);
+        boolean spawned = generateTrees(generationCenterCol, generationCenterRow, generationNextRow, lastRow);
+        generationNextRow = lastRow;
+        if (generationNextRow > generationCenterRow + GENERATION_RADIUS) generationPending = false;
+        return spawned;
     }
 
-    private boolean generateTreesAroundPlayer(double playerX, double playerY) {
-        boolean anyChange = false;
+    // Package-private để benchmark JMH (src/jmh) đo trực tiếp cả vùng trong một lần gọi
+    boolean generateTreesAroundPlayer(double playerX, double playerY) {
         int playerTileX = (int) Math.floor(playerX / WorldConfig.TILE_SIZE);
         int playerTileY = (int) Math.floor(playerY / WorldConfig.TILE_SIZE);
+        return generateTrees(playerTileX, playerTileY, playerTileY - GENERATION_RADIUS, playerTileY + GENERATION_RADIUS + 1);
+    }
 
-        int generationRadius = 14;
-
-        for (int row = playerTileY - generationRadius; row <= playerTileY + generationRadius; row++) {
-            for (int col = playerTileX - generationRadius; col <= playerTileX + generationRadius; col++) {
-
-                long key = toTileKey(col, row);
-
-                if (generatedTiles.contains(key)) {
+    /**
+     * Xét sinh cây trên các hàng [fromRow, toRow) của vùng GENERATION_RADIUS quanh (centerCol, centerRow).
+     */
+    private boolean generateTrees(int centerCol, int centerRow, int fromRow, int toRow) {
+        TreeGenerationEvent event = new TreeGenerationEvent();
+        event.begin();
+        boolean anyChange = false;
+        int newTiles = 0;
+        int treesSpawned = 0;
+
+        for (int row = fromRow; row < toRow; row++) {
+            for (int col = centerCol - GENERATION_RADIUS; col <= centerCol + GENERATION_RADIUS; col++) {
+                // Đảm bảo chunk (và mặt nạ đã sinh cây của nó nếu từng bị gỡ) đã nằm trong bộ nhớ
+                worldMap.loadChunkAt(col, row);
+                if (!markGenerated(col, row)) {
                     continue;
                 }
-
-                generatedTiles.add(key);
+                newTiles++;
 
                 double noiseValue = getDeterministicNoise(col, row);
 
@@ -191,11 +318,78 @@ public class TreeManager {
                             data.setTreeData(tree);
                             worldMap.setTileData(col, row, data);
                             anyChange = true;
+                            treesSpawned++;
                         }
                     }
                 }
             }
         }
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.centerCol = centerCol;
+            event.centerRow = centerRow;
+            event.radius = GENERATION_RADIUS;
+            event.newTiles = newTiles;
+            event.treesSpawned = treesSpawned;
+            event.commit();
+        }
         return anyChange;
     }
+
+    // --- Mặt nạ ô đã sinh cây ---
+
+    /**
+     * Đánh dấu ô đã được xét sinh cây.
+     *
+     * @return false nếu ô đã được đánh dấu từ trước
+     */
+    private boolean markGenerated(int col, int row) {
+        long chunkKey = toTileKey(Math.floorDiv(col, CHUNK_SIZE), Math.floorDiv(row, CHUNK_SIZE));
+        long[] mask = generatedMasks.computeIfAbsent(chunkKey, k -> new long[GENERATED_MASK_WORDS]);
+        int bit = Math.floorMod(row, CHUNK_SIZE) * CHUNK_SIZE + Math.floorMod(col, CHUNK_SIZE);
+        long flag = 1L << (bit & 63);
+        if ((mask[bit >> 6] & flag) != 0) return false;
+        mask[bit >> 6] |= flag;
+        return true;
+    }
+
+    /**
+     * Lấy ra (và xóa khỏi bộ nhớ) mặt nạ của một chunk sắp bị gỡ. Null nếu chunk chưa có ô nào được xét.
+     */
+    public long[] detachGeneratedMask(int chunkX, int chunkY) {
+        return generatedMasks.remove(toTileKey(chunkX, chunkY));
+    }
+
+    /**
+     * Khôi phục mặt nạ của một chunk vừa được tải lại.
+     */
+    public void restoreGeneratedMask(int chunkX, int chunkY, long[] mask) {
+        generatedMasks.put(toTileKey(chunkX, chunkY), mask);
+    }
+
+    /**
+     * Số chunk có mặt nạ ô đã sinh cây đang nằm trong bộ nhớ.
+     */
+    public int getGeneratedChunkCount() {
+        return generatedMasks.size();
+    }
+
+    /**
+     * Số ô đã được xét sinh cây đang nằm trong bộ nhớ (đếm bit của mọi mặt nạ, chỉ dùng khi đo đạc).
+     */
+    public long getGeneratedTileCount() {
+        long count = 0;
+        for (long[] mask : generatedMasks.values()) {
+            for (long word : mask) count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Quên mọi ô đã sinh cây (khi tải một bản đồ khác).
+     */
+    public void clearGeneratedMasks() {
+        generatedMasks.clear();
+    }
 }
\ No newline at end of file
@@ -3,7 +3,7 @@ package com.example.farmSimulation.model;
 import com.example.farmSimulation.config.WeatherConfig;
 import lombok.Getter;
 
-import java.util.Random;
+import java.util.SplittableRandom;
 
 /**
  * Quản lý hệ thống Thời tiết
@@ -11,13 +11,20 @@ import java.util.Random;
 public class WeatherManager {
     @Getter
     private WeatherConfig.WeatherType currentWeather;
-    private final Random random;
+    private SplittableRandom random; // Luồng WEATHER của WorldRandom
     private long lastWeatherUpdateTime;
     
     public WeatherManager() {
-        this.random = new Random();
+        this.random = new SplittableRandom();
         this.currentWeather = WeatherConfig.WeatherType.SUNNY; // Mặc định nắng
-        this.lastWeatherUpdateTime = System.nanoTime();
+        this.lastWeatherUpdateTime = GameClock.nanoTime();
+    }
+
+    /**
+     * Dùng luồng ngẫu nhiên của thế giới (thời tiết đổi theo cùng một chuỗi).
+     */
+    public void setRandom(SplittableRandom random) {
+        this.random = random;
     }
     
     /**
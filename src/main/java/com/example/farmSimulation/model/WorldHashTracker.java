@@ -0,0 +1,260 @@
+package com.example.farmSimulation.model;
+
+import com.example.farmSimulation.config.SaveConfig;
+import com.example.farmSimulation.model.GameSaveState.SavedTileData;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Mã băm tăng dần của các ô đất, giữ theo từng chunk và gộp theo tầng: ô -> chunk -> region -> gốc.
+ *
+ * WorldMap báo mọi thay đổi ô (setTileData / markDirty) và mỗi lần tải / gỡ chunk; chunk bị đổi chỉ bị đánh dấu "cũ"
+ * và được băm lại khi có người hỏi mã băm (refresh), nên một ô đổi nhiều lần trong một frame chỉ tốn một lần băm.
+ * Mã băm của chunk bị gỡ khỏi bộ nhớ (ChunkResidencyManager) được giữ lại, nên gốc vẫn phủ cả những chunk đang nằm trên đĩa.
+ *
+ * - Ô: FNV-1a trên tọa độ và chính bản mã hóa của SaveCodec (mọi thứ được lưu cũng là mọi thứ được băm).
+ *   Ô mặc định (cỏ trống) không được băm, nên chunk đã tải nhưng trống và chunk chưa từng tải cho cùng kết quả.
+ * - Chunk: FNV-1a nối tiếp các ô khác mặc định theo thứ tự hàng / cột (0 nếu chunk trống).
+ * - Region (REGION_SIZE x REGION_SIZE chunk) và gốc: tổng (mod 2^64) của mã băm các phần tử con đã trộn kèm khóa,
+ *   không phụ thuộc thứ tự nên cập nhật được bằng phép trừ phần cũ / cộng phần mới.
+ */
+public class WorldHashTracker {
+    private static final int CHUNK_SIZE = SaveConfig.SAVE_CHUNK_SIZE;
+    private static final int REGION_SIZE = SaveConfig.REGION_SIZE;
+
+    private final WorldMap worldMap;
+    private final Map<Long, Long> chunkHashes = new HashMap<>();    // Khóa chunk -> mã băm (chỉ chunk khác 0)
+    private final Map<Long, long[]> regionHashes = new HashMap<>(); // Khóa region -> tổng phần đóng góp của các chunk
+    private final Set<Long> staleChunks = new HashSet<>();
+    private long lastStaleChunk = Long.MIN_VALUE;                   // Tránh tra HashSet khi nhiều ô liền nhau cùng đổi
+    private long root = 0;
+
+    // Bộ đệm mã hóa ô, dùng lại giữa các lần băm
+    private final SaveDataWriter tileWriter = new SaveDataWriter();
+
+    public WorldHashTracker(WorldMap worldMap) {
+        this.worldMap = worldMap;
+    }
+
+    // ==============================================================================================
+    // THÔNG BÁO TỪ WORLDMAP
+    // ==============================================================================================
+
+    /**
+     * Một ô đã (hoặc có thể đã) thay đổi.
+     */
+    void onTileChanged(long tileKey) {
+        markStale(chunkKey(Math.floorDiv(WorldMap.tileCol(tileKey), CHUNK_SIZE), Math.floorDiv(WorldMap.tileRow(tileKey), CHUNK_SIZE)));
+    }
+
+    /**
+     * Một chunk vừa được đưa vào bộ nhớ (nội dung có thể đã được bù thời gian khi tải lại).
+     */
+    void onChunkLoaded(int chunkX, int chunkY) {
+        markStale(chunkKey(chunkX, chunkY));
+    }
+
+    /**
+     * Một chunk sắp bị gỡ khỏi bộ nhớ: băm nốt nếu còn cũ, sau đó mã băm được giữ nguyên cho tới khi chunk được tải lại.
+     */
+    void onChunkUnloading(int chunkX, int chunkY) {
+        long key = chunkKey(chunkX, chunkY);
+        if (staleChunks.remove(key)) {
+            updateChunk(key, computeChunkHash(chunkX, chunkY));
+            if (key == lastStaleChunk) lastStaleChunk = Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * Bản đồ bị xóa (tải file save khác).
+     */
+    void onReset() {
+        chunkHashes.clear();
+        regionHashes.clear();
+        staleChunks.clear();
+        lastStaleChunk = Long.MIN_VALUE;
+        root = 0;
+    }
+
+    private void markStale(long chunkKey) {
+        if (chunkKey == lastStaleChunk) return;
+        staleChunks.add(chunkKey);
+        lastStaleChunk = chunkKey;
+    }
+
+    // ==============================================================================================
+    // TRUY VẤN
+    // ==============================================================================================
+
+    /**
+     * Băm lại toàn bộ các ô đang nằm trong bộ nhớ (khi gắn bộ theo dõi vào một bản đồ đã có sẵn ô).
+     */
+    public void rebuild() {
+        onReset();
+        for (long tileKey : worldMap.getTileDataMap().keySet()) {
+            onTileChanged(tileKey);
+        }
+        refresh();
+    }
+
+    /**
+     * Băm lại các chunk đã thay đổi kể từ lần trước.
+     */
+    public void refresh() {
+        if (staleChunks.isEmpty()) return;
+        for (long key : staleChunks) {
+            updateChunk(key, computeChunkHash((int) (key >> 32), (int) key));
+        }
+        staleChunks.clear();
+        lastStaleChunk = Long.MIN_VALUE;
+    }
+
+    /**
+     * Mã băm gốc của toàn bộ các ô (kể cả chunk đang nằm trên đĩa).
+     */
+    public long getRootHash() {
+        refresh();
+        return root;
+    }
+
+    public long getChunkHash(int chunkX, int chunkY) {
+        refresh();
+        return chunkHashes.getOrDefault(chunkKey(chunkX, chunkY), 0L);
+    }
+
+    public int getHashedChunkCount() {
+        return chunkHashes.size();
+    }
+
+    /**
+     * Các chunk có mã băm khác nhau giữa hai bản đồ, theo thứ tự region rồi chunk (hàng trước, cột sau).
+     * Chỉ so sánh chunk trong các region có tổng khác nhau, nên chi phí tỉ lệ với phần bị lệch.
+     *
+     * @return Các cặp {chunkX, chunkY}, tối đa limit phần tử
+     */
+    public List<int[]> findDifferentChunks(WorldHashTracker other, int limit) {
+        refresh();
+        other.refresh();
+        List<int[]> result = new ArrayList<>();
+        if (root == other.root) return result;
+
+        Set<Long> regionKeys = new HashSet<>(regionHashes.keySet());
+        regionKeys.addAll(other.regionHashes.keySet());
+        List<Long> differentRegions = new ArrayList<>();
+        for (long key : regionKeys) {
+            if (regionSum(this, key) != regionSum(other, key)) differentRegions.add(key);
+        }
+        differentRegions.sort(WorldHashTracker::compareKeys);
+
+        for (long regionKey : differentRegions) {
+            List<Long> chunks = new ArrayList<>();
+            for (long key : chunkHashes.keySet()) if (regionOf(key) == regionKey) chunks.add(key);
+            for (long key : other.chunkHashes.keySet()) if (regionOf(key) == regionKey && !chunkHashes.containsKey(key)) chunks.add(key);
+            chunks.sort(WorldHashTracker::compareKeys);
+            for (long key : chunks) {
+                if (chunkHashes.getOrDefault(key, 0L).longValue() != other.chunkHashes.getOrDefault(key, 0L).longValue()) {
+                    result.add(new int[] {(int) (key >> 32), (int) key});
+                    if (result.size() >= limit) return result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Băm lại từ đầu mọi chunk đang nằm trong bộ nhớ và so với mã băm tăng dần (sau refresh).
+     * Chunk lệch nghĩa là có chỗ sửa TileData mà không báo cho WorldMap (thiếu markDirty).
+     *
+     * @return Các cặp {chunkX, chunkY} bị lệch
+     */
+    public List<int[]> verify() {
+        refresh();
+        Set<Long> chunks = new HashSet<>();
+        for (long tileKey : worldMap.getTileDataMap().keySet()) {
+            chunks.add(chunkKey(Math.floorDiv(WorldMap.tileCol(tileKey), CHUNK_SIZE), Math.floorDiv(WorldMap.tileRow(tileKey), CHUNK_SIZE)));
+        }
+        List<int[]> mismatched = new ArrayList<>();
+        for (long key : chunks) {
+            int chunkX = (int) (key >> 32);
+            int chunkY = (int) key;
+            if (computeChunkHash(chunkX, chunkY) != chunkHashes.getOrDefault(key, 0L)) {
+                mismatched.add(new int[] {chunkX, chunkY});
+            }
+        }
+        mismatched.sort((a, b) -> a[1] != b[1] ? Integer.compare(a[1], b[1]) : Integer.compare(a[0], b[0]));
+        return mismatched;
+    }
+
+    // ==============================================================================================
+    // BĂM
+    // ==============================================================================================
+
+    private void updateChunk(long key, long hash) {
+        Long previous = hash != 0 ? chunkHashes.put(key, hash) : chunkHashes.remove(key);
+        long oldHash = previous != null ? previous : 0;
+        if (oldHash == hash) return;
+
+        long delta = contribution(key, hash) - contribution(key, oldHash);
+        long regionKey = regionOf(key);
+        long[] region = regionHashes.computeIfAbsent(regionKey, k -> new long[1]);
+        long oldRegion = region[0];
+        region[0] += delta;
+        root += contribution(regionKey, region[0]) - contribution(regionKey, oldRegion);
+        if (region[0] == 0) regionHashes.remove(regionKey);
+    }
+
+    /**
+     * Mã băm của một chunk tính từ các ô đang nằm trong bộ nhớ (0 nếu không có ô nào khác mặc định).
+     */
+    private long computeChunkHash(int chunkX, int chunkY) {
+        long hash = WorldStateHash.FNV_OFFSET_BASIS;
+        boolean empty = true;
+        int startCol = chunkX * CHUNK_SIZE;
+        int startRow = chunkY * CHUNK_SIZE;
+        for (int row = startRow; row < startRow + CHUNK_SIZE; row++) {
+            for (int col = startCol; col < startCol + CHUNK_SIZE; col++) {
+                TileData data = worldMap.peekTileData(col, row);
+                if (data == null || WorldMap.isDefaultTile(data)) continue;
+                empty = false;
+                SavedTileData tile = WorldMap.snapshotTile(col, row, data);
+                tile.simulatedTime = 0; // Mốc chụp ảnh, không thuộc trạng thái của ô
+                tileWriter.reset();
+                tileWriter.writeInt(col).writeInt(row);
+                SaveCodec.writeTile(tile, tileWriter);
+                hash = WorldStateHash.hash(hash, tileWriter.toByteArray());
+            }
+        }
+        return empty ? 0 : hash;
+    }
+
+    /**
+     * Phần đóng góp của một phần tử con vào tổng của tầng trên (0 nếu phần tử trống).
+     */
+    private static long contribution(long key, long hash) {
+        return hash == 0 ? 0 : WorldRandom.mix(key * WorldStateHash.FNV_PRIME ^ hash);
+    }
+
+    private static long regionSum(WorldHashTracker tracker, long regionKey) {
+        long[] region = tracker.regionHashes.get(regionKey);
+        return region != null ? region[0] : 0;
+    }
+
+    private static long regionOf(long chunkKey) {
+        return chunkKey(Math.floorDiv((int) (chunkKey >> 32), REGION_SIZE), Math.floorDiv((int) chunkKey, REGION_SIZE));
+    }
+
+    // Cùng định dạng với khóa chunk của WorldMap / RegionStore
+    private static long chunkKey(int x, int y) {
+        return ((long) x << 32) | (y & 0xffffffffL);
+    }
+
+    private static int compareKeys(long a, long b) {
+        int ya = (int) a, yb = (int) b;
+        return ya != yb ? Integer.compare(ya, yb) : Integer.compare((int) (a >> 32), (int) (b >> 32));
+    }
+}
@@ -1,7 +1,17 @@
 package com.example.farmSimulation.model;
 
+import com.example.farmSimulation.config.CropConfig;
+import com.example.farmSimulation.config.SaveConfig;
+import com.example.farmSimulation.model.GameSaveState.SavedTileData;
+
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 
 // Class này lưu trữ TOÀN BỘ dữ liệu bản đồ (Model).
@@ -9,15 +19,78 @@ import java.util.HashMap;
 public class WorldMap {
     private HashMap<Long, TileData> tileDataMap; // Lưu trữ loại ô tại mỗi tọa độ [hàng][cột] và loại ô
 
+    // Khóa các ô đã thay đổi kể từ lần ghi nhật ký (journal) gần nhất - dùng cho lưu game tăng dần
+    private final Set<Long> dirtyTiles = new HashSet<>();
+
+    // --- Tải lười theo chunk (bản đồ nằm trong region file) ---
+    private static final int CHUNK_SIZE = SaveConfig.SAVE_CHUNK_SIZE;
+    private ChunkSource chunkSource;                                // null = toàn bộ bản đồ đã nằm trong bộ nhớ
+    private final Set<Long> residentChunks = new HashSet<>();       // Khóa các chunk đã được giải mã vào tileDataMap
+    private ChunkLoadListener chunkLoadListener;
+
+    // Mã băm tăng dần theo chunk (xem WorldHashTracker); null = không theo dõi (mặc định khi chơi bình thường)
+    private WorldHashTracker hashTracker;
+
+    /**
+     * Nguồn dữ liệu chunk chưa nằm trong bộ nhớ (vd: RegionStore).
+     */
+    public interface ChunkSource {
+        /** Các ô có dữ liệu của chunk; danh sách rỗng nếu chunk toàn ô mặc định */
+        List<SavedTileData> readChunk(int chunkX, int chunkY);
+
+        /**
+         * Đọc nhiều chunk một lúc (khóa chunk -> các ô). Mặc định đọc tuần tự;
+         * nguồn có thể ghi đè để giải nén / giải mã song song.
+         */
+        default Map<Long, List<SavedTileData>> readChunks(long[] chunkKeys) {
+            Map<Long, List<SavedTileData>> chunks = new HashMap<>();
+            for (long key : chunkKeys) {
+                chunks.put(key, readChunk((int) (key >> 32), (int) key));
+            }
+            return chunks;
+        }
+    }
+
+    /**
+     * Được gọi ngay sau khi một chunk được tải lười vào bộ nhớ.
+     */
+    public interface ChunkLoadListener {
+        void onChunkLoaded(int chunkX, int chunkY);
+    }
+
     public WorldMap() {
         tileDataMap = new HashMap<>();
     }
 
     //hàm tạo khóa
     /* Dùng phép dịch bit để ép 2 số int 32-bit col và row vào 1 key long 64-bit
-    0xffffffffL là mask để lấy 32 bit thấp và loại bỏ sign-extension khi xử lý int như unsigned dưới dạng long*/
-    private long toKey(int col, int row) {
-        return ((long) col << 32) | (row & 0xffffffffL);
+    0xffffffffL là mask để lấy 32 bit thấp và loại bỏ sign-extension khi xử lý int như unsigned dưới dạng long.
+    Long.hashCode() là (32 bit cao ^ 32 bit thấp): nếu ghép thẳng col và row thì hash = col ^ row, cả nông trại
+    dồn vào vài trăm bucket (HashMap chuyển bucket thành cây, mỗi lần tra cứu vừa chậm vừa cấp phát).
+    Vì vậy row được trộn với col trước khi ghép; col vẫn nằm nguyên ở 32 bit cao. */
+    private static final int TILE_KEY_MIX = 0x9E3779B9;
+
+    /**
+     * Khóa của ô (col, row) trong tileDataMap / dirtyTiles. Giải mã bằng tileCol / tileRow.
+     */
+    public static long tileKey(int col, int row) {
+        return ((long) col << 32) | ((row ^ col * TILE_KEY_MIX) & 0xffffffffL);
+    }
+
+    /** Cột của một khóa ô */
+    public static int tileCol(long key) {
+        return (int) (key >> 32);
+    }
+
+    /** Hàng của một khóa ô */
+    public static int tileRow(long key) {
+        int col = (int) (key >> 32);
+        return (int) key ^ col * TILE_KEY_MIX;
+    }
+
+    // Khóa chunk: ghép thẳng (ít phần tử nên không cần trộn), cùng định dạng với khóa chunk của RegionStore / GameSaveState
+    private static long chunkKey(int chunkX, int chunkY) {
+        return ((long) chunkX << 32) | (chunkY & 0xffffffffL);
     }
 
     /**
@@ -26,7 +99,12 @@ public class WorldMap {
      * nó sẽ tự động tạo một TileData (GRASS) mặc định, lưu lại và trả về.
      */
     public TileData getTileData(int col, int row) {
-        long key = toKey(col, row);
+        long key = tileKey(col, row);
+        TileData data = tileDataMap.get(key);
+        if (data != null) return data;
+
+        // Ô chưa có trong bộ nhớ: có thể chunk chứa nó chưa được tải từ region file
+        loadChunkAt(col, row);
         // Sử dụng computeIfAbsent để code gọn hơn
         // computeIfAbsent là một method của Map (Java 8+).
         // computeIfAbsent: Nếu 'path' chưa có trong cache,
@@ -41,7 +119,60 @@ public class WorldMap {
      * đã thay đổi nó.
      */
     public void setTileData(int col, int row, TileData data) {
-        tileDataMap.put(toKey(col, row), data);
+        long key = tileKey(col, row);
+        // Tải chunk trước khi ghi, để dữ liệu cũ trong file không đè lên ô vừa sửa khi chunk được tải sau này
+        if (!tileDataMap.containsKey(key)) loadChunkAt(col, row);
+        tileDataMap.put(key, data);
+        dirtyTiles.add(key);
+        if (hashTracker != null) hashTracker.onTileChanged(key);
+    }
+
+    /**
+     * Lấy dữ liệu ô nếu nó đang nằm trong bộ nhớ, không tạo ô mới và không tải chunk.
+     * Dùng cho các phép kiểm tra hàng xóm ở rìa chunk (vd: nối hình hàng rào) để tránh tải dây chuyền.
+     */
+    public TileData peekTileData(int col, int row) {
+        return tileDataMap.get(tileKey(col, row));
+    }
+
+    /**
+     * Đánh dấu ô đã thay đổi. Cần gọi khi sửa trực tiếp TileData lấy từ map
+     * (không qua setTileData), ví dụ cây trồng lớn lên.
+     */
+    public void markDirty(long key) {
+        dirtyTiles.add(key);
+        if (hashTracker != null) hashTracker.onTileChanged(key);
+    }
+
+    /**
+     * Lấy và xóa danh sách khóa các ô đã thay đổi.
+     */
+    public long[] drainDirtyTiles() {
+        long[] keys = new long[dirtyTiles.size()];
+        int i = 0;
+        for (long key : dirtyTiles) {
+            keys[i++] = key;
+        }
+        dirtyTiles.clear();
+        return keys;
+    }
+
+    /**
+     * Đánh dấu lại một ô đã lấy ra bằng drainDirtyTiles nhưng chưa được ghi (bản ghi nhật ký bị bỏ).
+     * Ô thuộc chunk đã bị gỡ được bỏ qua: nội dung chunk đã được cất ở vùng lưu tạm khi gỡ.
+     */
+    public void restoreDirty(long key) {
+        int chunkX = Math.floorDiv(tileCol(key), CHUNK_SIZE);
+        int chunkY = Math.floorDiv(tileRow(key), CHUNK_SIZE);
+        if (chunkSource != null && !isChunkResident(chunkX, chunkY)) return;
+        dirtyTiles.add(key);
+    }
+
+    /**
+     * Bỏ đánh dấu toàn bộ (sau khi đã chụp ảnh đầy đủ bản đồ).
+     */
+    public void clearDirtyTiles() {
+        dirtyTiles.clear();
     }
 
     /**
@@ -59,4 +190,276 @@ public class WorldMap {
     public java.util.Map<Long, TileData> getTileDataMap() {
         return tileDataMap;
     }
+
+    // ==============================================================================================
+    // TẢI LƯỜI THEO CHUNK
+    // ==============================================================================================
+
+    /**
+     * Xóa toàn bộ bản đồ trong bộ nhớ và đặt nguồn chunk mới (null nếu không tải lười).
+     * Các chunk sẽ được giải mã từ nguồn khi lần đầu có ô trong chunk được truy cập.
+     */
+    public void resetChunks(ChunkSource source) {
+        tileDataMap.clear();
+        dirtyTiles.clear();
+        residentChunks.clear();
+        chunkSource = source;
+        if (hashTracker != null) hashTracker.onReset();
+    }
+
+    public ChunkSource getChunkSource() {
+        return chunkSource;
+    }
+
+    public void setChunkLoadListener(ChunkLoadListener listener) {
+        this.chunkLoadListener = listener;
+    }
+
+    /**
+     * Gắn bộ theo dõi mã băm (null để bỏ). Bộ theo dõi nên được rebuild() nếu bản đồ đã có sẵn ô.
+     */
+    public void setHashTracker(WorldHashTracker tracker) {
+        this.hashTracker = tracker;
+    }
+
+    public WorldHashTracker getHashTracker() {
+        return hashTracker;
+    }
+
+    /**
+     * Giải mã trước các chunk trong bán kính radius (tính theo chunk) quanh một ô.
+     * Các chunk được đọc cùng một lượt (nguồn có thể giải mã song song) rồi đưa vào bản đồ trên luồng gọi.
+     */
+    public void loadChunksAround(int col, int row, int radius) {
+        if (chunkSource == null) return;
+        int centerX = Math.floorDiv(col, CHUNK_SIZE);
+        int centerY = Math.floorDiv(row, CHUNK_SIZE);
+        List<Long> missing = new ArrayList<>();
+        for (int cy = centerY - radius; cy <= centerY + radius; cy++) {
+            for (int cx = centerX - radius; cx <= centerX + radius; cx++) {
+                if (!residentChunks.contains(chunkKey(cx, cy))) missing.add(chunkKey(cx, cy));
+            }
+        }
+        if (missing.isEmpty()) return;
+
+        long[] keys = new long[missing.size()];
+        for (int i = 0; i < keys.length; i++) keys[i] = missing.get(i);
+        Map<Long, List<SavedTileData>> chunks;
+        try {
+            chunks = chunkSource.readChunks(keys);
+        } catch (RuntimeException e) {
+            // Đọc theo lượt thất bại: để từng chunk được tải lười như bình thường
+            e.printStackTrace();
+            return;
+        }
+        for (long key : keys) {
+            List<SavedTileData> tiles = chunks.get(key);
+            if (tiles == null || !residentChunks.add(key)) continue;
+            installChunk((int) (key >> 32), (int) key, tiles);
+        }
+    }
+
+    public boolean isChunkResident(int chunkX, int chunkY) {
+        return residentChunks.contains(chunkKey(chunkX, chunkY));
+    }
+
+    /**
+     * Ô có thay đổi chưa được ghi vào nhật ký hay không.
+     */
+    public boolean isTileDirty(int col, int row) {
+        return dirtyTiles.contains(tileKey(col, row));
+    }
+
+    /**
+     * Gỡ một chunk khỏi bộ nhớ (sau khi nội dung của nó đã được cất ở nơi khác, xem ChunkResidencyManager).
+     * Lần truy cập sau sẽ tải lại chunk từ nguồn.
+     */
+    public void unloadChunk(int chunkX, int chunkY) {
+        if (!residentChunks.remove(chunkKey(chunkX, chunkY))) return;
+        if (hashTracker != null) hashTracker.onChunkUnloading(chunkX, chunkY);
+        int startCol = chunkX * CHUNK_SIZE;
+        int startRow = chunkY * CHUNK_SIZE;
+        for (int row = startRow; row < startRow + CHUNK_SIZE; row++) {
+            for (int col = startCol; col < startCol + CHUNK_SIZE; col++) {
+                long key = tileKey(col, row);
+                tileDataMap.remove(key);
+                dirtyTiles.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Khóa các chunk đã nằm trong bộ nhớ (bản sao). Khi lưu, các chunk này được ghi từ bộ nhớ,
+     * các chunk còn lại được chép nguyên từ nguồn.
+     */
+    public long[] getResidentChunkKeys() {
+        long[] keys = new long[residentChunks.size()];
+        int i = 0;
+        for (long key : residentChunks) {
+            keys[i++] = key;
+        }
+        return keys;
+    }
+
+    public int getResidentChunkCount() {
+        return residentChunks.size();
+    }
+
+    /**
+     * Tải chunk chứa ô (col, row) nếu nó chưa nằm trong bộ nhớ.
+     *
+     * @return true nếu chunk vừa được tải
+     */
+    public boolean loadChunkAt(int col, int row) {
+        if (chunkSource == null) return false;
+        int chunkX = Math.floorDiv(col, CHUNK_SIZE);
+        int chunkY = Math.floorDiv(row, CHUNK_SIZE);
+        if (!residentChunks.add(chunkKey(chunkX, chunkY))) return false;
+
+        List<SavedTileData> tiles = Collections.emptyList();
+        try {
+            tiles = chunkSource.readChunk(chunkX, chunkY);
+        } catch (RuntimeException e) {
+            // Chunk hỏng: giữ các ô mặc định để game vẫn chạy tiếp
+            e.printStackTrace();
+            System.err.println("Failed to load chunk " + chunkX + "," + chunkY);
+        }
+        installChunk(chunkX, chunkY, tiles);
+        return true;
+    }
+
+    /**
+     * Đưa các ô của một chunk vừa đọc vào bản đồ và báo cho listener.
+     */
+    private void installChunk(int chunkX, int chunkY, List<SavedTileData> tiles) {
+        for (SavedTileData tile : tiles) {
+            tileDataMap.put(tileKey(tile.col, tile.row), restoreTile(tile));
+        }
+        if (hashTracker != null) hashTracker.onChunkLoaded(chunkX, chunkY);
+        if (chunkLoadListener != null) {
+            chunkLoadListener.onChunkLoaded(chunkX, chunkY);
+        }
+    }
+
+    /**
+     * Sao chép giá trị một ô đất sang SavedTileData. Các mốc thời gian được đổi sang thời gian mô phỏng (SimulationClock).
+     */
+    public static SavedTileData snapshotTile(int col, int row, TileData td) {
+        SavedTileData std = new SavedTileData();
+        std.col = col;
+        std.row = row;
+        std.baseType = td.getBaseTileType();
+
+        // Lưu trạng thái ô đất
+        std.isWatered = td.isWatered();
+        std.isFertilized = td.isFertilized();
+        std.lastWateredTime = SimulationClock.toSimulation(td.getLastWateredTime());
+        std.fertilizerStartTime = SimulationClock.toSimulation(td.getFertilizerStartTime());
+        if (td.getBaseTileType() == Tile.SOIL) {
+            // Chỉ đất khô dùng mốc này (đếm giờ cây chết / đất mọc cỏ)
+            std.dryStartTime = SimulationClock.toSimulation(td.getDryStartTime());
+        }
+
+        // Lưu thông tin cây trồng
+        if (td.getCropData() != null) {
+            std.hasCrop = true;
+            std.cropType = td.getCropData().getType();
+            std.cropStage = td.getCropData().getGrowthStage();
+            std.cropPlantTime = SimulationClock.toSimulation(td.getCropData().getPlantTime());
+            std.simulatedTime = SimulationClock.now();
+        }
+
+        // Lưu thông tin cây tự nhiên
+        if (td.getTreeData() != null) {
+            std.hasTree = true;
+            std.treeStage = td.getTreeData().getGrowthStage();
+            std.treeChopCount = td.getTreeData().getChopCount();
+            std.treeLastChopTime = SimulationClock.toSimulation(td.getTreeData().getLastChopTime());
+            std.treeRegrowStartTime = SimulationClock.toSimulation(td.getTreeData().getRegrowStartTime());
+        }
+
+        // Lưu hàng rào
+        if (td.getFenceData() != null) {
+            std.hasFence = true;
+            std.fenceIsOpen = td.getFenceData().isOpen();
+        }
+
+        // Lưu vật phẩm trên mặt đất
+        if (td.getGroundItem() != null) {
+            std.hasGroundItem = true;
+            std.groundItemType = td.getGroundItem();
+            std.groundItemAmount = td.getGroundItemAmount();
+            std.groundItemDurability = td.getGroundItemDurability();
+            std.groundItemOffsetX = td.getGroundItemOffsetX();
+            std.groundItemOffsetY = td.getGroundItemOffsetY();
+        }
+
+        return std;
+    }
+
+    /**
+     * Ô cỏ trống không có gì - không cần lưu vì bản đồ tự tạo lại khi truy cập.
+     */
+    public static boolean isDefaultTile(TileData td) {
+        return td.getBaseTileType() == Tile.GRASS
+                && td.getCropData() == null && td.getTreeData() == null && td.getFenceData() == null
+                && td.getGroundItem() == null
+                && !td.isWatered() && !td.isFertilized()
+                && td.getLastWateredTime() == 0 && td.getFertilizerStartTime() == 0;
+    }
+
+    /**
+     * Dựng lại TileData từ dữ liệu đã lưu, rồi bù phần thời gian ô chưa được mô phỏng
+     * (game tắt hoặc chunk nằm trên đĩa) bằng SimulationCatchUp.
+     */
+    public static TileData restoreTile(SavedTileData std) {
+        TileData td = new TileData(std.baseType);
+        long now = GameClock.nanoTime();
+
+        // Khôi phục trạng thái
+        td.setWatered(std.isWatered);
+        td.setFertilized(std.isFertilized);
+        td.setLastWateredTime(SimulationClock.toNanoTime(std.lastWateredTime));
+        td.setFertilizerStartTime(SimulationClock.toNanoTime(std.fertilizerStartTime));
+        td.setDryStartTime(SimulationClock.toNanoTime(std.dryStartTime));
+
+        // Khôi phục cây trồng
+        if (std.hasCrop) {
+            long plantTime = SimulationClock.toNanoTime(std.cropPlantTime);
+            if (plantTime == 0) {
+                // File save cũ không có thời điểm gieo: coi như cây vừa đạt giai đoạn hiện tại
+                plantTime = now - Math.max(0, std.cropStage) * CropConfig.TIME_PER_GROWTH_STAGE_MS * 1_000_000L;
+            }
+            CropData cd = new CropData(std.cropType, std.cropStage, plantTime);
+            td.setCropData(cd);
+        }
+
+        // Khôi phục cây tự nhiên
+        if (std.hasTree) {
+            TreeData trd = new TreeData();
+            trd.setGrowthStage(std.treeStage);
+            trd.setChopCount(std.treeChopCount);
+            trd.setLastChopTime(SimulationClock.toNanoTime(std.treeLastChopTime));
+            trd.setRegrowStartTime(SimulationClock.toNanoTime(std.treeRegrowStartTime));
+            td.setTreeData(trd);
+        }
+
+        // Khôi phục hàng rào
+        if (std.hasFence) {
+            FenceData fd = new FenceData(std.fenceIsOpen);
+            td.setFenceData(fd);
+        }
+
+        // Khôi phục vật phẩm trên đất
+        if (std.hasGroundItem) {
+            td.setGroundItem(std.groundItemType);
+            td.setGroundItemAmount(std.groundItemAmount);
+            td.setGroundItemDurability(std.groundItemDurability);
+            td.setGroundItemOffsetX(std.groundItemOffsetX);
+            td.setGroundItemOffsetY(std.groundItemOffsetY);
+        }
+
+        SimulationCatchUp.advanceTile(td, SimulationClock.toNanoTime(std.simulatedTime), now);
+        return td;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,113 @@
+package com.example.farmSimulation.model;
+
+import java.security.SecureRandom;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * Nguồn số ngẫu nhiên của cả thế giới, sinh ra từ một hạt giống duy nhất (worldSeed) được lưu trong file save.
+ *
+ * Mỗi hệ thống nhận một luồng SplittableRandom riêng, có hạt giống được trộn từ (worldSeed, kỷ nguyên, tên luồng):
+ * thêm bớt một hệ thống hay đổi số lần một hệ thống gọi ngẫu nhiên không làm lệch chuỗi số của các hệ thống khác.
+ * Với các bước có thể chạy song song, mỗi chunk / mỗi thực thể có luồng riêng (forChunk / forEntity),
+ * nên kết quả không phụ thuộc thứ tự hay số luồng xử lý.
+ *
+ * Kỷ nguyên (epoch) là thời gian mô phỏng lúc bắt đầu phiên chơi (0 với game mới): tải cùng một file save
+ * rồi chơi cùng chuỗi đầu vào luôn cho cùng kết quả, mà không phải lưu trạng thái của từng bộ sinh số.
+ */
+public class WorldRandom {
+
+    /**
+     * Các luồng ngẫu nhiên theo hệ thống (chỉ thêm vào cuối - thứ tự là một phần của hạt giống).
+     */
+    public enum Stream {
+        GAMEPLAY,     // GameManager: vị trí vật phẩm bị ném
+        TREES,        // TreeManager: hạt giống sinh cây theo tọa độ
+        ANIMALS,      // AnimalManager: rơi thịt, sinh sản, vị trí vật phẩm
+        ANIMAL_AI,    // Từng con vật: đi lang thang, biến thể hình trứng
+        SHOP,         // ShopManager: hàng hóa và giảm giá mỗi ngày
+        QUESTS,       // QuestManager: nhiệm vụ mỗi ngày
+        WEATHER,      // WeatherManager: đổi thời tiết
+        INTERACTION,  // InteractionManager: sản lượng thu hoạch
+        ACTIONS,      // ActionManager: vị trí vật phẩm rơi
+        EFFECTS       // Hiệu ứng hình ảnh (mưa) - không ảnh hưởng trạng thái thế giới
+    }
+
+    private static final SecureRandom SEED_SOURCE = new SecureRandom();
+
+    private final long worldSeed;
+    private final long epoch;
+
+    public WorldRandom(long worldSeed, long epoch) {
+        this.worldSeed = worldSeed;
+        this.epoch = epoch;
+    }
+
+    /**
+     * Hạt giống cho một thế giới mới (khác 0, vì 0 trong file save nghĩa là "chưa có hạt giống").
+     */
+    public static long newWorldSeed() {
+        long seed;
+        do {
+            seed = SEED_SOURCE.nextLong();
+        } while (seed == 0);
+        return seed;
+    }
+
+    public long getWorldSeed() {
+        return worldSeed;
+    }
+
+    /**
+     * Luồng ngẫu nhiên của một hệ thống.
+     */
+    public SplittableRandom stream(Stream stream) {
+        return new SplittableRandom(seedOf(stream, 0));
+    }
+
+    /**
+     * Luồng ngẫu nhiên của một chunk (cho các bước xử lý chunk song song).
+     */
+    public SplittableRandom forChunk(Stream stream, int chunkX, int chunkY) {
+        return new SplittableRandom(seedOf(stream, ((long) chunkX << 32) | (chunkY & 0xFFFFFFFFL)));
+    }
+
+    /**
+     * Luồng ngẫu nhiên của một thực thể, theo số thứ tự được cấp khi thực thể xuất hiện trong phiên chơi.
+     */
+    public SplittableRandom forEntity(Stream stream, long entityId) {
+        return new SplittableRandom(seedOf(stream, entityId));
+    }
+
+    /**
+     * Hạt giống cố định (không phụ thuộc kỷ nguyên) của một hệ thống, vd: hình dạng thế giới phải giống nhau mọi phiên chơi.
+     */
+    public long worldSeedOf(Stream stream) {
+        return mix(mix(worldSeed ^ mix(stream.ordinal() + 1)));
+    }
+
+    private long seedOf(Stream stream, long key) {
+        long hash = mix(worldSeed ^ mix(epoch));
+        hash = mix(hash ^ mix(stream.ordinal() + 1));
+        return mix(hash ^ mix(key));
+    }
+
+    /**
+     * Hàm trộn 64 bit của SplitMix64: thay đổi 1 bit đầu vào làm đổi khoảng một nửa số bit đầu ra.
+     */
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Xáo trộn danh sách bằng một bộ sinh bất kỳ (Collections.shuffle của Java 17 chỉ nhận java.util.Random).
+     */
+    public static void shuffle(List<?> list, RandomGenerator random) {
+        for (int i = list.size() - 1; i > 0; i--) {
+            java.util.Collections.swap(list, i, random.nextInt(i + 1));
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.farmSimulation.model;
+
+import com.example.farmSimulation.model.GameSaveState.SavedAnimal;
+import com.example.farmSimulation.model.GameSaveState.SavedItemStack;
+import com.example.farmSimulation.model.GameSaveState.SavedQuest;
+import com.example.farmSimulation.model.GameSaveState.SavedShopSlot;
+import com.example.farmSimulation.model.GameSaveState.SavedTileData;
+
+import java.util.Comparator;
+
+/**
+ * Mã băm 64 bit của trạng thái thế giới, dùng để kiểm tra một lần phát lại có cho đúng kết quả như lần ghi hay không.
+ *
+ * Trạng thái được mã hóa bằng chính SaveCodec (mọi thứ được lưu cũng là mọi thứ được băm), sau khi bỏ các trường
+ * không thuộc về mô phỏng (giờ lưu, thế hệ file save) và sắp xếp các ô theo tọa độ để thứ tự duyệt HashMap không ảnh hưởng.
+ *
+ * Ngoài mã băm cả khối (of), trạng thái còn được băm theo từng thành phần (components): các ô đất lấy từ
+ * WorldHashTracker (tăng dần theo chunk), phần còn lại băm thẳng từ ảnh chụp toàn cục. Khi hai trạng thái lệch nhau,
+ * thành phần đầu tiên bị lệch cho biết nên tìm lỗi ở đâu.
+ */
+public final class WorldStateHash {
+    static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    static final long FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * Các thành phần của trạng thái được băm riêng.
+     */
+    public enum Component {
+        TILES,      // Các ô đất (WorldHashTracker)
+        ANIMALS,    // Vật nuôi, không phụ thuộc thứ tự trong danh sách
+        PLAYER,     // Tiền, kinh nghiệm, cấp, thể lực, vị trí
+        INVENTORY,
+        TIME,       // Thời gian mô phỏng, ngày và giờ trong ngày
+        WEATHER,
+        ECONOMY     // Hàng trong cửa hàng và nhiệm vụ
+    }
+
+    private WorldStateHash() {}
+
+    /**
+     * Băm một ảnh chụp trạng thái. Ảnh chụp bị sửa tại chỗ (sắp xếp ô, xóa các trường không thuộc mô phỏng).
+     */
+    public static long of(GameSaveState state) {
+        state.savedAtMillis = 0;
+        state.saveGeneration = 0;
+        state.regionDirectory = null;
+        state.regionStore = null;
+        state.worldTiles.sort(Comparator.comparingInt((SavedTileData tile) -> tile.row).thenComparingInt(tile -> tile.col));
+        return hash(SaveCodec.encodeToBytes(state));
+    }
+
+    // ==============================================================================================
+    // BĂM THEO THÀNH PHẦN
+    // ==============================================================================================
+
+    /**
+     * Mã băm từng thành phần (theo thứ tự Component). Ảnh chụp chỉ cần phần trạng thái toàn cục
+     * (GameManager.captureGlobalState hoặc dựng tay trong công cụ chạy không giao diện); worldTiles không được dùng.
+     */
+    public static long[] components(GameSaveState global, WorldHashTracker tiles) {
+        long[] hashes = new long[Component.values().length];
+        hashes[Component.TILES.ordinal()] = tiles != null ? tiles.getRootHash() : 0;
+        hashes[Component.ANIMALS.ordinal()] = hashAnimals(global);
+
+        Hasher player = new Hasher()
+                .add(global.playerName)
+                .add(global.playerMoney)
+                .add(global.playerXP)
+                .add(global.playerLevel)
+                .add(global.playerStamina)
+                .add(global.playerX)
+                .add(global.playerY);
+        hashes[Component.PLAYER.ordinal()] = player.value();
+
+        Hasher inventory = new Hasher().add(global.inventory.size());
+        for (SavedItemStack stack : global.inventory) {
+            if (stack == null) {
+                inventory.add(-1);
+                continue;
+            }
+            inventory.add(stack.type).add(stack.quantity).add(stack.durability);
+        }
+        hashes[Component.INVENTORY.ordinal()] = inventory.value();
+
+        hashes[Component.TIME.ordinal()] = new Hasher()
+                .add(global.simulationTime)
+                .add(global.currentDay)
+                .add(global.currentDaySeconds)
+                .value();
+        hashes[Component.WEATHER.ordinal()] = new Hasher().add(global.currentWeather).value();
+
+        Hasher economy = new Hasher().add(global.dailyShopStock.size());
+        for (SavedShopSlot slot : global.dailyShopStock) {
+            economy.add(slot.itemType).add(slot.quantity).add(slot.discountRate);
+        }
+        economy.add(global.activeQuests.size());
+        for (SavedQuest quest : global.activeQuests) {
+            economy.add(quest.description).add(quest.type).add(quest.targetItem).add(quest.targetAmount)
+                    .add(quest.currentAmount).add(quest.rewardMoney).add(quest.rewardXp).add(quest.isClaimed);
+        }
+        hashes[Component.ECONOMY.ordinal()] = economy.value();
+        return hashes;
+    }
+
+    /**
+     * Gộp mã băm các thành phần thành một mã băm gốc.
+     */
+    public static long combine(long[] components) {
+        Hasher hasher = new Hasher();
+        for (long hash : components) hasher.add(hash);
+        return hasher.value();
+    }
+
+    /**
+     * Thành phần đầu tiên (theo thứ tự Component) có mã băm khác nhau; null nếu khớp hoàn toàn.
+     */
+    public static Component firstDifference(long[] a, long[] b) {
+        Component[] components = Component.values();
+        for (int i = 0; i < components.length; i++) {
+            if (a[i] != b[i]) return components[i];
+        }
+        return null;
+    }
+
+    /**
+     * Tổng (mod 2^64) mã băm đã trộn của từng con: thứ tự trong danh sách (thay đổi khi thêm / bớt) không ảnh hưởng.
+     */
+    private static long hashAnimals(GameSaveState global) {
+        long sum = global.animals.size();
+        for (SavedAnimal animal : global.animals) {
+            long hash = new Hasher()
+                    .add(animal.type)
+                    .add(animal.x).add(animal.y)
+                    .add(animal.age)
+                    .add(animal.hunger)
+                    .add(animal.spawnTime)
+                    .add(animal.lastHungerUpdateTime)
+                    .add(animal.starvationStartTime)
+                    .add(animal.productionTimer)
+                    .add(animal.breedingCooldownTimer)
+                    .add(animal.hasProduct)
+                    .value();
+            sum += WorldRandom.mix(hash);
+        }
+        return sum;
+    }
+
+    /**
+     * FNV-1a 64 bit trên các giá trị nguyên thủy (mỗi giá trị được đưa vào theo từng byte).
+     */
+    private static final class Hasher {
+        private long hash = FNV_OFFSET_BASIS;
+
+        Hasher add(long value) {
+            for (int i = 0; i < Long.BYTES; i++) {
+                hash ^= (value >>> (i * 8)) & 0xFF;
+                hash *= FNV_PRIME;
+            }
+            return this;
+        }
+
+        Hasher add(double value) {
+            return add(Double.doubleToLongBits(value));
+        }
+
+        Hasher add(boolean value) {
+            return add(value ? 1L : 0L);
+        }
+
+        Hasher add(Enum<?> value) {
+            return add(value != null ? value.ordinal() : -1L);
+        }
+
+        Hasher add(String value) {
+            if (value == null) return add(-1L);
+            add(value.length());
+            for (int i = 0; i < value.length(); i++) add((long) value.charAt(i));
+            return this;
+        }
+
+        long value() {
+            return hash;
+        }
+    }
+
+    // ==============================================================================================
+    // TIỆN ÍCH
+    // ==============================================================================================
+
+    /**
+     * FNV-1a 64 bit.
+     */
+    static long hash(byte[] bytes) {
+        return hash(FNV_OFFSET_BASIS, bytes);
+    }
+
+    /**
+     * FNV-1a 64 bit nối tiếp từ một mã băm trước đó (băm nhiều mảng như một dãy liền).
+     */
+    static long hash(long hash, byte[] bytes) {
+        for (byte b : bytes) {
+            hash ^= (b & 0xFF);
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    public static String toHex(long hash) {
+        return String.format("%016x", hash);
+    }
+}
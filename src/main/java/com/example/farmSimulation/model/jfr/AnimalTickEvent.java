@@ -0,0 +1,41 @@
+package com.example.farmSimulation.model.jfr;
+
+import com.example.farmSimulation.config.ProfilerConfig;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Một lần cập nhật của AnimalManager: di chuyển mỗi frame (updateAnimals, logicTick = false), hoặc một đơn vị
+ * của công việc logic nặng (đói, sinh trưởng, sinh sản, sản phẩm) chạy qua FrameScheduler (logicTick = true).
+ */
+@Name("farmSimulation.AnimalTick")
+@Label("Animal Logic Tick")
+@Category({"Farm Simulation", "Simulation"})
+@Description("Animal movement and logic update")
+@Threshold(ProfilerConfig.JFR_SIMULATION_THRESHOLD)
+@StackTrace(false)
+public class AnimalTickEvent extends jdk.jfr.Event {
+    @Label("Animal Count")
+    @Description("Animals alive after the update")
+    public int animalCount;
+
+    @Label("Logic Tick")
+    @Description("A unit of hunger, growth, breeding and production work rather than the per-frame movement update")
+    public boolean logicTick;
+
+    @Label("Births")
+    @Description("Animals and eggs added by breeding or production")
+    public int births;
+
+    @Label("Deaths")
+    @Description("Animals that starved in this update")
+    public int deaths;
+
+    @Label("Removed")
+    @Description("Dead animals removed from the list")
+    public int removed;
+}
@@ -0,0 +1,38 @@
+package com.example.farmSimulation.model.jfr;
+
+import com.example.farmSimulation.config.ProfilerConfig;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Nạp một ảnh nguồn (khi khởi động, hoặc khi tải lại sau khi bị loại khỏi TextureCache).
+ */
+@Name("farmSimulation.AssetLoad")
+@Label("Asset Load")
+@Category({"Farm Simulation", "Assets"})
+@Description("Texture decoded from PNG or read from the on-disk asset cache")
+@Threshold(ProfilerConfig.JFR_IO_THRESHOLD)
+@StackTrace(false)
+public class AssetLoadEvent extends jdk.jfr.Event {
+    @Label("Path")
+    public String path;
+
+    @Label("From Disk Cache")
+    @Description("Decoded pixels were read from the asset cache instead of decoding the PNG")
+    public boolean fromDiskCache;
+
+    @Label("Width")
+    public int width;
+
+    @Label("Height")
+    public int height;
+
+    @Label("Decoded Size")
+    @DataAmount
+    public long decodedBytes;
+}
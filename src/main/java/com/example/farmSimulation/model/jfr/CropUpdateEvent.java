@@ -0,0 +1,47 @@
+package com.example.farmSimulation.model.jfr;
+
+import com.example.farmSimulation.config.ProfilerConfig;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Một đơn vị công việc của lượt cập nhật cây trồng (CropManager, chạy qua FrameScheduler): xử lý tối đa
+ * CROP_TILES_PER_UNIT ô trong số các ô được chụp lúc bắt đầu lượt.
+ */
+@Name("farmSimulation.CropUpdate")
+@Label("Crop Batch Update")
+@Category({"Farm Simulation", "Simulation"})
+@Description("Crop growth, watering and fertilizer update over a batch of farm tiles")
+@Threshold(ProfilerConfig.JFR_SIMULATION_THRESHOLD)
+@StackTrace(false)
+public class CropUpdateEvent extends jdk.jfr.Event {
+    @Label("Loaded Tiles")
+    @Description("Tiles with data in memory that were scanned for candidates")
+    public int loadedTiles;
+
+    @Label("Candidate Tiles")
+    @Description("Tiles with a crop, watered, fertilized or tilled soil, captured when the pass started")
+    public int candidateTiles;
+
+    @Label("Processed Tiles")
+    public int processedTiles;
+
+    @Label("Changed Tiles")
+    public int changedTiles;
+
+    @Label("Growth Transitions")
+    @Description("Crops that advanced at least one growth stage")
+    public int growthTransitions;
+
+    @Label("Crop Deaths")
+    @Description("Crops that died from drought")
+    public int cropDeaths;
+
+    @Label("Soil Transitions")
+    @Description("Soil that dried out, was watered by rain or reverted to grass")
+    public int soilTransitions;
+}
@@ -0,0 +1,37 @@
+package com.example.farmSimulation.model.jfr;
+
+import com.example.farmSimulation.config.ProfilerConfig;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timespan;
+
+/**
+ * Một frame của vòng lặp game (GameManager.updateGameLogic). Chỉ ghi frame vượt ngân sách,
+ * các giai đoạn bên trong nằm ở GameLoopStageEvent cùng luồng, cùng khoảng thời gian.
+ */
+@Name("farmSimulation.GameFrame")
+@Label("Game Frame")
+@Category({"Farm Simulation", "Game Loop"})
+@Description("Game loop update that exceeded the frame budget")
+@Threshold(ProfilerConfig.JFR_FRAME_THRESHOLD)
+@StackTrace(false)
+public class GameFrameEvent extends jdk.jfr.Event {
+    @Label("Frame")
+    @Description("Frame number since the session started")
+    public long frame;
+
+    @Label("Frame Interval")
+    @Description("Time since the previous frame started")
+    @Timespan
+    public long frameInterval;
+
+    @Label("Allocated")
+    @Description("Bytes allocated by the game thread during the frame (-1 if not measured)")
+    @DataAmount
+    public long allocated;
+}
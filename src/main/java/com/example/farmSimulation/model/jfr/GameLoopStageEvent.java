@@ -0,0 +1,33 @@
+package com.example.farmSimulation.model.jfr;
+
+import com.example.farmSimulation.config.ProfilerConfig;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timespan;
+
+/**
+ * Một giai đoạn của vòng lặp game (FrameProfiler.Stage). Thời lượng sự kiện gồm cả giai đoạn con lồng bên trong,
+ * trường exclusiveTime là phần của riêng giai đoạn này (giống bảng trên lớp phủ F3).
+ */
+@Name("farmSimulation.GameLoopStage")
+@Label("Game Loop Stage")
+@Category({"Farm Simulation", "Game Loop"})
+@Description("Slow stage of the game loop (crops, trees, animals, map redraw...)")
+@Threshold(ProfilerConfig.JFR_STAGE_THRESHOLD)
+@StackTrace(false)
+public class GameLoopStageEvent extends jdk.jfr.Event {
+    @Label("Stage")
+    public String stage;
+
+    @Label("Frame")
+    public long frame;
+
+    @Label("Exclusive Time")
+    @Description("Time spent in this stage excluding nested stages")
+    @Timespan
+    public long exclusiveTime;
+}
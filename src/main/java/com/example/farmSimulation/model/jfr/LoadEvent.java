@@ -0,0 +1,41 @@
+package com.example.farmSimulation.model.jfr;
+
+import com.example.farmSimulation.config.ProfilerConfig;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Một lần đọc file save (kèm phát lại nhật ký). Bản đồ trong region file được tải lười theo chunk sau đó.
+ */
+@Name("farmSimulation.Load")
+@Label("Game Load")
+@Category({"Farm Simulation", "Save"})
+@Description("Save file decode and journal replay")
+@Threshold(ProfilerConfig.JFR_IO_THRESHOLD)
+public class LoadEvent extends jdk.jfr.Event {
+    @Label("File")
+    public String file;
+
+    @Label("Bytes Read")
+    @Description("Size of the save file (region files are read on demand)")
+    @DataAmount
+    public long bytes;
+
+    @Label("Tiles Decoded")
+    public int tilesDecoded;
+
+    @Label("Lazy World")
+    @Description("Map chunks are loaded on demand from region files")
+    public boolean lazyWorld;
+
+    @Label("Journal Records")
+    @Description("Journal records replayed on top of the save")
+    public int journalRecords;
+
+    @Label("Success")
+    public boolean success;
+}
@@ -0,0 +1,33 @@
+package com.example.farmSimulation.model.jfr;
+
+import com.example.farmSimulation.config.ProfilerConfig;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Vẽ lại toàn bộ lưới ô trên màn hình (WorldRenderer.updateMap), không tính các frame chỉ dịch chuyển pixel.
+ */
+@Name("farmSimulation.MapRedraw")
+@Label("Full Map Redraw")
+@Category({"Farm Simulation", "Rendering"})
+@Description("Redraw of every on-screen tile layer")
+@Threshold(ProfilerConfig.JFR_MAP_REDRAW_THRESHOLD)
+@StackTrace(false)
+public class MapRedrawEvent extends jdk.jfr.Event {
+    @Label("Start Column")
+    public int startCol;
+
+    @Label("Start Row")
+    public int startRow;
+
+    @Label("Tiles")
+    public int tiles;
+
+    @Label("Forced")
+    @Description("Redraw requested because map data changed (otherwise the camera moved to a new tile)")
+    public boolean forced;
+}
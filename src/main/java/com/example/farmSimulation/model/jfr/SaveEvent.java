@@ -0,0 +1,38 @@
+package com.example.farmSimulation.model.jfr;
+
+import com.example.farmSimulation.config.ProfilerConfig;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Một lần ghi file save: lưu đầy đủ (file save + region file) hoặc một bản ghi nhật ký.
+ */
+@Name("farmSimulation.Save")
+@Label("Game Save")
+@Category({"Farm Simulation", "Save"})
+@Description("Full save or journal append")
+@Threshold(ProfilerConfig.JFR_IO_THRESHOLD)
+public class SaveEvent extends jdk.jfr.Event {
+    @Label("File")
+    public String file;
+
+    @Label("Kind")
+    @Description("full or journal")
+    public String kind;
+
+    @Label("Bytes Written")
+    @Description("Save file plus region files, or the size of the journal record")
+    @DataAmount
+    public long bytes;
+
+    @Label("Chunks")
+    @Description("Map chunks written to region files (full saves only)")
+    public int chunks;
+
+    @Label("Success")
+    public boolean success;
+}
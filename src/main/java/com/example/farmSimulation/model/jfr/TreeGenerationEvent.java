@@ -0,0 +1,38 @@
+package com.example.farmSimulation.model.jfr;
+
+import com.example.farmSimulation.config.ProfilerConfig;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Một lần sinh cây quanh người chơi của TreeManager: một đơn vị của công việc sinh cây (vài hàng của vùng,
+ * chạy qua FrameScheduler sau khi người chơi đi sang ô mới) hoặc cả vùng khi gọi đồng bộ (benchmark).
+ */
+@Name("farmSimulation.TreeGeneration")
+@Label("Tree Generation Pass")
+@Category({"Farm Simulation", "Simulation"})
+@Description("Procedural tree generation around the player")
+@Threshold(ProfilerConfig.JFR_SIMULATION_THRESHOLD)
+@StackTrace(false)
+public class TreeGenerationEvent extends jdk.jfr.Event {
+    @Label("Center Column")
+    public int centerCol;
+
+    @Label("Center Row")
+    public int centerRow;
+
+    @Label("Radius")
+    @Description("Generation radius in tiles")
+    public int radius;
+
+    @Label("New Tiles")
+    @Description("Tiles considered for the first time (the rest were already generated)")
+    public int newTiles;
+
+    @Label("Trees Spawned")
+    public int treesSpawned;
+}
@@ -0,0 +1,64 @@
+package com.example.farmSimulation.tools;
+
+import com.example.farmSimulation.config.SaveConfig;
+import com.example.farmSimulation.model.SaveInspector;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Công cụ dòng lệnh kiểm tra / nén file save mà không cần mở game.
+ *
+ * Chạy: ./gradlew saveTool --args="inspect farm_save.sav"
+ *       ./gradlew saveTool --args="compact farm_save.sav [file kết quả]"
+ *
+ * - inspect: in thống kê (ô theo loại, biểu đồ giai đoạn cây trồng, động vật theo loại, số byte mỗi section).
+ * - compact: gộp nhật ký, bỏ các ô thừa và ghi lại file save (mặc định ghi đè tại chỗ;
+ *   file save cũ .dat mặc định được chuyển thành farm_save.sav bên cạnh nó).
+ */
+public class SaveTool {
+
+    public static void main(String[] args) {
+        if (args.length < 2 || !(args[0].equals("inspect") || args[0].equals("compact"))) {
+            printUsage();
+            System.exit(2);
+        }
+
+        Path saveFile = Paths.get(args[1]);
+        if (!Files.exists(saveFile)) {
+            System.err.println("Save file not found: " + saveFile.toAbsolutePath());
+            System.exit(1);
+        }
+
+        try {
+            if (args[0].equals("inspect")) {
+                SaveInspector.inspect(saveFile).print(System.out);
+                return;
+            }
+
+            Path outputFile = args.length > 2 ? Paths.get(args[2])
+                    : SaveInspector.isLegacySave(saveFile) ? saveFile.resolveSibling(SaveConfig.SAVE_FILE_NAME) : saveFile;
+            long before = SaveInspector.inspect(saveFile).totalBytes();
+            long stripped = SaveInspector.compact(saveFile, outputFile);
+
+            SaveInspector.Report after = SaveInspector.inspect(outputFile);
+            System.out.println();
+            after.print(System.out);
+            System.out.println();
+            System.out.printf("Compacted %s -> %s: removed %d redundant tiles, %d -> %d bytes (%.1f%%)%n",
+                    saveFile, outputFile, stripped, before, after.totalBytes(),
+                    before > 0 ? (after.totalBytes() - before) * 100.0 / before : 0);
+        } catch (Exception e) {
+            e.printStackTrace();
+            System.err.println("Failed to " + args[0] + " " + saveFile);
+            System.exit(1);
+        }
+    }
+
+    private static void printUsage() {
+        System.out.println("Usage:");
+        System.out.println("  inspect <save file>                 Print statistics without loading the game");
+        System.out.println("  compact <save file> [output file]   Fold the journal, drop redundant tiles and rewrite the save");
+    }
+}
@@ -1,32 +1,65 @@
 package com.example.farmSimulation.view;
 
+import com.example.farmSimulation.config.AssetConfig;
+import com.example.farmSimulation.config.SaveConfig;
 import com.example.farmSimulation.config.SettingsMenuConfig;
 import com.example.farmSimulation.config.WindowConfig;
 import com.example.farmSimulation.model.SaveManager;
+import com.example.farmSimulation.model.SaveSlotIndex;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
+import javafx.scene.Node;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.control.TextField;
+import javafx.scene.control.ToggleButton;
+import javafx.scene.control.ToggleGroup;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
 import javafx.scene.layout.*;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
 
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
 import java.util.function.BiConsumer;
+import java.util.function.IntConsumer;
 
 /**
  * Màn hình tạo nhân vật, cho phép người chơi thiết lập thông tin ban đầu trước khi vào game.
+ * Bên cạnh là danh sách khe lưu để chọn khe cho game mới hoặc tải game đã lưu.
  */
 public class CharacterCreationView {
     private final VBox root;
     private final TextField nameField;
     private final ComboBox<String> genderComboBox;
     private final Label errorLabel;
+    private final Button startButton;
+    private final Button loadButton;
+    private final ToggleGroup slotGroup;                   // Các khe lưu, luôn có đúng một khe được chọn
+    private final List<SaveSlotIndex.SlotInfo> slots;      // Thông tin khe lưu đọc từ chỉ mục
+    private boolean assetsReady = true;                    // Tài nguyên đã tải xong (hoặc chưa bắt đầu tải)
+    private boolean loadingSave = false;                   // Đang đọc file save trên luồng nền
+    private final ProgressBar loadingBar; // Tiến trình tải tài nguyên nền
+    private final Label loadingLabel;
     private BiConsumer<String, String> onStartGameCallback; // Callback xử lý khi bắt đầu game mới, nhận vào tên và giới tính
-    private Runnable onLoadGameCallback; // Callback xử lý việc tải game từ file lưu trữ
+    private IntConsumer onLoadGameCallback; // Callback xử lý việc tải game từ khe lưu, nhận vào số khe
+
+    private static final DateTimeFormatter LAST_PLAYED_FORMAT = DateTimeFormatter.ofPattern(SaveConfig.SAVE_SLOT_DATE_FORMAT);
+    private static final String LOAD_BUTTON_STYLE = "-fx-background-color: #2196F3; -fx-text-fill: white; -fx-background-radius: 5;";
+    private static final String LOAD_BUTTON_HOVER_STYLE = "-fx-background-color: #1976D2; -fx-text-fill: white; -fx-background-radius: 5;";
+    private static final String LOAD_BUTTON_DISABLED_STYLE = "-fx-background-color: #9E9E9E; -fx-text-fill: white; -fx-background-radius: 5;";
+    private static final String SLOT_STYLE = "-fx-background-color: rgba(255, 255, 255, 0.08); -fx-background-radius: 8; -fx-padding: 8;"
+            + " -fx-border-color: transparent; -fx-border-width: 2; -fx-border-radius: 8;";
+    private static final String SLOT_SELECTED_STYLE = "-fx-background-color: rgba(76, 175, 80, 0.25); -fx-background-radius: 8; -fx-padding: 8;"
+            + " -fx-border-color: #4CAF50; -fx-border-width: 2; -fx-border-radius: 8;";
 
     public CharacterCreationView() {
         // Container gốc chứa toàn bộ giao diện
@@ -116,7 +149,7 @@ public class CharacterCreationView {
         errorLabel.setWrapText(true);
 
         // Nút bắt đầu trò chơi mới
-        Button startButton = new Button(SettingsMenuConfig.START_NEW_GAME_TEXT);
+        startButton = new Button(SettingsMenuConfig.START_NEW_GAME_TEXT);
         startButton.setPrefWidth(200);
         startButton.setPrefHeight(45);
         startButton.setFont(Font.font("Arial", FontWeight.BOLD, 18));
@@ -144,28 +177,47 @@ public class CharacterCreationView {
             }
         });
 
-        // Nút tải game đã lưu
-        Button loadButton = new Button(SettingsMenuConfig.LOAD_BUTTON_TEXT);
+        // Nút tải game ở khe lưu đang chọn
+        loadButton = new Button(SettingsMenuConfig.LOAD_BUTTON_TEXT);
         loadButton.setPrefWidth(200);
         loadButton.setPrefHeight(45);
         loadButton.setFont(Font.font("Arial", FontWeight.BOLD, 18));
+        loadButton.setOnMouseEntered(e -> { if (!loadButton.isDisabled()) loadButton.setStyle(LOAD_BUTTON_HOVER_STYLE); });
+        loadButton.setOnMouseExited(e -> updateButtons());
+        loadButton.setOnAction(e -> {
+            if (onLoadGameCallback != null && getSelectedSlotInfo().hasSave) {
+                onLoadGameCallback.accept(getSelectedSlot());
+            }
+        });
 
-        // Kiểm tra sự tồn tại của file lưu trữ để kích hoạt hoặc vô hiệu hóa nút tải game
-        if (SaveManager.hasSaveFile()) {
-            loadButton.setStyle("-fx-background-color: #2196F3; -fx-text-fill: white; -fx-background-radius: 5;");
-            loadButton.setOnMouseEntered(e -> loadButton.setStyle("-fx-background-color: #1976D2; -fx-text-fill: white; -fx-background-radius: 5;"));
-            loadButton.setOnMouseExited(e -> loadButton.setStyle("-fx-background-color: #2196F3; -fx-text-fill: white; -fx-background-radius: 5;"));
-            loadButton.setOnAction(e -> {
-                if (onLoadGameCallback != null) {
-                    onLoadGameCallback.run();
-                }
-            });
-        } else {
-            loadButton.setStyle("-fx-background-color: #9E9E9E; -fx-text-fill: white; -fx-background-radius: 5;");
-            // Vô hiệu hóa nút nếu không tìm thấy dữ liệu lưu trữ
-            loadButton.setDisable(true);
-            loadButton.setText("NO SAVE FOUND");
+        // Danh sách khe lưu: chỉ đọc file chỉ mục nhỏ, không giải mã file save nào nên menu hiện ra ngay
+        slotGroup = new ToggleGroup();
+        slots = SaveManager.listSlots();
+        VBox slotList = new VBox(10);
+        slotList.setAlignment(Pos.TOP_CENTER);
+        SaveSlotIndex.SlotInfo defaultSlot = slots.get(0);
+        for (SaveSlotIndex.SlotInfo info : slots) {
+            ToggleButton slotButton = createSlotButton(info);
+            slotList.getChildren().add(slotButton);
+            // Mặc định chọn khe chơi gần nhất
+            if (info.hasSave && (!defaultSlot.hasSave || info.lastPlayedMillis > defaultSlot.lastPlayedMillis)) {
+                defaultSlot = info;
+            }
         }
+        slotGroup.getToggles().get(slots.indexOf(defaultSlot)).setSelected(true);
+        // Luôn giữ một khe được chọn (bấm lại khe đang chọn không bỏ chọn)
+        slotGroup.selectedToggleProperty().addListener((obs, oldToggle, newToggle) -> {
+            if (newToggle == null && oldToggle != null) oldToggle.setSelected(true);
+            updateButtons();
+        });
+
+        // Thanh tiến trình tải tài nguyên (ẩn khi tài nguyên đã sẵn sàng)
+        loadingLabel = new Label();
+        loadingLabel.setTextFill(Color.WHITE);
+        loadingLabel.setFont(Font.font("Arial", 14));
+        loadingBar = new ProgressBar(0);
+        loadingBar.setPrefWidth(AssetConfig.LOADING_BAR_WIDTH);
+        setLoadingVisible(false);
 
         // Thêm các thành phần giao diện vào form
         formBox.getChildren().addAll(
@@ -173,11 +225,103 @@ public class CharacterCreationView {
                 genderLabel, genderComboBox,
                 errorLabel,
                 startButton,
-                loadButton // Thêm nút tải game vào danh sách hiển thị
+                loadingLabel, loadingBar
         );
 
-        // Thêm tiêu đề và form vào container gốc
-        root.getChildren().addAll(titleLabel, formBox);
+        // Khung khe lưu nằm cạnh form
+        Label slotTitleLabel = new Label(SaveConfig.SAVE_SLOT_TITLE_TEXT);
+        slotTitleLabel.setFont(Font.font("Arial", FontWeight.BOLD, 18));
+        slotTitleLabel.setTextFill(Color.WHITE);
+
+        VBox slotBox = new VBox(15, slotTitleLabel, slotList, loadButton);
+        slotBox.setAlignment(Pos.CENTER);
+        slotBox.setMaxWidth(420);
+        slotBox.setPadding(new Insets(30));
+        slotBox.setStyle("-fx-background-color: rgba(0, 0, 0, 0.5); -fx-background-radius: 15;");
+
+        HBox contentBox = new HBox(30, formBox, slotBox);
+        contentBox.setAlignment(Pos.CENTER);
+
+        // Thêm tiêu đề và nội dung vào container gốc
+        root.getChildren().addAll(titleLabel, contentBox);
+        updateButtons();
+    }
+
+    /**
+     * Tạo nút chọn một khe lưu: ảnh thu nhỏ nông trại và thông tin tóm tắt lấy từ chỉ mục.
+     */
+    private ToggleButton createSlotButton(SaveSlotIndex.SlotInfo info) {
+        Label titleLabel = new Label(SaveConfig.SAVE_SLOT_LABEL_PREFIX + info.slot
+                + (info.hasSave && info.playerName != null ? " - " + info.playerName : ""));
+        titleLabel.setFont(Font.font("Arial", FontWeight.BOLD, 16));
+        titleLabel.setTextFill(Color.WHITE);
+
+        VBox textBox = new VBox(3, titleLabel);
+        textBox.setAlignment(Pos.CENTER_LEFT);
+        if (!info.hasSave) {
+            textBox.getChildren().add(createSlotDetailLabel(SaveConfig.SAVE_SLOT_EMPTY_TEXT));
+        } else if (info.isDetailsMissing()) {
+            textBox.getChildren().add(createSlotDetailLabel(SaveConfig.SAVE_SLOT_NO_DETAILS_TEXT));
+        } else {
+            textBox.getChildren().addAll(
+                    createSlotDetailLabel(String.format("Day %d  |  $%,.0f  |  %d chunks", info.day, info.money, info.farmChunks)),
+                    createSlotDetailLabel("Last played: " + LAST_PLAYED_FORMAT.format(
+                            Instant.ofEpochMilli(info.lastPlayedMillis).atZone(ZoneId.systemDefault())))
+            );
+        }
+
+        HBox content = new HBox(12, createThumbnail(info), textBox);
+        content.setAlignment(Pos.CENTER_LEFT);
+
+        ToggleButton button = new ToggleButton();
+        button.setGraphic(content);
+        button.setToggleGroup(slotGroup);
+        button.setUserData(info);
+        button.setPrefWidth(360);
+        button.setAlignment(Pos.CENTER_LEFT);
+        button.setStyle(SLOT_STYLE);
+        button.selectedProperty().addListener((obs, wasSelected, isSelected) ->
+                button.setStyle(isSelected ? SLOT_SELECTED_STYLE : SLOT_STYLE));
+        return button;
+    }
+
+    private static Label createSlotDetailLabel(String text) {
+        Label label = new Label(text);
+        label.setFont(Font.font("Arial", 13));
+        label.setTextFill(Color.LIGHTGRAY);
+        label.setWrapText(true);
+        return label;
+    }
+
+    /**
+     * Dựng ảnh thu nhỏ từ các loại điểm ảnh trong chỉ mục (khe trống / chưa có ảnh: ô màu nền).
+     */
+    private static Node createThumbnail(SaveSlotIndex.SlotInfo info) {
+        double displaySize = SaveConfig.SAVE_THUMBNAIL_DISPLAY_SIZE;
+        if (info.thumbnail == null || info.thumbnailSize <= 0) {
+            Region placeholder = new Region();
+            placeholder.setMinSize(displaySize, displaySize);
+            placeholder.setMaxSize(displaySize, displaySize);
+            placeholder.setStyle("-fx-background-color: rgba(255, 255, 255, 0.1); -fx-background-radius: 5;");
+            return placeholder;
+        }
+
+        int size = info.thumbnailSize;
+        WritableImage image = new WritableImage(size, size);
+        PixelWriter pixelWriter = image.getPixelWriter();
+        int[] colors = SaveConfig.SAVE_THUMBNAIL_COLORS;
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                int pixel = info.thumbnail[y * size + x];
+                pixelWriter.setArgb(x, y, pixel >= 0 && pixel < colors.length ? colors[pixel] : colors[0]);
+            }
+        }
+
+        ImageView imageView = new ImageView(image);
+        imageView.setSmooth(false); // Giữ các điểm ảnh sắc nét khi phóng to
+        imageView.setFitWidth(displaySize);
+        imageView.setFitHeight(displaySize);
+        return imageView;
     }
 
     /**
@@ -191,11 +335,94 @@ public class CharacterCreationView {
 
     /**
      * Thiết lập hành động sẽ được thực thi khi người chơi nhấn nút tải game.
+     * Callback nhận vào số khe lưu được chọn.
      */
-    public void setOnLoadGame(Runnable callback) {
+    public void setOnLoadGame(IntConsumer callback) {
         this.onLoadGameCallback = callback;
     }
 
+    /**
+     * Khe lưu đang được chọn (game mới cũng được lưu vào khe này).
+     */
+    public int getSelectedSlot() {
+        return getSelectedSlotInfo().slot;
+    }
+
+    private SaveSlotIndex.SlotInfo getSelectedSlotInfo() {
+        return (SaveSlotIndex.SlotInfo) slotGroup.getSelectedToggle().getUserData();
+    }
+
+    /**
+     * Đang đọc file save trên luồng nền: khóa các nút và hiện thanh tiến trình không xác định.
+     */
+    public void showSaveLoading() {
+        loadingSave = true;
+        updateButtons();
+        errorLabel.setVisible(false);
+        setLoadingVisible(true);
+        loadingLabel.setTextFill(Color.WHITE);
+        loadingLabel.setText(SaveConfig.SAVE_SLOT_LOADING_TEXT);
+        loadingBar.setProgress(ProgressBar.INDETERMINATE_PROGRESS);
+    }
+
+    /**
+     * Đọc file save thất bại: mở khóa các nút và báo lỗi.
+     */
+    public void showSaveLoadFailed() {
+        loadingSave = false;
+        setLoadingVisible(false);
+        updateButtons();
+        errorLabel.setText(SaveConfig.SAVE_SLOT_LOAD_FAILED_TEXT);
+        errorLabel.setVisible(true);
+    }
+
+    /**
+     * Cập nhật tiến trình tải tài nguyên. Trong lúc tải, người chơi vẫn có thể nhập tên
+     * nhưng các nút vào game bị khóa cho tới khi tài nguyên sẵn sàng.
+     * @param progress Tiến trình từ 0.0 đến 1.0
+     */
+    public void setLoadingProgress(double progress) {
+        setLoadingVisible(true);
+        assetsReady = false;
+        updateButtons();
+        loadingBar.setProgress(progress);
+        loadingLabel.setText(AssetConfig.LOADING_TEXT + (int) (progress * 100) + "%");
+    }
+
+    /**
+     * Đánh dấu tài nguyên đã tải xong: ẩn thanh tiến trình và mở khóa các nút.
+     * @param success false nếu có tài nguyên tải thất bại (vẫn cho phép vào game)
+     */
+    public void setAssetsLoaded(boolean success) {
+        assetsReady = true;
+        updateButtons();
+        if (success) {
+            setLoadingVisible(false);
+        } else {
+            loadingBar.setVisible(false);
+            loadingBar.setManaged(false);
+            loadingLabel.setTextFill(Color.RED);
+            loadingLabel.setText(AssetConfig.LOADING_FAILED_TEXT);
+        }
+    }
+
+    /**
+     * Bật / tắt các nút theo trạng thái tải tài nguyên, trạng thái đọc save và khe đang chọn.
+     */
+    private void updateButtons() {
+        startButton.setDisable(!assetsReady || loadingSave);
+        boolean canLoad = assetsReady && !loadingSave && getSelectedSlotInfo().hasSave;
+        loadButton.setDisable(!canLoad);
+        loadButton.setStyle(canLoad ? LOAD_BUTTON_STYLE : LOAD_BUTTON_DISABLED_STYLE);
+    }
+
+    private void setLoadingVisible(boolean visible) {
+        loadingLabel.setVisible(visible);
+        loadingLabel.setManaged(visible);
+        loadingBar.setVisible(visible);
+        loadingBar.setManaged(visible);
+    }
+
     /**
      * Tạo đối tượng Scene từ giao diện hiện tại.
      * @return Scene chứa CharacterCreationView
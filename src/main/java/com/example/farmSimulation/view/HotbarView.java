@@ -2,7 +2,6 @@ package com.example.farmSimulation.view;
 
 import com.example.farmSimulation.config.HotbarConfig;
 import com.example.farmSimulation.config.WindowConfig;
-import com.example.farmSimulation.model.CropType;
 import com.example.farmSimulation.model.ItemStack;
 import com.example.farmSimulation.model.ItemType;
 import com.example.farmSimulation.model.Player;
@@ -18,8 +17,6 @@ import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
 import javafx.scene.text.Text;
 
-import java.util.EnumMap;
-import java.util.Map;
 import java.util.function.BiConsumer;
 
 /**
@@ -42,9 +39,6 @@ public class HotbarView extends Pane {
     // Hình chữ nhật hiển thị ô đang được chọn
     private final Rectangle slotSelector;
 
-    // Bản đồ lưu trữ hình ảnh texture cho từng loại vật phẩm để truy xuất nhanh
-    private final Map<ItemType, Image> itemTextureMap;
-
     // Nhãn hiển thị tên vật phẩm đang cầm trên tay (nằm giữa HUD, phía trên hotbar)
     private final Text itemNameLabel;
 
@@ -76,7 +70,6 @@ public class HotbarView extends Pane {
     public HotbarView(Player player, ImageManager assetManager) {
         this.player = player;
         this.assetManager = assetManager;
-        this.itemTextureMap = new EnumMap<>(ItemType.class);
         this.slots = new StackPane[HotbarConfig.HOTBAR_SLOT_COUNT];
 
         // Khởi tạo Ghost Icon (mặc định ẩn và không nhận sự kiện chuột)
@@ -85,9 +78,6 @@ public class HotbarView extends Pane {
         this.ghostIcon.setVisible(false);
         // Ghost icon sẽ được thêm vào Pane cuối cùng để đảm bảo nó luôn nằm trên các thành phần khác
 
-        // Tải trước hình ảnh cho các vật phẩm
-        loadItemTextures(assetManager);
-
         // Khởi tạo các ô slot
         for (int i = 0; i < HotbarConfig.HOTBAR_SLOT_COUNT; i++) {
             StackPane slot = new StackPane();
@@ -420,7 +410,8 @@ public class HotbarView extends Pane {
             Text qtyLabel = (Text) slots[i].getChildren().get(5);
 
             if (stack != null) {
-                icon.setImage(itemTextureMap.get(stack.getItemType()));
+                // Lấy icon qua bộ đệm texture hợp nhất của ImageManager (không giữ bản sao riêng)
+                icon.setImage(assetManager.getItemIcon(stack.getItemType()));
                 icon.setVisible(true);
 
                 // Xử lý hiển thị thanh độ bền
@@ -475,56 +466,6 @@ public class HotbarView extends Pane {
     // TẢI TÀI NGUYÊN & TIỆN ÍCH (ASSET LOADING & HELPERS)
     // ==============================================================================================
 
-    /**
-     * Tải và cache toàn bộ hình ảnh vật phẩm từ AssetManager vào map nội bộ.
-     */
-    private void loadItemTextures(ImageManager assetManager) {
-        // Tận dụng hàm getItemIcon tập trung của ImageManager để lấy hình ảnh chuẩn
-        ItemType[] basicItems = {
-                ItemType.HOE, ItemType.WATERING_CAN, ItemType.PICKAXE, ItemType.SHOVEL,
-                ItemType.FERTILIZER, ItemType.AXE, ItemType.SWORD, ItemType.SHEARS,
-                ItemType.MILK_BUCKET, ItemType.FULL_MILK_BUCKET, ItemType.MEAT_CHICKEN,
-                ItemType.MEAT_COW, ItemType.MEAT_PIG, ItemType.MEAT_SHEEP, ItemType.EGG,
-                ItemType.WOOL, ItemType.ENERGY_DRINK, ItemType.SUPER_FEED, ItemType.WOOD,
-                ItemType.ITEM_COW, ItemType.ITEM_CHICKEN, ItemType.ITEM_SHEEP, ItemType.ITEM_PIG
-        };
-
-        for (ItemType type : basicItems) {
-            cacheItemSprite(type, assetManager.getItemIcon(type));
-        }
-
-        // Tải ảnh các loại hạt giống
-        cacheItemSprite(ItemType.SEEDS_STRAWBERRY, assetManager.getSeedIcon(CropType.STRAWBERRY));
-        cacheItemSprite(ItemType.SEEDS_DAIKON, assetManager.getSeedIcon(CropType.DAIKON));
-        cacheItemSprite(ItemType.SEEDS_POTATO, assetManager.getSeedIcon(CropType.POTATO));
-        cacheItemSprite(ItemType.SEEDS_CARROT, assetManager.getSeedIcon(CropType.CARROT));
-        cacheItemSprite(ItemType.SEEDS_WATERMELON, assetManager.getSeedIcon(CropType.WATERMELON));
-        cacheItemSprite(ItemType.SEEDS_TOMATO, assetManager.getSeedIcon(CropType.TOMATO));
-        cacheItemSprite(ItemType.SEEDS_WHEAT, assetManager.getSeedIcon(CropType.WHEAT));
-        cacheItemSprite(ItemType.SEEDS_CORN, assetManager.getSeedIcon(CropType.CORN));
-        cacheItemSprite(ItemType.SEEDS_TREE, assetManager.getTreeSeedIcon());
-
-        // Tải ảnh các sản phẩm thu hoạch
-        cacheItemSprite(ItemType.STRAWBERRY, assetManager.getHarvestIcon(CropType.STRAWBERRY));
-        cacheItemSprite(ItemType.DAIKON, assetManager.getHarvestIcon(CropType.DAIKON));
-        cacheItemSprite(ItemType.POTATO, assetManager.getHarvestIcon(CropType.POTATO));
-        cacheItemSprite(ItemType.CARROT, assetManager.getHarvestIcon(CropType.CARROT));
-        cacheItemSprite(ItemType.WATERMELON, assetManager.getHarvestIcon(CropType.WATERMELON));
-        cacheItemSprite(ItemType.TOMATO, assetManager.getHarvestIcon(CropType.TOMATO));
-        cacheItemSprite(ItemType.WHEAT, assetManager.getHarvestIcon(CropType.WHEAT));
-        cacheItemSprite(ItemType.CORN, assetManager.getHarvestIcon(CropType.CORN));
-    }
-
-    /**
-     * Lưu trữ hình ảnh vào map nội bộ và đồng bộ lại với ImageManager.
-     */
-    private void cacheItemSprite(ItemType type, Image icon) {
-        if (icon != null) {
-            itemTextureMap.put(type, icon);
-            assetManager.cacheItemIcon(type, icon);
-        }
-    }
-
     /**
      * Xác định xem chuột có đang nằm trên slot nào của hotbar không.
      * Sử dụng tọa độ cục bộ của HotbarView.
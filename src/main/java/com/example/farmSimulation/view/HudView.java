@@ -2,13 +2,18 @@ package com.example.farmSimulation.view;
 
 import com.example.farmSimulation.config.GameLogicConfig;
 import com.example.farmSimulation.config.HudConfig;
+import com.example.farmSimulation.config.ProfilerConfig;
 import com.example.farmSimulation.config.WindowConfig;
 import com.example.farmSimulation.config.WorldConfig;
+import com.example.farmSimulation.model.FrameProfiler;
 import com.example.farmSimulation.model.GameManager;
+import com.example.farmSimulation.model.MetricsRegistry;
 import com.example.farmSimulation.view.assets.ImageManager;
 import javafx.animation.FadeTransition;
 import javafx.animation.PauseTransition;
 import javafx.animation.SequentialTransition;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.control.Label;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
@@ -17,12 +22,15 @@ import javafx.geometry.Pos;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Pane;
 import javafx.scene.layout.StackPane;
+import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Rectangle;
 import javafx.scene.text.Text;
 import javafx.scene.text.TextAlignment;
 import javafx.util.Duration;
 
+import java.util.Locale;
+
 /**
  * Lớp HudView quản lý lớp giao diện hiển thị thông tin trên màn hình (Heads-Up Display).
  * Bao gồm các thanh trạng thái, đồng hồ, thông tin tiền tệ và các nút chức năng.
@@ -63,6 +71,12 @@ public class HudView extends Pane {
     private final HBox coordsContainer; // Container nền mờ cho tọa độ
     private boolean showCoordinates = HudConfig.DEFAULT_SHOW_COORDINATES;
 
+    // Giá trị đang hiển thị: chỉ tạo chuỗi mới khi giá trị thay đổi (hàm cập nhật chạy mỗi frame)
+    private int displayedLevel = -1;
+    private int displayedTileX = Integer.MIN_VALUE;
+    private int displayedTileY = Integer.MIN_VALUE;
+    private int displayedMoney = Integer.MIN_VALUE;
+
     // --- Khu vực Góc Phải-Trên & Các nút chức năng ---
     private final Label dayLabel;   // Nhãn hiển thị Ngày
     private final Label timerLabel; // Nhãn hiển thị Giờ
@@ -87,6 +101,16 @@ public class HudView extends Pane {
     private final Text temporaryText;        // Text hiển thị thông báo tạm thời
     private SequentialTransition temporaryTextAnimation; // Animation cho text tạm thời
 
+    // --- Lớp phủ Profiler (thời gian frame theo từng hệ thống) ---
+    private final VBox profilerOverlay;
+    private final Label profilerTableLabel; // Bảng p50 / p95 / p99 / max
+    private final Canvas profilerGraph;     // Biểu đồ thời gian xử lý từng frame
+    private long lastProfilerRefresh = 0;   // Thời điểm (nano giây) lần cập nhật lớp phủ gần nhất
+
+    // --- Bảng chỉ số (MetricsRegistry) ---
+    private final Label metricsPanel;
+    private long lastMetricsRefresh = 0;
+
     // ==============================================================================================
     // KHỞI TẠO (CONSTRUCTOR)
     // ==============================================================================================
@@ -324,6 +348,26 @@ public class HudView extends Pane {
         temporaryText.setOpacity(0);
         temporaryText.setManaged(false);
 
+        // Lớp phủ Profiler (ẩn mặc định, bật bằng F3)
+        profilerTableLabel = new Label();
+        profilerTableLabel.setStyle(HudConfig.PROFILER_TEXT_STYLE);
+        profilerGraph = new Canvas(HudConfig.PROFILER_GRAPH_WIDTH, HudConfig.PROFILER_GRAPH_HEIGHT);
+        profilerOverlay = new VBox(HudConfig.PROFILER_OVERLAY_SPACING, profilerTableLabel, profilerGraph);
+        profilerOverlay.setStyle(HudConfig.PROFILER_OVERLAY_STYLE);
+        profilerOverlay.setLayoutX(HudConfig.PROFILER_OVERLAY_X);
+        profilerOverlay.setLayoutY(HudConfig.PROFILER_OVERLAY_Y);
+        profilerOverlay.setMouseTransparent(true);
+        profilerOverlay.setVisible(false);
+
+        // Bảng chỉ số (ẩn mặc định, bật bằng F7)
+        metricsPanel = new Label();
+        metricsPanel.setStyle(HudConfig.PROFILER_OVERLAY_STYLE + HudConfig.PROFILER_TEXT_STYLE);
+        metricsPanel.setPrefWidth(HudConfig.METRICS_PANEL_WIDTH);
+        metricsPanel.setLayoutX(HudConfig.METRICS_PANEL_X);
+        metricsPanel.setLayoutY(HudConfig.METRICS_PANEL_Y);
+        metricsPanel.setMouseTransparent(true);
+        metricsPanel.setVisible(false);
+
         // Lớp phủ màu đen
         this.darknessOverlay = new Rectangle(WindowConfig.SCREEN_WIDTH, WindowConfig.SCREEN_HEIGHT);
         this.darknessOverlay.setFill(Color.BLACK);
@@ -344,6 +388,8 @@ public class HudView extends Pane {
                 shopIconButtonPane,
                 trashIconButtonPane,
                 settingsIconButtonPane,
+                profilerOverlay,
+                metricsPanel,
                 temporaryText
         );
 
@@ -449,7 +495,10 @@ public class HudView extends Pane {
         var player = gameManager.getMainPlayer();
 
         // Cập nhật Level
-        levelLabel.setText(HudConfig.LEVEL_TEXT_PREFIX + player.getLevel());
+        if (player.getLevel() != displayedLevel) {
+            displayedLevel = player.getLevel();
+            levelLabel.setText(HudConfig.LEVEL_TEXT_PREFIX + displayedLevel);
+        }
 
         // Cập nhật Thanh Kinh nghiệm
         double xpProgress = 0.0;
@@ -484,7 +533,11 @@ public class HudView extends Pane {
             // Để hiển thị tọa độ theo trục Y hướng từ dưới lên (logic game thông thường), ta cần đảo dấu giá trị này.
             int tileY = -(int) Math.floor(player.getTileY() / WorldConfig.TILE_SIZE);
 
-            coordsLabel.setText(String.format(HudConfig.COORDS_FORMAT, tileX, tileY));
+            if (tileX != displayedTileX || tileY != displayedTileY) {
+                displayedTileX = tileX;
+                displayedTileY = tileY;
+                coordsLabel.setText(String.format(HudConfig.COORDS_FORMAT, tileX, tileY));
+            }
         }
     }
 
@@ -518,7 +571,10 @@ public class HudView extends Pane {
      * Cập nhật số tiền hiển thị.
      */
     public void updateMoney(double amount) {
-        this.moneyLabel.setText(HudConfig.MONEY_PREFIX + (int)amount);
+        int money = (int) amount;
+        if (money == displayedMoney) return;
+        displayedMoney = money;
+        this.moneyLabel.setText(HudConfig.MONEY_PREFIX + money);
     }
 
     /**
@@ -561,6 +617,130 @@ public class HudView extends Pane {
         temporaryTextAnimation.play();
     }
 
+    // ==============================================================================================
+    // LỚP PHỦ PROFILER
+    // ==============================================================================================
+
+    /**
+     * Cập nhật bảng thống kê và biểu đồ thời gian frame. Được gọi mỗi frame nhưng chỉ tính lại
+     * sau mỗi PROFILER_OVERLAY_REFRESH_MS, và không làm gì khi lớp phủ đang ẩn.
+     */
+    public void updateProfilerOverlay(FrameProfiler profiler, long now) {
+        if (!profilerOverlay.isVisible() || !profiler.isEnabled()) return;
+        if (now - lastProfilerRefresh < HudConfig.PROFILER_OVERLAY_REFRESH_MS * 1_000_000L) return;
+        lastProfilerRefresh = now;
+
+        FrameProfiler.Recording recording = profiler.snapshot();
+        StringBuilder table = new StringBuilder();
+        table.append(String.format(Locale.ROOT, "%-17s%7s%7s%7s%7s%n", "ms (" + recording.frameCount() + " frames)", "p50", "p95", "p99", "max"));
+        for (FrameProfiler.Stage stage : FrameProfiler.Stage.values()) {
+            appendProfilerRow(table, stage.getLabel(), recording.stage(stage));
+        }
+        appendProfilerRow(table, "Other", recording.other());
+        appendProfilerRow(table, "Update total", recording.update());
+        appendProfilerRow(table, "Frame interval", recording.interval());
+
+        double[] interval = FrameProfiler.Recording.summaryMs(recording.interval());
+        table.append(String.format(Locale.ROOT, "FPS %.0f (p50)", interval[0] > 0 ? 1000.0 / interval[0] : 0));
+
+        // Cấp phát bộ nhớ trên luồng game (nguồn gốc của các lần GC gây giật)
+        double allocationRate = recording.allocationRate();
+        if (allocationRate >= 0) {
+            double[] allocated = FrameProfiler.Recording.summary(recording.allocated(), 1024.0);
+            table.append(String.format(Locale.ROOT, "%n%-17s%7.1f%7.1f%7.1f%7.1f%nAlloc rate %.2f MB/s",
+                    "Alloc KB/frame", allocated[0], allocated[1], allocated[2], allocated[3], allocationRate / (1024 * 1024)));
+        }
+        profilerTableLabel.setText(table.toString());
+
+        drawProfilerGraph(recording.update());
+    }
+
+    private void appendProfilerRow(StringBuilder table, String label, long[] samples) {
+        double[] summary = FrameProfiler.Recording.summaryMs(samples);
+        table.append(String.format(Locale.ROOT, "%-17s%7.2f%7.2f%7.2f%7.2f%n", label, summary[0], summary[1], summary[2], summary[3]));
+    }
+
+    /**
+     * Vẽ mỗi frame một cột (chiều cao theo thời gian xử lý), cột vượt ngân sách tô màu đỏ, kèm vạch ngân sách.
+     */
+    private void drawProfilerGraph(long[] updateNanos) {
+        GraphicsContext gc = profilerGraph.getGraphicsContext2D();
+        double width = profilerGraph.getWidth();
+        double height = profilerGraph.getHeight();
+        gc.clearRect(0, 0, width, height);
+        gc.setFill(HudConfig.PROFILER_GRAPH_BG_COLOR);
+        gc.fillRect(0, 0, width, height);
+
+        int frames = updateNanos.length;
+        if (frames > 0) {
+            double barWidth = width / ProfilerConfig.FRAME_PROFILER_WINDOW;
+            double startX = width - frames * barWidth; // Frame mới nhất nằm sát mép phải
+            for (int f = 0; f < frames; f++) {
+                double ms = updateNanos[f] / 1_000_000.0;
+                double barHeight = Math.min(height, ms / HudConfig.PROFILER_GRAPH_MAX_MS * height);
+                gc.setFill(ms > ProfilerConfig.FRAME_BUDGET_MS ? HudConfig.PROFILER_GRAPH_OVER_BUDGET_COLOR : HudConfig.PROFILER_GRAPH_BAR_COLOR);
+                gc.fillRect(startX + f * barWidth, height - barHeight, Math.max(1, barWidth), barHeight);
+            }
+        }
+
+        double budgetY = height - ProfilerConfig.FRAME_BUDGET_MS / HudConfig.PROFILER_GRAPH_MAX_MS * height;
+        gc.setStroke(HudConfig.PROFILER_GRAPH_BUDGET_LINE_COLOR);
+        gc.setLineWidth(1);
+        gc.strokeLine(0, budgetY, width, budgetY);
+    }
+
+    public void toggleProfilerOverlay() {
+        setProfilerOverlayVisible(!profilerOverlay.isVisible());
+    }
+
+    public void setProfilerOverlayVisible(boolean visible) {
+        profilerOverlay.setVisible(visible);
+        lastProfilerRefresh = 0; // Cập nhật ngay ở frame kế tiếp
+    }
+
+    public boolean isProfilerOverlayVisible() {
+        return profilerOverlay.isVisible();
+    }
+
+    // ==============================================================================================
+    // BẢNG CHỈ SỐ
+    // ==============================================================================================
+
+    /**
+     * Hiển thị giá trị hiện tại của mọi chỉ số. Chỉ làm mới sau mỗi METRICS_PANEL_REFRESH_MS và khi bảng đang hiện.
+     * Phân phối được tóm tắt thành số mẫu, trung bình và p50 / p95 ước lượng theo ngăn.
+     */
+    public void updateMetricsPanel(MetricsRegistry registry, long now) {
+        if (!metricsPanel.isVisible()) return;
+        if (now - lastMetricsRefresh < HudConfig.METRICS_PANEL_REFRESH_MS * 1_000_000L) return;
+        lastMetricsRefresh = now;
+
+        StringBuilder text = new StringBuilder();
+        for (MetricsRegistry.Metric metric : registry.getMetrics()) {
+            String key = metric.getLabels().isEmpty() ? metric.getName()
+                    : metric.getName() + " " + metric.getLabels().replace("\"", "");
+            if (metric instanceof MetricsRegistry.Counter counter) {
+                text.append(String.format(Locale.ROOT, "%-36s%12d%n", key, counter.get()));
+            } else if (metric instanceof MetricsRegistry.Gauge gauge) {
+                if (gauge.get() == 0 && !metric.getLabels().isEmpty()) continue; // Ẩn các nhãn đang bằng 0 (vd: loại vật nuôi không có)
+                text.append(String.format(Locale.ROOT, "%-36s%12.1f%n", key, gauge.get()));
+            } else if (metric instanceof MetricsRegistry.Histogram histogram) {
+                long count = histogram.getCount();
+                text.append(String.format(Locale.ROOT, "%-36s%12d%n", key + " n", count));
+                if (count > 0) {
+                    text.append(String.format(Locale.ROOT, "  mean %.2f  p50<=%.1f  p95<=%.1f%n", histogram.getSum() / count,
+                            histogram.estimatePercentile(50), histogram.estimatePercentile(95)));
+                }
+            }
+        }
+        metricsPanel.setText(text.toString().trim());
+    }
+
+    public void toggleMetricsPanel() {
+        metricsPanel.setVisible(!metricsPanel.isVisible());
+        lastMetricsRefresh = 0; // Cập nhật ngay ở frame kế tiếp
+    }
+
     // ==============================================================================================
     // TIỆN ÍCH & LOGIC PHỤ TRỢ (HELPERS)
     // ==============================================================================================
@@ -1,7 +1,9 @@
 package com.example.farmSimulation.view;
 
 import com.example.farmSimulation.config.*;
+import com.example.farmSimulation.model.FrameProfiler;
 import com.example.farmSimulation.model.GameManager;
+import com.example.farmSimulation.model.GameMetrics;
 import com.example.farmSimulation.controller.GameController;
 import com.example.farmSimulation.model.ItemStack;
 import com.example.farmSimulation.model.ItemType;
@@ -62,6 +64,12 @@ public class MainGameView {
     // Lớp phủ giao diện khi trò chơi kết thúc
     private StackPane gameOverOverlay;
 
+    // Đo thời gian vẽ lại bản đồ (null nếu không đo)
+    private FrameProfiler frameProfiler;
+
+    // Đếm số lần vẽ lại bản đồ (null nếu không đo)
+    private GameMetrics gameMetrics;
+
     // ==============================================================================================
     // KHỞI TẠO VÀ THIẾT LẬP (INITIALIZATION)
     // ==============================================================================================
@@ -226,7 +234,10 @@ public class MainGameView {
      * Cập nhật vị trí hiển thị của bản đồ
      */
     public void updateMap(double worldOffsetX, double worldOffsetY, boolean forceRedraw) {
-        worldRenderer.updateMap(worldOffsetX, worldOffsetY, forceRedraw);
+        if (frameProfiler != null) frameProfiler.begin(FrameProfiler.Stage.MAP_REDRAW);
+        boolean redrawn = worldRenderer.updateMap(worldOffsetX, worldOffsetY, forceRedraw);
+        if (frameProfiler != null) frameProfiler.end();
+        if (redrawn && gameMetrics != null) gameMetrics.recordMapRedraw();
     }
 
     /**
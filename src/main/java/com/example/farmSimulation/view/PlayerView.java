@@ -2,6 +2,7 @@ package com.example.farmSimulation.view;
 
 import com.example.farmSimulation.config.GameLogicConfig;
 import com.example.farmSimulation.config.PlayerSpriteConfig;
+import com.example.farmSimulation.model.GameClock;
 import javafx.geometry.Rectangle2D;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
@@ -118,7 +119,7 @@ public class PlayerView {
         sprite.setSmooth(false); // Tắt làm mịn để giữ phong cách pixel art
         sprite.setPreserveRatio(true); // Giữ nguyên tỷ lệ khung hình
 
-        this.lastFrameTime = System.nanoTime();
+        this.lastFrameTime = GameClock.nanoTime();
 
         // Khởi tạo các thành phần debug nếu chế độ debug đang bật
         initDebugElements();
@@ -290,7 +291,7 @@ public class PlayerView {
             AnimData data = getAnimationData();
             if (data == null) return;
 
-            long elapsedMs = System.currentTimeMillis() - player.getTimeOfDeath();
+            long elapsedMs = GameClock.currentTimeMillis() - player.getTimeOfDeath();
             long frameSpeed = data.speed();
             int calculatedFrame = (int) (elapsedMs / frameSpeed);
 
@@ -309,7 +310,7 @@ public class PlayerView {
         AnimData data = getAnimationData();
         if (data == null) return;
 
-        long now = System.nanoTime();
+        long now = GameClock.nanoTime();
         long deltaMs = (now - lastFrameTime) / 1_000_000;
         lastFrameTime = now;
         frameAccumulator += deltaMs;
@@ -373,7 +374,7 @@ public class PlayerView {
         if (stateChanged || directionChanged) {
             currentFrame = 0;
             frameAccumulator = 0;
-            lastFrameTime = System.nanoTime();
+            lastFrameTime = GameClock.nanoTime();
             updateViewport();
         }
     }
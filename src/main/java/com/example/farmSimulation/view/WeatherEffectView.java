@@ -7,25 +7,29 @@ import javafx.scene.shape.Line;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
+import java.util.SplittableRandom;
 
 /**
  * Quản lý hiệu ứng mưa (Rain Effect)
  */
 public class WeatherEffectView extends Pane {
     private final List<Line> rainDrops;
-    private final Random random;
+    private SplittableRandom random; // Luồng EFFECTS của WorldRandom
     private boolean isRaining;
     
     public WeatherEffectView() {
         this.rainDrops = new ArrayList<>();
-        this.random = new Random();
+        this.random = new SplittableRandom();
         this.isRaining = false;
         this.setPrefSize(WindowConfig.SCREEN_WIDTH, WindowConfig.SCREEN_HEIGHT);
         this.setMouseTransparent(true);
         this.setVisible(false);
     }
     
+    public void setRandom(SplittableRandom random) {
+        this.random = random;
+    }
+
     /**
      * Cập nhật trạng thái mưa
      */
@@ -8,7 +8,9 @@ import com.example.farmSimulation.config.TreeConfig;
 import com.example.farmSimulation.config.FenceConfig;
 import com.example.farmSimulation.config.ItemSpriteConfig;
 import com.example.farmSimulation.config.PlayerSpriteConfig;
+import com.example.farmSimulation.config.WindowConfig;
 import com.example.farmSimulation.model.*;
+import com.example.farmSimulation.model.jfr.MapRedrawEvent;
 import com.example.farmSimulation.view.assets.ImageManager;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
@@ -16,7 +18,10 @@ import javafx.scene.layout.Pane;
 import javafx.scene.shape.Rectangle;
 import lombok.Getter;
 
+import java.util.ArrayDeque;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 @Getter
@@ -55,10 +60,11 @@ public class WorldRenderer {
     private final Rectangle[][] fenceHitboxes; // Hiển thị vùng va chạm của hàng rào
 
     // --- Quản lý hiển thị động vật (Animal Rendering) ---
-    // Map ánh xạ từ đối tượng logic sang đối tượng hiển thị
-    private final Map<Animal, ImageView> animalViews;
-    private final Map<Animal, ImageView> animalStatusIcons;       // Icon trạng thái (đói/sản phẩm)
-    private final Map<Animal, ImageView> animalStatusBackgrounds; // Nền của icon trạng thái
+    // Map ánh xạ từ đối tượng logic sang bộ node hiển thị (sprite + icon + nền icon)
+    // Chỉ động vật nằm trong khung nhìn mới giữ node, con ngoài màn hình trả node về pool
+    private final Map<Animal, AnimalNode> animalNodes;
+    private final ArrayDeque<AnimalNode> animalNodePool; // Các node rảnh, tái sử dụng khi động vật sinh ra/chết đi
+    private long animalRenderFrame = 0; // Bộ đếm khung hình để phát hiện node không còn được dùng
 
     // --- Trạng thái Render ---
     // Lưu vị trí hàng/cột bắt đầu của lần vẽ trước để tối ưu hiệu năng
@@ -87,9 +93,8 @@ public class WorldRenderer {
         this.treeHitboxes = new Rectangle[WorldConfig.NUM_ROWS_ON_SCREEN][WorldConfig.NUM_COLS_ON_SCREEN];
         this.fenceHitboxes = new Rectangle[WorldConfig.NUM_ROWS_ON_SCREEN][WorldConfig.NUM_COLS_ON_SCREEN];
 
-        this.animalViews = new HashMap<>();
-        this.animalStatusIcons = new HashMap<>();
-        this.animalStatusBackgrounds = new HashMap<>();
+        this.animalNodes = new HashMap<>();
+        this.animalNodePool = new ArrayDeque<>();
 
         this.worldPane = new Pane();
 
@@ -152,8 +157,9 @@ public class WorldRenderer {
      * @param worldOffsetX Độ dời X của thế giới (camera)
      * @param worldOffsetY Độ dời Y của thế giới (camera)
      * @param forceRedraw  Bắt buộc vẽ lại toàn bộ kể cả khi không đổi ô lưới
+     * @return true nếu lưới ô đã được vẽ lại
      */
-    public void updateMap(double worldOffsetX, double worldOffsetY, boolean forceRedraw) {
+    public boolean updateMap(double worldOffsetX, double worldOffsetY, boolean forceRedraw) {
         double cameraWorldX = -worldOffsetX;
         double cameraWorldY = -worldOffsetY;
 
@@ -174,9 +180,12 @@ public class WorldRenderer {
                 forceRedraw);
 
         if (!needsTileUpdate) {
-            return;
+            return false;
         }
 
+        MapRedrawEvent event = new MapRedrawEvent();
+        event.begin();
+
         // Cập nhật Map
         for (int r = 0; r < WorldConfig.NUM_ROWS_ON_SCREEN; r++) {
             for (int c = 0; c < WorldConfig.NUM_COLS_ON_SCREEN; c++) {
@@ -217,6 +226,16 @@ public class WorldRenderer {
         }
         this.lastRenderedStartCol = startCol;
         this.lastRenderedStartRow = startRow;
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.startCol = startCol;
+            event.startRow = startRow;
+            event.tiles = WorldConfig.NUM_ROWS_ON_SCREEN * WorldConfig.NUM_COLS_ON_SCREEN;
+            event.forced = forceRedraw;
+            event.commit();
+        }
+        return true;
     }
 
     /**
@@ -297,177 +316,271 @@ public class WorldRenderer {
     // =================================================================================
 
     /**
-     * Quản lý và cập nhật hiển thị cho danh sách động vật
+     * Quản lý và cập nhật hiển thị cho danh sách động vật.
+     * - Chỉ động vật nằm trong khung nhìn (cộng thêm lề) mới được gán node hiển thị.
+     * - Node của động vật đã chết / ra khỏi màn hình được trả về pool để tái sử dụng.
+     * - Texture, vị trí và icon chỉ được gán lại khi giá trị thực sự thay đổi.
      */
-    public void updateAnimals(java.util.List<Animal> animals, double worldOffsetX, double worldOffsetY) {
-        // Loại bỏ view của động vật đã chết hoặc không còn trong danh sách
-        java.util.List<Animal> toRemove = new java.util.ArrayList<>();
-        for (Animal animal : animalViews.keySet()) {
-            if (!animals.contains(animal) || animal.isDead()) {
-                toRemove.add(animal);
-            }
-        }
-        for (Animal animal : toRemove) {
-            ImageView view = animalViews.remove(animal);
-            ImageView icon = animalStatusIcons.remove(animal);
-            ImageView bg = animalStatusBackgrounds.remove(animal);
-            if (view != null) entityPane.getChildren().remove(view);
-            if (icon != null) entityPane.getChildren().remove(icon);
-            if (bg != null) entityPane.getChildren().remove(bg);
-        }
-
-        long now = System.currentTimeMillis();
+    public void updateAnimals(List<Animal> animals, double worldOffsetX, double worldOffsetY) {
+        animalRenderFrame++;
+        long now = GameClock.currentTimeMillis();
 
-        // Cập nhật hoặc tạo mới view cho từng động vật
-        for (Animal animal : animals) {
+        // Cập nhật hoặc gán node cho từng động vật đang hiển thị
+        for (int i = 0, n = animals.size(); i < n; i++) {
+            Animal animal = animals.get(i);
             if (animal.isDead()) continue;
-            ImageView animalView = animalViews.get(animal);
-            if (animalView == null) {
-                animalView = new ImageView();
-                animalView.setSmooth(false);
-                animalView.setPreserveRatio(true);
-                animalView.setMouseTransparent(true);
-                animalViews.put(animal, animalView);
-                entityPane.getChildren().add(animalView);
-            }
 
-            // Tính toán khung hình hoạt họa (frame) hiện tại
-            int frameIndex = 0;
+            // Tính toán kích thước hiển thị (bao gồm tỷ lệ scale cho con non)
+            double displaySize = animal.getType().getSpriteSize() * animal.getType().getScale();
+            double screenX = animal.getX() + worldOffsetX;
+            double screenY = animal.getY() + worldOffsetY + AnimalConfig.ANIMAL_Y_OFFSET;
+
+            // Loại bỏ (cull) động vật nằm ngoài khung nhìn - không cần node hiển thị
+            if (!isAnimalOnScreen(screenX, screenY, displaySize)) continue;
 
-            // Trường hợp trứng: frame phụ thuộc vào biến thể loại trứng
-            if (animal.getType() == AnimalType.EGG_ENTITY) {
-                frameIndex = AnimalConfig.EGG_FRAME_START_INDEX + animal.getVariant();
+            AnimalNode node = animalNodes.get(animal);
+            if (node == null) {
+                node = acquireAnimalNode();
+                animalNodes.put(animal, node);
             }
-            // Trường hợp động vật: tính toán animation dựa trên thời gian
-            else {
-                int frameCount = 1;
-                int animationSpeedMs = 200;
-
-                if (animal.getType() == AnimalType.CHICKEN) {
-                    if (animal.getCurrentAction() == Animal.Action.WALK) {
-                        frameCount = AnimalConfig.CHICKEN_WALK_FRAMES;
-                        animationSpeedMs = AnimalConfig.ANIM_SPEED_CHICKEN_WALK;
-                    } else {
-                        frameCount = AnimalConfig.CHICKEN_IDLE_FRAMES;
-                        animationSpeedMs = AnimalConfig.ANIM_SPEED_CHICKEN_IDLE;
-                    }
-                } else { // Các loài động vật tiêu chuẩn khác
-                    if (animal.getCurrentAction() == Animal.Action.WALK) {
-                        frameCount = AnimalConfig.STANDARD_WALK_FRAMES;
-                        animationSpeedMs = AnimalConfig.ANIM_SPEED_STANDARD_WALK;
-                    } else {
-                        frameCount = AnimalConfig.STANDARD_IDLE_FRAMES;
-                        animationSpeedMs = AnimalConfig.ANIM_SPEED_STANDARD_IDLE;
-                    }
-                }
-
-                frameIndex = (int) ((now / animationSpeedMs) % frameCount);
+            node.lastSeenFrame = animalRenderFrame;
+
+            // Cập nhật sprite (chỉ tra cứu texture khi khóa sprite thay đổi)
+            int frameIndex = calculateAnimalFrame(animal, now);
+            if (node.type != animal.getType() || node.direction != animal.getDirection()
+                    || node.action != animal.getCurrentAction() || node.frameIndex != frameIndex) {
+                node.type = animal.getType();
+                node.direction = animal.getDirection();
+                node.action = animal.getCurrentAction();
+                node.frameIndex = frameIndex;
+                node.sprite.setImage(assetManager.getAnimalTexture(node.type, node.direction, node.action, frameIndex));
             }
 
-            Image animalTexture = assetManager.getAnimalTexture(animal.getType(), animal.getDirection(), animal.getCurrentAction(), frameIndex);
-            animalView.setImage(animalTexture);
+            if (node.displaySize != displaySize) {
+                node.displaySize = displaySize;
+                node.sprite.setFitWidth(displaySize);
+                node.sprite.setFitHeight(displaySize);
+            }
 
-            // Tính toán kích thước hiển thị (bao gồm tỷ lệ scale cho con non)
-            double spriteSize = animal.getType().getSpriteSize();
-            double scale = animal.getType().getScale();
-            double displaySize = spriteSize * scale;
+            // Căn chỉnh vị trí để chân động vật khớp với điểm neo logic
+            double layoutX = screenX - displaySize / 2.0;
+            double layoutY = screenY - displaySize;
+            if (node.layoutX != layoutX || node.layoutY != layoutY) {
+                node.layoutX = layoutX;
+                node.layoutY = layoutY;
+                node.sprite.setLayoutX(layoutX);
+                node.sprite.setLayoutY(layoutY);
+            }
 
-            animalView.setFitWidth(displaySize);
-            animalView.setFitHeight(displaySize);
+            // Cập nhật icon trạng thái trên đầu con vật
+            updateAnimalStatusIcon(animal, node, screenX, screenY - displaySize);
+        }
 
-            double screenX = animal.getX() + worldOffsetX;
-            double screenY = animal.getY() + worldOffsetY + AnimalConfig.ANIMAL_Y_OFFSET;
+        // Thu hồi node của động vật đã chết, bị xóa hoặc ra khỏi khung nhìn trong frame này
+        Iterator<Map.Entry<Animal, AnimalNode>> it = animalNodes.entrySet().iterator();
+        while (it.hasNext()) {
+            AnimalNode node = it.next().getValue();
+            if (node.lastSeenFrame != animalRenderFrame) {
+                it.remove();
+                releaseAnimalNode(node);
+            }
+        }
+    }
 
-            // Căn chỉnh vị trí để chân động vật khớp với điểm neo logic
-            animalView.setLayoutX(screenX - displaySize / 2.0);
-            animalView.setLayoutY(screenY - displaySize);
+    /**
+     * Tính toán khung hình hoạt họa (frame) hiện tại của động vật
+     */
+    private int calculateAnimalFrame(Animal animal, long now) {
+        // Trường hợp trứng: frame phụ thuộc vào biến thể loại trứng
+        if (animal.getType() == AnimalType.EGG_ENTITY) {
+            return AnimalConfig.EGG_FRAME_START_INDEX + animal.getVariant();
+        }
 
-            // Cập nhật icon trạng thái trên đầu con vật
-            updateAnimalStatusIcon(animal, worldOffsetX, worldOffsetY);
+        // Trường hợp động vật: tính toán animation dựa trên thời gian
+        int frameCount;
+        int animationSpeedMs;
+        boolean isWalking = animal.getCurrentAction() == Animal.Action.WALK;
+
+        if (animal.getType() == AnimalType.CHICKEN) {
+            frameCount = isWalking ? AnimalConfig.CHICKEN_WALK_FRAMES : AnimalConfig.CHICKEN_IDLE_FRAMES;
+            animationSpeedMs = isWalking ? AnimalConfig.ANIM_SPEED_CHICKEN_WALK : AnimalConfig.ANIM_SPEED_CHICKEN_IDLE;
+        } else { // Các loài động vật tiêu chuẩn khác
+            frameCount = isWalking ? AnimalConfig.STANDARD_WALK_FRAMES : AnimalConfig.STANDARD_IDLE_FRAMES;
+            animationSpeedMs = isWalking ? AnimalConfig.ANIM_SPEED_STANDARD_WALK : AnimalConfig.ANIM_SPEED_STANDARD_IDLE;
         }
+
+        return (int) ((now / animationSpeedMs) % frameCount);
+    }
+
+    /**
+     * Kiểm tra động vật (tính cả icon trên đầu) có nằm trong khung nhìn hay không
+     */
+    private boolean isAnimalOnScreen(double screenX, double screenY, double displaySize) {
+        double margin = AnimalConfig.ANIMAL_CULL_MARGIN;
+        double halfSize = displaySize / 2.0;
+        return screenX + halfSize >= -margin
+                && screenX - halfSize <= WindowConfig.SCREEN_WIDTH + margin
+                && screenY >= -margin
+                && screenY - displaySize <= WindowConfig.SCREEN_HEIGHT + margin;
     }
 
     /**
      * Hiển thị icon đói hoặc sản phẩm thu hoạch trên đầu động vật
+     *
+     * @param headX Tọa độ màn hình X của tâm con vật
+     * @param headY Tọa độ màn hình Y của đỉnh sprite con vật
      */
-    private void updateAnimalStatusIcon(Animal animal, double worldOffsetX, double worldOffsetY) {
-        ImageView iconView = animalStatusIcons.get(animal);
-        ImageView bgView = animalStatusBackgrounds.get(animal);
-        boolean needsIcon = false;
+    private void updateAnimalStatusIcon(Animal animal, AnimalNode node, double headX, double headY) {
         Image iconImage = null;
 
         // Ưu tiên hiển thị icon đói
         if (animal.isHungry()) {
             iconImage = assetManager.getItemIcon(ItemType.SUPER_FEED);
-            needsIcon = iconImage != null;
         }
         // Hiển thị sản phẩm nếu có (ngoại trừ Gà vì đẻ trứng ra đất)
         else if (animal.isHasProduct() && animal.getType().canProduce() && animal.getType() != AnimalType.CHICKEN) {
             iconImage = assetManager.getItemIcon(animal.getType().getProduct());
-            needsIcon = iconImage != null;
         }
 
-        if (needsIcon && iconImage != null) {
-            // Đảm bảo khởi tạo và thêm nền trước icon để hiển thị đúng lớp
-            if (bgView == null) {
-                bgView = new ImageView();
-                bgView.setImage(assetManager.getIconBG());
-                bgView.setSmooth(false);
-                bgView.setMouseTransparent(true);
-                animalStatusBackgrounds.put(animal, bgView);
-                entityPane.getChildren().add(bgView);
+        if (iconImage == null) {
+            if (node.iconImage != null) {
+                node.iconImage = null;
+                node.icon.setVisible(false);
+                node.iconBackground.setVisible(false);
             }
-            if (iconView == null) {
-                iconView = new ImageView();
-                iconView.setSmooth(false);
-                iconView.setMouseTransparent(true);
-                animalStatusIcons.put(animal, iconView);
-                entityPane.getChildren().add(iconView);
-            }
-
-            iconView.setImage(iconImage);
-            iconView.setFitWidth(HudConfig.ICON_SIZE);
-            iconView.setFitHeight(HudConfig.ICON_SIZE);
-            bgView.setFitWidth(HudConfig.ICON_BG_SIZE);
-            bgView.setFitHeight(HudConfig.ICON_BG_SIZE);
-
-            // Tính toán vị trí icon dựa trên kích thước thực tế của con vật
-            double spriteSize = animal.getType().getSpriteSize();
-            double scale = animal.getType().getScale();
-            double displaySize = spriteSize * scale;
+            return;
+        }
 
-            double screenX = animal.getX() + worldOffsetX;
+        if (node.iconImage != iconImage) {
+            node.iconImage = iconImage;
+            node.icon.setImage(iconImage);
+            node.icon.setVisible(true);
+            node.iconBackground.setVisible(true);
+        }
 
-            // Điều chỉnh độ cao icon tùy thuộc vào loại và độ tuổi động vật
-            double typeSpecificOffset = AnimalConfig.ANIMAL_ICON_Y_OFFSET;
-            if (animal.getType() == AnimalType.CHICKEN) {
-                typeSpecificOffset = AnimalConfig.ICON_OFFSET_CHICKEN;
-            } else if (animal.getType() == AnimalType.COW) {
-                typeSpecificOffset = AnimalConfig.ICON_OFFSET_COW;
-            } else if (animal.getType() == AnimalType.PIG) {
-                typeSpecificOffset = AnimalConfig.ICON_OFFSET_PIG;
-            } else if (animal.getType() == AnimalType.SHEEP) {
-                typeSpecificOffset = AnimalConfig.ICON_OFFSET_SHEEP;
-            } else if (animal.isBaby()) {
-                typeSpecificOffset = AnimalConfig.ICON_OFFSET_BABY;
-            }
+        // Điều chỉnh độ cao icon tùy thuộc vào loại và độ tuổi động vật
+        double typeSpecificOffset = AnimalConfig.ANIMAL_ICON_Y_OFFSET;
+        if (animal.getType() == AnimalType.CHICKEN) {
+            typeSpecificOffset = AnimalConfig.ICON_OFFSET_CHICKEN;
+        } else if (animal.getType() == AnimalType.COW) {
+            typeSpecificOffset = AnimalConfig.ICON_OFFSET_COW;
+        } else if (animal.getType() == AnimalType.PIG) {
+            typeSpecificOffset = AnimalConfig.ICON_OFFSET_PIG;
+        } else if (animal.getType() == AnimalType.SHEEP) {
+            typeSpecificOffset = AnimalConfig.ICON_OFFSET_SHEEP;
+        } else if (animal.isBaby()) {
+            typeSpecificOffset = AnimalConfig.ICON_OFFSET_BABY;
+        }
 
-            double screenY = animal.getY() + worldOffsetY + AnimalConfig.ANIMAL_Y_OFFSET - displaySize;
+        double bgX = headX - HudConfig.ICON_BG_SIZE / 2.0;
+        double bgY = headY - HudConfig.ICON_BG_SIZE - typeSpecificOffset;
+        if (node.iconLayoutX != bgX || node.iconLayoutY != bgY) {
+            node.iconLayoutX = bgX;
+            node.iconLayoutY = bgY;
 
             // Đặt vị trí nền
-            bgView.setLayoutX(screenX - HudConfig.ICON_BG_SIZE / 2.0);
-            bgView.setLayoutY(screenY - HudConfig.ICON_BG_SIZE - typeSpecificOffset);
+            node.iconBackground.setLayoutX(bgX);
+            node.iconBackground.setLayoutY(bgY);
 
             // Đặt vị trí icon (căn giữa trong nền)
             double iconOffset = (HudConfig.ICON_BG_SIZE - HudConfig.ICON_SIZE) / 2.0;
-            iconView.setLayoutX(screenX - HudConfig.ICON_BG_SIZE / 2.0 + iconOffset);
-            iconView.setLayoutY(screenY - HudConfig.ICON_BG_SIZE - typeSpecificOffset + iconOffset + AnimalConfig.ICON_CONTENT_Y_OFFSET);
+            node.icon.setLayoutX(bgX + iconOffset);
+            node.icon.setLayoutY(bgY + iconOffset + AnimalConfig.ICON_CONTENT_Y_OFFSET);
+        }
+    }
+
+    /**
+     * Lấy một node hiển thị động vật từ pool, hoặc tạo mới nếu pool rỗng
+     */
+    private AnimalNode acquireAnimalNode() {
+        AnimalNode node = animalNodePool.poll();
+        if (node == null) {
+            node = new AnimalNode(assetManager.getIconBG());
+            // Thứ tự thêm đảm bảo nền nằm dưới icon
+            entityPane.getChildren().addAll(node.sprite, node.iconBackground, node.icon);
+        }
+        node.sprite.setVisible(true);
+        return node;
+    }
 
-            iconView.setVisible(true);
-            bgView.setVisible(true);
+    /**
+     * Trả node về pool. Node vẫn nằm trong entityPane (ẩn đi) để tránh thêm/xóa children liên tục;
+     * chỉ khi pool đã đầy node mới bị gỡ khỏi scene graph
+     */
+    private void releaseAnimalNode(AnimalNode node) {
+        node.reset();
+        if (animalNodePool.size() < AnimalConfig.ANIMAL_VIEW_POOL_MAX_SIZE) {
+            animalNodePool.push(node);
         } else {
-            if (iconView != null) iconView.setVisible(false);
-            if (bgView != null) bgView.setVisible(false);
+            entityPane.getChildren().removeAll(node.sprite, node.iconBackground, node.icon);
+        }
+    }
+
+    /**
+     * Bộ node hiển thị của một con vật cùng với giá trị đã gán lần trước (dùng để phát hiện thay đổi)
+     */
+    private static final class AnimalNode {
+        final ImageView sprite;
+        final ImageView icon;           // Icon trạng thái (đói/sản phẩm)
+        final ImageView iconBackground; // Nền của icon trạng thái
+
+        long lastSeenFrame;
+
+        // Khóa sprite đã gán lần trước
+        AnimalType type;
+        int direction = -1;
+        Animal.Action action;
+        int frameIndex = -1;
+
+        double displaySize = Double.NaN;
+        double layoutX = Double.NaN;
+        double layoutY = Double.NaN;
+
+        Image iconImage;
+        double iconLayoutX = Double.NaN;
+        double iconLayoutY = Double.NaN;
+
+        AnimalNode(Image iconBgImage) {
+            sprite = new ImageView();
+            sprite.setSmooth(false);
+            sprite.setPreserveRatio(true);
+            sprite.setMouseTransparent(true);
+
+            iconBackground = new ImageView(iconBgImage);
+            iconBackground.setSmooth(false);
+            iconBackground.setMouseTransparent(true);
+            iconBackground.setFitWidth(HudConfig.ICON_BG_SIZE);
+            iconBackground.setFitHeight(HudConfig.ICON_BG_SIZE);
+            iconBackground.setVisible(false);
+
+            icon = new ImageView();
+            icon.setSmooth(false);
+            icon.setMouseTransparent(true);
+            icon.setFitWidth(HudConfig.ICON_SIZE);
+            icon.setFitHeight(HudConfig.ICON_SIZE);
+            icon.setVisible(false);
+        }
+
+        /**
+         * Ẩn node và xóa trạng thái đã lưu để lần gán tiếp theo luôn cập nhật đầy đủ
+         */
+        void reset() {
+            sprite.setVisible(false);
+            sprite.setImage(null);
+            icon.setVisible(false);
+            icon.setImage(null);
+            iconBackground.setVisible(false);
+
+            type = null;
+            direction = -1;
+            action = null;
+            frameIndex = -1;
+            displaySize = Double.NaN;
+            layoutX = Double.NaN;
+            layoutY = Double.NaN;
+            iconImage = null;
+            iconLayoutX = Double.NaN;
+            iconLayoutY = Double.NaN;
         }
     }
 
@@ -0,0 +1,369 @@
+package com.example.farmSimulation.view.assets;
+
+import com.example.farmSimulation.config.AssetConfig;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.PixelReader;
+import javafx.scene.image.WritableImage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Bộ nhớ đệm tài nguyên đã xử lý sẵn trên đĩa (giúp khởi động nguội nhanh hơn).
+ * Lần chạy đầu tiên: các sheet PNG được giải mã như bình thường, sau đó điểm ảnh
+ * (định dạng BGRA premultiplied) được nén Deflate và ghi vào một file nhị phân.
+ * Các lần chạy sau: file được ánh xạ bộ nhớ (memory-mapped), mỗi khối được giải nén
+ * rồi chép thẳng vào WritableImage qua PixelWriter, bỏ qua bước giải mã PNG
+ * (giải nén Deflate rẻ hơn nhiều so với giải mã PNG: không lọc dòng, không đổi định dạng màu).
+ *
+ * Cấu trúc file:
+ * [magic][version][hash SHA-256 của ảnh nguồn][độ dài header][số mục]
+ * [mỗi mục: độ dài path, path UTF-8, width, height, offset dữ liệu, độ dài dữ liệu nén]
+ * [dữ liệu điểm ảnh đã nén của từng mục]
+ *
+ * Header được đọc và kiểm tra bằng FileChannel.read thông thường; file chỉ được ánh xạ khi cache hợp lệ,
+ * vì trên Windows không thể thay thế một file còn vùng ánh xạ (cache cũ sẽ không bao giờ được ghi lại).
+ *
+ * Hash được tính trên nội dung của toàn bộ ảnh nguồn, nên khi bất kỳ ảnh nào thay đổi
+ * (hoặc danh sách ảnh thay đổi) file cache tự động bị coi là cũ và được tạo lại.
+ */
+public class AssetCache {
+    private static final int MAGIC = 0x46534143; // "FSAC"
+    private static final int BYTES_PER_PIXEL = 4;
+    private static final int HASH_BYTES = 32; // SHA-256
+    private static final int PREFIX_SIZE = 4 + 4 + HASH_BYTES + 4 + 4; // magic, version, hash, độ dài header, số mục
+
+    private final Path cacheFile;
+    private final List<String> sourcePaths; // Danh sách ảnh nguồn được cache
+
+    // --- Trạng thái sau khi mở ---
+    private byte[] sourceHash;
+    private MappedByteBuffer mappedData;
+    private final Map<String, Entry> entries = new HashMap<>();
+    private boolean valid = false;
+
+    // Một mục trong file cache
+    private static final class Entry {
+        final int width;
+        final int height;
+        final int offset;
+        final int length; // Số byte đã nén
+
+        Entry(int width, int height, int offset, int length) {
+            this.width = width;
+            this.height = height;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    public AssetCache(List<String> sourcePaths) {
+        this(Paths.get(AssetConfig.ASSET_CACHE_DIRECTORY, AssetConfig.ASSET_CACHE_FILE), sourcePaths);
+    }
+
+    public AssetCache(Path cacheFile, List<String> sourcePaths) {
+        this.cacheFile = cacheFile;
+        // Sắp xếp và loại trùng để hash không phụ thuộc thứ tự khai báo
+        this.sourcePaths = List.copyOf(new TreeSet<>(sourcePaths));
+    }
+
+    // ==============================================================================================
+    // 1. MỞ VÀ KIỂM TRA CACHE
+    // ==============================================================================================
+
+    /**
+     * Tính hash của ảnh nguồn và mở file cache nếu còn hợp lệ.
+     * Nếu file không tồn tại, hỏng hoặc đã cũ, cache được đánh dấu không hợp lệ
+     * (các ảnh sẽ được giải mã từ PNG và cache được ghi lại sau đó).
+     */
+    public void open() {
+        try {
+            sourceHash = computeSourceHash();
+        } catch (IOException | NoSuchAlgorithmException e) {
+            e.printStackTrace();
+            sourceHash = null;
+            return;
+        }
+
+        if (!Files.exists(cacheFile)) return;
+
+        try (FileChannel channel = FileChannel.open(cacheFile, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            ByteBuffer prefix = readFully(channel, 0, PREFIX_SIZE);
+            if (prefix == null || prefix.getInt() != MAGIC || prefix.getInt() != AssetConfig.ASSET_CACHE_VERSION) {
+                System.out.println("[AssetCache] Cache format changed, rebuilding.");
+                return;
+            }
+            byte[] storedHash = new byte[HASH_BYTES];
+            prefix.get(storedHash);
+            if (!Arrays.equals(storedHash, sourceHash)) {
+                System.out.println("[AssetCache] Source assets changed, rebuilding.");
+                return;
+            }
+
+            int headerSize = prefix.getInt();
+            int count = prefix.getInt();
+            ByteBuffer table = headerSize >= PREFIX_SIZE && headerSize <= fileSize
+                    ? readFully(channel, PREFIX_SIZE, headerSize - PREFIX_SIZE) : null;
+            if (table == null) {
+                System.err.println("[AssetCache] Cache file is truncated, rebuilding.");
+                return;
+            }
+            for (int i = 0; i < count; i++) {
+                byte[] pathBytes = new byte[table.getShort()];
+                table.get(pathBytes);
+                int width = table.getInt();
+                int height = table.getInt();
+                int offset = table.getInt();
+                int length = table.getInt();
+                if (offset < headerSize || offset + (long) length > fileSize) {
+                    System.err.println("[AssetCache] Cache file is truncated, rebuilding.");
+                    entries.clear();
+                    return;
+                }
+                entries.put(new String(pathBytes, StandardCharsets.UTF_8), new Entry(width, height, offset, length));
+            }
+
+            // Chỉ ánh xạ khi cache đã được xác nhận hợp lệ (cache sẽ không bị ghi đè trong lần chạy này)
+            mappedData = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            valid = true;
+        } catch (IOException | RuntimeException e) {
+            // File hỏng: bỏ qua và tạo lại
+            e.printStackTrace();
+            entries.clear();
+            mappedData = null;
+        }
+    }
+
+    /**
+     * Cache có hợp lệ (đúng phiên bản và khớp hash ảnh nguồn) hay không.
+     */
+    public boolean isValid() {
+        return valid;
+    }
+
+    // ==============================================================================================
+    // 2. ĐỌC ẢNH TỪ CACHE
+    // ==============================================================================================
+
+    /**
+     * Tạo ảnh từ dữ liệu điểm ảnh trong cache (giải nén khối thẳng từ vùng nhớ ánh xạ).
+     * An toàn khi gọi từ nhiều luồng.
+     *
+     * @return Ảnh đã tạo, hoặc null nếu cache không hợp lệ / không chứa ảnh này / khối bị hỏng
+     */
+    public Image load(String path) {
+        if (!valid) return null;
+        Entry entry = entries.get(path);
+        if (entry == null) return null;
+
+        // duplicate() để mỗi luồng có vị trí đọc riêng
+        ByteBuffer compressed = mappedData.duplicate();
+        compressed.position(entry.offset);
+        compressed.limit(entry.offset + entry.length);
+
+        byte[] pixels = new byte[entry.width * entry.height * BYTES_PER_PIXEL];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            int read = 0;
+            while (read < pixels.length) {
+                int n = inflater.inflate(pixels, read, pixels.length - read);
+                if (n == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    System.err.println("[AssetCache] Cached pixels of " + path + " are truncated, decoding PNG.");
+                    return null;
+                }
+                read += n;
+            }
+        } catch (DataFormatException e) {
+            e.printStackTrace();
+            return null;
+        } finally {
+            inflater.end();
+        }
+
+        WritableImage image = new WritableImage(entry.width, entry.height);
+        image.getPixelWriter().setPixels(0, 0, entry.width, entry.height,
+                PixelFormat.getByteBgraPreInstance(), pixels, 0, entry.width * BYTES_PER_PIXEL);
+        return image;
+    }
+
+    /**
+     * Giải phóng vùng nhớ ánh xạ sau khi tải xong (ảnh đã giữ bản sao điểm ảnh của riêng nó).
+     */
+    public void release() {
+        mappedData = null;
+        entries.clear();
+        valid = false;
+    }
+
+    // ==============================================================================================
+    // 3. GHI CACHE
+    // ==============================================================================================
+
+    /**
+     * Nén và ghi toàn bộ ảnh nguồn đã giải mã ra file cache.
+     * Ghi vào file tạm rồi đổi tên để không bao giờ để lại file cache dở dang.
+     *
+     * @param textures Ảnh đã giải mã, theo đường dẫn nguồn
+     */
+    public void write(Map<String, Image> textures) {
+        if (sourceHash == null) return;
+
+        try {
+            // Chỉ ghi các ảnh nguồn đã được giải mã đầy đủ
+            Map<String, Image> toWrite = new HashMap<>();
+            for (String path : sourcePaths) {
+                Image image = textures.get(path);
+                if (image != null && !image.isError() && image.getPixelReader() != null) {
+                    toWrite.put(path, image);
+                }
+            }
+
+            // Nén trước từng khối điểm ảnh để biết độ dài của chúng khi ghi header
+            List<String> paths = new ArrayList<>(toWrite.keySet());
+            List<byte[]> blocks = new ArrayList<>(paths.size());
+            for (String path : paths) {
+                blocks.add(compress(toWrite.get(path)));
+            }
+
+            // Tính kích thước phần header để xác định offset dữ liệu
+            int headerSize = PREFIX_SIZE;
+            for (String path : paths) {
+                headerSize += 2 + path.getBytes(StandardCharsets.UTF_8).length + 4 + 4 + 4 + 4;
+            }
+
+            if (cacheFile.getParent() != null) Files.createDirectories(cacheFile.getParent());
+            Path tempFile = cacheFile.resolveSibling(cacheFile.getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(tempFile,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+                // Header
+                ByteBuffer header = ByteBuffer.allocate(headerSize).order(ByteOrder.BIG_ENDIAN);
+                header.putInt(MAGIC);
+                header.putInt(AssetConfig.ASSET_CACHE_VERSION);
+                header.put(sourceHash);
+                header.putInt(headerSize);
+                header.putInt(paths.size());
+                int offset = headerSize;
+                for (int i = 0; i < paths.size(); i++) {
+                    byte[] pathBytes = paths.get(i).getBytes(StandardCharsets.UTF_8);
+                    Image image = toWrite.get(paths.get(i));
+                    header.putShort((short) pathBytes.length);
+                    header.put(pathBytes);
+                    header.putInt((int) image.getWidth());
+                    header.putInt((int) image.getHeight());
+                    header.putInt(offset);
+                    header.putInt(blocks.get(i).length);
+                    offset += blocks.get(i).length;
+                }
+                header.flip();
+                writeFully(channel, header);
+
+                // Dữ liệu điểm ảnh đã nén (cùng thứ tự với header)
+                for (byte[] block : blocks) {
+                    writeFully(channel, ByteBuffer.wrap(block));
+                }
+            }
+
+            try {
+                Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            System.out.println("[AssetCache] Wrote " + toWrite.size() + " textures to " + cacheFile
+                    + " (" + Files.size(cacheFile) / 1024 + " KB)");
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+            System.err.println("[AssetCache] Failed to write asset cache.");
+        }
+    }
+
+    // ==============================================================================================
+    // 4. HÀM HỖ TRỢ
+    // ==============================================================================================
+
+    /**
+     * Tính hash SHA-256 trên đường dẫn và nội dung của toàn bộ ảnh nguồn.
+     * Đọc byte thô của file PNG rẻ hơn nhiều so với giải mã chúng.
+     */
+    private byte[] computeSourceHash() throws IOException, NoSuchAlgorithmException {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        for (String path : sourcePaths) {
+            digest.update(path.getBytes(StandardCharsets.UTF_8));
+            try (InputStream in = getClass().getResourceAsStream(path)) {
+                if (in == null) continue; // Ảnh thiếu: vẫn ảnh hưởng hash qua đường dẫn
+                digest.update(in.readAllBytes());
+            }
+        }
+        return digest.digest();
+    }
+
+    /**
+     * Điểm ảnh BGRA premultiplied của ảnh, nén Deflate.
+     */
+    private static byte[] compress(Image image) {
+        int width = (int) image.getWidth();
+        int height = (int) image.getHeight();
+        byte[] pixels = new byte[width * height * BYTES_PER_PIXEL];
+        PixelReader reader = image.getPixelReader();
+        reader.getPixels(0, 0, width, height, PixelFormat.getByteBgraPreInstance(), pixels, 0, width * BYTES_PER_PIXEL);
+
+        Deflater deflater = new Deflater(AssetConfig.ASSET_CACHE_COMPRESSION_LEVEL);
+        try {
+            deflater.setInput(pixels);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(pixels.length / 16 + 64);
+            byte[] chunk = new byte[64 * 1024];
+            while (!deflater.finished()) {
+                out.write(chunk, 0, deflater.deflate(chunk));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Đọc đúng length byte từ vị trí position vào bộ nhớ heap.
+     *
+     * @return Buffer đã sẵn sàng để đọc, hoặc null nếu file kết thúc sớm
+     */
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.BIG_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) return null;
+        }
+        return buffer.flip();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
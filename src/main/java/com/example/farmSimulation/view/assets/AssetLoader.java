@@ -0,0 +1,79 @@
+package com.example.farmSimulation.view.assets;
+
+import com.example.farmSimulation.config.AssetConfig;
+import javafx.application.Platform;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Tải tài nguyên hình ảnh song song trên một nhóm luồng nền (worker pool).
+ * Mỗi sprite sheet là một tác vụ độc lập: giải mã ảnh rồi cắt sprite ngay trên luồng nền,
+ * nhờ vậy luồng giao diện (FX thread) không bị chặn và màn hình đầu tiên hiện ra ngay lập tức.
+ */
+public class AssetLoader {
+    private final ImageManager imageManager;
+
+    // Số tác vụ thất bại (ảnh thiếu hoặc hỏng) - chỉ để báo cáo
+    private final AtomicInteger failedTasks = new AtomicInteger();
+
+    public AssetLoader(ImageManager imageManager) {
+        this.imageManager = imageManager;
+    }
+
+    /**
+     * Bắt đầu tải toàn bộ tài nguyên trên luồng nền.
+     *
+     * @param onProgress Callback nhận tiến trình (0.0 - 1.0), luôn được gọi trên FX thread
+     * @return Future hoàn thành khi mọi sheet đã được giải mã và cắt xong
+     *         (ImageManager.finishLoading() cần được gọi trên FX thread sau đó)
+     */
+    public CompletableFuture<Void> loadAsync(DoubleConsumer onProgress) {
+        List<Runnable> tasks = imageManager.createLoadTasks();
+        int total = tasks.size();
+        AtomicInteger completed = new AtomicInteger();
+
+        AtomicInteger threadCounter = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(AssetConfig.ASSET_LOADER_THREADS, r -> {
+            Thread thread = new Thread(r, AssetConfig.ASSET_LOADER_THREAD_NAME + threadCounter.incrementAndGet());
+            thread.setDaemon(true); // Không giữ JVM sống nếu người chơi đóng cửa sổ khi đang tải
+            return thread;
+        });
+
+        // Mở cache trên đĩa trước (tính hash ảnh nguồn), sau đó mới chạy các tác vụ tải song song
+        CompletableFuture<Void> cacheOpened = CompletableFuture.runAsync(imageManager::openAssetCache, executor);
+
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[total];
+        for (int i = 0; i < total; i++) {
+            Runnable task = tasks.get(i);
+            futures[i] = cacheOpened.thenRunAsync(() -> {
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    failedTasks.incrementAndGet();
+                    e.printStackTrace();
+                }
+                double progress = (double) completed.incrementAndGet() / total;
+                if (onProgress != null) {
+                    Platform.runLater(() -> onProgress.accept(progress));
+                }
+            }, executor);
+        }
+
+        // Sau khi tải xong: ghi lại cache nếu cache cũ không hợp lệ (vẫn trên luồng nền)
+        return CompletableFuture.allOf(futures)
+                .thenRunAsync(imageManager::saveAssetCacheIfNeeded, executor)
+                .whenComplete((v, ex) -> executor.shutdown());
+    }
+
+    /**
+     * Số tác vụ tải bị lỗi trong lần tải gần nhất.
+     */
+    public int getFailedTaskCount() {
+        return failedTasks.get();
+    }
+}
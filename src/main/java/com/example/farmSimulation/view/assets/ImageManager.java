@@ -2,14 +2,18 @@ package com.example.farmSimulation.view.assets;
 
 import com.example.farmSimulation.config.*;
 import com.example.farmSimulation.model.*;
+import com.example.farmSimulation.model.jfr.AssetLoadEvent;
 import javafx.scene.image.Image;
 import javafx.scene.image.PixelReader;
 import javafx.scene.image.WritableImage;
 
+import java.util.ArrayList;
 import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
 
 /**
  * Lớp chịu trách nhiệm tải, lưu trữ (cache) và quản lý toàn bộ tài nguyên hình ảnh của trò chơi.
@@ -20,96 +24,229 @@ public class ImageManager {
     // 1. KHAI BÁO CACHE (BỘ NHỚ ĐỆM)
     // ==============================================================================================
 
-    // Bộ nhớ đệm lưu trữ các ảnh gốc tải từ file, dùng đường dẫn làm khóa
-    private final Map<String, Image> textureCache = new HashMap<>();
+    // Bộ nhớ đệm hợp nhất có giới hạn dung lượng cho ảnh gốc, icon GUI, icon vật phẩm và icon trạng thái.
+    // Texture luôn cần thiết được ghim; các texture còn lại bị loại bỏ theo LRU khi vượt ngân sách
+    // và được tải lại khi cần. An toàn khi các sheet được giải mã song song trên nhiều luồng.
+    private final TextureCache textureCache = new TextureCache(AssetConfig.TEXTURE_CACHE_BUDGET_BYTES);
+
+    // Hàm nạp lại texture khi chưa có trong cache (tạo một lần để tra cứu không cấp phát lambda)
+    private final Function<Object, Image> textureLoader = key -> loadTexture((String) key);
+    private final Function<Object, Image> itemIconLoader = key -> loadItemIcon((ItemType) key);
+
+    // Vật phẩm có icon là hình trong atlas cây trồng (nông sản, hạt giống). Các hình này đã được tính
+    // trong dung lượng atlas nên không đi qua textureCache, tránh tính trùng vào ngân sách LRU
+    private static final Map<ItemType, CropType> HARVEST_ITEM_CROPS = new EnumMap<>(ItemType.class);
+    private static final Map<ItemType, CropType> SEED_ITEM_CROPS = new EnumMap<>(ItemType.class);
+
+    static {
+        for (CropType cropType : CropType.values()) {
+            HARVEST_ITEM_CROPS.putIfAbsent(cropType.getHarvestItem(), cropType);
+            for (ItemType itemType : ItemType.values()) {
+                if (itemType.name().equals("SEEDS_" + cropType.name())) SEED_ITEM_CROPS.putIfAbsent(itemType, cropType);
+            }
+        }
+    }
 
     // Bộ nhớ đệm riêng cho Texture của các ô đất, sử dụng EnumMap để tối ưu hiệu năng
     private final Map<Tile, Image> tileTextureMap = new EnumMap<>(Tile.class);
 
-    // Bộ nhớ đệm cho các sprite đã được cắt nhỏ từ ảnh gốc (ví dụ: từng frame của nhân vật)
-    private final Map<String, Image> spriteCache = new HashMap<>();
+    // Atlas chứa các sprite đã được cắt sẵn (cây trồng, cây tự nhiên, hàng rào, động vật)
+    // Tra cứu bằng chỉ số mảng thay vì khóa String để không cấp phát bộ nhớ mỗi khung hình
+    private final SpriteAtlas spriteAtlas = new SpriteAtlas();
 
-    // Bộ nhớ đệm cho icon của vật phẩm, dùng để hiển thị trong kho đồ và cửa hàng
-    private final Map<ItemType, Image> itemIconCache = new EnumMap<>(ItemType.class);
+    // Cache điểm ảnh đã giải mã trên đĩa (null nếu bị tắt hoặc đã tải xong)
+    private AssetCache assetCache;
 
-    // Bộ nhớ đệm cho các biểu tượng trạng thái của cây trồng (ví dụ: cần nước, cần phân bón)
-    private final Map<CropStatusIndicator, Image> statusIconCache = new EnumMap<>(CropStatusIndicator.class);
+    // Lớp phủ phân bón được giữ riêng vì được gọi cho mọi ô đất khi vẽ lại bản đồ
+    private Image fertilizerTexture;
 
-    // Bộ nhớ đệm cho các biểu tượng giao diện người dùng (Cài đặt, Tiền, Thời tiết...)
-    private final Map<String, Image> guiIconCache = new HashMap<>();
 
     // ==============================================================================================
     // 2. KHỞI TẠO VÀ TẢI TÀI NGUYÊN GỐC
     // ==============================================================================================
 
     /**
-     * Tải toàn bộ tài nguyên cần thiết vào bộ nhớ khi bắt đầu game.
+     * Tải toàn bộ tài nguyên cần thiết vào bộ nhớ một cách tuần tự trên luồng hiện tại.
+     * Dùng cho các công cụ chạy không giao diện; khi chạy game, AssetLoader thực hiện các tác vụ
+     * tương tự song song trên luồng nền.
      * Hàm này chỉ nên được gọi một lần duy nhất.
      */
     public void loadAssets() {
-        // Tải tài nguyên nhân vật
-        getTexture(AssetPaths.PLAYER_SHEET);
-        getTexture(AssetPaths.PLAYER_ACTIONS_SHEET);
-
-        // Tải tài nguyên giao diện
-        getTexture(AssetPaths.LOGO);
-        Image itemsSheet = getTexture(AssetPaths.ITEMS_SHEET);
-        getTexture(AssetPaths.ANIMAL_ITEM_SHEET);
-        getTexture(AssetPaths.ICON_BG);
-
-        // Tải texture cho nền đất
-        Image grass = getTexture(AssetPaths.GRASS);
-        Image soil = getTexture(AssetPaths.SOIL);
-        Image water = getTexture(AssetPaths.WATER);
-        Image soilWet = getTexture(AssetPaths.SOIL_WET);
-
-        // Tải tài nguyên trồng trọt
-        getTexture(AssetPaths.FERTILIZER_OVERLAY);
-        getTexture(AssetPaths.CROP_SHEET);
-
-        // Tải tài nguyên môi trường (cây cối, hàng rào)
-        // Lưu ý: Cây và Hàng rào sẽ được cắt từ sprite sheet chứ không dùng ảnh đơn lẻ
-        getTexture(AssetPaths.TREE_SHEET);
-        getTexture(AssetPaths.FENCE_SHEET);
+        openAssetCache();
+        for (Runnable task : createLoadTasks()) {
+            task.run();
+        }
+        saveAssetCacheIfNeeded();
+        finishLoading();
+    }
 
-        // Tải tài nguyên động vật
-        loadAnimalTextures();
+    /**
+     * Mở cache tài nguyên trên đĩa (tính hash ảnh nguồn và kiểm tra cache cũ).
+     * Cần gọi trước khi chạy các tác vụ tải để getTexture có thể đọc từ cache.
+     */
+    void openAssetCache() {
+        if (!AssetConfig.ASSET_CACHE_ENABLED) return;
+        AssetCache cache = new AssetCache(getCacheableTexturePaths());
+        cache.open();
+        this.assetCache = cache;
+    }
 
-        // Liên kết dữ liệu Tile (Model) với hình ảnh (View)
-        tileTextureMap.put(Tile.GRASS, grass);
-        tileTextureMap.put(Tile.SOIL, soil);
-        tileTextureMap.put(Tile.WATER, water);
-        tileTextureMap.put(Tile.SOIL_WET, soilWet);
+    /**
+     * Ghi lại cache nếu cache cũ không hợp lệ, sau đó giải phóng vùng nhớ ánh xạ.
+     * Cần gọi sau khi mọi tác vụ tải đã chạy xong.
+     */
+    void saveAssetCacheIfNeeded() {
+        AssetCache cache = this.assetCache;
+        if (cache == null) return;
+        if (!cache.isValid()) {
+            // Lấy lại qua getTexture để cả các sheet đã bị loại khỏi bộ đệm cũng được ghi
+            Map<String, Image> textures = new HashMap<>();
+            for (String path : getCacheableTexturePaths()) {
+                textures.put(path, getTexture(path));
+            }
+            cache.write(textures);
+        }
+        cache.release();
+        this.assetCache = null;
+    }
 
-        // Cắt và lưu trữ các icon trạng thái từ bảng vật phẩm
-        loadStatusIcons(itemsSheet);
+    /**
+     * Danh sách toàn bộ ảnh nguồn được tải khi khởi động (dùng làm khóa cho cache trên đĩa).
+     */
+    private List<String> getCacheableTexturePaths() {
+        List<String> paths = new ArrayList<>(List.of(
+                AssetPaths.PLAYER_SHEET, AssetPaths.PLAYER_ACTIONS_SHEET,
+                AssetPaths.LOGO, AssetPaths.ITEMS_SHEET, AssetPaths.ANIMAL_ITEM_SHEET, AssetPaths.ICON_BG,
+                AssetPaths.GUI_ICONS,
+                AssetPaths.GRASS, AssetPaths.SOIL, AssetPaths.WATER, AssetPaths.SOIL_WET,
+                AssetPaths.FERTILIZER_OVERLAY, AssetPaths.CROP_SHEET,
+                AssetPaths.TREE_SHEET, AssetPaths.FENCE_SHEET
+        ));
+        for (AnimalType animalType : AnimalType.values()) {
+            paths.add(animalType.getAssetPath());
+        }
+        return paths;
+    }
+
+    /**
+     * Tạo danh sách tác vụ tải tài nguyên. Mỗi tác vụ xử lý một sheet độc lập
+     * (giải mã ảnh rồi cắt sprite của sheet đó), nên có thể chạy song song trên nhiều luồng.
+     * Mỗi cấu trúc dữ liệu chỉ được ghi bởi đúng một tác vụ.
+     */
+    List<Runnable> createLoadTasks() {
+        List<Runnable> tasks = new ArrayList<>();
+
+        // Tài nguyên nhân vật
+        tasks.add(() -> getTexture(AssetPaths.PLAYER_SHEET));
+        tasks.add(() -> getTexture(AssetPaths.PLAYER_ACTIONS_SHEET));
 
+        // Tài nguyên giao diện
+        tasks.add(() -> getTexture(AssetPaths.LOGO));
+        tasks.add(() -> getTexture(AssetPaths.ANIMAL_ITEM_SHEET));
+        tasks.add(() -> getTexture(AssetPaths.ICON_BG));
+        // Cắt và lưu trữ các icon trạng thái từ bảng vật phẩm
+        tasks.add(() -> loadStatusIcons(getTexture(AssetPaths.ITEMS_SHEET)));
         // Tải và xử lý các icon giao diện
-        Image guiIconSheet = getTexture(AssetPaths.GUI_ICONS);
-        loadGuiIcons(guiIconSheet);
+        tasks.add(() -> loadGuiIcons(getTexture(AssetPaths.GUI_ICONS)));
+
+        // Texture cho nền đất (liên kết với Tile trong finishLoading)
+        tasks.add(() -> getTexture(AssetPaths.GRASS));
+        tasks.add(() -> getTexture(AssetPaths.SOIL));
+        tasks.add(() -> getTexture(AssetPaths.WATER));
+        tasks.add(() -> getTexture(AssetPaths.SOIL_WET));
+
+        // Tài nguyên trồng trọt
+        tasks.add(() -> getTexture(AssetPaths.FERTILIZER_OVERLAY));
+        tasks.add(() -> spriteAtlas.sliceCrops(getTexture(AssetPaths.CROP_SHEET)));
+
+        // Tài nguyên môi trường (cây cối, hàng rào)
+        // Lưu ý: Cây và Hàng rào sẽ được cắt từ sprite sheet chứ không dùng ảnh đơn lẻ
+        tasks.add(() -> spriteAtlas.sliceTrees(getTexture(AssetPaths.TREE_SHEET)));
+        tasks.add(() -> spriteAtlas.sliceFences(getTexture(AssetPaths.FENCE_SHEET)));
+
+        // Tài nguyên động vật: gom các loài dùng chung sheet (vd: Bò và Bò con) vào cùng một tác vụ
+        // để mỗi sheet chỉ được giải mã một lần
+        Map<String, List<AnimalType>> animalsBySheet = new LinkedHashMap<>();
+        for (AnimalType animalType : AnimalType.values()) {
+            animalsBySheet.computeIfAbsent(animalType.getAssetPath(), k -> new ArrayList<>()).add(animalType);
+        }
+        for (Map.Entry<String, List<AnimalType>> entry : animalsBySheet.entrySet()) {
+            tasks.add(() -> {
+                Image animalSheet = getTexture(entry.getKey());
+                for (AnimalType animalType : entry.getValue()) {
+                    spriteAtlas.sliceAnimal(animalType, animalSheet);
+                }
+            });
+        }
+
+        return tasks;
     }
 
     /**
-     * Tải sprite sheet cho tất cả các loại động vật định nghĩa trong Enum.
+     * Hoàn tất quá trình tải sau khi mọi tác vụ đã chạy xong.
+     * Phải được gọi trên luồng sử dụng ImageManager (FX thread).
      */
-    private void loadAnimalTextures() {
-        for (AnimalType animalType : AnimalType.values()) {
-            getTexture(animalType.getAssetPath());
+    public void finishLoading() {
+        fertilizerTexture = getTexture(AssetPaths.FERTILIZER_OVERLAY);
+
+        // Ghim các texture luôn cần thiết (nền đất, nhân vật, nền icon...) để không bao giờ bị loại bỏ.
+        // Các sheet lớn chỉ dùng để cắt sprite (cây trồng, động vật...) không được ghim vì atlas đã giữ bản cắt.
+        for (String path : new String[]{
+                AssetPaths.PLAYER_SHEET, AssetPaths.PLAYER_ACTIONS_SHEET, AssetPaths.LOGO, AssetPaths.ICON_BG,
+                AssetPaths.GRASS, AssetPaths.SOIL, AssetPaths.WATER, AssetPaths.SOIL_WET,
+                AssetPaths.FERTILIZER_OVERLAY}) {
+            textureCache.putIfAbsent(TextureCache.Namespace.TEXTURE, path, getTexture(path), true);
         }
+        textureCache.addExternalPinnedBytes(spriteAtlas.estimateBytes());
+
+        // Liên kết dữ liệu Tile (Model) với hình ảnh (View)
+        tileTextureMap.put(Tile.GRASS, getTexture(AssetPaths.GRASS));
+        tileTextureMap.put(Tile.SOIL, getTexture(AssetPaths.SOIL));
+        tileTextureMap.put(Tile.WATER, getTexture(AssetPaths.WATER));
+        tileTextureMap.put(Tile.SOIL_WET, getTexture(AssetPaths.SOIL_WET));
     }
 
     /**
      * Lấy ảnh từ bộ nhớ đệm. Nếu chưa có, hệ thống sẽ tự động tải từ file và lưu vào cache.
      * Sử dụng cơ chế lazy loading để tiết kiệm bộ nhớ.
+     * An toàn khi gọi từ nhiều luồng tải tài nguyên cùng lúc.
      *
      * @param path Đường dẫn đến file ảnh.
      */
     public Image getTexture(String path) {
-        // computeIfAbsent: Nếu khóa 'path' chưa tồn tại, hàm lambda sẽ được thực thi để tải ảnh mới,
-        // sau đó tự động đưa vào map và trả về giá trị đó.
-        return textureCache.computeIfAbsent(path, p ->
-                new Image(getClass().getResourceAsStream(p))
-        );
+        return textureCache.get(TextureCache.Namespace.TEXTURE, path, textureLoader);
+    }
+
+    /**
+     * Nạp ảnh gốc khi chưa có trong bộ đệm (lần đầu hoặc sau khi bị loại bỏ).
+     * Ưu tiên đọc điểm ảnh đã giải mã từ cache trên đĩa, nếu không có mới giải mã PNG.
+     */
+    private Image loadTexture(String path) {
+        AssetLoadEvent event = new AssetLoadEvent();
+        event.begin();
+        AssetCache cache = this.assetCache;
+        Image loaded = cache != null ? cache.load(path) : null;
+        event.fromDiskCache = loaded != null;
+        if (loaded == null) {
+            loaded = new Image(getClass().getResourceAsStream(path));
+        }
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.path = path;
+            event.width = (int) loaded.getWidth();
+            event.height = (int) loaded.getHeight();
+            event.decodedBytes = 4L * event.width * event.height; // Ảnh đã giải mã: 4 byte mỗi điểm ảnh
+            event.commit();
+        }
+        return loaded;
+    }
+
+    /**
+     * Bộ đệm texture hợp nhất (dùng để theo dõi thống kê bộ nhớ).
+     */
+    public TextureCache getTextureCache() {
+        return textureCache;
     }
 
     // ==============================================================================================
@@ -128,11 +265,11 @@ public class ImageManager {
      * Lấy ảnh lớp phủ hiển thị trạng thái đã bón phân.
      */
     public Image getFertilizerTexture() {
-        return getTexture(AssetPaths.FERTILIZER_OVERLAY);
+        return fertilizerTexture != null ? fertilizerTexture : getTexture(AssetPaths.FERTILIZER_OVERLAY);
     }
 
     /**
-     * Cắt và lấy sprite của cây trồng dựa trên loại cây và giai đoạn phát triển.
+     * Lấy sprite của cây trồng dựa trên loại cây và giai đoạn phát triển (tra cứu từ atlas).
      */
     public Image getCropTexture(CropData cropData) {
         if (cropData == null) {
@@ -144,29 +281,11 @@ public class ImageManager {
             return null;
         }
 
-        // Tạo khóa cache duy nhất dựa trên tên cây và giai đoạn
-        String key = cropData.getType().name() + "_" + cropData.getGrowthStage();
-
-        return spriteCache.computeIfAbsent(key, k -> {
-            Image cropSheet = getTexture(AssetPaths.CROP_SHEET);
-            if (cropSheet == null) return null;
-
-            PixelReader reader = cropSheet.getPixelReader();
-
-            // Tính toán tọa độ cắt ảnh
-            double w = CropConfig.CROP_SPRITE_WIDTH;
-            double h = CropConfig.CROP_SPRITE_HEIGHT;
-            int x = (int) (cropData.getGrowthStage() * w);
-            int y = (int) (cropData.getType().getSpriteRow() * h);
-
-            if (x < 0 || y < 0 || x + w > cropSheet.getWidth() || y + h > cropSheet.getHeight()) return null;
-
-            return new WritableImage(reader, x, y, (int) w, (int) h);
-        });
+        return spriteAtlas.getCropFrame(cropData.getType(), cropData.getGrowthStage());
     }
 
     /**
-     * Cắt và lấy sprite của cây tự nhiên (cây gỗ).
+     * Lấy sprite của cây tự nhiên (cây gỗ).
      * Xử lý cả trạng thái cây đang lớn và gốc cây sau khi chặt.
      */
     public Image getTreeTexture(TreeData treeData) {
@@ -176,109 +295,20 @@ public class ImageManager {
 
         // Trường hợp 1: Cây đã bị chặt thành gốc
         if (treeData.getChopCount() > 0) {
-            String key = "tree_stump";
-            return spriteCache.computeIfAbsent(key, k -> {
-                Image treeSheet = getTexture(AssetPaths.TREE_SHEET);
-                if (treeSheet == null) return null;
-
-                PixelReader reader = treeSheet.getPixelReader();
-                double w = TreeConfig.TREE_SPRITE_WIDTH;
-                double h = TreeConfig.TREE_SPRITE_HEIGHT;
-
-                // Frame gốc cây được quy định tại chỉ số cố định
-                int x = (int) (TreeConfig.TREE_STUMP_FRAME_INDEX * w);
-                int y = 0;
-
-                if (x < 0 || y < 0 || x + w > treeSheet.getWidth() || y + h > treeSheet.getHeight()) return null;
-
-                return new WritableImage(reader, x, y, (int) w, (int) h);
-            });
+            return spriteAtlas.getTreeStump();
         }
 
         // Trường hợp 2: Cây đang phát triển bình thường
-        int stage = treeData.getGrowthStage();
-        String key = "tree_" + stage;
-
-        return spriteCache.computeIfAbsent(key, k -> {
-            Image treeSheet = getTexture(AssetPaths.TREE_SHEET);
-            if (treeSheet == null) return null;
-
-            PixelReader reader = treeSheet.getPixelReader();
-            double w = TreeConfig.TREE_SPRITE_WIDTH;
-            double h = TreeConfig.TREE_SPRITE_HEIGHT;
-
-            int x = (int) (stage * w);
-            int y = 0;
-
-            if (x < 0 || y < 0 || x + w > treeSheet.getWidth() || y + h > treeSheet.getHeight()) return null;
-
-            return new WritableImage(reader, x, y, (int) w, (int) h);
-        });
+        return spriteAtlas.getTreeFrame(treeData.getGrowthStage());
     }
 
     /**
      * Lấy hình ảnh hàng rào dựa trên mẫu kết nối (pattern) và trạng thái đóng/mở.
-     * Sử dụng kỹ thuật Bitmasking để xác định hình dạng kết nối.
+     * Mẫu kết nối (0-15) được tính dựa trên 4 hướng xung quanh: Trên=1, Phải=2, Dưới=4, Trái=8.
      */
     public Image getFenceTexture(FenceData fenceData) {
         if (fenceData == null) return null;
-
-        int width = (int) FenceConfig.FENCE_SPRITE_WIDTH;
-        int height = (int) FenceConfig.FENCE_SPRITE_HEIGHT;
-
-        // Nếu là cổng đang mở, lấy hình cái cọc đơn
-        if (fenceData.isOpen()) {
-            return spriteCache.computeIfAbsent("fence_open", k -> {
-                Image fenceSheet = getTexture(AssetPaths.FENCE_SHEET);
-                return new WritableImage(fenceSheet.getPixelReader(),
-                        0, 3 * height, width, height); // Vị trí Cột 0, Hàng 3
-            });
-        }
-
-        // Nếu rào đóng, xác định hình ảnh dựa trên mẫu kết nối (0-15).
-        // Mẫu này được tính toán dựa trên việc kiểm tra 4 hướng xung quanh (Trên, Phải, Dưới, Trái).
-        // Mỗi hướng tương ứng với một trọng số nhị phân: Trên=1, Phải=2, Dưới=4, Trái=8.
-        int pattern = fenceData.getTilePattern();
-        String key = "fence_" + pattern;
-
-        return spriteCache.computeIfAbsent(key, k -> {
-            Image fenceSheet = getTexture(AssetPaths.FENCE_SHEET);
-            PixelReader reader = fenceSheet.getPixelReader();
-
-            int col, row;
-
-            switch (pattern) {
-                // --- NHÓM 1: CÁC ĐẦU MÚT VÀ ĐƯỜNG THẲNG ---
-                case 0:  col = 0; row = 3; break; // Cọc đơn, không nối
-                case 1:  col = 0; row = 2; break; // Nối lên trên (Đầu dưới)
-                case 4:  col = 0; row = 0; break; // Nối xuống dưới (Đầu trên)
-                case 5:  col = 0; row = 1; break; // Thẳng đứng
-
-                case 2:  col = 1; row = 0; break; // Nối sang phải (Đầu trái)
-                case 8:  col = 3; row = 0; break; // Nối sang trái (Đầu phải)
-                case 10: col = 2; row = 0; break; // Nằm ngang
-
-                // --- NHÓM 2: CÁC GÓC ---
-                case 6:  col = 1; row = 1; break; // Góc Trên-Trái
-                case 12: col = 3; row = 1; break; // Góc Trên-Phải
-                case 3:  col = 1; row = 3; break; // Góc Dưới-Trái
-                case 9:  col = 3; row = 3; break; // Góc Dưới-Phải
-
-                // --- NHÓM 3: NGÃ BA (CHỮ T) ---
-                case 7:  col = 1; row = 2; break; // Chữ T quay phải
-                case 11: col = 2; row = 3; break; // Chữ T quay lên
-                case 13: col = 3; row = 2; break; // Chữ T quay trái
-                case 14: col = 2; row = 1; break; // Chữ T quay xuống
-
-                // --- NHÓM 4: NGÃ TƯ ---
-                case 15: col = 2; row = 2; break; // Nối cả 4 hướng
-
-                // Mặc định về cọc đơn nếu có lỗi
-                default: col = 0; row = 3; break;
-            }
-
-            return new WritableImage(reader, col * width, row * height, width, height);
-        });
+        return spriteAtlas.getFenceFrame(fenceData.getTilePattern(), fenceData.isOpen());
     }
 
     // ==============================================================================================
@@ -286,8 +316,8 @@ public class ImageManager {
     // ==============================================================================================
 
     /**
-     * Lấy sprite động vật dựa trên loại, hướng, hành động và frame hiện tại.
-     * Hàm này xử lý logic phức tạp do cấu trúc spritesheet của Gà khác với các động vật còn lại.
+     * Lấy sprite động vật dựa trên loại, hướng, hành động và frame hiện tại (tra cứu từ atlas).
+     * Với trứng, frameIndex chính là cột biến thể (EGG_FRAME_START_INDEX + variant).
      *
      * @param animalType Loại động vật
      * @param direction Hướng nhìn (0: Xuống, 1: Phải, 2: Trái, 3: Lên)
@@ -295,79 +325,8 @@ public class ImageManager {
      * @param frameIndex Chỉ số frame hoạt hình
      */
     public Image getAnimalTexture(AnimalType animalType, int direction, Animal.Action action, int frameIndex) {
-        if (animalType == null) return null;
-
-        // Tạo khóa cache bao gồm cả frameIndex để lưu từng frame riêng biệt
-        String key = animalType.name() + "_" + direction + "_" + action.name() + "_" + frameIndex;
-
-        return spriteCache.computeIfAbsent(key, k -> {
-            Image animalSheet = getTexture(animalType.getAssetPath());
-            if (animalSheet == null) return null;
-
-            PixelReader reader = animalSheet.getPixelReader();
-            double spriteSize = animalType.getSpriteSize();
-
-            int row = 0;
-            int col = 0;
-
-            // Xử lý riêng cho TRỨNG (đặt dưới đất)
-            if (animalType == AnimalType.EGG_ENTITY) {
-                // Trứng nằm ở hàng quy định cho Idle Down
-                row = AnimalConfig.STANDARD_ROW_IDLE_DOWN;
-                // Chọn ngẫu nhiên một biến thể hình ảnh trứng để tăng tính đa dạng
-                int eggFrameStart = AnimalConfig.EGG_FRAME_START_INDEX;
-                col = eggFrameStart + ThreadLocalRandom.current().nextInt(2);
-            }
-            // Xử lý riêng cho GÀ (do cấu trúc sheet khác biệt)
-            else if (animalType == AnimalType.CHICKEN) {
-                // Phân nhóm hướng: Nhóm A (Trái/Xuống) và Nhóm B (Phải/Trên)
-                boolean isGroupA = (direction == 2 || direction == 0);
-
-                if (action == Animal.Action.IDLE) {
-                    row = isGroupA ? AnimalConfig.CHICKEN_ROW_IDLE_LEFT : AnimalConfig.CHICKEN_ROW_IDLE_RIGHT;
-                } else if (action == Animal.Action.WALK) {
-                    row = isGroupA ? AnimalConfig.CHICKEN_ROW_WALK_LEFT : AnimalConfig.CHICKEN_ROW_WALK_RIGHT;
-                } else {
-                    // Mặc định hành động ăn sẽ dùng sprite đứng yên
-                    row = isGroupA ? AnimalConfig.CHICKEN_ROW_IDLE_LEFT : AnimalConfig.CHICKEN_ROW_IDLE_RIGHT;
-                }
-                col = frameIndex;
-            }
-            // Xử lý cho các động vật khác theo chuẩn chung (Bò, Cừu, Lợn...)
-            else {
-                if (action == Animal.Action.WALK) {
-                    // Đi bộ sử dụng 4 hàng đầu tiên
-                    switch (direction) {
-                        case 0: row = AnimalConfig.STANDARD_ROW_WALK_DOWN; break;
-                        case 3: row = AnimalConfig.STANDARD_ROW_WALK_UP; break;
-                        case 2: row = AnimalConfig.STANDARD_ROW_WALK_LEFT; break;
-                        case 1: row = AnimalConfig.STANDARD_ROW_WALK_RIGHT; break;
-                        default: row = AnimalConfig.STANDARD_ROW_WALK_DOWN; break;
-                    }
-                } else { // Đứng yên hoặc Ăn
-                    // Sử dụng 4 hàng tiếp theo
-                    switch (direction) {
-                        case 0: row = AnimalConfig.STANDARD_ROW_IDLE_DOWN; break;
-                        case 3: row = AnimalConfig.STANDARD_ROW_IDLE_UP; break;
-                        case 2: row = AnimalConfig.STANDARD_ROW_IDLE_LEFT; break;
-                        case 1: row = AnimalConfig.STANDARD_ROW_IDLE_RIGHT; break;
-                        default: row = AnimalConfig.STANDARD_ROW_IDLE_DOWN; break;
-                    }
-                }
-                col = frameIndex;
-            }
-
-            int x = (int) (col * spriteSize);
-            int y = (int) (row * spriteSize);
-
-            // Kiểm tra biên để tránh lỗi nếu spritesheet thiếu frame
-            if (x < 0 || y < 0 || x + spriteSize > animalSheet.getWidth() || y + spriteSize > animalSheet.getHeight()) {
-                x = 0;
-                y = (int) (row * spriteSize);
-            }
-
-            return new WritableImage(reader, x, y, (int) spriteSize, (int) spriteSize);
-        });
+        if (animalType == null || action == null) return null;
+        return spriteAtlas.getAnimalFrame(animalType, direction, action, frameIndex);
     }
 
     // ==============================================================================================
@@ -385,7 +344,8 @@ public class ImageManager {
      * Lấy icon trạng thái của cây trồng (đã được cache).
      */
     public Image getStatusIcon(CropStatusIndicator status) {
-        return statusIconCache.get(status);
+        if (status == null) return null;
+        return textureCache.peek(TextureCache.Namespace.STATUS_ICON, status);
     }
 
     /**
@@ -393,56 +353,36 @@ public class ImageManager {
      * @param iconName Tên icon (ví dụ: "SETTINGS", "MONEY", "SUNNY"...)
      */
     public Image getGuiIcon(String iconName) {
-        return guiIconCache.get(iconName);
+        if (iconName == null) return null;
+        return textureCache.peek(TextureCache.Namespace.GUI_ICON, iconName);
     }
 
     /**
      * Lấy icon hạt giống của cây trồng để hiển thị hình bóng mờ khi đặt.
      */
     public Image getSeedIcon(CropType type) {
-        Image cropSheet = getTexture(AssetPaths.CROP_SHEET);
-        if (cropSheet == null) return null;
-
-        PixelReader reader = cropSheet.getPixelReader();
-        int x = (int) (CropConfig.CROP_SEED_FRAME_INDEX * CropConfig.CROP_SPRITE_WIDTH);
-        int y = (int) (type.getSpriteRow() * CropConfig.CROP_SPRITE_HEIGHT);
-
-        return new WritableImage(reader, x, y, (int) CropConfig.CROP_SPRITE_WIDTH, (int) CropConfig.CROP_SPRITE_HEIGHT);
+        return spriteAtlas.getCropSeedIcon(type);
     }
 
     /**
      * Lấy icon hạt giống cây tự nhiên để hiển thị hình bóng mờ khi đặt.
      */
     public Image getTreeSeedIcon() {
-        Image treeSheet = getTexture(AssetPaths.TREE_SHEET);
-        if (treeSheet == null) return null;
-
-        PixelReader reader = treeSheet.getPixelReader();
-        int x = (int) (TreeConfig.TREE_SEED_STAGE * TreeConfig.TREE_SPRITE_WIDTH);
-        int y = 0;
-
-        return new WritableImage(reader, x, y, (int) TreeConfig.TREE_SPRITE_WIDTH, (int) TreeConfig.TREE_SPRITE_HEIGHT);
+        return spriteAtlas.getTreeSeedIcon();
     }
 
     /**
      * Lấy icon sản phẩm thu hoạch (frame cuối cùng của cây trồng).
      */
     public Image getHarvestIcon(CropType type) {
-        Image cropSheet = getTexture(AssetPaths.CROP_SHEET);
-        if (cropSheet == null) return null;
-
-        PixelReader reader = cropSheet.getPixelReader();
-        int x = (int) (CropConfig.CROP_HARVEST_FRAME_INDEX * CropConfig.CROP_SPRITE_WIDTH);
-        int y = (int) (type.getSpriteRow() * CropConfig.CROP_SPRITE_HEIGHT);
-
-        return new WritableImage(reader, x, y, (int) CropConfig.CROP_SPRITE_WIDTH, (int) CropConfig.CROP_SPRITE_HEIGHT);
+        return spriteAtlas.getCropHarvestIcon(type);
     }
 
     /**
      * Lưu trữ thủ công icon vật phẩm vào cache.
      */
     public void cacheItemIcon(ItemType type, Image icon) {
-        itemIconCache.put(type, icon);
+        textureCache.put(TextureCache.Namespace.ITEM_ICON, type, icon, false);
     }
 
     /**
@@ -451,22 +391,31 @@ public class ImageManager {
      */
     public Image getItemIcon(ItemType type) {
         if (type == null) return null;
+        if (isAtlasItem(type)) return getAtlasItemIcon(type); // Dùng chung hình với atlas, không tính thêm byte
+        return textureCache.get(TextureCache.Namespace.ITEM_ICON, type, itemIconLoader);
+    }
 
-        if (itemIconCache.containsKey(type)) {
-            return itemIconCache.get(type);
-        }
-
-        Image icon;
+    /**
+     * Cắt icon vật phẩm khi chưa có trong bộ đệm (các vật phẩm không lấy hình từ atlas, xem isAtlasItem).
+     */
+    private Image loadItemIcon(ItemType type) {
         if (isAnimalItem(type)) {
-            icon = getClippedAnimalItemIcon(type);
-        } else {
-            icon = getClippedGeneralItemIcon(type);
+            return getClippedAnimalItemIcon(type);
         }
+        return getClippedGeneralItemIcon(type);
+    }
 
-        if (icon != null) {
-            itemIconCache.put(type, icon);
-        }
-        return icon;
+    // Kiểm tra xem icon của vật phẩm có phải là hình trong atlas (hạt giống, nông sản) không
+    private static boolean isAtlasItem(ItemType type) {
+        return type == ItemType.SEEDS_TREE || HARVEST_ITEM_CROPS.containsKey(type) || SEED_ITEM_CROPS.containsKey(type);
+    }
+
+    // Lấy icon hạt giống / nông sản từ atlas (null nếu atlas chưa được cắt)
+    private Image getAtlasItemIcon(ItemType type) {
+        if (type == ItemType.SEEDS_TREE) return getTreeSeedIcon();
+        CropType cropType = HARVEST_ITEM_CROPS.get(type);
+        if (cropType != null) return getHarvestIcon(cropType);
+        return getSeedIcon(SEED_ITEM_CROPS.get(type));
     }
 
     // Kiểm tra xem vật phẩm có phải là thẻ mua vật nuôi không
@@ -543,25 +492,25 @@ public class ImageManager {
         WritableImage waterIcon = new WritableImage(reader,
                 (int) (ItemSpriteConfig.ITEM_WATERING_CAN_COL * ItemSpriteConfig.ITEM_SPRITE_WIDTH), 0,
                 (int) ItemSpriteConfig.ITEM_SPRITE_WIDTH, (int) ItemSpriteConfig.ITEM_SPRITE_HEIGHT);
-        statusIconCache.put(CropStatusIndicator.NEEDS_WATER, waterIcon);
+        textureCache.putIfAbsent(TextureCache.Namespace.STATUS_ICON, CropStatusIndicator.NEEDS_WATER, waterIcon, true);
 
         // Icon Cần phân bón
         WritableImage fertilizerIcon = new WritableImage(reader,
                 (int) (ItemSpriteConfig.ITEM_FERTILISER_COL * ItemSpriteConfig.ITEM_SPRITE_WIDTH), 0,
                 (int) ItemSpriteConfig.ITEM_SPRITE_WIDTH, (int) ItemSpriteConfig.ITEM_SPRITE_HEIGHT);
-        statusIconCache.put(CropStatusIndicator.NEEDS_FERTILIZER, fertilizerIcon);
+        textureCache.putIfAbsent(TextureCache.Namespace.STATUS_ICON, CropStatusIndicator.NEEDS_FERTILIZER, fertilizerIcon, true);
 
         // Icon kết hợp
         WritableImage combinedIcon = new WritableImage(reader,
                 (int) (ItemSpriteConfig.ITEM_WATERING_CAN_COL * ItemSpriteConfig.ITEM_SPRITE_WIDTH), 0,
                 (int) (ItemSpriteConfig.ITEM_SPRITE_WIDTH * 2), (int) ItemSpriteConfig.ITEM_SPRITE_HEIGHT);
-        statusIconCache.put(CropStatusIndicator.NEED_WATER_AND_FERTILIZER, combinedIcon);
+        textureCache.putIfAbsent(TextureCache.Namespace.STATUS_ICON, CropStatusIndicator.NEED_WATER_AND_FERTILIZER, combinedIcon, true);
 
         // Icon Thu hoạch
         WritableImage harvestIcon = new WritableImage(reader,
                 (int) (ItemSpriteConfig.ITEM_SCYTHE_COL * ItemSpriteConfig.ITEM_SPRITE_WIDTH), 0,
                 (int) ItemSpriteConfig.ITEM_SPRITE_WIDTH, (int) ItemSpriteConfig.ITEM_SPRITE_HEIGHT);
-        statusIconCache.put(CropStatusIndicator.READY_TO_HARVEST, harvestIcon);
+        textureCache.putIfAbsent(TextureCache.Namespace.STATUS_ICON, CropStatusIndicator.READY_TO_HARVEST, harvestIcon, true);
     }
 
     // Cắt và cache các icon giao diện người dùng
@@ -591,7 +540,7 @@ public class ImageManager {
             WritableImage icon = new WritableImage(reader,
                     (int) (entry.getValue() * iconSize), (int) (row * iconSize),
                     (int) iconSize, (int) iconSize);
-            guiIconCache.put(entry.getKey(), icon);
+            textureCache.putIfAbsent(TextureCache.Namespace.GUI_ICON, entry.getKey(), icon, true);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,305 @@
+package com.example.farmSimulation.view.assets;
+
+import com.example.farmSimulation.config.AnimalConfig;
+import com.example.farmSimulation.config.CropConfig;
+import com.example.farmSimulation.config.FenceConfig;
+import com.example.farmSimulation.config.TreeConfig;
+import com.example.farmSimulation.model.Animal;
+import com.example.farmSimulation.model.AnimalType;
+import com.example.farmSimulation.model.CropType;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelReader;
+import javafx.scene.image.WritableImage;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * Bảng sprite (Atlas) được cắt sẵn một lần duy nhất khi khởi động.
+ * Mọi frame của cây trồng, cây tự nhiên, hàng rào và động vật được lưu trong mảng
+ * đánh chỉ số theo ordinal của Enum và giai đoạn/frame, giúp việc tra cứu mỗi khung hình
+ * không tạo khóa String và không cấp phát bộ nhớ.
+ */
+public class SpriteAtlas {
+
+    // Số hướng nhìn của động vật (0: Xuống, 1: Phải, 2: Trái, 3: Lên)
+    public static final int DIRECTION_COUNT = 4;
+
+    // Số mẫu kết nối của hàng rào (4 bit: Trên, Phải, Dưới, Trái)
+    public static final int FENCE_PATTERN_COUNT = 16;
+
+    private static final Animal.Action[] ACTIONS = Animal.Action.values();
+
+    // ==============================================================================================
+    // 1. DỮ LIỆU ATLAS
+    // ==============================================================================================
+
+    // [CropType.ordinal][giai đoạn] - mỗi cột của hàng tương ứng trong crop sheet
+    private final Image[][] cropFrames = new Image[CropType.values().length][];
+    private final Image[] cropSeedIcons = new Image[CropType.values().length];
+    private final Image[] cropHarvestIcons = new Image[CropType.values().length];
+
+    // [giai đoạn] - hàng đầu tiên của tree sheet
+    private Image[] treeFrames = new Image[0];
+    private Image treeStump;
+    private Image treeSeedIcon;
+
+    // [mẫu kết nối 0-15] và cổng đang mở
+    private final Image[] fencePatterns = new Image[FENCE_PATTERN_COUNT];
+    private Image fenceOpen;
+
+    // [AnimalType.ordinal][hướng][Action.ordinal][frame]
+    private final Image[][][][] animalFrames = new Image[AnimalType.values().length][][][];
+
+    // ==============================================================================================
+    // 2. CẮT SPRITE TỪ SHEET (Mỗi sheet xử lý độc lập)
+    // ==============================================================================================
+
+    /**
+     * Cắt toàn bộ giai đoạn phát triển, icon hạt giống và icon thu hoạch của mọi loại cây trồng.
+     */
+    public void sliceCrops(Image cropSheet) {
+        if (cropSheet == null) return;
+        PixelReader reader = cropSheet.getPixelReader();
+        int w = (int) CropConfig.CROP_SPRITE_WIDTH;
+        int h = (int) CropConfig.CROP_SPRITE_HEIGHT;
+        int columns = (int) (cropSheet.getWidth() / w);
+
+        for (CropType type : CropType.values()) {
+            int y = type.getSpriteRow() * h;
+            if (y + h > cropSheet.getHeight()) {
+                cropFrames[type.ordinal()] = new Image[0];
+                continue;
+            }
+
+            Image[] frames = new Image[columns];
+            for (int col = 0; col < columns; col++) {
+                frames[col] = new WritableImage(reader, col * w, y, w, h);
+            }
+            cropFrames[type.ordinal()] = frames;
+            cropSeedIcons[type.ordinal()] = frameAt(frames, CropConfig.CROP_SEED_FRAME_INDEX);
+            cropHarvestIcons[type.ordinal()] = frameAt(frames, CropConfig.CROP_HARVEST_FRAME_INDEX);
+        }
+    }
+
+    /**
+     * Cắt các giai đoạn của cây tự nhiên (bao gồm frame gốc cây và hạt giống).
+     */
+    public void sliceTrees(Image treeSheet) {
+        if (treeSheet == null) return;
+        PixelReader reader = treeSheet.getPixelReader();
+        int w = (int) TreeConfig.TREE_SPRITE_WIDTH;
+        int h = (int) TreeConfig.TREE_SPRITE_HEIGHT;
+        if (h > treeSheet.getHeight()) return;
+
+        int columns = (int) (treeSheet.getWidth() / w);
+        Image[] frames = new Image[columns];
+        for (int col = 0; col < columns; col++) {
+            frames[col] = new WritableImage(reader, col * w, 0, w, h);
+        }
+        treeFrames = frames;
+        treeStump = frameAt(frames, TreeConfig.TREE_STUMP_FRAME_INDEX);
+        treeSeedIcon = frameAt(frames, TreeConfig.TREE_SEED_STAGE);
+    }
+
+    /**
+     * Cắt 16 mẫu kết nối hàng rào và hình cổng mở.
+     */
+    public void sliceFences(Image fenceSheet) {
+        if (fenceSheet == null) return;
+        PixelReader reader = fenceSheet.getPixelReader();
+        int w = (int) FenceConfig.FENCE_SPRITE_WIDTH;
+        int h = (int) FenceConfig.FENCE_SPRITE_HEIGHT;
+
+        for (int pattern = 0; pattern < FENCE_PATTERN_COUNT; pattern++) {
+            int[] cell = fencePatternCell(pattern);
+            fencePatterns[pattern] = new WritableImage(reader, cell[0] * w, cell[1] * h, w, h);
+        }
+        // Cổng mở dùng hình cọc đơn (Cột 0, Hàng 3) - giống mẫu 0
+        fenceOpen = fencePatterns[0];
+    }
+
+    /**
+     * Cắt mọi frame (theo hướng, hành động) của một loại động vật từ sheet tương ứng.
+     */
+    public void sliceAnimal(AnimalType animalType, Image animalSheet) {
+        if (animalType == null || animalSheet == null) return;
+        PixelReader reader = animalSheet.getPixelReader();
+        int spriteSize = (int) animalType.getSpriteSize();
+        int columns = Math.max(1, (int) (animalSheet.getWidth() / spriteSize));
+
+        Image[][][] byDirection = new Image[DIRECTION_COUNT][ACTIONS.length][];
+        for (int direction = 0; direction < DIRECTION_COUNT; direction++) {
+            for (Animal.Action action : ACTIONS) {
+                int row = animalRow(animalType, direction, action);
+                Image[] frames = new Image[columns];
+                int y = row * spriteSize;
+                if (y + spriteSize <= animalSheet.getHeight()) {
+                    for (int col = 0; col < columns; col++) {
+                        frames[col] = new WritableImage(reader, col * spriteSize, y, spriteSize, spriteSize);
+                    }
+                }
+                byDirection[direction][action.ordinal()] = frames;
+            }
+        }
+        animalFrames[animalType.ordinal()] = byDirection;
+    }
+
+    // ==============================================================================================
+    // 3. TRA CỨU (Không cấp phát bộ nhớ)
+    // ==============================================================================================
+
+    public Image getCropFrame(CropType type, int stage) {
+        return frameAt(cropFrames[type.ordinal()], stage);
+    }
+
+    public Image getCropSeedIcon(CropType type) {
+        return cropSeedIcons[type.ordinal()];
+    }
+
+    public Image getCropHarvestIcon(CropType type) {
+        return cropHarvestIcons[type.ordinal()];
+    }
+
+    public Image getTreeFrame(int stage) {
+        return frameAt(treeFrames, stage);
+    }
+
+    public Image getTreeStump() {
+        return treeStump;
+    }
+
+    public Image getTreeSeedIcon() {
+        return treeSeedIcon;
+    }
+
+    public Image getFenceFrame(int pattern, boolean isOpen) {
+        if (isOpen) return fenceOpen;
+        // Mặc định về cọc đơn nếu mẫu không hợp lệ
+        if (pattern < 0 || pattern >= FENCE_PATTERN_COUNT) return fencePatterns[0];
+        return fencePatterns[pattern];
+    }
+
+    /**
+     * Lấy frame động vật. Nếu frame vượt quá số cột của sheet, dùng frame đầu tiên của hàng
+     * (giống cơ chế kiểm tra biên khi cắt ảnh trước đây).
+     */
+    public Image getAnimalFrame(AnimalType animalType, int direction, Animal.Action action, int frameIndex) {
+        Image[][][] byDirection = animalFrames[animalType.ordinal()];
+        if (byDirection == null) return null;
+        if (direction < 0 || direction >= DIRECTION_COUNT) direction = 0;
+
+        Image[] frames = byDirection[direction][action.ordinal()];
+        if (frames.length == 0) return null;
+        if (frameIndex < 0 || frameIndex >= frames.length) return frames[0];
+        return frames[frameIndex];
+    }
+
+    /**
+     * Ước lượng tổng dung lượng các sprite đã cắt (để tính vào thống kê bộ nhớ texture).
+     * Các tham chiếu trùng nhau (vd: cổng mở dùng chung hình cọc đơn) chỉ được tính một lần.
+     */
+    public long estimateBytes() {
+        Set<Image> unique = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Image[] frames : cropFrames) addAll(unique, frames);
+        addAll(unique, treeFrames);
+        addAll(unique, fencePatterns);
+        for (Image[][][] byDirection : animalFrames) {
+            if (byDirection == null) continue;
+            for (Image[][] byAction : byDirection) {
+                for (Image[] frames : byAction) addAll(unique, frames);
+            }
+        }
+
+        long bytes = 0;
+        for (Image image : unique) {
+            bytes += TextureCache.estimateBytes(image);
+        }
+        return bytes;
+    }
+
+    // ==============================================================================================
+    // 4. HÀM HỖ TRỢ
+    // ==============================================================================================
+
+    private static void addAll(Set<Image> target, Image[] frames) {
+        if (frames == null) return;
+        for (Image frame : frames) {
+            if (frame != null) target.add(frame);
+        }
+    }
+
+    private static Image frameAt(Image[] frames, int index) {
+        if (frames == null || index < 0 || index >= frames.length) return null;
+        return frames[index];
+    }
+
+    /**
+     * Xác định hàng trong sheet động vật theo loại, hướng và hành động.
+     */
+    private static int animalRow(AnimalType animalType, int direction, Animal.Action action) {
+        // Trứng nằm ở hàng quy định cho Idle Down, biến thể được chọn qua frame
+        if (animalType == AnimalType.EGG_ENTITY) {
+            return AnimalConfig.STANDARD_ROW_IDLE_DOWN;
+        }
+
+        // Gà: Nhóm A (Trái/Xuống) và Nhóm B (Phải/Trên); hành động ăn dùng sprite đứng yên
+        if (animalType == AnimalType.CHICKEN) {
+            boolean isGroupA = (direction == 2 || direction == 0);
+            if (action == Animal.Action.WALK) {
+                return isGroupA ? AnimalConfig.CHICKEN_ROW_WALK_LEFT : AnimalConfig.CHICKEN_ROW_WALK_RIGHT;
+            }
+            return isGroupA ? AnimalConfig.CHICKEN_ROW_IDLE_LEFT : AnimalConfig.CHICKEN_ROW_IDLE_RIGHT;
+        }
+
+        // Các động vật khác theo chuẩn chung (Bò, Cừu, Lợn...)
+        if (action == Animal.Action.WALK) {
+            switch (direction) {
+                case 3: return AnimalConfig.STANDARD_ROW_WALK_UP;
+                case 2: return AnimalConfig.STANDARD_ROW_WALK_LEFT;
+                case 1: return AnimalConfig.STANDARD_ROW_WALK_RIGHT;
+                default: return AnimalConfig.STANDARD_ROW_WALK_DOWN;
+            }
+        }
+        switch (direction) { // Đứng yên hoặc Ăn
+            case 3: return AnimalConfig.STANDARD_ROW_IDLE_UP;
+            case 2: return AnimalConfig.STANDARD_ROW_IDLE_LEFT;
+            case 1: return AnimalConfig.STANDARD_ROW_IDLE_RIGHT;
+            default: return AnimalConfig.STANDARD_ROW_IDLE_DOWN;
+        }
+    }
+
+    /**
+     * Ánh xạ mẫu kết nối hàng rào (0-15) sang ô {cột, hàng} trong fence sheet.
+     */
+    private static int[] fencePatternCell(int pattern) {
+        switch (pattern) {
+            // --- NHÓM 1: CÁC ĐẦU MÚT VÀ ĐƯỜNG THẲNG ---
+            case 1:  return new int[]{0, 2}; // Nối lên trên (Đầu dưới)
+            case 4:  return new int[]{0, 0}; // Nối xuống dưới (Đầu trên)
+            case 5:  return new int[]{0, 1}; // Thẳng đứng
+            case 2:  return new int[]{1, 0}; // Nối sang phải (Đầu trái)
+            case 8:  return new int[]{3, 0}; // Nối sang trái (Đầu phải)
+            case 10: return new int[]{2, 0}; // Nằm ngang
+
+            // --- NHÓM 2: CÁC GÓC ---
+            case 6:  return new int[]{1, 1}; // Góc Trên-Trái
+            case 12: return new int[]{3, 1}; // Góc Trên-Phải
+            case 3:  return new int[]{1, 3}; // Góc Dưới-Trái
+            case 9:  return new int[]{3, 3}; // Góc Dưới-Phải
+
+            // --- NHÓM 3: NGÃ BA (CHỮ T) ---
+            case 7:  return new int[]{1, 2}; // Chữ T quay phải
+            case 11: return new int[]{2, 3}; // Chữ T quay lên
+            case 13: return new int[]{3, 2}; // Chữ T quay trái
+            case 14: return new int[]{2, 1}; // Chữ T quay xuống
+
+            // --- NHÓM 4: NGÃ TƯ ---
+            case 15: return new int[]{2, 2}; // Nối cả 4 hướng
+
+            // Cọc đơn, không nối (mẫu 0 và mặc định)
+            default: return new int[]{0, 3};
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.example.farmSimulation.view.assets;
+
+import javafx.scene.image.Image;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Bộ nhớ đệm texture hợp nhất có giới hạn dung lượng (byte budget).
+ * - Mọi texture (ảnh gốc, icon GUI, icon vật phẩm, icon trạng thái) đều đi qua bộ đệm này, trừ các hình
+ *   dùng chung với Sprite Atlas (vd: icon hạt giống / nông sản) vốn đã được tính qua addExternalPinnedBytes.
+ * - Khi tổng dung lượng vượt ngân sách, các mục KHÔNG được ghim (pin) và ít được dùng gần đây nhất
+ *   sẽ bị loại bỏ (LRU). Mục bị loại sẽ được tải lại qua hàm loader ở lần truy cập kế tiếp.
+ * - Các texture luôn cần thiết (nền đất, icon HUD...) được ghim và không bao giờ bị loại.
+ * - Thống kê hit/miss/eviction và số byte đang chiếm giữ để theo dõi bộ nhớ.
+ *
+ * Danh sách LRU được cài đặt dạng danh sách liên kết đôi nội bộ (intrusive) để thao tác
+ * "đưa lên đầu" khi truy cập không cấp phát bộ nhớ. Các phương thức được đồng bộ (synchronized)
+ * vì texture được nạp song song trên các luồng tải tài nguyên.
+ */
+public class TextureCache {
+
+    /**
+     * Không gian tên của khóa - tách riêng map cho từng loại để tra cứu không cần tạo khóa ghép.
+     */
+    public enum Namespace {
+        TEXTURE,     // Ảnh gốc, khóa là đường dẫn
+        GUI_ICON,    // Icon giao diện, khóa là tên icon
+        ITEM_ICON,   // Icon vật phẩm, khóa là ItemType
+        STATUS_ICON  // Icon trạng thái cây trồng, khóa là CropStatusIndicator
+    }
+
+    private static final Namespace[] NAMESPACES = Namespace.values();
+
+    // Một mục trong bộ đệm, đồng thời là nút của danh sách LRU
+    private static final class Entry {
+        final Namespace namespace;
+        final Object key;
+        final Image image;
+        final long bytes;
+        boolean pinned;
+        Entry prev;
+        Entry next;
+
+        Entry(Namespace namespace, Object key, Image image, long bytes) {
+            this.namespace = namespace;
+            this.key = key;
+            this.image = image;
+            this.bytes = bytes;
+        }
+    }
+
+    private final long budgetBytes;
+
+    @SuppressWarnings("unchecked")
+    private final Map<Object, Entry>[] maps = new Map[NAMESPACES.length];
+
+    // Đầu danh sách: mới dùng gần đây nhất; Cuối danh sách: ứng viên bị loại bỏ
+    private Entry head;
+    private Entry tail;
+
+    // --- Thống kê ---
+    private long residentBytes = 0;
+    private long pinnedBytes = 0;
+    private long externalPinnedBytes = 0; // Bộ nhớ ngoài cache được tính vào thống kê (vd: Sprite Atlas)
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    public TextureCache(long budgetBytes) {
+        this.budgetBytes = budgetBytes;
+        for (int i = 0; i < maps.length; i++) {
+            maps[i] = new HashMap<>();
+        }
+    }
+
+    // ==============================================================================================
+    // 1. TRA CỨU VÀ NẠP
+    // ==============================================================================================
+
+    /**
+     * Lấy texture theo khóa. Nếu chưa có (hoặc đã bị loại), gọi loader để nạp lại.
+     * Loader được gọi bên ngoài khóa đồng bộ để không chặn các luồng khác khi giải mã ảnh.
+     *
+     * @param loader Hàm nạp texture; nên là một đối tượng tạo sẵn để tránh cấp phát lambda mỗi lần gọi
+     */
+    public Image get(Namespace namespace, Object key, Function<Object, Image> loader) {
+        synchronized (this) {
+            Entry entry = maps[namespace.ordinal()].get(key);
+            if (entry != null) {
+                hits++;
+                moveToHead(entry);
+                return entry.image;
+            }
+            misses++;
+        }
+
+        Image loaded = loader != null ? loader.apply(key) : null;
+        if (loaded == null) return null;
+        return putIfAbsent(namespace, key, loaded, false);
+    }
+
+    /**
+     * Chỉ tra cứu, không nạp khi thiếu.
+     */
+    public synchronized Image peek(Namespace namespace, Object key) {
+        Entry entry = maps[namespace.ordinal()].get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        moveToHead(entry);
+        return entry.image;
+    }
+
+    /**
+     * Đưa texture vào bộ đệm. Nếu khóa đã tồn tại, giữ mục cũ (và trả về ảnh cũ).
+     *
+     * @param pinned true nếu texture luôn cần thiết và không được phép loại bỏ
+     */
+    public synchronized Image putIfAbsent(Namespace namespace, Object key, Image image, boolean pinned) {
+        Map<Object, Entry> map = maps[namespace.ordinal()];
+        Entry existing = map.get(key);
+        if (existing != null) {
+            if (pinned) pin(existing);
+            moveToHead(existing);
+            return existing.image;
+        }
+
+        Entry entry = new Entry(namespace, key, image, estimateBytes(image));
+        map.put(key, entry);
+        addToHead(entry);
+        residentBytes += entry.bytes;
+        if (pinned) pin(entry);
+
+        evictIfOverBudget();
+        return image;
+    }
+
+    /**
+     * Ghi đè texture cho khóa (dùng khi muốn thay thế ảnh đã có).
+     */
+    public synchronized void put(Namespace namespace, Object key, Image image, boolean pinned) {
+        Entry old = maps[namespace.ordinal()].get(key);
+        if (old != null) {
+            pinned = pinned || old.pinned;
+            removeEntry(old);
+        }
+        putIfAbsent(namespace, key, image, pinned);
+    }
+
+    /**
+     * Ghim texture đã có trong bộ đệm để nó không bao giờ bị loại bỏ.
+     */
+    public synchronized void pin(Namespace namespace, Object key) {
+        Entry entry = maps[namespace.ordinal()].get(key);
+        if (entry != null) pin(entry);
+    }
+
+    /**
+     * Tính thêm dung lượng của bộ nhớ nằm ngoài cache nhưng luôn được giữ (vd: Sprite Atlas)
+     * vào thống kê, để số liệu phản ánh tổng bộ nhớ texture.
+     */
+    public synchronized void addExternalPinnedBytes(long bytes) {
+        externalPinnedBytes += bytes;
+    }
+
+    /**
+     * Lấy bản sao các texture đang có trong một không gian tên (dùng cho ghi cache ra đĩa...).
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <K> Map<K, Image> snapshot(Namespace namespace) {
+        Map<K, Image> result = new HashMap<>();
+        for (Map.Entry<Object, Entry> e : maps[namespace.ordinal()].entrySet()) {
+            result.put((K) e.getKey(), e.getValue().image);
+        }
+        return result;
+    }
+
+    // ==============================================================================================
+    // 2. THỐNG KÊ
+    // ==============================================================================================
+
+    public synchronized long getResidentBytes() { return residentBytes + externalPinnedBytes; }
+    public synchronized long getPinnedBytes() { return pinnedBytes + externalPinnedBytes; }
+    public synchronized long getHits() { return hits; }
+    public synchronized long getMisses() { return misses; }
+    public synchronized long getEvictions() { return evictions; }
+    public long getBudgetBytes() { return budgetBytes; }
+
+    public synchronized int getEntryCount() {
+        int count = 0;
+        for (Map<Object, Entry> map : maps) {
+            count += map.size();
+        }
+        return count;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("TextureCache[entries=%d, resident=%.1f MB, pinned=%.1f MB, budget=%.1f MB, hits=%d, misses=%d, evictions=%d]",
+                getEntryCount(),
+                getResidentBytes() / (1024.0 * 1024.0),
+                getPinnedBytes() / (1024.0 * 1024.0),
+                budgetBytes / (1024.0 * 1024.0),
+                hits, misses, evictions);
+    }
+
+    // ==============================================================================================
+    // 3. HÀM HỖ TRỢ NỘI BỘ
+    // ==============================================================================================
+
+    /**
+     * Ước lượng dung lượng texture (4 byte mỗi điểm ảnh BGRA).
+     */
+    public static long estimateBytes(Image image) {
+        if (image == null) return 0;
+        return (long) image.getWidth() * (long) image.getHeight() * 4L;
+    }
+
+    private void pin(Entry entry) {
+        if (!entry.pinned) {
+            entry.pinned = true;
+            pinnedBytes += entry.bytes;
+        }
+    }
+
+    /**
+     * Loại bỏ các mục không ghim từ cuối danh sách LRU cho đến khi về dưới ngân sách.
+     */
+    private void evictIfOverBudget() {
+        Entry candidate = tail;
+        while (residentBytes > budgetBytes && candidate != null) {
+            Entry prev = candidate.prev;
+            if (!candidate.pinned) {
+                removeEntry(candidate);
+                evictions++;
+            }
+            candidate = prev;
+        }
+    }
+
+    private void removeEntry(Entry entry) {
+        maps[entry.namespace.ordinal()].remove(entry.key);
+        unlink(entry);
+        residentBytes -= entry.bytes;
+        if (entry.pinned) pinnedBytes -= entry.bytes;
+    }
+
+    private void addToHead(Entry entry) {
+        entry.prev = null;
+        entry.next = head;
+        if (head != null) head.prev = entry;
+        head = entry;
+        if (tail == null) tail = entry;
+    }
+
+    private void unlink(Entry entry) {
+        if (entry.prev != null) entry.prev.next = entry.next;
+        else head = entry.next;
+        if (entry.next != null) entry.next.prev = entry.prev;
+        else tail = entry.prev;
+        entry.prev = null;
+        entry.next = null;
+    }
+
+    private void moveToHead(Entry entry) {
+        if (entry == head) return;
+        unlink(entry);
+        addToHead(entry);
+    }
+}
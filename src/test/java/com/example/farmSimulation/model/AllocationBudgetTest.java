@@ -0,0 +1,188 @@
+package com.example.farmSimulation.model;
+
+import com.example.farmSimulation.config.WorldConfig;
+import com.example.farmSimulation.model.GameSaveState.SavedAnimal;
+import com.example.farmSimulation.model.GameSaveState.SavedTileData;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Kiểm tra ngân sách cấp phát bộ nhớ của vòng lặp mô phỏng (chạy không cần giao diện).
+ * Dựng nông trại giả lập, chạy cùng các bước mà GameManager chạy mỗi frame (cây trồng, cây tự nhiên, động vật,
+ * gỡ chunk, đọc các ô trên màn hình) trong N tick với thời gian tua nhanh 60 tick / giây game, đo số byte
+ * luồng chính cấp phát cho từng hệ thống bằng ThreadMXBean.getThreadAllocatedBytes.
+ * Các công việc của FrameScheduler được chạy trọn ngay trong tick (không chia ngân sách) để đo riêng từng hệ thống.
+ *
+ * Mỗi kịch bản có ngân sách byte / tick trung bình; vượt ngân sách thì kiểm thử thất bại, để một thay đổi
+ * vô tình cấp phát mỗi frame (gây GC thường xuyên, giật hình) bị phát hiện ngay.
+ * Các tick khởi động đầu tiên (JIT, bộ đệm lần đầu) không được tính.
+ *
+ * Chạy: ./gradlew test --tests '*AllocationBudgetTest'  (đổi số tick: -Pfarm.allocation.ticks=20000)
+ */
+class AllocationBudgetTest {
+    private static final int DEFAULT_TICKS = 12_000;                // 200 giây game
+    private static final int WARMUP_TICKS = 6_000;
+    private static final long FRAME_NANOS = 16_666_667L;            // 60 FPS
+    private static final double WALK_SPEED_TILES_PER_SECOND = 4.0;
+    private static final long SEED = 11L;
+
+    // Nông trại: 40k ô đã khám phá, 2000 cây trồng, 500 hàng rào, 1000 cây, 60 động vật, 200 vật phẩm rơi
+    private static final SyntheticFarm FARM = new SyntheticFarm("allocation", 40_000, 2_000, 500, 1_000, 60, 200);
+
+    // --- Ngân sách (byte / tick trung bình, đo được ~3.8 KB đứng yên và ~13 KB đi bộ, cộng khoảng dư) ---
+    // Đứng yên: phần còn lại gần như chỉ là khóa Long được tạo khi tra cứu ô (va chạm của động vật), vì bản đồ
+    // dùng HashMap<Long, TileData>; mọi danh sách / chuỗi tạo mới mỗi frame đều phải bị bắt ở đây
+    private static final long IDLE_BUDGET_BYTES_PER_TICK = 6 * 1024;
+    // Đi bộ: ô mới được tạo và chunk được gỡ / tải lại khi người chơi đi ra vùng mới là cấp phát cần thiết
+    private static final long WALKING_BUDGET_BYTES_PER_TICK = 20 * 1024;
+
+    private static final String[] SYSTEMS = {"Crops", "Trees", "Animals", "Chunks", "Viewport"};
+    private static final int CROPS = 0, TREES = 1, ANIMALS = 2, CHUNKS = 3, VIEWPORT = 4;
+
+    private static com.sun.management.ThreadMXBean threadBean;
+
+    @Test
+    void idleOnFarmStaysWithinBudget() {
+        runScenario("Idle on farm", false, IDLE_BUDGET_BYTES_PER_TICK);
+    }
+
+    @Test
+    void walkingStaysWithinBudget() {
+        runScenario("Walking", true, WALKING_BUDGET_BYTES_PER_TICK);
+    }
+
+    /**
+     * Chạy một kịch bản, in bảng cấp phát theo hệ thống và kiểm tra số byte / tick trung bình không vượt ngân sách.
+     */
+    private static void runScenario(String name, boolean walking, long budgetBytesPerTick) {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                && bean.isThreadAllocatedMemorySupported(), "This JVM cannot count allocated bytes per thread.");
+        threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+        int ticks = Integer.getInteger("farm.allocation.ticks", DEFAULT_TICKS);
+
+        System.out.printf("=== Allocation budget: %d ticks after %d warm-up ticks (%s farm: %d tiles, %d crops, %d animals) ===%n",
+                ticks, WARMUP_TICKS, FARM.name, FARM.exploredTiles, FARM.crops, FARM.animals);
+
+        Simulation sim = new Simulation();
+        long now = 1;
+        for (int tick = 0; tick < WARMUP_TICKS; tick++) {
+            now += FRAME_NANOS;
+            sim.tick(now, walking, null);
+        }
+
+        long[] totals = new long[SYSTEMS.length];
+        long[] maxPerTick = new long[SYSTEMS.length];
+        long[] tickBytes = new long[SYSTEMS.length];
+        long worstTick = 0;
+        long start = System.nanoTime();
+        for (int tick = 0; tick < ticks; tick++) {
+            now += FRAME_NANOS;
+            sim.tick(now, walking, tickBytes);
+            long tickTotal = 0;
+            for (int s = 0; s < SYSTEMS.length; s++) {
+                totals[s] += tickBytes[s];
+                maxPerTick[s] = Math.max(maxPerTick[s], tickBytes[s]);
+                tickTotal += tickBytes[s];
+            }
+            worstTick = Math.max(worstTick, tickTotal);
+        }
+        double wallMs = (System.nanoTime() - start) / 1e6;
+
+        System.out.printf("%n--- %s (%.0f ms wall, %.2f µs / tick) ---%n", name, wallMs, wallMs * 1000 / ticks);
+        System.out.printf("%-10s %14s %14s%n", "System", "Avg B/tick", "Max B/tick");
+        long total = 0;
+        for (int s = 0; s < SYSTEMS.length; s++) {
+            System.out.printf("%-10s %14.1f %14d%n", SYSTEMS[s], (double) totals[s] / ticks, maxPerTick[s]);
+            total += totals[s];
+        }
+        double perTick = (double) total / ticks;
+        boolean ok = perTick <= budgetBytesPerTick;
+        System.out.printf("%-10s %14.1f %14d   budget %d B/tick -> %s%n", "Total", perTick, worstTick, budgetBytesPerTick,
+                ok ? "OK" : "OVER BUDGET");
+        assertTrue(ok, String.format("%s: %.1f B/tick exceeds the budget of %d B/tick (see the per-system table)",
+                name, perTick, budgetBytesPerTick));
+    }
+
+    private static long allocated() {
+        return threadBean.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Thế giới không giao diện với các hệ thống chạy mỗi frame, theo thứ tự của GameManager.updateGameLogic.
+     */
+    private static class Simulation {
+        final WorldMap worldMap = new WorldMap();
+        final TreeManager treeManager = new TreeManager(worldMap);
+        final CropManager cropManager = new CropManager(worldMap);
+        final AnimalManager animalManager = new AnimalManager(worldMap, new CollisionManager(worldMap));
+        final ChunkResidencyManager residency = new ChunkResidencyManager(worldMap, treeManager);
+        final Player player = new Player();
+        final double step = WALK_SPEED_TILES_PER_SECOND * WorldConfig.TILE_SIZE * FRAME_NANOS / 1e9;
+        double x = 0, y = 0;
+        int lastStartCol = Integer.MIN_VALUE, lastStartRow = Integer.MIN_VALUE;
+
+        Simulation() {
+            GameSaveState state = FARM.generate(SEED);
+            for (SavedTileData tile : state.worldTiles) {
+                worldMap.setTileData(tile.col, tile.row, WorldMap.restoreTile(tile));
+            }
+            worldMap.clearDirtyTiles();
+            for (SavedAnimal saved : state.animals) {
+                animalManager.addAnimal(AnimalManager.restoreAnimal(saved));
+            }
+            residency.setAnimalManager(animalManager);
+            residency.reset(null);
+        }
+
+        /**
+         * Một tick. Nếu bytes khác null, ghi số byte mỗi hệ thống cấp phát vào đó.
+         */
+        void tick(long now, boolean walking, long[] bytes) {
+            if (walking) { // Đi thẳng theo đường chéo ra vùng đất mới
+                x += step;
+                y += step * 0.5;
+            }
+            player.setTileX(x);
+            player.setTileY(y);
+            int playerCol = (int) Math.floor(x / WorldConfig.TILE_SIZE);
+            int playerRow = (int) Math.floor(y / WorldConfig.TILE_SIZE);
+
+            long mark = allocated();
+            cropManager.updateCrops(now);
+            mark = record(bytes, CROPS, mark);
+            treeManager.updateTrees(now, x, y);
+            mark = record(bytes, TREES, mark);
+            FrameScheduler.runToCompletion(animalManager.getLogicJob(), now);
+            animalManager.updateAnimals(now, player);
+            mark = record(bytes, ANIMALS, mark);
+            residency.update(now, x, y);
+            mark = record(bytes, CHUNKS, mark);
+
+            // Đọc lại các ô trên màn hình khi khung nhìn dịch sang ô khác, như WorldRenderer
+            // (ô chưa khám phá được tạo ra ở đây)
+            int startCol = playerCol - WorldConfig.NUM_COLS_ON_SCREEN / 2;
+            int startRow = playerRow - WorldConfig.NUM_ROWS_ON_SCREEN / 2;
+            if (startCol != lastStartCol || startRow != lastStartRow) {
+                lastStartCol = startCol;
+                lastStartRow = startRow;
+                for (int r = 0; r < WorldConfig.NUM_ROWS_ON_SCREEN; r++) {
+                    for (int c = 0; c < WorldConfig.NUM_COLS_ON_SCREEN; c++) {
+                        worldMap.getTileData(startCol + c, startRow + r);
+                    }
+                }
+            }
+            record(bytes, VIEWPORT, mark);
+        }
+
+        private static long record(long[] bytes, int system, long mark) {
+            long current = allocated();
+            if (bytes != null) bytes[system] = current - mark;
+            return current;
+        }
+    }
+}
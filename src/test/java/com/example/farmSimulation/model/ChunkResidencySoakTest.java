@@ -0,0 +1,257 @@
+package com.example.farmSimulation.model;
+
+import com.example.farmSimulation.config.SaveConfig;
+import com.example.farmSimulation.config.WorldConfig;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Bài chạy ngâm (soak) không cần giao diện cho việc gỡ chunk khỏi bộ nhớ.
+ * Mô phỏng người chơi đi bộ liên tục ra vùng đất mới trong nhiều giờ (thời gian được tua nhanh, 60 frame / giây game),
+ * vừa đi vừa đặt hàng rào / vật phẩm, với cùng các bước mà game chạy mỗi frame: vẽ vùng nhìn thấy,
+ * sinh cây quanh người chơi, ghi nhật ký định kỳ và gỡ chunk ở xa.
+ *
+ * Định kỳ đo heap (sau GC), số chunk trong bộ nhớ và kích thước các file trang (ChunkPageStore). Kết quả đạt khi số chunk
+ * trong bộ nhớ bị chặn, heap cuối bài không tăng quá HEAP_GROWTH_LIMIT_MB so với sau giai đoạn khởi động và
+ * file trang không lớn hơn dữ liệu còn dùng cộng phần rác cho phép (xem assertPagesBounded).
+ * Bài thứ hai cho người chơi đi tới đi lui trên cùng một đoạn đường: cùng các chunk bị gỡ rồi nạp lại hàng trăm lần,
+ * nên nếu mỗi lần gỡ đều ghi thêm vào cuối file thì file trang sẽ vượt giới hạn đó.
+ *
+ * Chạy: ./gradlew test --tests '*ChunkResidencySoakTest'  (đổi số giờ mô phỏng: -Pfarm.chunkSoak.hours=8)
+ */
+class ChunkResidencySoakTest {
+    private static final double DEFAULT_HOURS = 4.0;
+    private static final long FRAME_NANOS = 16_666_667L;            // 60 FPS
+    private static final double WALK_SPEED_TILES_PER_SECOND = 4.0;
+    private static final double TURN_INTERVAL_SECONDS = 90.0;       // Đổi hướng đi
+    private static final double PLACE_INTERVAL_SECONDS = 7.0;       // Đặt hàng rào / vật phẩm
+    private static final double JOURNAL_INTERVAL_SECONDS = SaveConfig.JOURNAL_FLUSH_INTERVAL_SECONDS;
+    private static final double SAMPLE_INTERVAL_SECONDS = 600.0;
+    private static final double WARMUP_FRACTION = 0.25;
+    private static final long HEAP_GROWTH_LIMIT_MB = 24;
+    private static final int BACK_AND_FORTH_TILES = 640;    // Độ dài đoạn đường đi tới đi lui (40 chunk)
+    private static final long SEED = 7L;
+
+    @Test
+    void residentChunksAndHeapStayBoundedWhileWalking() throws IOException {
+        double hours = Double.parseDouble(System.getProperty("farm.chunkSoak.hours", String.valueOf(DEFAULT_HOURS)));
+        long totalFrames = (long) (hours * 3600 * 1_000_000_000L / FRAME_NANOS);
+
+        WorldMap worldMap = new WorldMap();
+        TreeManager treeManager = new TreeManager(worldMap);
+        ChunkResidencyManager residency = new ChunkResidencyManager(worldMap, treeManager);
+        residency.reset(null);
+
+        Random random = new Random(SEED);
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        Set<Long> exploredChunks = new HashSet<>(); // Chỉ để báo cáo (bản thân nó tăng theo số chunk đi qua)
+
+        double x = 0, y = 0;
+        double heading = random.nextDouble() * Math.PI * 2;
+        int lastStartCol = Integer.MIN_VALUE, lastStartRow = Integer.MIN_VALUE;
+        long nextTurn = 0, nextPlace = 0, nextJournal = 0, nextSample = 0;
+        long warmupHeap = -1;
+        long peakResident = 0;
+        int maxAllowedResident = (2 * SaveConfig.CHUNK_EVICT_DISTANCE_CHUNKS + 3) * (2 * SaveConfig.CHUNK_EVICT_DISTANCE_CHUNKS + 3);
+
+        System.out.printf("=== Chunk residency soak: %.1f simulated hours, %d frames ===%n", hours, totalFrames);
+        System.out.printf("%8s %10s %10s %10s %10s %10s %10s %10s%n",
+                "Hours", "Heap (MB)", "Resident", "Tiles", "Explored", "Evicted", "Reloaded", "Pages (KB)");
+
+        long start = System.nanoTime();
+        for (long frame = 0; frame < totalFrames; frame++) {
+            long now = frame * FRAME_NANOS + 1;
+
+            // --- Người chơi đi bộ, thỉnh thoảng đổi hướng (đa phần vẫn đi tiếp ra vùng mới) ---
+            if (now >= nextTurn) {
+                heading += (random.nextDouble() - 0.5) * Math.PI;
+                nextTurn = now + seconds(TURN_INTERVAL_SECONDS);
+            }
+            double step = WALK_SPEED_TILES_PER_SECOND * WorldConfig.TILE_SIZE * FRAME_NANOS / 1e9;
+            x += Math.cos(heading) * step;
+            y += Math.sin(heading) * step;
+            int playerCol = (int) Math.floor(x / WorldConfig.TILE_SIZE);
+            int playerRow = (int) Math.floor(y / WorldConfig.TILE_SIZE);
+
+            // --- Vẽ vùng nhìn thấy (giống WorldRenderer: chỉ khi sang ô mới) ---
+            int startCol = playerCol - WorldConfig.NUM_COLS_ON_SCREEN / 2;
+            int startRow = playerRow - WorldConfig.NUM_ROWS_ON_SCREEN / 2;
+            if (startCol != lastStartCol || startRow != lastStartRow) {
+                renderViewport(worldMap, startCol, startRow);
+                lastStartCol = startCol;
+                lastStartRow = startRow;
+                exploredChunks.add(((long) Math.floorDiv(playerCol, SaveConfig.SAVE_CHUNK_SIZE) << 32)
+                        | (Math.floorDiv(playerRow, SaveConfig.SAVE_CHUNK_SIZE) & 0xffffffffL));
+            }
+
+            treeManager.updateTrees(now, x, y);
+
+            // --- Người chơi để lại dấu vết: hàng rào hoặc vật phẩm rơi ---
+            if (now >= nextPlace) {
+                leaveTrace(worldMap, random, playerCol + 1, playerRow);
+                nextPlace = now + seconds(PLACE_INTERVAL_SECONDS);
+            }
+
+            // --- Ghi nhật ký định kỳ (SaveService làm việc này trong game) ---
+            if (now >= nextJournal) {
+                worldMap.drainDirtyTiles();
+                nextJournal = now + seconds(JOURNAL_INTERVAL_SECONDS);
+            }
+
+            residency.update(now, x, y);
+            peakResident = Math.max(peakResident, worldMap.getResidentChunkCount());
+
+            // --- Lấy mẫu bộ nhớ ---
+            if (now >= nextSample || frame == totalFrames - 1) {
+                System.gc();
+                long heapMb = memory.getHeapMemoryUsage().getUsed() / (1024 * 1024);
+                double elapsedHours = now / 3.6e12;
+                System.out.printf("%8.2f %10d %10d %10d %10d %10d %10d %10d%n", elapsedHours, heapMb,
+                        worldMap.getResidentChunkCount(), worldMap.getTileDataMap().size(), exploredChunks.size(),
+                        residency.getEvictedChunks(), residency.getReloadedChunks(), residency.getPageStore().getDiskBytes() / 1024);
+                if (warmupHeap < 0 && elapsedHours >= hours * WARMUP_FRACTION) warmupHeap = heapMb;
+                nextSample = now + seconds(SAMPLE_INTERVAL_SECONDS);
+            }
+        }
+
+        System.gc();
+        long finalHeap = memory.getHeapMemoryUsage().getUsed() / (1024 * 1024);
+        if (warmupHeap < 0) warmupHeap = finalHeap;
+        System.out.printf("Wall time: %.1f s, peak resident chunks: %d (limit %d), heap after warmup: %d MB, final: %d MB%n",
+                (System.nanoTime() - start) / 1e9, peakResident, maxAllowedResident, warmupHeap, finalHeap);
+
+        assertTrue(peakResident <= maxAllowedResident,
+                "Resident chunk count grew past the limit: " + peakResident + " > " + maxAllowedResident);
+        assertTrue(finalHeap - warmupHeap <= HEAP_GROWTH_LIMIT_MB,
+                "Heap grew by " + (finalHeap - warmupHeap) + " MB (limit " + HEAP_GROWTH_LIMIT_MB + " MB)");
+        assertPagesBounded(residency.getPageStore());
+    }
+
+    @Test
+    void pageFilesStayBoundedWhenWalkingBackAndForth() throws IOException {
+        double hours = Double.parseDouble(System.getProperty("farm.chunkSoak.hours", String.valueOf(DEFAULT_HOURS)));
+        long totalFrames = (long) (hours * 3600 * 1_000_000_000L / FRAME_NANOS);
+
+        WorldMap worldMap = new WorldMap();
+        TreeManager treeManager = new TreeManager(worldMap);
+        ChunkResidencyManager residency = new ChunkResidencyManager(worldMap, treeManager);
+        residency.reset(null);
+        ChunkPageStore pageStore = residency.getPageStore();
+
+        Random random = new Random(SEED);
+        double distance = 0;
+        int lastStartCol = Integer.MIN_VALUE;
+        long nextPlace = 0, nextJournal = 0, nextSample = 0;
+
+        System.out.printf("=== Chunk page files, walking back and forth over %d tiles: %.1f simulated hours ===%n",
+                BACK_AND_FORTH_TILES, hours);
+        System.out.printf("%8s %10s %10s %10s %12s %12s%n", "Hours", "Evicted", "Reloaded", "Unchanged", "Compactions", "Pages (KB)");
+
+        for (long frame = 0; frame < totalFrames; frame++) {
+            long now = frame * FRAME_NANOS + 1;
+
+            // --- Đi tới đi lui trên trục X ---
+            distance += WALK_SPEED_TILES_PER_SECOND * FRAME_NANOS / 1e9;
+            double position = distance % (2 * BACK_AND_FORTH_TILES);
+            double tileX = position < BACK_AND_FORTH_TILES ? position : 2 * BACK_AND_FORTH_TILES - position;
+            double x = tileX * WorldConfig.TILE_SIZE;
+            double y = 0;
+            int playerCol = (int) Math.floor(tileX);
+
+            int startCol = playerCol - WorldConfig.NUM_COLS_ON_SCREEN / 2;
+            if (startCol != lastStartCol) {
+                renderViewport(worldMap, startCol, -WorldConfig.NUM_ROWS_ON_SCREEN / 2);
+                lastStartCol = startCol;
+            }
+            treeManager.updateTrees(now, x, y);
+
+            // Thỉnh thoảng đổi một ô để chunk đó phải được ghi lại lần gỡ sau (bản ghi lớn dần)
+            if (now >= nextPlace) {
+                leaveTrace(worldMap, random, playerCol + 1, random.nextInt(5) - 2);
+                nextPlace = now + seconds(PLACE_INTERVAL_SECONDS);
+            }
+            if (now >= nextJournal) {
+                worldMap.drainDirtyTiles();
+                nextJournal = now + seconds(JOURNAL_INTERVAL_SECONDS);
+            }
+
+            residency.update(now, x, y);
+
+            if (now >= nextSample || frame == totalFrames - 1) {
+                double elapsedHours = now / 3.6e12;
+                long pages = pageStore.getDiskBytes();
+                System.out.printf("%8.2f %10d %10d %10d %12d %12d%n", elapsedHours, residency.getEvictedChunks(),
+                        residency.getReloadedChunks(), pageStore.getSkippedWrites(), pageStore.getCompactions(), pages / 1024);
+                nextSample = now + seconds(SAMPLE_INTERVAL_SECONDS);
+            }
+        }
+
+        assertTrue(pageStore.getSkippedWrites() > 0, "Unchanged reloaded chunks were written to the page files again");
+        assertPagesBounded(pageStore);
+    }
+
+    // ==============================================================================================
+    // HÀM HỖ TRỢ
+    // ==============================================================================================
+
+    /**
+     * Đọc mọi ô trên màn hình bắt đầu từ (startCol, startRow), như WorldRenderer.
+     */
+    private static void renderViewport(WorldMap worldMap, int startCol, int startRow) {
+        for (int r = 0; r < WorldConfig.NUM_ROWS_ON_SCREEN; r++) {
+            for (int c = 0; c < WorldConfig.NUM_COLS_ON_SCREEN; c++) {
+                worldMap.getTileData(startCol + c, startRow + r);
+            }
+        }
+    }
+
+    /**
+     * Người chơi để lại dấu vết trên ô cỏ trống: hàng rào hoặc vật phẩm rơi.
+     */
+    private static void leaveTrace(WorldMap worldMap, Random random, int col, int row) {
+        TileData data = worldMap.getTileData(col, row);
+        if (data.getBaseTileType() != Tile.GRASS || data.getTreeData() != null) return;
+        if (random.nextBoolean()) {
+            data.setBaseTileType(Tile.FENCE);
+            data.setFenceData(new FenceData(false));
+        } else {
+            data.setGroundItem(ItemType.values()[random.nextInt(ItemType.values().length)]);
+            data.setGroundItemAmount(1 + random.nextInt(5));
+        }
+        worldMap.setTileData(col, row, data);
+    }
+
+    /**
+     * File trang chỉ được lớn hơn dữ liệu còn dùng một phần rác giới hạn: rác bị chép gọn khi đạt
+     * PAGE_STORE_COMPACT_GARBAGE_RATIO, trừ file còn nhỏ hơn PAGE_STORE_COMPACT_MIN_BYTES.
+     */
+    private static void assertPagesBounded(ChunkPageStore pageStore) throws IOException {
+        Set<Long> regions = new HashSet<>();
+        long liveBytes = 0;
+        for (long key : pageStore.chunkKeys(pageStore.getEpoch())) {
+            int chunkX = (int) (key >> 32);
+            int chunkY = (int) key;
+            ChunkPageStore.Page page = pageStore.read(chunkX, chunkY);
+            liveBytes += page.extra.length + page.chunkData.length;
+            regions.add(SaveCodec.packKey(Math.floorDiv(chunkX, SaveConfig.REGION_SIZE), Math.floorDiv(chunkY, SaveConfig.REGION_SIZE)));
+        }
+        long diskBytes = pageStore.getDiskBytes();
+        long limit = regions.size() * (ChunkPageStore.TABLE_SIZE + SaveConfig.PAGE_STORE_COMPACT_MIN_BYTES)
+                + (long) (liveBytes / (1 - SaveConfig.PAGE_STORE_COMPACT_GARBAGE_RATIO));
+        System.out.printf("Page files: %d KB on disk, %d KB live in %d files (limit %d KB)%n",
+                diskBytes / 1024, liveBytes / 1024, regions.size(), limit / 1024);
+        assertTrue(diskBytes <= limit, "Page files hold " + diskBytes + " bytes for " + liveBytes + " live bytes (limit " + limit + ")");
+    }
+
+    private static long seconds(double value) {
+        return (long) (value * 1_000_000_000L);
+    }
+}
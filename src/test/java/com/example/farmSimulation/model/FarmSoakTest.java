@@ -0,0 +1,320 @@
+package com.example.farmSimulation.model;
+
+import com.example.farmSimulation.config.SaveConfig;
+import com.example.farmSimulation.config.WorldConfig;
+import com.example.farmSimulation.model.FarmWorldGenerator.Layout;
+import com.example.farmSimulation.model.FarmWorldGenerator.World;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Bài chạy ngâm (soak) không cần giao diện cho cả nông trại: dựng nông trại lớn bằng FarmWorldGenerator rồi mô phỏng
+ * nhiều giờ game (tua nhanh, 60 tick / giây game, đồng hồ GameClock chạy bước cố định) với cùng các bước GameManager
+ * chạy mỗi frame: cây trồng, cây tự nhiên, động vật, thời tiết, gỡ chunk và đọc các ô trên màn hình.
+ * Người chơi đi tuần quanh nông trại; định kỳ một "người làm vườn" tưới nước, gieo lại cây đã chín / đã chết,
+ * cho vật nuôi ăn, nhặt trứng và bán bớt con non để nông trại giữ nguyên quy mô.
+ *
+ * Định kỳ lấy mẫu heap (sau GC), số ô trong bộ nhớ, số ô đã xét sinh cây (TreeManager), số chunk trong bộ nhớ,
+ * số vật nuôi và p50 / p95 / p99 thời gian tick. Báo cáo cuối bài đánh dấu:
+ * - Tăng không giới hạn: xu hướng (hồi quy tuyến tính sau giai đoạn khởi động) của heap hoặc các bộ đếm vượt ngưỡng.
+ * - Trôi độ trễ: p95 của phần ba cuối bài chậm hơn phần ba đầu (sau khởi động) quá LATENCY_DRIFT_RATIO lần.
+ *
+ * Chạy: ./gradlew test --tests '*FarmSoakTest'
+ * (bài dài: -Pfarm.farmSoak.hours=6 -Pfarm.farmSoak.layout=large -Pfarm.farmSoak.csv=build/reports/soak.csv)
+ */
+class FarmSoakTest {
+    private static final double DEFAULT_HOURS = 1.0;
+    private static final String DEFAULT_LAYOUT = "small";
+    private static final long FRAME_NANOS = 16_666_667L;            // 60 FPS
+    private static final double WALK_SPEED_TILES_PER_SECOND = 4.0;
+    private static final double CARE_INTERVAL_SECONDS = 60.0;       // Chu kỳ tưới nước / gieo lại
+    private static final double FEED_INTERVAL_SECONDS = 5.0;        // Chu kỳ cho ăn (ngắn hơn STARVATION_TIME_MS)
+    private static final double JOURNAL_INTERVAL_SECONDS = SaveConfig.JOURNAL_FLUSH_INTERVAL_SECONDS;
+    private static final double SAMPLE_INTERVAL_SECONDS = 300.0;
+    private static final double WARMUP_FRACTION = 0.25;
+    private static final long SEED = 13L;
+
+    // --- Ngưỡng của báo cáo ---
+    private static final double HEAP_GROWTH_LIMIT_MB = 32;          // Heap tăng theo xu hướng trong phần sau khởi động
+    private static final double COUNT_GROWTH_LIMIT = 0.10;          // Bộ đếm tăng theo xu hướng, tính theo tỉ lệ giá trị trung bình
+    private static final double LATENCY_DRIFT_RATIO = 1.5;
+    private static final double LATENCY_DRIFT_FLOOR_MS = 0.25;      // Bỏ qua chênh lệch nhỏ hơn mức này (nhiễu đo)
+
+    private static final String[] COUNTERS = {"Tiles", "Generated", "Resident", "Animals"};
+    private static final int TILES = 0, GENERATED = 1, RESIDENT = 2, ANIMALS = 3;
+
+    /**
+     * Một lần lấy mẫu.
+     */
+    private record Sample(double hours, double heapMb, long[] counters, double p50Ms, double p95Ms, double p99Ms, double maxMs) {}
+
+    @Test
+    void farmHasNoUnboundedGrowthOrLatencyDrift() throws IOException {
+        double hours = Double.parseDouble(System.getProperty("farm.farmSoak.hours", String.valueOf(DEFAULT_HOURS)));
+        Layout layout = Layout.parse(System.getProperty("farm.farmSoak.layout", DEFAULT_LAYOUT));
+        String csv = System.getProperty("farm.farmSoak.csv");
+        Path csvFile = csv != null ? Paths.get(csv) : null;
+
+        GameClock.startFixedTimestep(System.nanoTime(), System.currentTimeMillis());
+        List<Sample> samples;
+        try {
+            samples = run(hours, layout);
+        } finally {
+            GameClock.useSystemTime();
+        }
+
+        if (csvFile != null) {
+            writeCsv(samples, csvFile);
+            System.out.println("Samples written to " + csvFile.toAbsolutePath());
+        }
+        assertTrue(report(samples, hours), "Unbounded growth or latency drift (see the flagged metrics above).");
+    }
+
+    /**
+     * Mô phỏng nông trại trong số giờ game đã cho.
+     *
+     * @return Các mẫu đã lấy
+     */
+    private static List<Sample> run(double hours, Layout layout) {
+        long totalFrames = (long) (hours * 3600 * 1_000_000_000L / FRAME_NANOS);
+        long buildStart = System.nanoTime();
+        World world = FarmWorldGenerator.generate(layout, SEED, GameClock.nanoTime());
+        int targetAnimals = world.animals;
+        System.out.printf("=== Farm soak: %.1f simulated hours, %d frames ===%n", hours, totalFrames);
+        System.out.printf("Layout %s%n", layout);
+        System.out.printf("Built %d crops, %d trees, %d fences, %d animals in %d ms%n",
+                world.crops, world.trees, world.fences, world.animals, (System.nanoTime() - buildStart) / 1_000_000);
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        Player player = new Player();
+        List<Sample> samples = new ArrayList<>();
+        long[] tickNanos = new long[(int) (SAMPLE_INTERVAL_SECONDS * 1_000_000_000L / FRAME_NANOS) + 2];
+        int tickCount = 0;
+
+        double patrolPosition = 0;
+        double step = WALK_SPEED_TILES_PER_SECOND * FRAME_NANOS / 1e9; // Ô mỗi tick
+        int lastStartCol = Integer.MIN_VALUE, lastStartRow = Integer.MIN_VALUE;
+        long startTime = GameClock.nanoTime();
+        long nextCare = startTime + seconds(CARE_INTERVAL_SECONDS);
+        long nextFeed = startTime + seconds(FEED_INTERVAL_SECONDS);
+        long nextJournal = startTime + seconds(JOURNAL_INTERVAL_SECONDS);
+        long nextSample = startTime + seconds(SAMPLE_INTERVAL_SECONDS);
+
+        System.out.printf("%8s %10s %10s %10s %10s %8s %9s %9s %9s %9s%n",
+                "Hours", "Heap (MB)", "Tiles", "Generated", "Resident", "Animals", "p50 (ms)", "p95 (ms)", "p99 (ms)", "max (ms)");
+
+        long wallStart = System.nanoTime();
+        for (long frame = 0; frame < totalFrames; frame++) {
+            GameClock.advance(FRAME_NANOS);
+            long now = GameClock.nanoTime();
+
+            // --- Người chơi đi tuần quanh nông trại ---
+            patrolPosition += step;
+            double[] tile = FarmWorldGenerator.patrolTile(layout, patrolPosition);
+            double x = tile[0] * WorldConfig.TILE_SIZE;
+            double y = tile[1] * WorldConfig.TILE_SIZE;
+            player.setTileX(x);
+            player.setTileY(y);
+
+            // --- Một tick, theo thứ tự của GameManager.updateGameLogic ---
+            long tickStart = System.nanoTime();
+            world.treeManager.requestGenerationAround(x, y);
+            world.scheduler.runFrame(now);
+            world.animalManager.updateAnimals(now, player);
+            world.chunkResidencyManager.update(now, x, y);
+            world.weatherManager.updateWeather(now);
+
+            // Đọc lại các ô trên màn hình khi khung nhìn dịch sang ô khác, như WorldRenderer
+            int startCol = (int) Math.floor(tile[0]) - WorldConfig.NUM_COLS_ON_SCREEN / 2;
+            int startRow = (int) Math.floor(tile[1]) - WorldConfig.NUM_ROWS_ON_SCREEN / 2;
+            if (startCol != lastStartCol || startRow != lastStartRow) {
+                lastStartCol = startCol;
+                lastStartRow = startRow;
+                for (int r = 0; r < WorldConfig.NUM_ROWS_ON_SCREEN; r++) {
+                    for (int c = 0; c < WorldConfig.NUM_COLS_ON_SCREEN; c++) {
+                        world.worldMap.getTileData(startCol + c, startRow + r);
+                    }
+                }
+            }
+            tickNanos[tickCount++] = System.nanoTime() - tickStart;
+
+            // --- Các việc định kỳ (không tính vào thời gian tick) ---
+            if (now >= nextCare) {
+                FarmWorldGenerator.tendCrops(world, now);
+                nextCare = now + seconds(CARE_INTERVAL_SECONDS);
+            }
+            if (now >= nextFeed) {
+                FarmWorldGenerator.tendAnimals(world, targetAnimals);
+                nextFeed = now + seconds(FEED_INTERVAL_SECONDS);
+            }
+            if (now >= nextJournal) { // SaveService làm việc này trong game
+                world.worldMap.drainDirtyTiles();
+                nextJournal = now + seconds(JOURNAL_INTERVAL_SECONDS);
+            }
+            if (now >= nextSample || frame == totalFrames - 1) {
+                Sample sample = sample(world, memory, (now - startTime) / 3.6e12, Arrays.copyOf(tickNanos, tickCount));
+                samples.add(sample);
+                System.out.printf("%8.2f %10.1f %10d %10d %10d %8d %9.3f %9.3f %9.3f %9.3f%n", sample.hours, sample.heapMb,
+                        sample.counters[TILES], sample.counters[GENERATED], sample.counters[RESIDENT], sample.counters[ANIMALS],
+                        sample.p50Ms, sample.p95Ms, sample.p99Ms, sample.maxMs);
+                tickCount = 0;
+                nextSample = now + seconds(SAMPLE_INTERVAL_SECONDS);
+            }
+        }
+        System.out.printf("Wall time: %.1f s%n", (System.nanoTime() - wallStart) / 1e9);
+        printSchedulerStats(world.scheduler, totalFrames);
+        return samples;
+    }
+
+    /**
+     * Số liệu của từng công việc nền: công việc chờ lâu / bị "đói" nghĩa là ngân sách mỗi frame không đủ cho tải này.
+     */
+    private static void printSchedulerStats(FrameScheduler scheduler, long totalFrames) {
+        System.out.printf("%-16s %-8s %12s %16s %14s %18s%n", "Job", "Priority", "Units", "Max wait (fr)", "Starved (fr)", "Max latency (ms)");
+        for (FrameScheduler.JobStats job : scheduler.getJobs()) {
+            System.out.printf("%-16s %-8s %12d %16d %14d %18.1f%n", job.getName(), job.getPriority(), job.getUnits(),
+                    job.getMaxWaitingFrames(), job.getStarvedFrames(), job.getMaxLatencyMs());
+        }
+        System.out.printf("Budget exhausted in %d of %d frames%n", scheduler.getBudgetExhaustedFrames(), totalFrames);
+    }
+
+    // ==============================================================================================
+    // MÔ PHỎNG
+    // ==============================================================================================
+
+    private static Sample sample(World world, MemoryMXBean memory, double hours, long[] ticks) {
+        System.gc();
+        double heapMb = memory.getHeapMemoryUsage().getUsed() / (1024.0 * 1024.0);
+        long[] counters = new long[COUNTERS.length];
+        counters[TILES] = world.worldMap.getTileDataMap().size();
+        counters[GENERATED] = world.treeManager.getGeneratedTileCount();
+        counters[RESIDENT] = world.worldMap.getResidentChunkCount();
+        counters[ANIMALS] = world.animalManager.getAnimals().size();
+        Arrays.sort(ticks);
+        return new Sample(hours, heapMb, counters, percentileMs(ticks, 50), percentileMs(ticks, 95), percentileMs(ticks, 99),
+                ticks.length == 0 ? 0 : ticks[ticks.length - 1] / 1e6);
+    }
+
+    private static double percentileMs(long[] sorted, double percentile) {
+        if (sorted.length == 0) return 0;
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))] / 1e6;
+    }
+
+    // ==============================================================================================
+    // BÁO CÁO
+    // ==============================================================================================
+
+    /**
+     * In báo cáo tăng trưởng và trôi độ trễ trên các mẫu sau giai đoạn khởi động.
+     *
+     * @return true nếu không có chỉ số nào bị đánh dấu
+     */
+    private static boolean report(List<Sample> samples, double hours) {
+        List<Sample> steady = new ArrayList<>();
+        for (Sample sample : samples) {
+            if (sample.hours >= hours * WARMUP_FRACTION) steady.add(sample);
+        }
+        if (steady.size() < 3) {
+            System.out.println("Not enough samples after warm-up for a report (run longer).");
+            return true;
+        }
+        double span = steady.get(steady.size() - 1).hours - steady.get(0).hours;
+        boolean ok = true;
+
+        System.out.printf("%n--- Growth after warm-up (%.2f h, %d samples) ---%n", span, steady.size());
+        System.out.printf("%-10s %12s %12s %14s   %s%n", "Metric", "Warm-up", "Final", "Trend / run", "Verdict");
+
+        double[] heap = new double[steady.size()];
+        for (int i = 0; i < heap.length; i++) heap[i] = steady.get(i).heapMb;
+        double heapTrend = slopePerHour(steady, heap) * span;
+        boolean heapOk = heapTrend <= HEAP_GROWTH_LIMIT_MB;
+        System.out.printf("%-10s %12.1f %12.1f %+14.1f   %s%n", "Heap (MB)", heap[0], heap[heap.length - 1], heapTrend,
+                heapOk ? "OK" : "UNBOUNDED GROWTH");
+        ok &= heapOk;
+
+        for (int c = 0; c < COUNTERS.length; c++) {
+            double[] values = new double[steady.size()];
+            double mean = 0;
+            for (int i = 0; i < values.length; i++) {
+                values[i] = steady.get(i).counters[c];
+                mean += values[i] / values.length;
+            }
+            double trend = slopePerHour(steady, values) * span;
+            boolean counterOk = trend <= COUNT_GROWTH_LIMIT * Math.max(mean, 1);
+            System.out.printf("%-10s %12.0f %12.0f %+14.0f   %s%n", COUNTERS[c], values[0], values[values.length - 1], trend,
+                    counterOk ? "OK" : "UNBOUNDED GROWTH");
+            ok &= counterOk;
+        }
+
+        // Trôi độ trễ: trung vị p95 của phần ba đầu và phần ba cuối
+        int third = Math.max(1, steady.size() / 3);
+        double early = medianP95(steady.subList(0, third));
+        double late = medianP95(steady.subList(steady.size() - third, steady.size()));
+        boolean latencyOk = late <= early * LATENCY_DRIFT_RATIO || late - early <= LATENCY_DRIFT_FLOOR_MS;
+        System.out.printf("%n--- Tick latency ---%n");
+        System.out.printf("p95 early %.3f ms, late %.3f ms (x%.2f, limit x%.1f) -> %s%n", early, late,
+                early > 0 ? late / early : 0, LATENCY_DRIFT_RATIO, latencyOk ? "OK" : "LATENCY DRIFT");
+        ok &= latencyOk;
+
+        System.out.println(ok ? "PASS: no unbounded growth or latency drift."
+                : "FAIL: see the flagged metrics above.");
+        return ok;
+    }
+
+    /**
+     * Hệ số góc (đơn vị / giờ) của đường hồi quy tuyến tính qua các mẫu.
+     */
+    private static double slopePerHour(List<Sample> samples, double[] values) {
+        double meanX = 0, meanY = 0;
+        for (int i = 0; i < values.length; i++) {
+            meanX += samples.get(i).hours / values.length;
+            meanY += values[i] / values.length;
+        }
+        double covariance = 0, variance = 0;
+        for (int i = 0; i < values.length; i++) {
+            double dx = samples.get(i).hours - meanX;
+            covariance += dx * (values[i] - meanY);
+            variance += dx * dx;
+        }
+        return variance > 0 ? covariance / variance : 0;
+    }
+
+    private static double medianP95(List<Sample> samples) {
+        double[] values = new double[samples.size()];
+        for (int i = 0; i < values.length; i++) values[i] = samples.get(i).p95Ms;
+        Arrays.sort(values);
+        return values[values.length / 2];
+    }
+
+    private static void writeCsv(List<Sample> samples, Path file) throws IOException {
+        if (file.toAbsolutePath().getParent() != null) Files.createDirectories(file.toAbsolutePath().getParent());
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("hours,heap_mb,tiles,generated_tiles,resident_chunks,animals,p50_ms,p95_ms,p99_ms,max_ms");
+            out.newLine();
+            for (Sample s : samples) {
+                out.write(String.format(java.util.Locale.ROOT, "%.3f,%.1f,%d,%d,%d,%d,%.4f,%.4f,%.4f,%.4f", s.hours, s.heapMb,
+                        s.counters[TILES], s.counters[GENERATED], s.counters[RESIDENT], s.counters[ANIMALS],
+                        s.p50Ms, s.p95Ms, s.p99Ms, s.maxMs));
+                out.newLine();
+            }
+        }
+    }
+
+    private static long seconds(double value) {
+        return (long) (value * 1_000_000_000L);
+    }
+}
@@ -0,0 +1,339 @@
+package com.example.farmSimulation.model;
+
+import com.example.farmSimulation.config.AnimalConfig;
+import com.example.farmSimulation.config.CropConfig;
+import com.example.farmSimulation.config.SaveConfig;
+import com.example.farmSimulation.config.TreeConfig;
+import com.example.farmSimulation.model.GameSaveState.SavedAnimal;
+import com.example.farmSimulation.model.GameSaveState.SavedTileData;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Kiểm tra (không cần giao diện) việc lưu / tải các bộ đếm thời gian của nông trại:
+ * 1. Lưu -> tải khi không có thời gian offline: mọi trường của ô đất và động vật (kể cả các mốc thời gian,
+ *    tính theo thời gian mô phỏng) phải giống hệt trước khi lưu.
+ * 2. Lưu -> tải sau một khoảng offline: đất khô, cây chết, đất mọc cỏ, gốc cây mọc lại, phân bón hết hạn
+ *    và động vật bị đói phải xảy ra đúng thời điểm tính được từ cấu hình.
+ *
+ * Chạy: ./gradlew test --tests '*SaveRoundTripTest'
+ */
+class SaveRoundTripTest {
+    private static final long SECOND = 1_000_000_000L;
+    private static final long MS = 1_000_000L;
+    // Sau khi tải, phần thời gian từ lúc chụp tới lúc dựng lại (vài micro giây) cũng được bù như thời gian offline,
+    // nên mốc thời gian được so với sai số nhỏ hơn nhiều so với mọi bộ đếm của game (tính bằng giây)
+    private static final long TOLERANCE_NANOS = 10 * MS;
+    // Khoảng offline đủ dài để mọi quá trình trong kịch bản 2 kịp xảy ra
+    private static final long OFFLINE_NANOS = 2 * MS * Math.max(Math.max(CropConfig.SOIL_DRY_TIME_MS, CropConfig.SOIL_REVERT_TIME_MS),
+            Math.max(TreeConfig.REGROW_TIME_MS, CropConfig.FERTILIZER_EFFECT_DURATION_MS));
+
+    private static final long WORLD_SEED = 0x5EED_F00DL;
+
+    @Test
+    void roundTripWithoutOfflineTimeKeepsEveryField() throws IOException {
+        Path tempDirectory = Files.createTempDirectory("farm_round_trip");
+        Path saveFile = tempDirectory.resolve(SaveConfig.SAVE_FILE_NAME);
+        try {
+            checkExactRoundTrip(saveFile);
+        } finally {
+            SaveManager.deleteSaveFiles(saveFile);
+            Files.deleteIfExists(tempDirectory);
+        }
+    }
+
+    @Test
+    void offlineCatchUpHappensAtConfiguredTimes() throws IOException {
+        Path tempDirectory = Files.createTempDirectory("farm_round_trip");
+        Path saveFile = tempDirectory.resolve(SaveConfig.SAVE_FILE_NAME);
+        try {
+            checkOfflineCatchUp(saveFile);
+        } finally {
+            SaveManager.deleteSaveFiles(saveFile);
+            Files.deleteIfExists(tempDirectory);
+        }
+    }
+
+    // ==============================================================================================
+    // 1. LƯU -> TẢI KHÔNG CÓ THỜI GIAN OFFLINE
+    // ==============================================================================================
+
+    private static void checkExactRoundTrip(Path saveFile) {
+        SimulationClock.reset();
+        capture(createTiles(System.nanoTime()), createAnimals(System.nanoTime())); // Nạp trước các lớp để lần chụp thật không bị trễ
+        Map<Long, TileData> tiles = createTiles(System.nanoTime());
+        List<Animal> animals = createAnimals(System.nanoTime());
+        GameSaveState before = capture(tiles, animals);
+
+        GameSaveState loaded = saveAndLoad(before, saveFile);
+        // Mã hóa / giải mã phải giữ nguyên từng bit
+        compareAll("decoded tile", before.worldTiles, loaded.worldTiles, 0);
+        compareAll("decoded animal", before.animals, loaded.animals, 0);
+        assertEquals(before.simulationTime, loaded.simulationTime, "simulation time preserved");
+        assertEquals(before.savedAtMillis, loaded.savedAtMillis, "save wall-clock time preserved");
+        assertEquals(WORLD_SEED, loaded.worldSeed, "world seed preserved");
+
+        // Dựng lại trạng thái trong game (như GameManager.loadGameData) rồi chụp lại
+        SimulationClock.resume(loaded.simulationTime, 0);
+        GameSaveState after = capture(restoreTiles(loaded.worldTiles), restoreAnimals(loaded.animals));
+        compareAll("restored tile", before.worldTiles, after.worldTiles, TOLERANCE_NANOS);
+        compareAll("restored animal", before.animals, after.animals, TOLERANCE_NANOS);
+    }
+
+    // ==============================================================================================
+    // 2. BÙ THỜI GIAN OFFLINE
+    // ==============================================================================================
+
+    private static void checkOfflineCatchUp(Path saveFile) {
+        SimulationClock.reset();
+        Map<Long, TileData> tiles = createTiles(System.nanoTime());
+        List<Animal> animals = createAnimals(System.nanoTime());
+        GameSaveState before = capture(tiles, animals);
+        long saved = before.simulationTime;
+
+        GameSaveState loaded = saveAndLoad(before, saveFile);
+        SimulationClock.resume(saved, OFFLINE_NANOS);
+        Map<Long, SavedTileData> after = byPosition(capture(restoreTiles(loaded.worldTiles), List.of()).worldTiles);
+        Map<Long, SavedTileData> original = byPosition(before.worldTiles);
+        long now = saved + OFFLINE_NANOS;
+
+        // Cây đang được tưới: đất khô đúng lúc hết SOIL_DRY_TIME_MS, sau đó cây ngừng lớn (thời điểm gieo bị đẩy lùi)
+        SavedTileData watered = after.get(key(0, 0));
+        long dryAt = original.get(key(0, 0)).lastWateredTime + CropConfig.SOIL_DRY_TIME_MS * MS;
+        assertTrue(!watered.isWatered && watered.baseType == Tile.SOIL, "watered soil dried out");
+        expectNear(watered.dryStartTime, dryAt, "soil dried exactly SOIL_DRY_TIME_MS after watering");
+        long growthEnd = dryAt + CropConfig.WATER_WARNING_DELAY_MS * MS;
+        expectNear(watered.cropPlantTime, original.get(key(0, 0)).cropPlantTime + Math.max(0, now - growthEnd),
+                "crop growth frozen after WATER_WARNING_DELAY_MS on dry soil");
+
+        // Cây trên đất khô (chưa chết): ngừng lớn cả khoảng offline, phân bón hết hạn
+        SavedTileData thirsty = after.get(key(1, 0));
+        assertTrue(thirsty.hasCrop, "thirsty crop still alive");
+        expectNear(thirsty.cropPlantTime, original.get(key(1, 0)).cropPlantTime + OFFLINE_NANOS, "thirsty crop frozen for the whole offline time");
+        assertFalse(thirsty.isFertilized, "fertilizer expired");
+
+        // Đất khô bỏ hoang mọc cỏ; cây khô quá lâu chết rồi đất của nó cũng mọc cỏ
+        assertTrue(after.get(key(2, 0)) == null || after.get(key(2, 0)).baseType == Tile.GRASS, "idle soil reverted to grass");
+        SavedTileData dying = after.get(key(6, 0));
+        assertTrue(dying == null || (!dying.hasCrop && dying.baseType == Tile.GRASS), "crop died of drought and soil reverted to grass");
+
+        // Gốc cây mọc lại đúng lúc hết REGROW_TIME_MS
+        SavedTileData stump = after.get(key(3, 0));
+        long regrowAt = original.get(key(3, 0)).treeRegrowStartTime + TreeConfig.REGROW_TIME_MS * MS;
+        assertTrue(stump.treeChopCount == 0 && stump.treeStage == TreeConfig.STUMP_REGROW_TARGET_STAGE, "stump regrew");
+        expectNear(stump.treeLastChopTime,
+                regrowAt - TreeConfig.STUMP_REGROW_TARGET_STAGE * TreeConfig.TIME_PER_GROWTH_STAGE_MS * MS, "regrown tree age");
+
+        // Động vật: độ no giảm theo thời gian, bắt đầu đói đúng lúc qua ngưỡng cảnh báo
+        SimulationClock.resume(saved, OFFLINE_NANOS);
+        List<SavedAnimal> animalsAfter = capture(Map.of(), restoreAnimals(loaded.animals)).animals;
+        SavedAnimal cowBefore = before.animals.get(0);
+        SavedAnimal cowAfter = animalsAfter.get(0);
+        double elapsedSeconds = (now - cowBefore.lastHungerUpdateTime) / (double) SECOND;
+        double expectedHunger = Math.max(0, cowBefore.hunger - elapsedSeconds * AnimalConfig.HUNGER_DECREASE_RATE);
+        assertTrue(Math.abs(cowAfter.hunger - expectedHunger) < 0.01, "hunger decreased over offline time");
+        if (expectedHunger < AnimalConfig.HUNGER_WARNING_THRESHOLD) {
+            long hungryAt = cowBefore.lastHungerUpdateTime
+                    + (long) ((cowBefore.hunger - AnimalConfig.HUNGER_WARNING_THRESHOLD) / AnimalConfig.HUNGER_DECREASE_RATE * SECOND);
+            expectNear(cowAfter.starvationStartTime, hungryAt, "starvation started when hunger crossed the warning threshold");
+        }
+        assertTrue(animalsAfter.get(2).hasProduct, "pending product kept");
+    }
+
+    // ==============================================================================================
+    // 3. DỮ LIỆU MẪU
+    // ==============================================================================================
+
+    /**
+     * Các ô mẫu, mốc thời gian tính lùi từ now (System.nanoTime()), cách xa mọi ngưỡng của logic game.
+     */
+    private static Map<Long, TileData> createTiles(long now) {
+        Map<Long, TileData> tiles = new LinkedHashMap<>();
+
+        TileData watered = new TileData(Tile.SOIL_WET);
+        watered.setWatered(true);
+        watered.setLastWateredTime(now - SECOND);
+        watered.setCropData(new CropData(CropType.values()[0], 1, now - CropConfig.TIME_PER_GROWTH_STAGE_MS * MS - SECOND));
+        tiles.put(key(0, 0), watered);
+
+        // Đất khô quá thời gian cảnh báo nhưng còn xa mới chết
+        TileData thirsty = new TileData(Tile.SOIL);
+        thirsty.setDryStartTime(now - CropConfig.WATER_WARNING_DELAY_MS * MS - SECOND);
+        thirsty.setFertilized(true);
+        thirsty.setFertilizerStartTime(now - SECOND);
+        thirsty.setCropData(new CropData(CropType.values()[0], 2, now - 2 * CropConfig.TIME_PER_GROWTH_STAGE_MS * MS - SECOND));
+        tiles.put(key(1, 0), thirsty);
+
+        TileData idleSoil = new TileData(Tile.SOIL);
+        idleSoil.setDryStartTime(now - SECOND);
+        tiles.put(key(2, 0), idleSoil);
+
+        TileData stump = new TileData(Tile.TREE);
+        TreeData stumpTree = new TreeData(0);
+        stumpTree.setChopCount(1);
+        stumpTree.setLastChopTime(now - 2 * SECOND);
+        stumpTree.setRegrowStartTime(now - SECOND);
+        stump.setTreeData(stumpTree);
+        tiles.put(key(3, 0), stump);
+
+        TileData growingTree = new TileData(Tile.TREE);
+        TreeData growing = new TreeData(1);
+        growing.setLastChopTime(now - TreeConfig.TIME_PER_GROWTH_STAGE_MS * MS - SECOND);
+        growingTree.setTreeData(growing);
+        tiles.put(key(4, 0), growingTree);
+
+        TileData fence = new TileData(Tile.FENCE);
+        fence.setFenceData(new FenceData(true));
+        fence.setGroundItem(ItemType.values()[0]);
+        fence.setGroundItemAmount(3);
+        fence.setGroundItemOffsetX(4.5);
+        fence.setGroundItemOffsetY(-2.25);
+        tiles.put(key(5, 0), fence);
+
+        // Cây sẽ chết khoảng 1/4 thời gian offline sau khi lưu
+        TileData dying = new TileData(Tile.SOIL);
+        dying.setDryStartTime(now - (CropConfig.WATER_WARNING_DELAY_MS + CropConfig.CROP_DEATH_TIME_MS) * MS + OFFLINE_NANOS / 4);
+        dying.setCropData(new CropData(CropType.values()[0], 1, now - CropConfig.TIME_PER_GROWTH_STAGE_MS * MS));
+        tiles.put(key(6, 0), dying);
+        return tiles;
+    }
+
+    private static List<Animal> createAnimals(long now) {
+        List<Animal> animals = new ArrayList<>();
+
+        Animal cow = new Animal(AnimalType.COW, 100, 200);
+        cow.setHunger(80);
+        cow.setLastHungerUpdateTime(now);
+        cow.setSpawnTime(now - 100 * SECOND);
+        cow.setProductionTimer(now - 10 * SECOND);
+        cow.setBreedingCooldownTimer(now - 5 * SECOND);
+        animals.add(cow);
+
+        Animal chicken = new Animal(AnimalType.CHICKEN, -50, 75);
+        chicken.setHunger(AnimalConfig.HUNGER_WARNING_THRESHOLD - 10);
+        chicken.setLastHungerUpdateTime(now);
+        chicken.setStarvationStartTime(now - 3 * SECOND);
+        chicken.setAge(12);
+        animals.add(chicken);
+
+        Animal sheep = new Animal(AnimalType.SHEEP, 10, 10);
+        sheep.setHasProduct(true);
+        sheep.setLastHungerUpdateTime(now);
+        animals.add(sheep);
+        return animals;
+    }
+
+    // ==============================================================================================
+    // HÀM HỖ TRỢ
+    // ==============================================================================================
+
+    private static GameSaveState capture(Map<Long, TileData> tiles, List<Animal> animals) {
+        GameSaveState state = new GameSaveState();
+        state.playerName = "RoundTrip";
+        for (Map.Entry<Long, TileData> entry : tiles.entrySet()) {
+            if (WorldMap.isDefaultTile(entry.getValue())) continue; // Như GameManager: bỏ ô cỏ trống
+            long key = entry.getKey();
+            state.worldTiles.add(WorldMap.snapshotTile((int) (key >> 32), (int) key, entry.getValue()));
+        }
+        for (Animal animal : animals) {
+            state.animals.add(AnimalManager.snapshotAnimal(animal));
+        }
+        state.simulationTime = SimulationClock.now();
+        state.savedAtMillis = System.currentTimeMillis();
+        state.worldSeed = WORLD_SEED;
+        return state;
+    }
+
+    private static GameSaveState saveAndLoad(GameSaveState state, Path saveFile) {
+        assertTrue(SaveManager.saveGame(state, saveFile), "Save failed");
+        GameSaveState loaded = SaveManager.loadGame(saveFile);
+        assertNotNull(loaded, "Load failed");
+        if (loaded.regionStore != null) {
+            loaded.regionStore.readAllTiles(loaded.worldTiles);
+        }
+        loaded.worldTiles.sort(Comparator.comparingInt((SavedTileData tile) -> tile.row).thenComparingInt(tile -> tile.col));
+        state.worldTiles.sort(Comparator.comparingInt((SavedTileData tile) -> tile.row).thenComparingInt(tile -> tile.col));
+        return loaded;
+    }
+
+    private static Map<Long, TileData> restoreTiles(List<SavedTileData> saved) {
+        Map<Long, TileData> tiles = new LinkedHashMap<>();
+        for (SavedTileData tile : saved) {
+            tiles.put(key(tile.col, tile.row), WorldMap.restoreTile(tile));
+        }
+        return tiles;
+    }
+
+    private static List<Animal> restoreAnimals(List<SavedAnimal> saved) {
+        List<Animal> animals = new ArrayList<>();
+        for (SavedAnimal animal : saved) {
+            animals.add(AnimalManager.restoreAnimal(animal));
+        }
+        return animals;
+    }
+
+    private static Map<Long, SavedTileData> byPosition(List<SavedTileData> tiles) {
+        Map<Long, SavedTileData> map = new LinkedHashMap<>();
+        for (SavedTileData tile : tiles) map.put(key(tile.col, tile.row), tile);
+        return map;
+    }
+
+    private static long key(int col, int row) {
+        return ((long) col << 32) | (row & 0xffffffffL);
+    }
+
+    /**
+     * So sánh từng trường public của hai danh sách (cùng thứ tự). Trường long là mốc thời gian, cho phép sai khác tolerance;
+     * simulatedTime (thời điểm chụp) chỉ được so khi tolerance = 0. Khi tolerance > 0, trường double (độ no) được phép
+     * lệch đúng phần giảm đi trong khoảng tolerance.
+     */
+    private static void compareAll(String label, List<?> expected, List<?> actual, long tolerance) {
+        assertEquals(expected.size(), actual.size(), label + " count");
+        int mismatched = 0;
+        for (int i = 0; i < Math.min(expected.size(), actual.size()); i++) {
+            for (Field field : expected.get(i).getClass().getFields()) {
+                if (Modifier.isStatic(field.getModifiers())) continue;
+                if (tolerance > 0 && field.getName().equals("simulatedTime")) continue;
+                try {
+                    Object a = field.get(expected.get(i));
+                    Object b = field.get(actual.get(i));
+                    boolean same;
+                    if (field.getType() == long.class) {
+                        same = Math.abs((long) a - (long) b) <= tolerance;
+                    } else if (field.getType() == double.class) {
+                        same = Math.abs((double) a - (double) b) <= tolerance / (double) SECOND * AnimalConfig.HUNGER_DECREASE_RATE;
+                    } else {
+                        same = Objects.equals(a, b);
+                    }
+                    if (!same) {
+                        if (mismatched++ < 10) System.out.printf("  %s #%d: %s expected %s but was %s%n", label, i, field.getName(), a, b);
+                    }
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+        assertEquals(0, mismatched, label + "s with mismatched fields");
+    }
+
+    private static void expectNear(long actual, long expected, String description) {
+        assertTrue(Math.abs(actual - expected) <= TOLERANCE_NANOS, description + " (off by " + (actual - expected) / MS + " ms)");
+    }
+}
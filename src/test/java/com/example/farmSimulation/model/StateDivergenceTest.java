@@ -0,0 +1,325 @@
+package com.example.farmSimulation.model;
+
+import com.example.farmSimulation.config.SaveConfig;
+import com.example.farmSimulation.config.WorldConfig;
+import com.example.farmSimulation.model.FarmWorldGenerator.Layout;
+import com.example.farmSimulation.model.FarmWorldGenerator.World;
+import com.example.farmSimulation.model.GameSaveState.SavedAnimal;
+import com.example.farmSimulation.model.GameSaveState.SavedTileData;
+import com.example.farmSimulation.model.WorldStateHash.Component;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Kiểm tra lệch trạng thái (không cần giao diện): chạy song song hai bản sao của cùng một nông trại (FarmWorldGenerator,
+ * cùng seed), mỗi bản một "động cơ" mô phỏng, cùng đồng hồ GameClock bước cố định, cùng người chơi đi tuần và cùng
+ * người làm vườn như FarmSoakTest (FarmWorldGenerator.patrolTile / tendCrops / tendAnimals). Sau mỗi CHECK_INTERVAL_TICKS tick, mã băm từng thành phần (WorldStateHash.components,
+ * ô đất lấy từ WorldHashTracker tăng dần theo chunk) của hai bản được so sánh.
+ *
+ * - Động cơ tham chiếu (REFERENCE): đường tuần tự đơn giản nhất, mọi chunk nằm nguyên trong bộ nhớ.
+ * - Động cơ tối ưu (mặc định CHUNK_PAGING): cùng các bước nhưng gỡ chunk ra vùng lưu tạm và tải lại (ChunkResidencyManager).
+ *
+ * Lệch lần đầu: in tick, thời điểm, thành phần bị lệch; nếu là ô đất thì in các chunk lệch đầu tiên (theo region rồi chunk)
+ * và từng ô khác nhau trong chunk đầu tiên, rồi kiểm thử thất bại. Cuối bài, mã băm tăng dần của mỗi bản được đối chiếu với
+ * băm lại từ đầu (WorldHashTracker.verify) để bắt chỗ sửa ô mà không markDirty.
+ *
+ * Chạy: ./gradlew test --tests '*StateDivergenceTest'
+ * (bài dài: -Pfarm.divergence.minutes=60 -Pfarm.divergence.layout=large -Pfarm.divergence.engine=chunk_paging)
+ */
+class StateDivergenceTest {
+    private static final double DEFAULT_MINUTES = 5.0;
+    private static final String DEFAULT_LAYOUT = "small";
+    private static final long FRAME_NANOS = 16_666_667L;            // 60 FPS
+    private static final double WALK_SPEED_TILES_PER_SECOND = 4.0;
+    private static final double CARE_INTERVAL_SECONDS = 60.0;
+    private static final double FEED_INTERVAL_SECONDS = 5.0;
+    private static final double JOURNAL_INTERVAL_SECONDS = SaveConfig.JOURNAL_FLUSH_INTERVAL_SECONDS;
+    private static final int CHECK_INTERVAL_TICKS = 1;               // So sánh mỗi tick để chỉ ra đúng tick lệch đầu tiên
+    private static final int MAX_REPORTED_CHUNKS = 5;
+    private static final int MAX_REPORTED_TILES = 10;
+    private static final long SEED = 13L;
+
+    /**
+     * Cách chạy một tick. Mọi động cơ chạy cùng các bước của GameManager.updateGameLogic, chỉ khác cách tổ chức công việc.
+     */
+    enum Engine {
+        REFERENCE("every chunk stays in memory") {
+            @Override
+            void tick(World world, Player player, long now, double x, double y) {
+                world.treeManager.requestGenerationAround(x, y);
+                world.scheduler.runFrame(now);
+                world.animalManager.updateAnimals(now, player);
+                world.weatherManager.updateWeather(now);
+            }
+        },
+        CHUNK_PAGING("idle chunks are paged out and reloaded on demand") {
+            @Override
+            void tick(World world, Player player, long now, double x, double y) {
+                world.treeManager.requestGenerationAround(x, y);
+                world.scheduler.runFrame(now);
+                world.animalManager.updateAnimals(now, player);
+                world.chunkResidencyManager.update(now, x, y);
+                world.weatherManager.updateWeather(now);
+            }
+        };
+
+        final String description;
+
+        Engine(String description) {
+            this.description = description;
+        }
+
+        abstract void tick(World world, Player player, long now, double x, double y);
+
+        static Engine parse(String name) {
+            return valueOf(name.toUpperCase(Locale.ROOT).replace('-', '_'));
+        }
+    }
+
+    /**
+     * Một bản sao nông trại chạy bằng một động cơ.
+     */
+    private static final class Run {
+        final Engine engine;
+        final World world;
+        final WorldHashTracker tracker;
+        final Player player = new Player();
+        final int targetAnimals;
+        int lastStartCol = Integer.MIN_VALUE, lastStartRow = Integer.MIN_VALUE;
+
+        Run(Engine engine, Layout layout, long now) {
+            this.engine = engine;
+            this.world = FarmWorldGenerator.generate(layout, SEED, now);
+            this.targetAnimals = world.animals;
+            this.tracker = new WorldHashTracker(world.worldMap);
+            world.worldMap.setHashTracker(tracker);
+            tracker.rebuild();
+        }
+
+        void tick(long now, double tileX, double tileY) {
+            double x = tileX * WorldConfig.TILE_SIZE;
+            double y = tileY * WorldConfig.TILE_SIZE;
+            player.setTileX(x);
+            player.setTileY(y);
+            engine.tick(world, player, now, x, y);
+
+            // Đọc lại các ô trên màn hình khi khung nhìn dịch sang ô khác, như WorldRenderer
+            int startCol = (int) Math.floor(tileX) - WorldConfig.NUM_COLS_ON_SCREEN / 2;
+            int startRow = (int) Math.floor(tileY) - WorldConfig.NUM_ROWS_ON_SCREEN / 2;
+            if (startCol != lastStartCol || startRow != lastStartRow) {
+                lastStartCol = startCol;
+                lastStartRow = startRow;
+                for (int r = 0; r < WorldConfig.NUM_ROWS_ON_SCREEN; r++) {
+                    for (int c = 0; c < WorldConfig.NUM_COLS_ON_SCREEN; c++) {
+                        world.worldMap.getTileData(startCol + c, startRow + r);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Phần trạng thái toàn cục mà nông trại giả lập có (vật nuôi, thời gian, thời tiết); người chơi / kho đồ / cửa hàng
+         * không được mô phỏng ở đây nên băm ra giá trị cố định như nhau ở cả hai bản.
+         */
+        GameSaveState captureGlobalState() {
+            GameSaveState state = new GameSaveState();
+            state.simulationTime = SimulationClock.now();
+            for (Animal animal : world.animalManager.getAnimalsView()) {
+                state.animals.add(AnimalManager.snapshotAnimal(animal));
+            }
+            state.currentWeather = world.weatherManager.getCurrentWeather();
+            return state;
+        }
+
+        long[] components() {
+            return WorldStateHash.components(captureGlobalState(), tracker);
+        }
+    }
+
+    @Test
+    void optimizedEngineMatchesReferenceOnEveryTick() {
+        double minutes = Double.parseDouble(System.getProperty("farm.divergence.minutes", String.valueOf(DEFAULT_MINUTES)));
+        Layout layout = Layout.parse(System.getProperty("farm.divergence.layout", DEFAULT_LAYOUT));
+        Engine optimized = Engine.parse(System.getProperty("farm.divergence.engine", Engine.CHUNK_PAGING.name()));
+
+        GameClock.startFixedTimestep(System.nanoTime(), System.currentTimeMillis());
+        try {
+            run(minutes, layout, optimized);
+        } finally {
+            GameClock.useSystemTime();
+        }
+    }
+
+    private static void run(double minutes, Layout layout, Engine optimized) {
+        long totalTicks = (long) (minutes * 60 * 1_000_000_000L / FRAME_NANOS);
+        long now = GameClock.nanoTime();
+        Run reference = new Run(Engine.REFERENCE, layout, now);
+        Run candidate = new Run(optimized, layout, now);
+        System.out.printf("=== State divergence check: %.1f simulated minutes, %d ticks ===%n", minutes, totalTicks);
+        System.out.printf("Layout %s%n", layout);
+        System.out.printf("Reference: %s (%s)%n", reference.engine, reference.engine.description);
+        System.out.printf("Candidate: %s (%s)%n", candidate.engine, candidate.engine.description);
+        if (optimized == Engine.CHUNK_PAGING && !SaveConfig.CHUNK_EVICTION_ENABLED) {
+            System.out.println("Note: CHUNK_EVICTION_ENABLED is off, both engines run the same steps.");
+        }
+
+        long[] referenceHashes = reference.components();
+        long[] candidateHashes = candidate.components();
+        if (WorldStateHash.firstDifference(referenceHashes, candidateHashes) != null) {
+            reportDivergence(0, reference, candidate, referenceHashes, candidateHashes);
+            fail("The two copies differ before the first tick.");
+        }
+
+        double patrolPosition = 0;
+        double step = WALK_SPEED_TILES_PER_SECOND * FRAME_NANOS / 1e9;
+        long startTime = now;
+        long nextCare = startTime + seconds(CARE_INTERVAL_SECONDS);
+        long nextFeed = startTime + seconds(FEED_INTERVAL_SECONDS);
+        long nextJournal = startTime + seconds(JOURNAL_INTERVAL_SECONDS);
+        long checks = 0;
+        long hashNanos = 0;
+        long wallStart = System.nanoTime();
+
+        for (long tick = 1; tick <= totalTicks; tick++) {
+            GameClock.advance(FRAME_NANOS);
+            now = GameClock.nanoTime();
+            patrolPosition += step;
+            double[] tile = FarmWorldGenerator.patrolTile(layout, patrolPosition);
+
+            for (Run run : new Run[] {reference, candidate}) {
+                run.tick(now, tile[0], tile[1]);
+                // Cùng người làm vườn, cùng thời điểm (không tính là một phần của động cơ)
+                if (now >= nextCare) FarmWorldGenerator.tendCrops(run.world, now);
+                if (now >= nextFeed) FarmWorldGenerator.tendAnimals(run.world, run.targetAnimals);
+                if (now >= nextJournal) run.world.worldMap.drainDirtyTiles(); // SaveService làm việc này trong game
+            }
+            if (now >= nextCare) nextCare = now + seconds(CARE_INTERVAL_SECONDS);
+            if (now >= nextFeed) nextFeed = now + seconds(FEED_INTERVAL_SECONDS);
+            if (now >= nextJournal) nextJournal = now + seconds(JOURNAL_INTERVAL_SECONDS);
+
+            if (tick % CHECK_INTERVAL_TICKS == 0 || tick == totalTicks) {
+                long hashStart = System.nanoTime();
+                referenceHashes = reference.components();
+                candidateHashes = candidate.components();
+                hashNanos += System.nanoTime() - hashStart;
+                checks++;
+                if (WorldStateHash.firstDifference(referenceHashes, candidateHashes) != null) {
+                    reportDivergence(tick, reference, candidate, referenceHashes, candidateHashes);
+                    fail("Engines diverged at tick " + tick + " (see the report above).");
+                }
+            }
+        }
+
+        System.out.printf("Wall time: %.1f s, %d checks, %.3f ms per check (both copies)%n",
+                (System.nanoTime() - wallStart) / 1e9, checks, checks > 0 ? hashNanos / 1e6 / checks : 0);
+        System.out.printf("Candidate paged out %d chunks, reloaded %d; %d chunks resident vs %d in the reference%n",
+                candidate.world.chunkResidencyManager.getEvictedChunks(), candidate.world.chunkResidencyManager.getReloadedChunks(),
+                candidate.world.worldMap.getResidentChunkCount(), reference.world.worldMap.getResidentChunkCount());
+        System.out.printf("Final root hash %s (%d hashed chunks)%n",
+                WorldStateHash.toHex(WorldStateHash.combine(referenceHashes)), reference.tracker.getHashedChunkCount());
+
+        boolean ok = verify(reference) & verify(candidate);
+        assertTrue(ok, "Incremental hashes missed tile changes (see above).");
+    }
+
+    // ==============================================================================================
+    // BÁO CÁO
+    // ==============================================================================================
+
+    private static void reportDivergence(long tick, Run reference, Run candidate, long[] referenceHashes, long[] candidateHashes) {
+        double seconds = tick * FRAME_NANOS / 1e9;
+        System.out.printf("%nDIVERGED at tick %d (%.2f s of game time)%n", tick, seconds);
+        for (Component component : Component.values()) {
+            long a = referenceHashes[component.ordinal()];
+            long b = candidateHashes[component.ordinal()];
+            if (a != b) {
+                System.out.printf("  %-10s reference %s, candidate %s%n", component,
+                        WorldStateHash.toHex(a), WorldStateHash.toHex(b));
+            }
+        }
+
+        Component first = WorldStateHash.firstDifference(referenceHashes, candidateHashes);
+        if (first == Component.TILES) {
+            List<int[]> chunks = reference.tracker.findDifferentChunks(candidate.tracker, MAX_REPORTED_CHUNKS);
+            for (int[] chunk : chunks) {
+                System.out.printf("  Chunk (%d, %d) differs (tiles %d..%d, %d..%d)%n", chunk[0], chunk[1],
+                        chunk[0] * SaveConfig.SAVE_CHUNK_SIZE, (chunk[0] + 1) * SaveConfig.SAVE_CHUNK_SIZE - 1,
+                        chunk[1] * SaveConfig.SAVE_CHUNK_SIZE, (chunk[1] + 1) * SaveConfig.SAVE_CHUNK_SIZE - 1);
+            }
+            if (!chunks.isEmpty()) reportTiles(chunks.get(0), reference, candidate);
+        } else if (first == Component.ANIMALS) {
+            List<Animal> a = reference.world.animalManager.getAnimalsView();
+            List<Animal> b = candidate.world.animalManager.getAnimalsView();
+            System.out.printf("  Animals: reference %d, candidate %d%n", a.size(), b.size());
+            for (int i = 0; i < Math.min(a.size(), b.size()); i++) {
+                String sa = describe(AnimalManager.snapshotAnimal(a.get(i)));
+                String sb = describe(AnimalManager.snapshotAnimal(b.get(i)));
+                if (!sa.equals(sb)) {
+                    System.out.printf("  First differing animal #%d:%n    reference %s%n    candidate %s%n", i, sa, sb);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * In các ô khác nhau trong một chunk (tải lại chunk nếu bản tối ưu đã gỡ nó - chỉ làm khi đã lệch).
+     */
+    private static void reportTiles(int[] chunk, Run reference, Run candidate) {
+        int size = SaveConfig.SAVE_CHUNK_SIZE;
+        int reported = 0;
+        for (int row = chunk[1] * size; row < (chunk[1] + 1) * size; row++) {
+            for (int col = chunk[0] * size; col < (chunk[0] + 1) * size; col++) {
+                String a = describe(reference.world.worldMap, col, row);
+                String b = describe(candidate.world.worldMap, col, row);
+                if (a.equals(b)) continue;
+                System.out.printf("  Tile (%d, %d):%n    reference %s%n    candidate %s%n", col, row, a, b);
+                if (++reported >= MAX_REPORTED_TILES) return;
+            }
+        }
+    }
+
+    private static String describe(WorldMap worldMap, int col, int row) {
+        TileData data = worldMap.getTileData(col, row);
+        if (WorldMap.isDefaultTile(data)) return "grass";
+        SavedTileData t = WorldMap.snapshotTile(col, row, data);
+        StringBuilder sb = new StringBuilder(String.valueOf(t.baseType));
+        if (t.isWatered) sb.append(" watered@").append(t.lastWateredTime);
+        if (t.isFertilized) sb.append(" fertilized@").append(t.fertilizerStartTime);
+        if (t.dryStartTime != 0) sb.append(" dry@").append(t.dryStartTime);
+        if (t.hasCrop) sb.append(" crop=").append(t.cropType).append('/').append(t.cropStage).append(" planted@").append(t.cropPlantTime);
+        if (t.hasTree) sb.append(" tree=").append(t.treeStage).append(" chops=").append(t.treeChopCount)
+                .append(" chopped@").append(t.treeLastChopTime).append(" regrow@").append(t.treeRegrowStartTime);
+        if (t.hasFence) sb.append(t.fenceIsOpen ? " gate" : " fence");
+        if (t.hasGroundItem) sb.append(" item=").append(t.groundItemType).append('x').append(t.groundItemAmount);
+        return sb.toString();
+    }
+
+    private static String describe(SavedAnimal a) {
+        return String.format(Locale.ROOT, "%s at (%.2f, %.2f) age=%d hunger=%.3f product=%b", a.type, a.x, a.y, a.age, a.hunger, a.hasProduct);
+    }
+
+    /**
+     * Băm lại từ đầu các chunk trong bộ nhớ và đối chiếu với mã băm tăng dần.
+     */
+    private static boolean verify(Run run) {
+        List<int[]> mismatched = run.tracker.verify();
+        if (mismatched.isEmpty()) {
+            System.out.printf("%s: incremental tile hash matches a full rehash of %d resident chunks%n",
+                    run.engine, run.world.worldMap.getResidentChunkCount());
+            return true;
+        }
+        System.out.printf("%s: %d chunks changed without markDirty, first at (%d, %d)%n",
+                run.engine, mismatched.size(), mismatched.get(0)[0], mismatched.get(0)[1]);
+        return false;
+    }
+
+    private static long seconds(double value) {
+        return (long) (value * 1_000_000_000L);
+    }
+}
@@ -0,0 +1,301 @@
+package com.example.farmSimulation.model;
+
+import com.example.farmSimulation.config.TreeConfig;
+import com.example.farmSimulation.config.WorldConfig;
+
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Dựng một nông trại lớn trực tiếp trong các model đang chạy (WorldMap, CropManager, AnimalManager, FenceManager...),
+ * qua đúng các API mà game dùng khi người chơi cuốc đất, gieo hạt, dựng hàng rào và thả vật nuôi.
+ * Khác với SyntheticFarm (chỉ tạo GameSaveState để đo lưu / tải), thế giới tạo ra ở đây chạy được ngay mỗi tick.
+ * Chỉ dùng trong kiểm thử (test fixtures), không nằm trong bản build của game.
+ *
+ * Bố cục: vùng hình chữ nhật quanh gốc tọa độ; mỗi ô (không phải hàng rào) là cây trồng với xác suất cropDensity,
+ * nếu không thì là cây với xác suất treeDensity, còn lại là cỏ. Hàng rào theo FenceLayout; mỗi đàn vật nuôi
+ * cùng loại được thả quanh một điểm (tâm một bãi chăn khi có PADDOCKS).
+ */
+public class FarmWorldGenerator {
+    private static final int PADDOCK_SIZE = 12;              // Cạnh một bãi chăn (ô), tính cả hàng rào
+    private static final double HERD_SPREAD_TILES = 3.0;      // Bán kính thả một đàn quanh tâm
+    private static final int PATROL_INSET_TILES = 3;          // Đường tuần cách mép nông trại
+    private static final AnimalType[] HERD_TYPES = {AnimalType.COW, AnimalType.PIG, AnimalType.SHEEP, AnimalType.CHICKEN};
+
+    /**
+     * Kiểu bố trí hàng rào.
+     */
+    public enum FenceLayout {
+        NONE,       // Không có hàng rào
+        PERIMETER,  // Một vòng hàng rào bao quanh nông trại
+        PADDOCKS    // Vòng ngoài và lưới bãi chăn PADDOCK_SIZE x PADDOCK_SIZE, mỗi đoạn có một cổng mở
+    }
+
+    /**
+     * Tham số của một nông trại. Có thể viết gọn "tên:rộng:cao:mật độ cây trồng:hàng rào:số đàn:số con mỗi đàn:mật độ cây"
+     * (vd: "custom:400:300:0.3:PADDOCKS:40:6:0.05").
+     */
+    public static class Layout {
+        public static final Layout SMALL = new Layout("small", 100, 100, 0.25, FenceLayout.PADDOCKS, 4, 5, 0.03);
+        public static final Layout MEDIUM = new Layout("medium", 300, 300, 0.25, FenceLayout.PADDOCKS, 15, 6, 0.03);
+        public static final Layout LARGE = new Layout("large", 700, 700, 0.25, FenceLayout.PADDOCKS, 40, 6, 0.03);
+        public static final Layout HUGE = new Layout("huge", 1400, 1400, 0.25, FenceLayout.PADDOCKS, 80, 6, 0.03);
+        public static final List<Layout> PRESETS = List.of(SMALL, MEDIUM, LARGE, HUGE);
+
+        public final String name;
+        public final int width;             // Số cột của nông trại
+        public final int height;            // Số hàng của nông trại
+        public final double cropDensity;    // Tỉ lệ ô có cây trồng (0..1)
+        public final FenceLayout fences;
+        public final int herds;             // Số đàn vật nuôi
+        public final int herdSize;          // Số con mỗi đàn
+        public final double treeDensity;    // Tỉ lệ ô còn lại có cây (0..1)
+
+        public Layout(String name, int width, int height, double cropDensity, FenceLayout fences,
+                      int herds, int herdSize, double treeDensity) {
+            this.name = name;
+            this.width = width;
+            this.height = height;
+            this.cropDensity = cropDensity;
+            this.fences = fences;
+            this.herds = herds;
+            this.herdSize = herdSize;
+            this.treeDensity = treeDensity;
+        }
+
+        public long area() {
+            return (long) width * height;
+        }
+
+        /**
+         * Bố cục dựng sẵn theo tên, hoặc bố cục viết gọn.
+         */
+        public static Layout parse(String spec) {
+            for (Layout preset : PRESETS) {
+                if (preset.name.equalsIgnoreCase(spec)) return preset;
+            }
+            String[] parts = spec.split(":");
+            if (parts.length != 8) {
+                throw new IllegalArgumentException("Unknown farm layout '" + spec
+                        + "' (expected a preset or name:width:height:cropDensity:fences:herds:herdSize:treeDensity)");
+            }
+            return new Layout(parts[0], Integer.parseInt(parts[1]), Integer.parseInt(parts[2]), Double.parseDouble(parts[3]),
+                    FenceLayout.valueOf(parts[4].toUpperCase()), Integer.parseInt(parts[5]), Integer.parseInt(parts[6]),
+                    Double.parseDouble(parts[7]));
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %dx%d tiles, crops %.0f%%, fences %s, %d herds x %d, trees %.0f%%",
+                    name, width, height, cropDensity * 100, fences, herds, herdSize, treeDensity * 100);
+        }
+    }
+
+    /**
+     * Thế giới không giao diện cùng các Manager chạy mỗi frame (nối với nhau như trong GameManager).
+     */
+    public static class World {
+        public final WorldMap worldMap = new WorldMap();
+        public final CollisionManager collisionManager = new CollisionManager(worldMap);
+        public final CropManager cropManager = new CropManager(worldMap);
+        public final TreeManager treeManager = new TreeManager(worldMap);
+        public final FenceManager fenceManager = new FenceManager(worldMap);
+        public final AnimalManager animalManager = new AnimalManager(worldMap, collisionManager);
+        public final WeatherManager weatherManager = new WeatherManager();
+        public final ChunkResidencyManager chunkResidencyManager = new ChunkResidencyManager(worldMap, treeManager);
+        public final FrameScheduler scheduler = new FrameScheduler(); // Cùng các công việc, cùng độ ưu tiên như GameManager
+
+        // --- Số lượng đã dựng ---
+        public int crops;
+        public int trees;
+        public int fences;
+        public int animals;
+
+        World(long seed) {
+            WorldRandom random = new WorldRandom(seed, 0);
+            treeManager.setWorldSeed(random.worldSeedOf(WorldRandom.Stream.TREES));
+            animalManager.setWorldRandom(random);
+            weatherManager.setRandom(random.stream(WorldRandom.Stream.WEATHER));
+            cropManager.setWeatherManager(weatherManager);
+            chunkResidencyManager.setAnimalManager(animalManager);
+            chunkResidencyManager.reset(null);
+            worldMap.setChunkLoadListener(fenceManager::requestChunkRecompute);
+            scheduler.register("animals", FrameScheduler.Priority.HIGH, animalManager.getLogicJob());
+            scheduler.register("fences", FrameScheduler.Priority.HIGH, fenceManager.getRecomputeJob());
+            scheduler.register("crops", FrameScheduler.Priority.NORMAL, cropManager.getUpdateJob());
+            scheduler.register("tree_generation", FrameScheduler.Priority.NORMAL, treeManager.getGenerationJob());
+            scheduler.register("trees", FrameScheduler.Priority.LOW, treeManager.getGrowthJob());
+        }
+    }
+
+    private FarmWorldGenerator() {}
+
+    /**
+     * Dựng nông trại theo bố cục. Cùng seed luôn cho cùng nông trại.
+     *
+     * @param now Mốc thời gian (GameClock.nanoTime()) dùng làm thời điểm gieo hạt / tưới nước
+     */
+    public static World generate(Layout layout, long seed, long now) {
+        World world = new World(seed);
+        SplittableRandom random = new SplittableRandom(seed);
+        CropType[] cropTypes = CropType.values();
+        int minCol = -layout.width / 2;
+        int minRow = -layout.height / 2;
+
+        for (int r = 0; r < layout.height; r++) {
+            for (int c = 0; c < layout.width; c++) {
+                int col = minCol + c;
+                int row = minRow + r;
+                if (isFence(layout, c, r)) {
+                    world.worldMap.setTileData(col, row, fence(isGate(layout, c, r)));
+                    world.fences++;
+                } else if (random.nextDouble() < layout.cropDensity) {
+                    world.worldMap.setTileData(col, row, crop(cropTypes[random.nextInt(cropTypes.length)], now));
+                    world.crops++;
+                } else if (random.nextDouble() < layout.treeDensity) {
+                    world.worldMap.setTileData(col, row, tree(random.nextInt(TreeConfig.TREE_MAX_GROWTH_STAGE + 1), now));
+                    world.trees++;
+                } else {
+                    world.worldMap.getTileData(col, row); // Ô cỏ đã khám phá
+                }
+            }
+        }
+        world.fenceManager.updateAllFencePatterns();
+
+        for (int h = 0; h < layout.herds; h++) {
+            AnimalType type = HERD_TYPES[h % HERD_TYPES.length];
+            double centerCol, centerRow;
+            if (layout.fences == FenceLayout.PADDOCKS) {
+                // Tâm một bãi chăn ngẫu nhiên
+                int paddocksX = Math.max(1, layout.width / PADDOCK_SIZE);
+                int paddocksY = Math.max(1, layout.height / PADDOCK_SIZE);
+                centerCol = minCol + random.nextInt(paddocksX) * PADDOCK_SIZE + PADDOCK_SIZE / 2.0;
+                centerRow = minRow + random.nextInt(paddocksY) * PADDOCK_SIZE + PADDOCK_SIZE / 2.0;
+            } else {
+                centerCol = minCol + 2 + random.nextDouble() * Math.max(1, layout.width - 4);
+                centerRow = minRow + 2 + random.nextDouble() * Math.max(1, layout.height - 4);
+            }
+            for (int i = 0; i < layout.herdSize; i++) {
+                double x = (centerCol + (random.nextDouble() - 0.5) * 2 * HERD_SPREAD_TILES) * WorldConfig.TILE_SIZE;
+                double y = (centerRow + (random.nextDouble() - 0.5) * 2 * HERD_SPREAD_TILES) * WorldConfig.TILE_SIZE;
+                world.animalManager.addAnimal(new Animal(type, x, y));
+                world.animals++;
+            }
+        }
+
+        world.worldMap.clearDirtyTiles(); // Nông trại vừa dựng coi như đã được lưu
+        return world;
+    }
+
+    // ==============================================================================================
+    // NGƯỜI CHƠI GIẢ LẬP (dùng chung cho FarmSoakTest và StateDivergenceTest)
+    // ==============================================================================================
+
+    /**
+     * Vị trí (ô, số thực) trên đường tuần hình chữ nhật cách mép nông trại PATROL_INSET_TILES ô.
+     */
+    public static double[] patrolTile(Layout layout, double distance) {
+        double minCol = -layout.width / 2 + PATROL_INSET_TILES;
+        double minRow = -layout.height / 2 + PATROL_INSET_TILES;
+        double w = Math.max(1, layout.width - 2 * PATROL_INSET_TILES);
+        double h = Math.max(1, layout.height - 2 * PATROL_INSET_TILES);
+        double d = distance % (2 * (w + h));
+        if (d < w) return new double[] {minCol + d, minRow};
+        d -= w;
+        if (d < h) return new double[] {minCol + w, minRow + d};
+        d -= h;
+        if (d < w) return new double[] {minCol + w - d, minRow + h};
+        d -= w;
+        return new double[] {minCol, minRow + h - d};
+    }
+
+    /**
+     * Chăm sóc ruộng như một người chơi chăm chỉ: tưới đất khô có cây, thu hoạch và gieo lại cây đã chín / đã chết.
+     */
+    public static void tendCrops(World world, long now) {
+        for (Map.Entry<Long, TileData> entry : world.worldMap.getTileDataMap().entrySet()) {
+            TileData data = entry.getValue();
+            CropData crop = data.getCropData();
+            if (crop == null) continue;
+            boolean changed = false;
+            if (crop.getGrowthStage() == -1 || crop.getGrowthStage() >= crop.getType().getMaxStages() - 1) {
+                data.setCropData(new CropData(crop.getType(), 0, now));
+                changed = true;
+            }
+            if (data.getBaseTileType() == Tile.SOIL) {
+                data.setBaseTileType(Tile.SOIL_WET);
+                data.setWatered(true);
+                data.setLastWateredTime(now);
+                data.setDryStartTime(0);
+                changed = true;
+            }
+            if (changed) world.worldMap.markDirty(entry.getKey());
+        }
+    }
+
+    /**
+     * Cho vật nuôi đói ăn, thu sản phẩm, nhặt trứng và bán bớt vật nuôi vượt quá quy mô ban đầu
+     * (qua cùng các hàm AnimalManager mà InteractionManager gọi khi người chơi tương tác).
+     */
+    public static void tendAnimals(World world, int targetAnimals) {
+        AnimalManager animalManager = world.animalManager;
+        List<Animal> animals = animalManager.getAnimals(); // Bản sao, xóa qua removeAnimal
+        int kept = 0;
+        for (Animal animal : animals) {
+            if (animal.getType() == AnimalType.EGG_ENTITY || kept >= targetAnimals) {
+                animalManager.removeAnimal(animal); // Con sinh sau cùng được bán đi
+                continue;
+            }
+            kept++;
+            if (animal.isHungry()) animalManager.feedAnimal(animal);
+            if (animal.isHasProduct()) animalManager.harvestProduct(animal);
+        }
+    }
+
+    // --- Các ô được dựng như khi người chơi tự làm (xem InteractionManager) ---
+
+    /**
+     * Ô đất đã cuốc, vừa gieo hạt và tưới nước.
+     */
+    static TileData crop(CropType type, long now) {
+        TileData data = new TileData(Tile.SOIL_WET);
+        data.setWatered(true);
+        data.setLastWateredTime(now);
+        data.setCropData(new CropData(type, 0, now));
+        return data;
+    }
+
+    static TileData tree(int stage, long now) {
+        TileData data = new TileData(Tile.TREE);
+        TreeData tree = new TreeData(stage);
+        tree.setLastChopTime(now - stage * TreeConfig.TIME_PER_GROWTH_STAGE_MS * 1_000_000L);
+        tree.setRegrowStartTime(0);
+        data.setTreeData(tree);
+        return data;
+    }
+
+    static TileData fence(boolean open) {
+        TileData data = new TileData(Tile.FENCE);
+        data.setFenceData(new FenceData(open));
+        return data;
+    }
+
+    private static boolean isFence(Layout layout, int c, int r) {
+        boolean edge = c == 0 || r == 0 || c == layout.width - 1 || r == layout.height - 1;
+        return switch (layout.fences) {
+            case NONE -> false;
+            case PERIMETER -> edge;
+            case PADDOCKS -> edge || c % PADDOCK_SIZE == 0 || r % PADDOCK_SIZE == 0;
+        };
+    }
+
+    /**
+     * Cổng (hàng rào mở) ở giữa mỗi đoạn hàng rào bên trong, để vật nuôi và người chơi đi qua được.
+     */
+    private static boolean isGate(Layout layout, int c, int r) {
+        if (layout.fences != FenceLayout.PADDOCKS) return false;
+        boolean edge = c == 0 || r == 0 || c == layout.width - 1 || r == layout.height - 1;
+        return !edge && (c % PADDOCK_SIZE == PADDOCK_SIZE / 2 || r % PADDOCK_SIZE == PADDOCK_SIZE / 2);
+    }
+}
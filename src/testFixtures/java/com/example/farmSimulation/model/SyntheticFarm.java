@@ -0,0 +1,156 @@
+package com.example.farmSimulation.model;
+
+import com.example.farmSimulation.config.TreeConfig;
+import com.example.farmSimulation.config.WorldConfig;
+import com.example.farmSimulation.model.GameSaveState.SavedAnimal;
+import com.example.farmSimulation.model.GameSaveState.SavedItemStack;
+import com.example.farmSimulation.model.GameSaveState.SavedTileData;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Quy mô của một nông trại giả lập dùng cho các công cụ đo: số ô đã khám phá (cỏ) và số lượng từng loại đối tượng.
+ * Mỗi đối tượng nằm trên một ô riêng trong vùng vuông chứa các ô đã khám phá.
+ *
+ * Có thể viết gọn dưới dạng "tên:ô đã khám phá:cây trồng:hàng rào:cây:động vật:vật phẩm rơi"
+ * (vd: "custom:200000:10000:2000:5000:50:1000").
+ */
+public class SyntheticFarm {
+    // --- Các quy mô dựng sẵn ---
+    public static final SyntheticFarm SMALL = new SyntheticFarm("small", 10_000, 500, 200, 300, 10, 50);
+    public static final SyntheticFarm MEDIUM = new SyntheticFarm("medium", 100_000, 5_000, 1_500, 3_000, 40, 500);
+    public static final SyntheticFarm LARGE = new SyntheticFarm("large", 500_000, 25_000, 6_000, 15_000, 120, 2_500);
+    public static final SyntheticFarm HUGE = new SyntheticFarm("huge", 2_000_000, 100_000, 20_000, 60_000, 300, 10_000);
+    public static final List<SyntheticFarm> PRESETS = List.of(SMALL, MEDIUM, LARGE, HUGE);
+
+    public final String name;
+    public final int exploredTiles;
+    public final int crops;
+    public final int fences;
+    public final int trees;
+    public final int animals;
+    public final int groundItems;
+
+    public SyntheticFarm(String name, int exploredTiles, int crops, int fences, int trees, int animals, int groundItems) {
+        this.name = name;
+        this.crops = crops;
+        this.fences = fences;
+        this.trees = trees;
+        this.animals = animals;
+        this.groundItems = groundItems;
+        // Vùng khám phá luôn đủ chỗ cho mọi đối tượng
+        this.exploredTiles = Math.max(exploredTiles, crops + fences + trees + groundItems);
+    }
+
+    /**
+     * Quy mô dựng sẵn theo tên, hoặc quy mô viết gọn "tên:ô:cây trồng:hàng rào:cây:động vật:vật phẩm".
+     */
+    public static SyntheticFarm parse(String spec) {
+        for (SyntheticFarm preset : PRESETS) {
+            if (preset.name.equalsIgnoreCase(spec)) return preset;
+        }
+        String[] parts = spec.split(":");
+        if (parts.length != 7) {
+            throw new IllegalArgumentException("Unknown farm size '" + spec + "' (expected a preset or name:tiles:crops:fences:trees:animals:items)");
+        }
+        return new SyntheticFarm(parts[0], Integer.parseInt(parts[1]), Integer.parseInt(parts[2]), Integer.parseInt(parts[3]),
+                Integer.parseInt(parts[4]), Integer.parseInt(parts[5]), Integer.parseInt(parts[6]));
+    }
+
+    /**
+     * Tạo trạng thái game theo quy mô này. Cùng seed luôn cho cùng kết quả.
+     */
+    public GameSaveState generate(long seed) {
+        Random random = new Random(seed);
+        GameSaveState state = new GameSaveState();
+        state.playerName = "Benchmark";
+        state.playerMoney = 12_345;
+        state.playerLevel = 7;
+        state.playerStamina = 80;
+        state.currentDay = 12;
+        state.currentDaySeconds = 300;
+
+        ItemType[] items = ItemType.values();
+        for (int i = 0; i < 10; i++) {
+            state.inventory.add(i % 3 == 2 ? null : new SavedItemStack(items[random.nextInt(items.length)], 1 + random.nextInt(20), 0));
+        }
+
+        // --- Vùng đã khám phá: hình vuông quanh gốc tọa độ, đối tượng được rải vào các ô khác nhau ---
+        int width = (int) Math.ceil(Math.sqrt(exploredTiles));
+        int[] order = new int[exploredTiles];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        int objects = crops + fences + trees + groundItems;
+        for (int i = 0; i < objects; i++) { // Xáo trộn một phần (Fisher-Yates), chỉ cần objects vị trí đầu
+            int j = i + random.nextInt(order.length - i);
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+
+        CropType[] cropTypes = CropType.values();
+        int next = 0;
+        for (int i = 0; i < crops; i++) {
+            SavedTileData tile = tileAt(order[next++], width);
+            CropType crop = cropTypes[random.nextInt(cropTypes.length)];
+            tile.baseType = random.nextBoolean() ? Tile.SOIL : Tile.SOIL_WET;
+            tile.isWatered = tile.baseType == Tile.SOIL_WET;
+            if (tile.isWatered) tile.lastWateredTime = random.nextLong();
+            if (random.nextDouble() < 0.1) {
+                tile.isFertilized = true;
+                tile.fertilizerStartTime = random.nextLong();
+            }
+            tile.hasCrop = true;
+            tile.cropType = crop;
+            tile.cropStage = random.nextInt(crop.getMaxStages());
+            state.worldTiles.add(tile);
+        }
+        for (int i = 0; i < fences; i++) {
+            SavedTileData tile = tileAt(order[next++], width);
+            tile.baseType = Tile.FENCE;
+            tile.hasFence = true;
+            tile.fenceIsOpen = random.nextDouble() < 0.1;
+            state.worldTiles.add(tile);
+        }
+        for (int i = 0; i < trees; i++) {
+            SavedTileData tile = tileAt(order[next++], width);
+            tile.baseType = Tile.TREE;
+            tile.hasTree = true;
+            tile.treeStage = random.nextInt(TreeConfig.TREE_MAX_GROWTH_STAGE + 1);
+            tile.treeChopCount = random.nextDouble() < 0.05 ? 1 : 0;
+            state.worldTiles.add(tile);
+        }
+        for (int i = 0; i < groundItems; i++) {
+            SavedTileData tile = tileAt(order[next++], width);
+            tile.baseType = Tile.GRASS;
+            tile.hasGroundItem = true;
+            tile.groundItemType = items[random.nextInt(items.length)];
+            tile.groundItemAmount = 1 + random.nextInt(5);
+            tile.groundItemOffsetX = random.nextDouble() * WorldConfig.TILE_SIZE;
+            tile.groundItemOffsetY = random.nextDouble() * WorldConfig.TILE_SIZE;
+            state.worldTiles.add(tile);
+        }
+        // Phần còn lại là cỏ trống (ô đã đi qua, được tạo ra trong bản đồ khi người chơi nhìn thấy)
+        for (int i = next; i < exploredTiles; i++) {
+            SavedTileData tile = tileAt(order[i], width);
+            tile.baseType = Tile.GRASS;
+            state.worldTiles.add(tile);
+        }
+
+        AnimalType[] animalTypes = AnimalType.values();
+        double extent = width * WorldConfig.TILE_SIZE;
+        for (int i = 0; i < animals; i++) {
+            state.animals.add(new SavedAnimal(animalTypes[random.nextInt(animalTypes.length)],
+                    (random.nextDouble() - 0.5) * extent, (random.nextDouble() - 0.5) * extent,
+                    random.nextInt(5000), random.nextDouble() * 100));
+        }
+        return state;
+    }
+
+    private static SavedTileData tileAt(int index, int width) {
+        SavedTileData tile = new SavedTileData();
+        tile.col = index % width - width / 2;
+        tile.row = index / width - width / 2;
+        return tile;
+    }
+}